@@ -7,6 +7,9 @@ import java.util.Objects;
  */
 public class BWClient {
     private final BWEventListener eventListener;
+    private final FrameWatchdog frameWatchdog = new FrameWatchdog();
+    private final FrameScheduler frameScheduler = new FrameScheduler(frameWatchdog);
+    private final BotModules botModules = new BotModules();
     private EventHandler handler;
 
     public BWClient(final BWEventListener eventListener) {
@@ -21,6 +24,27 @@ public class BWClient {
         return handler == null ? null : handler.getGame();
     }
 
+    /**
+     * Get the {@link FrameWatchdog} measuring the time spent by the bot on each frame.
+     */
+    public FrameWatchdog getFrameWatchdog() {
+        return frameWatchdog;
+    }
+
+    /**
+     * Get the {@link FrameScheduler} running tasks across frames.
+     */
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+
+    /**
+     * Get the {@link BotModules} run in parallel on each frame.
+     */
+    public BotModules getBotModules() {
+        return botModules;
+    }
+
     public void startGame() {
         startGame(false);
     }
@@ -31,7 +55,7 @@ public class BWClient {
      * @param autoContinue automatically continue playing the next game(s). false by default
      */
     public void startGame(boolean autoContinue) {
-        Client client = new Client();
+        Client client = new Client(frameWatchdog, frameScheduler, botModules);
         client.reconnect();
         handler = new EventHandler(eventListener, client);
 
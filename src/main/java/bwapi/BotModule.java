@@ -0,0 +1,19 @@
+package bwapi;
+
+/**
+ * A part of a bot (scouting, macro, micro, ...) run on each frame by {@link BotModules},
+ * concurrently with the other modules.
+ */
+@FunctionalInterface
+public interface BotModule {
+    /**
+     * Called on each frame, after {@link BWEventListener#onFrame()}.<br>
+     * The game can be read from the thread of the module, but it is read-only until all the
+     * modules are done: a unit command, shape, text or other command sent from here throws an
+     * {@link IllegalStateException}. Add the commands to intents instead.
+     *
+     * @param game    The game.
+     * @param intents Collects the commands of the module for this frame.
+     */
+    void onFrame(Game game, ModuleIntents intents);
+}
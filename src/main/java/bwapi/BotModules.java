@@ -0,0 +1,184 @@
+package bwapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Runs the {@link BotModule}s of a bot on each frame, after {@link BWEventListener#onFrame()}:
+ * concurrently on a fork-join pool (the common pool unless another one is given with
+ * {@link #setForkJoinPool}), and on the thread of the frame loop.<br>
+ * The game is read-only while the modules run. Then their {@link ModuleIntents} are sent from the
+ * thread of the frame loop, in the same order whatever the threads did:
+ * <ul>
+ * <li>the unit commands, module by module by decreasing priority, then in the order of
+ * {@link #add}; a unit only takes the commands of the first module that commanded it on the
+ * frame, the ones of the other modules are dropped (Cf. {@link #getDroppedCommands()});</li>
+ * <li>then the deferred actions, in the same module order.</li>
+ * </ul>
+ * If a module throws, its intents are dropped, the ones of the other modules are sent, and the
+ * exception is rethrown into the frame loop.<br>
+ * The modules of a game are available from {@link BWClient#getBotModules()} and
+ * {@link Game#getBotModules()}; they are set up from the thread of the frame loop, e.g. in
+ * {@link BWEventListener#onStart()}.
+ */
+public final class BotModules {
+    private static final class Entry {
+        final String name;
+        final int priority;
+        final BotModule module;
+        final ModuleIntents intents = new ModuleIntents();
+        Throwable failure;
+
+        Entry(final String name, final int priority, final BotModule module) {
+            this.name = name;
+            this.priority = priority;
+            this.module = module;
+        }
+
+        void run(final Game game) {
+            intents.clear();
+            failure = null;
+            try {
+                module.onFrame(game, intents);
+            } catch (RuntimeException | Error e) {
+                intents.clear();
+                failure = e;
+            }
+        }
+    }
+
+    // By decreasing priority, then in the order they were added.
+    private final List<Entry> modules = new ArrayList<>();
+    private final Map<Unit, Entry> commandedUnits = new HashMap<>();
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+    private long droppedCommands;
+    private long rejectedCommands;
+
+    BotModules() {
+    }
+
+    /**
+     * Adds a module.
+     *
+     * @param name     The name of the module, unique among the modules.
+     * @param priority The unit commands of the modules of higher priority are sent first, and win
+     *                 over the ones of the other modules for the same unit.
+     * @param module   The module.
+     */
+    public void add(final String name, final int priority, final BotModule module) {
+        Objects.requireNonNull(module);
+        if (getNames().contains(name)) {
+            throw new IllegalArgumentException("There is already a module named " + name);
+        }
+        int index = 0;
+        while (index < modules.size() && modules.get(index).priority >= priority) {
+            ++index;
+        }
+        modules.add(index, new Entry(name, priority, module));
+    }
+
+    /**
+     * Removes the module of the given name, if any.
+     */
+    public void remove(final String name) {
+        modules.removeIf(entry -> entry.name.equals(name));
+    }
+
+    /**
+     * Retrieves the names of the modules, in the order their intents are sent.
+     */
+    public List<String> getNames() {
+        final List<String> names = new ArrayList<>();
+        for (final Entry entry : modules) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    /**
+     * Sets the pool running the modules (the common pool by default). If `null`, they all run on
+     * the thread of the frame loop, one after the other.
+     */
+    public void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Retrieves the number of unit commands dropped because a module of higher priority
+     * commanded the same unit on the same frame.
+     */
+    public long getDroppedCommands() {
+        return droppedCommands;
+    }
+
+    /**
+     * Retrieves the number of unit commands the unit could not execute when they were sent
+     * (Cf. {@link Unit#canIssueCommand}).
+     */
+    public long getRejectedCommands() {
+        return rejectedCommands;
+    }
+
+    // Runs the modules, then sends their intents.
+    void runFrame(final Game game) {
+        if (modules.isEmpty()) {
+            return;
+        }
+        final Client client = game.getClient();
+        client.setReadOnly(true);
+        try {
+            if (forkJoinPool == null || modules.size() == 1) {
+                for (final Entry entry : modules) {
+                    entry.run(game);
+                }
+            } else {
+                final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[modules.size()];
+                for (int i = 1; i < tasks.length; ++i) {
+                    final Entry entry = modules.get(i);
+                    tasks[i] = forkJoinPool.submit(() -> entry.run(game));
+                }
+                modules.get(0).run(game);
+                for (int i = 1; i < tasks.length; ++i) {
+                    tasks[i].join();
+                }
+            }
+        } finally {
+            client.setReadOnly(false);
+        }
+        sendIntents(game);
+        for (final Entry entry : modules) {
+            if (entry.failure instanceof RuntimeException) {
+                throw (RuntimeException) entry.failure;
+            }
+            if (entry.failure instanceof Error) {
+                throw (Error) entry.failure;
+            }
+        }
+    }
+
+    private void sendIntents(final Game game) {
+        commandedUnits.clear();
+        for (final Entry entry : modules) {
+            for (final UnitCommand command : entry.intents.unitCommands) {
+                final Entry commanding = commandedUnits.putIfAbsent(command.getUnit(), entry);
+                if (commanding != null && commanding != entry) {
+                    ++droppedCommands;
+                } else if (!command.getUnit().issueCommand(command)) {
+                    ++rejectedCommands;
+                }
+            }
+        }
+        for (final Entry entry : modules) {
+            for (final Consumer<Game> action : entry.intents.actions) {
+                action.accept(game);
+            }
+            entry.intents.clear();
+        }
+    }
+}
@@ -58,8 +58,17 @@ class Client {
     private RandomAccessFile pipeObjectHandle = null;
     private ByteBuffer mapFileHandle = null;
     private ByteBuffer gameTableFileHandle = null;
-
-    Client() {}
+    private final FrameWatchdog frameWatchdog;
+    private final FrameScheduler frameScheduler;
+    private final BotModules botModules;
+    // Set while the BotModules run.
+    private boolean readOnly = false;
+
+    Client(final FrameWatchdog frameWatchdog, final FrameScheduler frameScheduler, final BotModules botModules) {
+        this.frameWatchdog = frameWatchdog;
+        this.frameScheduler = frameScheduler;
+        this.botModules = botModules;
+    }
 
     /**
      * For test purposes only
@@ -67,6 +76,9 @@ class Client {
     Client(ByteBuffer buffer) {
         clientData = new ClientData(buffer);
         gameData = clientData.new GameData(0);
+        frameWatchdog = new FrameWatchdog();
+        frameScheduler = new FrameScheduler(frameWatchdog);
+        botModules = new BotModules();
     }
 
     ClientData clientData() {
@@ -77,6 +89,28 @@ class Client {
         return gameData;
     }
 
+    FrameWatchdog frameWatchdog() {
+        return frameWatchdog;
+    }
+
+    FrameScheduler frameScheduler() {
+        return frameScheduler;
+    }
+
+    BotModules botModules() {
+        return botModules;
+    }
+
+    void setReadOnly(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("The game is read-only while the bot modules run, use their intents");
+        }
+    }
+
     boolean isConnected() {
         return connected;
     }
@@ -216,6 +250,8 @@ class Client {
     }
 
     void update(final EventHandler handler) {
+        frameWatchdog.endFrame();
+        final JfrEvents.ServerWaitEvent wait = JfrEvents.beginServerWait();
         byte code = 1;
         try {
             pipeObjectHandle.writeByte(code);
@@ -235,9 +271,20 @@ class Client {
                 return;
             }
         }
+        frameWatchdog.startFrame();
+        JfrEvents.commitServerWait(wait, gameData.getFrameCount());
+        dispatchEvents(handler);
+    }
+
+    /**
+     * Passes the events written by the server for the current frame to handler.
+     */
+    void dispatchEvents(final EventHandler handler) {
+        final JfrEvents.FrameEvent frame = JfrEvents.beginFrame();
         for (int i = 0; i < gameData.getEventCount(); i++) {
             handler.operation(gameData.getEvents(i));
         }
+        JfrEvents.commitFrame(frame, gameData.getFrameCount(), gameData.getEventCount());
     }
 
     String eventString(final int s) {
@@ -245,30 +292,46 @@ class Client {
     }
 
     int addString(final String s) {
+        checkWritable();
         int stringCount = gameData.getStringCount();
-        if (stringCount >= MAX_COUNT) throw new IllegalStateException("Too many strings!");
+        if (stringCount >= MAX_COUNT) {
+            JfrEvents.bufferOverflow("strings", MAX_COUNT);
+            throw new IllegalStateException("Too many strings!");
+        }
         gameData.setStringCount(stringCount + 1);
         gameData.setStrings(stringCount, s);
         return stringCount;
     }
 
     Shape addShape() {
+        checkWritable();
         int shapeCount = gameData.getShapeCount();
-        if (shapeCount >= MAX_COUNT) throw new IllegalStateException("Too many shapes!");
+        if (shapeCount >= MAX_COUNT) {
+            JfrEvents.bufferOverflow("shapes", MAX_COUNT);
+            throw new IllegalStateException("Too many shapes!");
+        }
         gameData.setShapeCount(shapeCount + 1);
         return gameData.getShapes(shapeCount);
     }
 
     Command addCommand() {
+        checkWritable();
         final int commandCount = gameData.getCommandCount();
-        if (commandCount >= MAX_COUNT) throw new IllegalStateException("Too many commands!");
+        if (commandCount >= MAX_COUNT) {
+            JfrEvents.bufferOverflow("commands", MAX_COUNT);
+            throw new IllegalStateException("Too many commands!");
+        }
         gameData.setCommandCount(commandCount + 1);
         return gameData.getCommands(commandCount);
     }
 
     ClientData.UnitCommand addUnitCommand() {
+        checkWritable();
         int unitCommandCount = gameData.getUnitCommandCount();
-        if (unitCommandCount >= MAX_COUNT) throw new IllegalStateException("Too many unit commands!");
+        if (unitCommandCount >= MAX_COUNT) {
+            JfrEvents.bufferOverflow("unit commands", MAX_COUNT);
+            throw new IllegalStateException("Too many unit commands!");
+        }
         gameData.setUnitCommandCount(unitCommandCount + 1);
         return gameData.getUnitCommands(unitCommandCount);
     }
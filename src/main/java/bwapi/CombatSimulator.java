@@ -0,0 +1,393 @@
+package bwapi;
+
+/**
+ * A deterministic fight simulator between two groups of units.
+ * <p>
+ * Units are snapshotted once into flat primitive arrays (hit points, shields, armor, weapon damage,
+ * cooldown, range, speed and position), taking the owning {@link Player}'s upgrades into account.
+ * {@link #simulate(int)} then steps the fight frame by frame without allocating, so a single
+ * simulator can be {@link #reset} and re-run thousands of times per frame.
+ * <p>
+ * The model is intentionally simple: every unit attacks the closest enemy it can hit, moves straight
+ * towards it when out of range, and deals damage using the same armor, shield and
+ * {@link UnitSizeType} rules as {@link Game#getDamageFrom}. Spells, splash, healing, transports
+ * and terrain are ignored. Given the same input the result is always the same.
+ * <p>
+ * Hit points and shields are tracked in 1/256 units, positions in 1/256 pixels.
+ */
+public final class CombatSimulator {
+    /**
+     * Identifies one of the two groups taking part in a simulation.
+     */
+    public enum Side {
+        A,
+        B
+    }
+
+    private final Group a;
+    private final Group b;
+    private int framesSimulated;
+
+    /**
+     * @param capacity The maximum number of units each side can hold.
+     */
+    public CombatSimulator(final int capacity) {
+        a = new Group(capacity);
+        b = new Group(capacity);
+    }
+
+    /**
+     * Removes all units from both sides.
+     */
+    public void clear() {
+        a.count = 0;
+        b.count = 0;
+        framesSimulated = 0;
+    }
+
+    /**
+     * Restores every unit to the state it was added in, so the same fight can be simulated again.
+     */
+    public void reset() {
+        a.reset();
+        b.reset();
+        framesSimulated = 0;
+    }
+
+    /**
+     * Snapshots a {@link Unit}, using its current hit points, shields, position and cooldowns.
+     *
+     * @return false if the unit could not be added because the side is full.
+     */
+    public boolean addUnit(final Side side, final Unit unit) {
+        final Position position = unit.getPosition();
+        return group(side).add(unit.getType(), unit.getPlayer(), position.x, position.y,
+                unit.getHitPoints(), unit.getShields(),
+                Math.max(unit.getGroundWeaponCooldown(), unit.getAirWeaponCooldown()));
+    }
+
+    /**
+     * Adds a hypothetical unit with full hit points and shields.
+     *
+     * @param player The owner whose upgrades apply, or null to use the base stats.
+     * @return false if the unit could not be added because the side is full.
+     */
+    public boolean addUnit(final Side side, final UnitType type, final Player player, final int x, final int y) {
+        return group(side).add(type, player, x, y, type.maxHitPoints(), type.maxShields(), 0);
+    }
+
+    /**
+     * Simulates up to the given number of frames, stopping early once either side is eliminated.
+     * Successive calls continue from where the previous one stopped.
+     *
+     * @return The number of frames actually simulated by this call.
+     */
+    public int simulate(final int frames) {
+        int frame = 0;
+        while (frame < frames && a.alive > 0 && b.alive > 0) {
+            // Alternate which side acts first so neither gets a systematic advantage.
+            if ((framesSimulated & 1) == 0) {
+                a.step(b);
+                b.step(a);
+            } else {
+                b.step(a);
+                a.step(b);
+            }
+            framesSimulated++;
+            frame++;
+        }
+        return frame;
+    }
+
+    public int getFramesSimulated() {
+        return framesSimulated;
+    }
+
+    public int getUnitCount(final Side side) {
+        return group(side).count;
+    }
+
+    public int getAliveCount(final Side side) {
+        return group(side).alive;
+    }
+
+    /**
+     * @return The sum of the remaining hit points and shields of all units on the given side.
+     */
+    public int getTotalHealth(final Side side) {
+        final Group group = group(side);
+        long total = 0;
+        for (int i = 0; i < group.count; i++) {
+            if (group.hp[i] > 0) {
+                total += group.hp[i] + group.shields[i];
+            }
+        }
+        return (int) (total >> 8);
+    }
+
+    /**
+     * @return The sum of the mineral and gas cost of all surviving units on the given side.
+     */
+    public int getValue(final Side side) {
+        final Group group = group(side);
+        int total = 0;
+        for (int i = 0; i < group.count; i++) {
+            if (group.hp[i] > 0) {
+                final UnitType type = UnitType.idToEnum[group.type[i]];
+                total += type.mineralPrice() + type.gasPrice();
+            }
+        }
+        return total;
+    }
+
+    public int getHitPoints(final Side side, final int index) {
+        return group(side).hp[index] >> 8;
+    }
+
+    public int getShields(final Side side, final int index) {
+        return group(side).shields[index] >> 8;
+    }
+
+    public int getX(final Side side, final int index) {
+        return group(side).x[index] >> 8;
+    }
+
+    public int getY(final Side side, final int index) {
+        return group(side).y[index] >> 8;
+    }
+
+    private Group group(final Side side) {
+        return side == Side.A ? a : b;
+    }
+
+    static final class Group {
+        final int capacity;
+        int count;
+        int alive;
+
+        final int[] type;
+        final int[] sizeType;
+        final boolean[] flyer;
+        final int[] radius;
+        final int[] speed;
+        final int[] armor;
+        final int[] shieldArmor;
+
+        final int[] groundDamage;
+        final int[] groundDamageType;
+        final int[] groundMinRange;
+        final int[] groundMaxRange;
+        final int[] groundCooldown;
+        final int[] airDamage;
+        final int[] airDamageType;
+        final int[] airMaxRange;
+        final int[] airCooldown;
+
+        final int[] initialHp;
+        final int[] initialShields;
+        final int[] initialX;
+        final int[] initialY;
+        final int[] initialCooldown;
+
+        final int[] hp;
+        final int[] shields;
+        final int[] x;
+        final int[] y;
+        final int[] cooldown;
+        final int[] target;
+
+        Group(final int capacity) {
+            this.capacity = capacity;
+            type = new int[capacity];
+            sizeType = new int[capacity];
+            flyer = new boolean[capacity];
+            radius = new int[capacity];
+            speed = new int[capacity];
+            armor = new int[capacity];
+            shieldArmor = new int[capacity];
+            groundDamage = new int[capacity];
+            groundDamageType = new int[capacity];
+            groundMinRange = new int[capacity];
+            groundMaxRange = new int[capacity];
+            groundCooldown = new int[capacity];
+            airDamage = new int[capacity];
+            airDamageType = new int[capacity];
+            airMaxRange = new int[capacity];
+            airCooldown = new int[capacity];
+            initialHp = new int[capacity];
+            initialShields = new int[capacity];
+            initialX = new int[capacity];
+            initialY = new int[capacity];
+            initialCooldown = new int[capacity];
+            hp = new int[capacity];
+            shields = new int[capacity];
+            x = new int[capacity];
+            y = new int[capacity];
+            cooldown = new int[capacity];
+            target = new int[capacity];
+        }
+
+        boolean add(final UnitType unitType, final Player player, final int posX, final int posY,
+                    final int hitPoints, final int shieldPoints, final int currentCooldown) {
+            if (count >= capacity) {
+                return false;
+            }
+            final int i = count++;
+            type[i] = unitType.id;
+            sizeType[i] = unitType.size().id;
+            flyer[i] = unitType.isFlyer();
+            radius[i] = Math.max(unitType.width(), unitType.height()) / 2;
+            speed[i] = (int) ((player != null ? player.topSpeed(unitType) : unitType.topSpeed()) * 256);
+            armor[i] = player != null ? player.armor(unitType) : unitType.armor();
+            shieldArmor[i] = player != null ? player.getUpgradeLevel(UpgradeType.Protoss_Plasma_Shields) : 0;
+
+            final WeaponType ground = unitType.groundWeapon();
+            if (ground != WeaponType.None && ground != WeaponType.Unknown) {
+                groundDamage[i] = player != null ? player.damage(ground) : ground.damageAmount() * ground.damageFactor();
+                groundDamageType[i] = ground.damageType().id;
+                groundMinRange[i] = ground.minRange();
+                groundMaxRange[i] = player != null ? player.weaponMaxRange(ground) : ground.maxRange();
+                groundCooldown[i] = player != null ? player.weaponDamageCooldown(unitType) : ground.damageCooldown();
+            } else {
+                groundDamage[i] = 0;
+                groundDamageType[i] = DamageType.None.id;
+                groundMinRange[i] = 0;
+                groundMaxRange[i] = 0;
+                groundCooldown[i] = 0;
+            }
+
+            final WeaponType air = unitType.airWeapon();
+            if (air != WeaponType.None && air != WeaponType.Unknown) {
+                airDamage[i] = player != null ? player.damage(air) : air.damageAmount() * air.damageFactor();
+                airDamageType[i] = air.damageType().id;
+                airMaxRange[i] = player != null ? player.weaponMaxRange(air) : air.maxRange();
+                airCooldown[i] = air == ground ? groundCooldown[i] : air.damageCooldown();
+            } else {
+                airDamage[i] = 0;
+                airDamageType[i] = DamageType.None.id;
+                airMaxRange[i] = 0;
+                airCooldown[i] = 0;
+            }
+
+            initialHp[i] = hitPoints << 8;
+            initialShields[i] = shieldPoints << 8;
+            initialX[i] = posX << 8;
+            initialY[i] = posY << 8;
+            initialCooldown[i] = currentCooldown;
+            resetUnit(i);
+            if (hp[i] > 0) {
+                alive++;
+            }
+            return true;
+        }
+
+        void reset() {
+            alive = 0;
+            for (int i = 0; i < count; i++) {
+                resetUnit(i);
+                if (hp[i] > 0) {
+                    alive++;
+                }
+            }
+        }
+
+        private void resetUnit(final int i) {
+            hp[i] = initialHp[i];
+            shields[i] = initialShields[i];
+            x[i] = initialX[i];
+            y[i] = initialY[i];
+            cooldown[i] = initialCooldown[i];
+            target[i] = -1;
+        }
+
+        void step(final Group enemy) {
+            for (int i = 0; i < count; i++) {
+                if (hp[i] <= 0) {
+                    continue;
+                }
+                if (cooldown[i] > 0) {
+                    cooldown[i]--;
+                }
+
+                int t = target[i];
+                if (t < 0 || enemy.hp[t] <= 0) {
+                    t = acquireTarget(i, enemy);
+                    target[i] = t;
+                    if (t < 0) {
+                        continue;
+                    }
+                }
+
+                final boolean air = enemy.flyer[t];
+                final int dx = (enemy.x[t] - x[i]) >> 8;
+                final int dy = (enemy.y[t] - y[i]) >> 8;
+                final long distanceSquared = (long) dx * dx + (long) dy * dy;
+                final int reach = (air ? airMaxRange[i] : groundMaxRange[i]) + radius[i] + enemy.radius[t];
+
+                if (distanceSquared <= (long) reach * reach) {
+                    if (!air && groundMinRange[i] > 0 && distanceSquared < (long) groundMinRange[i] * groundMinRange[i]) {
+                        continue;
+                    }
+                    if (cooldown[i] == 0) {
+                        if (air) {
+                            enemy.receiveDamage(t, airDamage[i], airDamageType[i]);
+                            cooldown[i] = airCooldown[i];
+                        } else {
+                            enemy.receiveDamage(t, groundDamage[i], groundDamageType[i]);
+                            cooldown[i] = groundCooldown[i];
+                        }
+                    }
+                } else if (speed[i] > 0) {
+                    final int distance = Point.getApproxDistance(0, 0, dx, dy);
+                    if (distance > 0) {
+                        x[i] += (int) ((long) dx * speed[i] / distance);
+                        y[i] += (int) ((long) dy * speed[i] / distance);
+                    }
+                }
+            }
+        }
+
+        private int acquireTarget(final int i, final Group enemy) {
+            final boolean hitsGround = groundDamage[i] > 0;
+            final boolean hitsAir = airDamage[i] > 0;
+            int best = -1;
+            long bestDistance = Long.MAX_VALUE;
+            for (int t = 0; t < enemy.count; t++) {
+                if (enemy.hp[t] <= 0 || (enemy.flyer[t] ? !hitsAir : !hitsGround)) {
+                    continue;
+                }
+                final long dx = (enemy.x[t] - x[i]) >> 8;
+                final long dy = (enemy.y[t] - y[i]) >> 8;
+                final long distance = dx * dx + dy * dy;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = t;
+                }
+            }
+            return best;
+        }
+
+        private void receiveDamage(final int t, final int damage, final int damageType) {
+            int remaining = damage << 8;
+            if (shields[t] > 0) {
+                // Shields absorb damage before hit points; they are reduced by shield upgrades only.
+                final int toShields = Math.max(remaining - (shieldArmor[t] << 8), 128);
+                if (toShields <= shields[t]) {
+                    shields[t] -= toShields;
+                    return;
+                }
+                remaining = toShields - shields[t];
+                shields[t] = 0;
+            }
+            if (damageType != DamageType.Ignore_Armor.id) {
+                remaining -= armor[t] << 8;
+            }
+            remaining = Math.max(remaining, 128);
+            remaining = remaining * Game.damageRatio[damageType][sizeType[t]] / 256;
+            hp[t] -= remaining;
+            if (hp[t] <= 0) {
+                alive--;
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package bwapi;
 
 
 class EventHandler implements Client.EventHandler {
+    // Receives the events skipped by the FrameWatchdog.
+    private static final BWEventListener SKIPPED = new DefaultBWListener();
+
     private final BWEventListener eventListener;
     private final Game game;
     private final Client client;
@@ -15,84 +18,91 @@ class EventHandler implements Client.EventHandler {
     @Override
     public void operation(final ClientData.Event event) {
         final Unit u;
+        final JfrEvents.ListenerCallbackEvent callback = JfrEvents.beginListenerCallback();
         final int frames = game.getFrameCount();
+        game.invalidateUnitFieldCache(frames);
+        final BWEventListener listener = client.frameWatchdog().skips(event.getType()) ? SKIPPED : eventListener;
         switch (event.getType()) {
             case MatchStart:
+                client.frameWatchdog().reset();
                 game.init();
                 game.setLatCom(false);
-                eventListener.onStart();
+                listener.onStart();
                 break;
             case MatchEnd:
-                eventListener.onEnd(event.getV1() != 0);
+                listener.onEnd(event.getV1() != 0);
                 break;
             case MatchFrame:
                 game.onFrame(frames);
-                eventListener.onFrame();
+                listener.onFrame();
+                client.botModules().runFrame(game);
+                client.frameScheduler().runFrame();
                 break;
             //case 3: //MenuFrame
             case SendText:
-                eventListener.onSendText(client.eventString(event.getV1()));
+                listener.onSendText(client.eventString(event.getV1()));
                 break;
             case ReceiveText:
-                eventListener.onReceiveText(game.getPlayer(event.getV1()), client.eventString(event.getV2()));
+                listener.onReceiveText(game.getPlayer(event.getV1()), client.eventString(event.getV2()));
                 break;
             case PlayerLeft:
-                eventListener.onPlayerLeft(game.getPlayer(event.getV1()));
+                listener.onPlayerLeft(game.getPlayer(event.getV1()));
                 break;
             case NukeDetect:
-                eventListener.onNukeDetect(new Position(event.getV1(), event.getV2()));
+                listener.onNukeDetect(new Position(event.getV1(), event.getV2()));
                 break;
             case SaveGame:
-                eventListener.onSaveGame(client.eventString(event.getV1()));
+                listener.onSaveGame(client.eventString(event.getV1()));
                 break;
             case UnitDiscover:
                 game.unitCreate(event.getV1());
                 u = game.getUnit(event.getV1());
                 u.updatePosition(frames);
-                eventListener.onUnitDiscover(u);
+                listener.onUnitDiscover(u);
                 break;
             case UnitEvade:
                 u = game.getUnit(event.getV1());
                 u.updatePosition(frames);
-                eventListener.onUnitEvade(u);
+                listener.onUnitEvade(u);
                 break;
             case UnitShow:
                 game.unitShow(event.getV1());
                 u = game.getUnit(event.getV1());
                 u.updatePosition(frames);
-                eventListener.onUnitShow(u);
+                listener.onUnitShow(u);
                 break;
             case UnitHide:
                 game.unitHide(event.getV1());
                 u = game.getUnit(event.getV1());
-                eventListener.onUnitHide(u);
+                listener.onUnitHide(u);
                 break;
             case UnitCreate:
                 game.unitCreate(event.getV1());
                 u = game.getUnit(event.getV1());
                 u.updatePosition(frames);
-                eventListener.onUnitCreate(u);
+                listener.onUnitCreate(u);
                 break;
             case UnitDestroy:
                 game.unitHide(event.getV1());
                 u = game.getUnit(event.getV1());
-                eventListener.onUnitDestroy(u);
+                listener.onUnitDestroy(u);
                 break;
             case UnitMorph:
                 u = game.getUnit(event.getV1());
                 u.updatePosition(frames);
-                eventListener.onUnitMorph(u);
+                listener.onUnitMorph(u);
                 break;
             case UnitRenegade:
                 u = game.getUnit(event.getV1());
-                eventListener.onUnitRenegade(u);
+                listener.onUnitRenegade(u);
                 break;
             case UnitComplete:
                 game.unitCreate(event.getV1());
                 u = game.getUnit(event.getV1());
-                eventListener.onUnitComplete(u);
+                listener.onUnitComplete(u);
                 break;
         }
+        JfrEvents.commitListenerCallback(callback, event.getType(), frames);
     }
 
     public Game getGame() {
@@ -0,0 +1,239 @@
+package bwapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs {@link FrameTask}s step by step at the end of each frame, after
+ * {@link BWEventListener#onFrame()}, while the frame budget of the {@link FrameWatchdog} lasts,
+ * so that long analyses are spread over several frames.<br>
+ * The tasks run by decreasing priority; among the tasks of the same priority, the one that waited
+ * the longest runs first. A task also stops for the frame once it has used its own budget, and
+ * resumes on the next frame. A task scheduled during a frame runs from the end of that frame, or
+ * of the next one if it is scheduled by another task.<br>
+ * The scheduler is used from the thread of the frame loop. The scheduler of a game is available
+ * from {@link BWClient#getFrameScheduler()} and {@link Game#getFrameScheduler()}.
+ */
+public final class FrameScheduler {
+    private static final Comparator<ScheduledTask> ORDER = Comparator
+            .comparingInt((ScheduledTask t) -> t.priority).reversed()
+            .thenComparingInt(t -> t.lastFrameRun)
+            .thenComparingLong(t -> t.id);
+
+    private final FrameWatchdog watchdog;
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final List<ScheduledTask> scheduled = new ArrayList<>();
+    private long nextId;
+    private int frames;
+
+    FrameScheduler(final FrameWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * A task given to the scheduler, with the statistics of its runs.
+     */
+    public static final class ScheduledTask {
+        private final FrameTask task;
+        private final int priority;
+        private final long frameBudget;
+        private final long id;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private int lastFrameRun = -1;
+        private int framesPending;
+        private int framesRun;
+        private int framesStarved;
+        private int starvedInARow;
+        private int maxStarvedInARow;
+        private long steps;
+        private long time;
+        private long maxFrameTime;
+
+        private ScheduledTask(final FrameTask task, final int priority, final long frameBudget, final long id) {
+            this.task = task;
+            this.priority = priority;
+            this.frameBudget = frameBudget;
+            this.id = id;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * Retrieves the time the task may take on a frame, in nanoseconds.
+         */
+        public long getFrameBudget() {
+            return frameBudget;
+        }
+
+        /**
+         * Completes when the task is finished, exceptionally if a step threw, and is cancelled by
+         * {@link #cancel()}.
+         */
+        public CompletableFuture<Void> getCompletion() {
+            return completion;
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        /**
+         * Stops running the task; its current step, if any, is completed first.
+         */
+        public void cancel() {
+            completion.cancel(false);
+        }
+
+        /**
+         * Retrieves the number of frames the task was pending on, run or not: once it is finished,
+         * its latency in frames.
+         */
+        public int getFramesPending() {
+            return framesPending;
+        }
+
+        /**
+         * Retrieves the number of frames the task ran on.
+         */
+        public int getFramesRun() {
+            return framesRun;
+        }
+
+        /**
+         * Retrieves the number of frames the task did not run on, because the tasks before it
+         * used the frame budget.
+         */
+        public int getFramesStarved() {
+            return framesStarved;
+        }
+
+        /**
+         * Retrieves the longest run of consecutive frames the task did not run on.
+         */
+        public int getMaxFramesStarvedInARow() {
+            return maxStarvedInARow;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * Retrieves the time spent in the steps of the task, in nanoseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Retrieves the longest time the task took on a frame, in nanoseconds.
+         */
+        public long getMaxFrameTime() {
+            return maxFrameTime;
+        }
+
+        private void starve() {
+            ++framesStarved;
+            maxStarvedInARow = Math.max(maxStarvedInARow, ++starvedInARow);
+        }
+    }
+
+    /**
+     * Schedules a task of priority 0, without a budget of its own.
+     */
+    public ScheduledTask schedule(final FrameTask task) {
+        return schedule(task, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task        The task.
+     * @param priority    The tasks of higher priority run first.
+     * @param frameBudget The time the task may take on a frame, in nanoseconds; it takes at least
+     *                    one step on each frame it runs on.
+     */
+    public ScheduledTask schedule(final FrameTask task, final int priority, final long frameBudget) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (frameBudget <= 0) {
+            throw new IllegalArgumentException("The frame budget must be > 0: " + frameBudget);
+        }
+        final ScheduledTask scheduledTask = new ScheduledTask(task, priority, frameBudget, nextId++);
+        scheduled.add(scheduledTask);
+        return scheduledTask;
+    }
+
+    /**
+     * Retrieves the tasks that are not finished nor cancelled, in no particular order.
+     */
+    public List<ScheduledTask> getTasks() {
+        final List<ScheduledTask> pending = new ArrayList<>();
+        for (final ScheduledTask task : tasks) {
+            if (!task.isDone()) {
+                pending.add(task);
+            }
+        }
+        for (final ScheduledTask task : scheduled) {
+            if (!task.isDone()) {
+                pending.add(task);
+            }
+        }
+        return pending;
+    }
+
+    // Runs the tasks at the end of a frame.
+    void runFrame() {
+        if (tasks.isEmpty() && scheduled.isEmpty()) {
+            return;
+        }
+        tasks.addAll(scheduled);
+        scheduled.clear();
+        tasks.removeIf(ScheduledTask::isDone);
+        final int frame = frames++;
+        Collections.sort(tasks, ORDER);
+        for (final ScheduledTask task : tasks) {
+            if (task.isDone()) {
+                continue;
+            }
+            ++task.framesPending;
+            if (watchdog.getRemainingFrameTime() == 0) {
+                task.starve();
+                continue;
+            }
+            run(task, frame);
+        }
+    }
+
+    private void run(final ScheduledTask task, final int frame) {
+        task.starvedInARow = 0;
+        task.lastFrameRun = frame;
+        ++task.framesRun;
+        final long start = watchdog.nanoTime();
+        long elapsed;
+        boolean finished;
+        try {
+            do {
+                ++task.steps;
+                finished = task.task.step();
+                elapsed = watchdog.nanoTime() - start;
+            } while (!finished && !task.isDone() && elapsed < task.frameBudget
+                    && watchdog.getRemainingFrameTime() > 0);
+        } catch (RuntimeException | Error e) {
+            task.time += watchdog.nanoTime() - start;
+            task.completion.completeExceptionally(e);
+            throw e;
+        }
+        task.time += elapsed;
+        task.maxFrameTime = Math.max(task.maxFrameTime, elapsed);
+        if (finished) {
+            task.completion.complete(null);
+        }
+    }
+}
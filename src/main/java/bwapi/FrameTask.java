@@ -0,0 +1,16 @@
+package bwapi;
+
+/**
+ * Work split in small steps, run by the {@link FrameScheduler} across frames.<br>
+ * The task keeps its progress between the steps, e.g. the index of the next tile to process.
+ */
+@FunctionalInterface
+public interface FrameTask {
+    /**
+     * Runs the next step of the task. A step should take well under a millisecond, since the
+     * scheduler checks the time between the steps only.
+     *
+     * @return true if the task is finished.
+     */
+    boolean step();
+}
@@ -0,0 +1,260 @@
+package bwapi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures the time the bot spends on each frame, from the moment BWAPI hands over the frame to
+ * the moment the bot hands it back, and counts the frames over the time limits of the
+ * tournaments (Cf. {@link Limit}). The counts start over with each game.<br>
+ * A warning is written to {@link System#err} (Cf. {@link #setWarningOutputStream}) when the frames
+ * over a limit reach 3/4 of the ones that lose the game, and, for the limits of 1 and 10 seconds, on
+ * each frame over 3/4 of the time of the limit.<br>
+ * Long running work can check {@link #getRemainingFrameTime()} and continue on a later frame, or
+ * run on the {@link FrameScheduler}, which does so.
+ * The listener calls of the events made low priority by {@link #setLowPriorityEvents} are skipped
+ * when the frame is already over {@link #getFrameBudget()}; the game state is still updated.<br>
+ * The watchdog of a game is available from {@link BWClient#getFrameWatchdog()} and
+ * {@link Game#getFrameWatchdog()}.
+ */
+public final class FrameWatchdog {
+    /**
+     * The time limits of the tournaments (AIIDE, SSCAIT, CIG): a bot loses the game when it has
+     * {@link #getFramesToLose()} frames over {@link #getMillis()} milliseconds.
+     */
+    public enum Limit {
+        MILLIS_55(55, 320),
+        MILLIS_1000(1000, 10),
+        MILLIS_10000(10000, 1);
+
+        private final int millis;
+        private final int framesToLose;
+
+        Limit(final int millis, final int framesToLose) {
+            this.millis = millis;
+            this.framesToLose = framesToLose;
+        }
+
+        public int getMillis() {
+            return millis;
+        }
+
+        public int getFramesToLose() {
+            return framesToLose;
+        }
+
+        // The frames over the limit from which it warns.
+        int getFramesToWarn() {
+            return (framesToLose * 3 + 3) / 4;
+        }
+
+        // With 10 frames to lose or less, the count warns too late: a single frame over 3/4 of the
+        // limit, but not over it, is warned of too.
+        boolean warnsOfCloseFrames() {
+            return framesToLose <= 10;
+        }
+
+        long getCloseNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(millis) * 3 / 4;
+        }
+    }
+
+    // Well under the 55 ms limit, as the step or the event that ends the budget runs past it, and the
+    // bot has yet to hand the frame back.
+    private static final long DEFAULT_FRAME_BUDGET = TimeUnit.MILLISECONDS.toNanos(42);
+
+    private static final EnumSet<EventType> ALWAYS_DISPATCHED =
+            EnumSet.of(EventType.MatchStart, EventType.MatchEnd, EventType.MatchFrame);
+
+    private final LongSupplier nanoTime;
+    private volatile boolean inFrame;
+    private volatile long frameStart;
+    private long frameBudget = DEFAULT_FRAME_BUDGET;
+    private int frames;
+    private long lastFrameTime;
+    private long maxFrameTime;
+    private final int[] framesOver = new int[Limit.values().length];
+    private EnumSet<EventType> lowPriorityEvents = EnumSet.noneOf(EventType.class);
+    private long skippedEvents;
+    private OutputStream warningStream = System.err;
+
+    public FrameWatchdog() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * For test purposes only
+     */
+    FrameWatchdog(final LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    long nanoTime() {
+        return nanoTime.getAsLong();
+    }
+
+    // BWAPI handed over a frame.
+    void startFrame() {
+        frameStart = nanoTime.getAsLong();
+        inFrame = true;
+    }
+
+    // The bot hands the frame back to BWAPI.
+    void endFrame() {
+        if (!inFrame) {
+            return;
+        }
+        inFrame = false;
+        lastFrameTime = nanoTime.getAsLong() - frameStart;
+        maxFrameTime = Math.max(maxFrameTime, lastFrameTime);
+        ++frames;
+        for (final Limit limit : Limit.values()) {
+            if (lastFrameTime > TimeUnit.MILLISECONDS.toNanos(limit.millis)) {
+                if (++framesOver[limit.ordinal()] == limit.getFramesToWarn()) {
+                    warn(framesOver[limit.ordinal()] + " frames took more than " + limit.millis
+                            + " ms, a bot loses at " + limit.framesToLose + " of them");
+                }
+            } else if (limit.warnsOfCloseFrames() && lastFrameTime > limit.getCloseNanos()) {
+                warn("a frame took " + TimeUnit.NANOSECONDS.toMillis(lastFrameTime) + " ms, close to "
+                        + limit.millis + " ms: a bot loses at " + limit.framesToLose + " frames over it");
+            }
+        }
+    }
+
+    // A game starts: the counts are per game.
+    void reset() {
+        frames = 0;
+        lastFrameTime = 0;
+        maxFrameTime = 0;
+        Arrays.fill(framesOver, 0);
+        skippedEvents = 0;
+    }
+
+    // Tells whether the listener call of an event of this type is skipped.
+    boolean skips(final EventType type) {
+        if (lowPriorityEvents.contains(type) && getElapsedFrameTime() > frameBudget) {
+            ++skippedEvents;
+            return true;
+        }
+        return false;
+    }
+
+    private void warn(final String message) {
+        if (warningStream != null) {
+            try {
+                warningStream.write(("Warning: " + message + "\n").getBytes());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the time spent by the bot on the current frame so far.
+     *
+     * @return Nanoseconds since BWAPI handed over the frame, or 0 between frames.
+     */
+    public long getElapsedFrameTime() {
+        return inFrame ? nanoTime.getAsLong() - frameStart : 0;
+    }
+
+    /**
+     * Retrieves the time left in the budget of the current frame.
+     *
+     * @return Nanoseconds until {@link #getFrameBudget()} is spent, or 0 if it already is.
+     */
+    public long getRemainingFrameTime() {
+        return Math.max(0, frameBudget - getElapsedFrameTime());
+    }
+
+    /**
+     * Checks if the current frame took more than {@link #getFrameBudget()} so far.
+     */
+    public boolean isOverFrameBudget() {
+        return getElapsedFrameTime() > frameBudget;
+    }
+
+    /**
+     * Retrieves the time the bot may spend on a frame.
+     *
+     * @return The budget in nanoseconds, 42 ms by default.
+     */
+    public long getFrameBudget() {
+        return frameBudget;
+    }
+
+    /**
+     * Sets the time the bot may spend on a frame, for {@link #getRemainingFrameTime()} and the
+     * low priority events and the {@link FrameScheduler}. The budget should stay well under 55 ms:
+     * the work that ends it runs past it, and so does the rest of the frame.
+     *
+     * @param nanos The budget in nanoseconds.
+     */
+    public void setFrameBudget(final long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("The frame budget must be >= 0: " + nanos);
+        }
+        this.frameBudget = nanos;
+    }
+
+    /**
+     * Sets the events whose listener call is skipped when the frame is over budget, none by
+     * default. MatchStart, MatchEnd and MatchFrame are always dispatched.
+     */
+    public void setLowPriorityEvents(final EventType... types) {
+        final EnumSet<EventType> events = EnumSet.noneOf(EventType.class);
+        for (final EventType type : types) {
+            if (ALWAYS_DISPATCHED.contains(type)) {
+                throw new IllegalArgumentException(type + " cannot be skipped");
+            }
+            events.add(type);
+        }
+        this.lowPriorityEvents = events;
+    }
+
+    /**
+     * Retrieves the number of listener calls skipped because the frame was over budget.
+     */
+    public long getSkippedEvents() {
+        return skippedEvents;
+    }
+
+    /**
+     * Retrieves the number of frames handed back to BWAPI.
+     */
+    public int getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Retrieves the number of frames that took more than the given limit.
+     */
+    public int getFramesOver(final Limit limit) {
+        return framesOver[limit.ordinal()];
+    }
+
+    /**
+     * Retrieves the time spent on the last frame handed back to BWAPI, in nanoseconds.
+     */
+    public long getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /**
+     * Retrieves the longest time spent on a frame, in nanoseconds.
+     */
+    public long getMaxFrameTime() {
+        return maxFrameTime;
+    }
+
+    /**
+     * Sets where the warnings are written, {@link System#err} by default; `null` disables them.
+     */
+    public void setWarningOutputStream(final OutputStream outputStream) {
+        this.warningStream = outputStream;
+    }
+}
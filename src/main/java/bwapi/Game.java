@@ -5,6 +5,7 @@ import bwapi.ClientData.GameData;
 import bwapi.ClientData.Shape;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -19,7 +20,7 @@ import static bwapi.UnitType.*;
  * resources, players, forces, bullets, terrain, fog of war, regions, etc.
  */
 public class Game {
-    private static final int[][] damageRatio = {
+    static final int[][] damageRatio = {
             // Ind, Sml, Med, Lrg, Non, Unk
             {0, 0, 0, 0, 0, 0}, // Independent
             {0, 128, 192, 256, 0, 0}, // Explosive
@@ -100,6 +101,10 @@ public class Game {
     private Text.Size textSize = Text.Size.Default;
     private boolean latcom = true;
 
+    private int unitCommandCount = 0;
+    private UnitFieldCache unitFieldCache = null;
+    private final TechTreeCache techTreeCache = new TechTreeCache(this);
+
 
     Game(Client client) {
         this.client = client;
@@ -110,6 +115,37 @@ public class Game {
         return client;
     }
 
+    /**
+     * Retrieves the {@link FrameWatchdog} measuring the time spent by the bot on each frame, e.g.
+     * to check how much time is left in the current frame.
+     */
+    public FrameWatchdog getFrameWatchdog() {
+        return client.frameWatchdog();
+    }
+
+    /**
+     * Retrieves the {@link FrameScheduler} running tasks across frames, after onFrame.
+     */
+    public FrameScheduler getFrameScheduler() {
+        return client.frameScheduler();
+    }
+
+    /**
+     * Retrieves the {@link BotModules} run in parallel after onFrame, on a read-only game.
+     */
+    public BotModules getBotModules() {
+        return client.botModules();
+    }
+
+    /**
+     * Copies the state of the current frame into an immutable {@link GameSnapshot}, which other
+     * threads can read while the bot plays the next frames.<br>
+     * Take it from the thread of the frame loop, e.g. at the end of onFrame.
+     */
+    public GameSnapshot snapshot() {
+        return new GameSnapshot(this);
+    }
+
     private static boolean hasPower(final int x, final int y, final UnitType unitType, final List<Unit> pylons) {
         if (unitType.id >= 0 && unitType.id < UnitType.None.id && (!unitType.requiresPsi() || !unitType.isBuilding())) {
             return true;
@@ -297,9 +333,26 @@ public class Game {
                     .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
         }
         getAllUnits().forEach(u -> u.updatePosition(frame));
+        if (unitFieldCache != null) {
+            unitFieldCache.fill(getAllUnits(), units.length, frame);
+        }
+    }
+
+    /**
+     * Drops the unit field cache once events of a new frame start being processed.
+     */
+    void invalidateUnitFieldCache(final int frame) {
+        if (unitFieldCache != null) {
+            unitFieldCache.invalidate(frame);
+        }
+    }
+
+    UnitFieldCache getUnitFieldCache() {
+        return unitFieldCache;
     }
 
     void addUnitCommand(final int type, final int unit, final int target, final int x, final int y, final int extra) {
+        unitCommandCount++;
         ClientData.UnitCommand unitCommand = client.addUnitCommand();
         unitCommand.setTid(type);
         unitCommand.setUnitIndex(unit);
@@ -309,6 +362,14 @@ public class Game {
         unitCommand.setExtra(extra);
     }
 
+    /**
+     * @return The number of unit commands issued through this game since it was created, used to
+     * invalidate state that latency compensation changes within a frame.
+     */
+    int getUnitCommandCount() {
+        return unitCommandCount;
+    }
+
     void addCommand(final CommandType type, final int value1, final int value2) {
         Command command = client.addCommand();
         command.setType(type);
@@ -691,10 +752,10 @@ public class Game {
      * given build tile.
      */
     public List<Unit> getUnitsOnTile(final int tileX, final int tileY, final UnitFilter pred) {
-        return getAllUnits().stream().filter(u -> {
+        return getUnitsMatching(pred, u -> {
             final TilePosition tp = u.getTilePosition();
-            return tp.x == tileX && tp.y == tileY && pred.test(u);
-        }).collect(Collectors.toList());
+            return tp.x == tileX && tp.y == tileY;
+        });
     }
 
     public List<Unit> getUnitsInRectangle(final int left, final int top, final int right, final int bottom) {
@@ -713,9 +774,8 @@ public class Game {
      * given rectangle bounds.
      */
     public List<Unit> getUnitsInRectangle(final int left, final int top, final int right, final int bottom, final UnitFilter pred) {
-        return getAllUnits().stream()
-                .filter(u -> left <= u.getRight() && top <= u.getBottom() && right >= u.getLeft() && bottom >= u.getTop() && pred.test(u))
-                .collect(Collectors.toList());
+        return getUnitsMatching(pred,
+                u -> left <= u.getRight() && top <= u.getBottom() && right >= u.getLeft() && bottom >= u.getTop());
     }
 
     public List<Unit> getUnitsInRectangle(final Position leftTop, final Position rightBottom) {
@@ -750,8 +810,27 @@ public class Game {
     }
 
     public List<Unit> getUnitsInRadius(final Position center, final int radius, final UnitFilter pred) {
+        return getUnitsMatching(pred, u -> center.getApproxDistance(u.getPosition()) <= radius);
+    }
+
+    /**
+     * Collects the units within an area that pass pred. When pred is compiled to a unit type
+     * mask, units are rejected by type before the area test and pred's residual are evaluated,
+     * and no unit is visited at all if no type can match.
+     */
+    private List<Unit> getUnitsMatching(final UnitFilter pred, final Predicate<Unit> inArea) {
+        if (pred instanceof UnitTypeFilter) {
+            final UnitTypeFilter typeFilter = (UnitTypeFilter) pred;
+            if (typeFilter.acceptsNoType()) {
+                return new ArrayList<>();
+            }
+            final UnitFilter residual = typeFilter.getResidual();
+            return getAllUnits().stream()
+                    .filter(u -> typeFilter.acceptsType(u.getType()) && inArea.test(u) && (residual == null || residual.test(u)))
+                    .collect(Collectors.toList());
+        }
         return getAllUnits().stream()
-                .filter(u -> center.getApproxDistance(u.getPosition()) <= radius && pred.test(u))
+                .filter(u -> inArea.test(u) && pred.test(u))
                 .collect(Collectors.toList());
     }
 
@@ -1244,6 +1323,13 @@ public class Game {
      * that the unit type can not be made.
      */
     public boolean canMake(final UnitType type, final Unit builder) {
+        if (builder == null) {
+            return techTreeCache.canMake(type);
+        }
+        return canMakeUncached(type, builder);
+    }
+
+    boolean canMakeUncached(final UnitType type, final Unit builder) {
         final Player pSelf = self();
         // Error checking
         if (pSelf == null) {
@@ -1374,6 +1460,13 @@ public class Game {
      * that the technology can not be researched.
      */
     public boolean canResearch(final TechType type, final Unit unit, final boolean checkCanIssueCommandType) {
+        if (unit == null) {
+            return techTreeCache.canResearch(type);
+        }
+        return canResearchUncached(type, unit, checkCanIssueCommandType);
+    }
+
+    boolean canResearchUncached(final TechType type, final Unit unit, final boolean checkCanIssueCommandType) {
         final Player self = self();
         // Error checking
         if (self == null) {
@@ -1438,6 +1531,13 @@ public class Game {
      * that the upgrade can not be upgraded.
      */
     public boolean canUpgrade(final UpgradeType type, final Unit unit, final boolean checkCanIssueCommandType) {
+        if (unit == null) {
+            return techTreeCache.canUpgrade(type);
+        }
+        return canUpgradeUncached(type, unit, checkCanIssueCommandType);
+    }
+
+    boolean canUpgradeUncached(final UpgradeType type, final Unit unit, final boolean checkCanIssueCommandType) {
         final Player self = self();
         if (self == null) {
             return false;
@@ -1482,6 +1582,36 @@ public class Game {
         return self.gas() >= type.gasPrice(nextLvl);
     }
 
+    /**
+     * Retrieves every unit type that {@link #canMake(UnitType)} currently accepts.
+     * The answers are cached per frame and refreshed after each unit command.
+     *
+     * @return A new set of all unit types the current player can make right now.
+     */
+    public Set<UnitType> getMakeableUnitTypes() {
+        return techTreeCache.getMakeable();
+    }
+
+    /**
+     * Retrieves every tech type that {@link #canResearch(TechType)} currently accepts.
+     *
+     * @return A new set of all tech types the current player can research right now.
+     * @see #getMakeableUnitTypes
+     */
+    public Set<TechType> getResearchableTechTypes() {
+        return techTreeCache.getResearchable();
+    }
+
+    /**
+     * Retrieves every upgrade type that {@link #canUpgrade(UpgradeType)} currently accepts.
+     *
+     * @return A new set of all upgrade types the current player can upgrade right now.
+     * @see #getMakeableUnitTypes
+     */
+    public Set<UpgradeType> getUpgradableUpgradeTypes() {
+        return techTreeCache.getUpgradable();
+    }
+
     /**
      * Retrieves the set of all starting locations for the current map. A
      * starting location is essentially a candidate for a player's spawn point.
@@ -2209,6 +2339,37 @@ public class Game {
         addCommand(SetLatCom, isEnabled ? 1 : 0, 0);
     }
 
+    /**
+     * Checks whether hot unit fields are served from the per-frame unit field cache.
+     *
+     * @return true if the unit field cache is enabled, false otherwise.
+     * @see #setUnitFieldCache
+     */
+    public boolean isUnitFieldCacheEnabled() {
+        return unitFieldCache != null;
+    }
+
+    /**
+     * Enables or disables the unit field cache. When enabled, the most frequently read fields of
+     * every accessible unit (type, player, hit points, shields, energy, resources, order, weapon
+     * cooldowns and common state flags) are copied into primitive arrays once per frame, and the
+     * {@link Unit} getters read those copies instead of the shared memory. This pays off for bots
+     * that read the same units many times per frame. The cache is disabled by default.
+     *
+     * @param isEnabled Set whether the unit field cache will be enabled (true) or disabled (false).
+     * @see #isUnitFieldCacheEnabled
+     */
+    public void setUnitFieldCache(final boolean isEnabled) {
+        if (!isEnabled) {
+            unitFieldCache = null;
+        } else if (unitFieldCache == null) {
+            unitFieldCache = new UnitFieldCache();
+            if (units != null) {
+                unitFieldCache.fill(getAllUnits(), units.length, getFrameCount());
+            }
+        }
+    }
+
     /**
      * Retrieves the Starcraft instance number recorded by BWAPI to identify which
      * Starcraft instance an AI module belongs to. The very first instance should
@@ -2595,7 +2756,10 @@ public class Game {
      * @return A TilePosition containing the location that the structure should be constructed at. Returns {@link TilePosition#Invalid} If a build location could not be found within maxRange.
      */
     public TilePosition getBuildLocation(final UnitType type, TilePosition desiredPosition, final int maxRange, final boolean creep) {
-        return BuildingPlacer.getBuildLocation(type, desiredPosition, maxRange, creep, this);
+        final JfrEvents.BuildLocationSearchEvent event = JfrEvents.beginBuildLocationSearch();
+        final TilePosition location = BuildingPlacer.getBuildLocation(type, desiredPosition, maxRange, creep, this);
+        JfrEvents.commitBuildLocationSearch(event, type, desiredPosition, maxRange, location);
+        return location;
     }
 
     private int getDamageFromImpl(UnitType fromType, UnitType toType, Player fromPlayer, Player toPlayer) {
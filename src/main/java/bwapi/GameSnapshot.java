@@ -0,0 +1,531 @@
+package bwapi;
+
+import bwapi.ClientData.GameData;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable copy of the state of a frame, taken by {@link Game#snapshot()}: the accessible
+ * units, the players, the accessible bullets and the visibility, explored and creep layers of the
+ * map, stored in primitive arrays.
+ * <p>
+ * A snapshot does not read the game once taken, so it can be handed to other threads (e.g. an
+ * executor analyzing frame N while the bot plays frame N + 1) without any synchronization.
+ * <p>
+ * Units are stored by increasing id and bullets by increasing id, and are read by index, from 0
+ * to {@link #getUnitCount()} or {@link #getBulletCount()} excluded. Players are read by id. The
+ * values are the ones the {@link Unit}, {@link Player} and {@link Bullet} getters returned when
+ * the snapshot was taken, latency compensation included. Ids of missing units and players are -1.
+ */
+public final class GameSnapshot {
+    private static final int EXISTS = UnitFieldCache.EXISTS;
+    private static final int COMPLETED = UnitFieldCache.COMPLETED;
+    private static final int IDLE = UnitFieldCache.IDLE;
+    private static final int MOVING = UnitFieldCache.MOVING;
+    private static final int ATTACKING = UnitFieldCache.ATTACKING;
+    private static final int BURROWED = UnitFieldCache.BURROWED;
+    private static final int CLOAKED = UnitFieldCache.CLOAKED;
+    private static final int DETECTED = UnitFieldCache.DETECTED;
+    private static final int LIFTED = UnitFieldCache.LIFTED;
+    private static final int MORPHING = UnitFieldCache.MORPHING;
+    private static final int CONSTRUCTING = UnitFieldCache.CONSTRUCTING;
+    private static final int TRAINING = UnitFieldCache.TRAINING;
+    private static final int POWERED = UnitFieldCache.POWERED;
+    private static final int VISIBLE = 1 << 13;
+
+    private static final int PLAYER_ENEMY = 1;
+    private static final int PLAYER_ALLY = 1 << 1;
+    private static final int PLAYER_NEUTRAL = 1 << 2;
+    private static final int PLAYER_DEFEATED = 1 << 3;
+    private static final int PLAYER_LEFT = 1 << 4;
+
+    private final int frameCount;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int selfId;
+
+    private final int unitCount;
+    private final int[] unitIds;
+    private final int[] unitTypes;
+    private final int[] unitPlayers;
+    private final int[] unitX;
+    private final int[] unitY;
+    private final double[] unitVelocityX;
+    private final double[] unitVelocityY;
+    private final int[] unitHitPoints;
+    private final int[] unitShields;
+    private final int[] unitEnergy;
+    private final int[] unitResources;
+    private final int[] unitOrders;
+    private final int[] unitTargets;
+    private final int[] unitOrderTargets;
+    private final int[] unitGroundWeaponCooldowns;
+    private final int[] unitAirWeaponCooldowns;
+    private final int[] unitFlags;
+
+    private final int[] playerRaces;
+    private final int[] playerMinerals;
+    private final int[] playerGas;
+    private final int[] playerSupplyUsed;
+    private final int[] playerSupplyTotal;
+    private final int[] playerFlags;
+
+    private final int bulletCount;
+    private final int[] bulletIds;
+    private final int[] bulletTypes;
+    private final int[] bulletPlayers;
+    private final int[] bulletX;
+    private final int[] bulletY;
+    private final int[] bulletSources;
+    private final int[] bulletTargets;
+
+    // One bit per tile, row by row.
+    private final long[] visible;
+    private final long[] explored;
+    private final long[] creep;
+
+    GameSnapshot(final Game game) {
+        frameCount = game.getFrameCount();
+        mapWidth = game.mapWidth();
+        mapHeight = game.mapHeight();
+        final Player self = game.self();
+        selfId = self == null ? -1 : self.getID();
+
+        final List<Unit> units = game.getAllUnits();
+        unitCount = units.size();
+        unitIds = new int[unitCount];
+        for (int i = 0; i < unitCount; ++i) {
+            unitIds[i] = units.get(i).getID();
+        }
+        Arrays.sort(unitIds);
+        unitTypes = new int[unitCount];
+        unitPlayers = new int[unitCount];
+        unitX = new int[unitCount];
+        unitY = new int[unitCount];
+        unitVelocityX = new double[unitCount];
+        unitVelocityY = new double[unitCount];
+        unitHitPoints = new int[unitCount];
+        unitShields = new int[unitCount];
+        unitEnergy = new int[unitCount];
+        unitResources = new int[unitCount];
+        unitOrders = new int[unitCount];
+        unitTargets = new int[unitCount];
+        unitOrderTargets = new int[unitCount];
+        unitGroundWeaponCooldowns = new int[unitCount];
+        unitAirWeaponCooldowns = new int[unitCount];
+        unitFlags = new int[unitCount];
+        for (int i = 0; i < unitCount; ++i) {
+            final Unit unit = game.getUnit(unitIds[i]);
+            final Position position = unit.getPosition();
+            unitTypes[i] = unit.getType().id;
+            unitPlayers[i] = idOf(unit.getPlayer());
+            unitX[i] = position.x;
+            unitY[i] = position.y;
+            unitVelocityX[i] = unit.getVelocityX();
+            unitVelocityY[i] = unit.getVelocityY();
+            unitHitPoints[i] = unit.getHitPoints();
+            unitShields[i] = unit.getShields();
+            unitEnergy[i] = unit.getEnergy();
+            unitResources[i] = unit.getResources();
+            unitOrders[i] = unit.getOrder().id;
+            unitTargets[i] = idOf(unit.getTarget());
+            unitOrderTargets[i] = idOf(unit.getOrderTarget());
+            unitGroundWeaponCooldowns[i] = unit.getGroundWeaponCooldown();
+            unitAirWeaponCooldowns[i] = unit.getAirWeaponCooldown();
+            unitFlags[i] = (unit.exists() ? EXISTS : 0) |
+                    (unit.isCompleted() ? COMPLETED : 0) |
+                    (unit.isIdle() ? IDLE : 0) |
+                    (unit.isMoving() ? MOVING : 0) |
+                    (unit.isAttacking() ? ATTACKING : 0) |
+                    (unit.isBurrowed() ? BURROWED : 0) |
+                    (unit.isCloaked() ? CLOAKED : 0) |
+                    (unit.isDetected() ? DETECTED : 0) |
+                    (unit.isLifted() ? LIFTED : 0) |
+                    (unit.isMorphing() ? MORPHING : 0) |
+                    (unit.isConstructing() ? CONSTRUCTING : 0) |
+                    (unit.isTraining() ? TRAINING : 0) |
+                    (unit.isPowered() ? POWERED : 0) |
+                    (self != null && unit.isVisible(self) ? VISIBLE : 0);
+        }
+
+        final List<Player> players = game.getPlayers();
+        int playerCapacity = 0;
+        for (final Player player : players) {
+            playerCapacity = Math.max(playerCapacity, player.getID() + 1);
+        }
+        playerRaces = new int[playerCapacity];
+        playerMinerals = new int[playerCapacity];
+        playerGas = new int[playerCapacity];
+        playerSupplyUsed = new int[playerCapacity];
+        playerSupplyTotal = new int[playerCapacity];
+        playerFlags = new int[playerCapacity];
+        Arrays.fill(playerRaces, -1);
+        for (final Player player : players) {
+            final int id = player.getID();
+            playerRaces[id] = player.getRace().id;
+            playerMinerals[id] = player.minerals();
+            playerGas[id] = player.gas();
+            playerSupplyUsed[id] = player.supplyUsed();
+            playerSupplyTotal[id] = player.supplyTotal();
+            playerFlags[id] = (player.isEnemy(self) ? PLAYER_ENEMY : 0) |
+                    (player.isAlly(self) ? PLAYER_ALLY : 0) |
+                    (player.isNeutral() ? PLAYER_NEUTRAL : 0) |
+                    (player.isDefeated() ? PLAYER_DEFEATED : 0) |
+                    (player.leftGame() ? PLAYER_LEFT : 0);
+        }
+
+        final List<Bullet> bullets = game.getBullets();
+        bulletCount = bullets.size();
+        bulletIds = new int[bulletCount];
+        bulletTypes = new int[bulletCount];
+        bulletPlayers = new int[bulletCount];
+        bulletX = new int[bulletCount];
+        bulletY = new int[bulletCount];
+        bulletSources = new int[bulletCount];
+        bulletTargets = new int[bulletCount];
+        for (int i = 0; i < bulletCount; ++i) {
+            final Bullet bullet = bullets.get(i);
+            final Position position = bullet.getPosition();
+            bulletIds[i] = bullet.getID();
+            bulletTypes[i] = bullet.getType().id;
+            bulletPlayers[i] = idOf(bullet.getPlayer());
+            bulletX[i] = position.x;
+            bulletY[i] = position.y;
+            bulletSources[i] = idOf(bullet.getSource());
+            bulletTargets[i] = idOf(bullet.getTarget());
+        }
+
+        final int words = (mapWidth * mapHeight + 63) >>> 6;
+        visible = new long[words];
+        explored = new long[words];
+        creep = new long[words];
+        final GameData gameData = game.getClient().gameData();
+        for (int y = 0; y < mapHeight; ++y) {
+            for (int x = 0; x < mapWidth; ++x) {
+                final int tile = y * mapWidth + x;
+                final long bit = 1L << tile;
+                if (gameData.isVisible(x, y)) {
+                    visible[tile >>> 6] |= bit;
+                }
+                if (gameData.isExplored(x, y)) {
+                    explored[tile >>> 6] |= bit;
+                }
+                if (gameData.getHasCreep(x, y)) {
+                    creep[tile >>> 6] |= bit;
+                }
+            }
+        }
+    }
+
+    private static int idOf(final Unit unit) {
+        return unit == null ? -1 : unit.getID();
+    }
+
+    private static int idOf(final Player player) {
+        return player == null ? -1 : player.getID();
+    }
+
+    /**
+     * Retrieves the frame the snapshot was taken on.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Retrieves the width of the map, in tiles.
+     */
+    public int mapWidth() {
+        return mapWidth;
+    }
+
+    /**
+     * Retrieves the height of the map, in tiles.
+     */
+    public int mapHeight() {
+        return mapHeight;
+    }
+
+    /**
+     * Retrieves the id of {@link Game#self()}, -1 in replays.
+     */
+    public int getSelfId() {
+        return selfId;
+    }
+
+    /**
+     * Retrieves the number of accessible units.
+     */
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * Retrieves the index of the unit of the given id, or a negative number if it was not
+     * accessible.
+     */
+    public int indexOfUnit(final int unitId) {
+        final int index = Arrays.binarySearch(unitIds, unitId);
+        return index < 0 ? -1 : index;
+    }
+
+    public int getUnitId(final int index) {
+        return unitIds[index];
+    }
+
+    public UnitType getUnitType(final int index) {
+        return UnitType.idToEnum[unitTypes[index]];
+    }
+
+    public int getUnitPlayerId(final int index) {
+        return unitPlayers[index];
+    }
+
+    public int getUnitX(final int index) {
+        return unitX[index];
+    }
+
+    public int getUnitY(final int index) {
+        return unitY[index];
+    }
+
+    public Position getUnitPosition(final int index) {
+        return new Position(unitX[index], unitY[index]);
+    }
+
+    public double getUnitVelocityX(final int index) {
+        return unitVelocityX[index];
+    }
+
+    public double getUnitVelocityY(final int index) {
+        return unitVelocityY[index];
+    }
+
+    public int getUnitHitPoints(final int index) {
+        return unitHitPoints[index];
+    }
+
+    public int getUnitShields(final int index) {
+        return unitShields[index];
+    }
+
+    public int getUnitEnergy(final int index) {
+        return unitEnergy[index];
+    }
+
+    public int getUnitResources(final int index) {
+        return unitResources[index];
+    }
+
+    public Order getUnitOrder(final int index) {
+        return Order.idToEnum[unitOrders[index]];
+    }
+
+    public int getUnitTargetId(final int index) {
+        return unitTargets[index];
+    }
+
+    public int getUnitOrderTargetId(final int index) {
+        return unitOrderTargets[index];
+    }
+
+    public int getUnitGroundWeaponCooldown(final int index) {
+        return unitGroundWeaponCooldowns[index];
+    }
+
+    public int getUnitAirWeaponCooldown(final int index) {
+        return unitAirWeaponCooldowns[index];
+    }
+
+    public boolean unitExists(final int index) {
+        return (unitFlags[index] & EXISTS) != 0;
+    }
+
+    public boolean isUnitCompleted(final int index) {
+        return (unitFlags[index] & COMPLETED) != 0;
+    }
+
+    public boolean isUnitIdle(final int index) {
+        return (unitFlags[index] & IDLE) != 0;
+    }
+
+    public boolean isUnitMoving(final int index) {
+        return (unitFlags[index] & MOVING) != 0;
+    }
+
+    public boolean isUnitAttacking(final int index) {
+        return (unitFlags[index] & ATTACKING) != 0;
+    }
+
+    public boolean isUnitBurrowed(final int index) {
+        return (unitFlags[index] & BURROWED) != 0;
+    }
+
+    public boolean isUnitCloaked(final int index) {
+        return (unitFlags[index] & CLOAKED) != 0;
+    }
+
+    public boolean isUnitDetected(final int index) {
+        return (unitFlags[index] & DETECTED) != 0;
+    }
+
+    public boolean isUnitLifted(final int index) {
+        return (unitFlags[index] & LIFTED) != 0;
+    }
+
+    public boolean isUnitMorphing(final int index) {
+        return (unitFlags[index] & MORPHING) != 0;
+    }
+
+    public boolean isUnitConstructing(final int index) {
+        return (unitFlags[index] & CONSTRUCTING) != 0;
+    }
+
+    public boolean isUnitTraining(final int index) {
+        return (unitFlags[index] & TRAINING) != 0;
+    }
+
+    public boolean isUnitPowered(final int index) {
+        return (unitFlags[index] & POWERED) != 0;
+    }
+
+    /**
+     * Checks if the unit was visible to {@link Game#self()}.
+     */
+    public boolean isUnitVisible(final int index) {
+        return (unitFlags[index] & VISIBLE) != 0;
+    }
+
+    /**
+     * Retrieves the number of player ids, the players are read by id from 0 to this number
+     * excluded.
+     */
+    public int getPlayerCapacity() {
+        return playerRaces.length;
+    }
+
+    /**
+     * Checks if there is a player of the given id.
+     */
+    public boolean hasPlayer(final int playerId) {
+        return playerId >= 0 && playerId < playerRaces.length && playerRaces[playerId] >= 0;
+    }
+
+    public Race getPlayerRace(final int playerId) {
+        return Race.idToEnum[playerRaces[playerId]];
+    }
+
+    public int getPlayerMinerals(final int playerId) {
+        return playerMinerals[playerId];
+    }
+
+    public int getPlayerGas(final int playerId) {
+        return playerGas[playerId];
+    }
+
+    /**
+     * Retrieves the supply used by the player, for its race.
+     */
+    public int getPlayerSupplyUsed(final int playerId) {
+        return playerSupplyUsed[playerId];
+    }
+
+    /**
+     * Retrieves the supply available to the player, for its race.
+     */
+    public int getPlayerSupplyTotal(final int playerId) {
+        return playerSupplyTotal[playerId];
+    }
+
+    /**
+     * Checks if the player was an enemy of {@link Game#self()}.
+     */
+    public boolean isPlayerEnemy(final int playerId) {
+        return (playerFlags[playerId] & PLAYER_ENEMY) != 0;
+    }
+
+    /**
+     * Checks if the player was an ally of {@link Game#self()}.
+     */
+    public boolean isPlayerAlly(final int playerId) {
+        return (playerFlags[playerId] & PLAYER_ALLY) != 0;
+    }
+
+    public boolean isPlayerNeutral(final int playerId) {
+        return (playerFlags[playerId] & PLAYER_NEUTRAL) != 0;
+    }
+
+    public boolean isPlayerDefeated(final int playerId) {
+        return (playerFlags[playerId] & PLAYER_DEFEATED) != 0;
+    }
+
+    public boolean hasPlayerLeftGame(final int playerId) {
+        return (playerFlags[playerId] & PLAYER_LEFT) != 0;
+    }
+
+    /**
+     * Retrieves the number of accessible bullets.
+     */
+    public int getBulletCount() {
+        return bulletCount;
+    }
+
+    public int getBulletId(final int index) {
+        return bulletIds[index];
+    }
+
+    public BulletType getBulletType(final int index) {
+        return BulletType.idToEnum[bulletTypes[index]];
+    }
+
+    public int getBulletPlayerId(final int index) {
+        return bulletPlayers[index];
+    }
+
+    public int getBulletX(final int index) {
+        return bulletX[index];
+    }
+
+    public int getBulletY(final int index) {
+        return bulletY[index];
+    }
+
+    public int getBulletSourceId(final int index) {
+        return bulletSources[index];
+    }
+
+    public int getBulletTargetId(final int index) {
+        return bulletTargets[index];
+    }
+
+    /**
+     * Checks if the tile was visible to {@link Game#self()}, false outside of the map.
+     */
+    public boolean isVisible(final int tileX, final int tileY) {
+        return hasBit(visible, tileX, tileY);
+    }
+
+    /**
+     * Checks if the tile was explored by {@link Game#self()}, false outside of the map.
+     */
+    public boolean isExplored(final int tileX, final int tileY) {
+        return hasBit(explored, tileX, tileY);
+    }
+
+    /**
+     * Checks if the tile had creep on it, as far as {@link Game#self()} knew, false outside of
+     * the map.
+     */
+    public boolean hasCreep(final int tileX, final int tileY) {
+        return hasBit(creep, tileX, tileY);
+    }
+
+    private boolean hasBit(final long[] layer, final int tileX, final int tileY) {
+        if (tileX < 0 || tileY < 0 || tileX >= mapWidth || tileY >= mapHeight) {
+            return false;
+        }
+        final int tile = tileY * mapWidth + tileX;
+        return (layer[tile >>> 6] & (1L << tile)) != 0;
+    }
+}
@@ -0,0 +1,463 @@
+package bwapi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ground and air threat grids of each player, in damage per frame, over cells of a given size:
+ * 8 pixels for walk tiles, 32 for tiles.
+ * <p>
+ * Every completed unit with a weapon adds the damage per frame of its ground and air weapons
+ * ({@link Player#damage} over the cooldown, upgrades included) to the grids of its player, on
+ * every cell within reach: the max range of the weapon plus half the size of the unit, between the
+ * center of the cell of the unit and the center of the cell. The cells closer than the min range of
+ * the weapon (e.g. of a sieged tank) are left out.
+ * <p>
+ * {@link #update()}, called once per frame (e.g. at the beginning of onFrame), only stamps again
+ * the units whose cell, damage, cooldown or range changed since the previous call, and removes the
+ * ones that died or are no longer accessible, so its cost depends on what changed rather than on
+ * the number of units. When most of the units changed, it rebuilds the grids instead.
+ * <p>
+ * The model is intentionally simple, like the one of {@link CombatSimulator}: armor, sizes,
+ * splash, spells and the units without a weapon of their own (Bunkers, Carriers, Reavers) are
+ * ignored, and units out of sight do not threaten.
+ * <p>
+ * The queries without a player are about the threat to {@link Game#self()}: the sum of the grids
+ * of its enemies. The map is used from the thread of the frame loop only.
+ */
+public final class InfluenceMap {
+    // Damage per frame is stored in 1/256.
+    private static final int FIXED_POINT = 256;
+
+    private final Game game;
+    private final int cellSize;
+    private final int width;
+    private final int height;
+    // By player id, null until the player has a unit with a weapon.
+    private final int[][] ground;
+    private final int[][] air;
+    private final int[] enemies;
+    // Cell offsets within reach, as dx, dy pairs, by min range << 32 | max range.
+    private final Map<Long, int[]> shapes = new HashMap<>();
+
+    private int updates;
+    // The stamp of each unit on the grids, and the one it should have, by unit id.
+    private Stamp[] stamps = new Stamp[0];
+    private Stamp[] nextStamps = new Stamp[0];
+    private int[] seen = new int[0];
+    private int[] seenIds = new int[0];
+    private int seenCount;
+    private int[] stampedIndex = new int[0];
+    private int[] stamped = new int[0];
+    private int stampedCount;
+
+    private static final class Stamp {
+        // -1 when the unit is not on the grids.
+        int player = -1;
+        int x;
+        int y;
+        int groundDamage;
+        int groundMinRange;
+        int groundMaxRange;
+        int airDamage;
+        int airMaxRange;
+
+        boolean isSameAs(final Stamp other) {
+            return player == other.player && x == other.x && y == other.y
+                    && groundDamage == other.groundDamage && groundMinRange == other.groundMinRange
+                    && groundMaxRange == other.groundMaxRange && airDamage == other.airDamage
+                    && airMaxRange == other.airMaxRange;
+        }
+
+        void set(final Stamp other) {
+            player = other.player;
+            x = other.x;
+            y = other.y;
+            groundDamage = other.groundDamage;
+            groundMinRange = other.groundMinRange;
+            groundMaxRange = other.groundMaxRange;
+            airDamage = other.airDamage;
+            airMaxRange = other.airMaxRange;
+        }
+    }
+
+    /**
+     * @param game     The game.
+     * @param cellSize The size of the cells in pixels, e.g. 8 for walk tiles or 32 for tiles.
+     */
+    public InfluenceMap(final Game game, final int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cells must be at least a pixel wide");
+        }
+        this.game = game;
+        this.cellSize = cellSize;
+        width = (game.mapWidth() * TilePosition.SIZE_IN_PIXELS + cellSize - 1) / cellSize;
+        height = (game.mapHeight() * TilePosition.SIZE_IN_PIXELS + cellSize - 1) / cellSize;
+        final int playerCount = game.getPlayers().size();
+        ground = new int[playerCount][];
+        air = new int[playerCount][];
+        final List<Player> enemyPlayers = game.enemies();
+        enemies = new int[enemyPlayers == null ? 0 : enemyPlayers.size()];
+        for (int i = 0; i < enemies.length; ++i) {
+            enemies[i] = enemyPlayers.get(i).getID();
+        }
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Brings the grids up to date with the accessible units.<br>
+     * When most of the units changed, the grids are rebuilt from scratch instead, which is then
+     * cheaper than moving each stamp.
+     */
+    public void update() {
+        ++updates;
+        seenCount = 0;
+        int changes = 0;
+        for (final Unit unit : game.getAllUnits()) {
+            final int id = unit.getID();
+            if (id >= stamps.length) {
+                resize(Math.max(id + 1, 2 * stamps.length));
+            }
+            final Stamp next = nextStamps[id];
+            if (computeStamp(unit, next)) {
+                seen[id] = updates;
+                seenIds[seenCount++] = id;
+                if (!next.isSameAs(stamps[id])) {
+                    ++changes;
+                }
+            }
+        }
+        for (int i = 0; i < stampedCount; ++i) {
+            if (seen[stamped[i]] != updates) {
+                ++changes;
+            }
+        }
+        if (changes == 0) {
+            return;
+        }
+
+        if (2 * changes > seenCount) {
+            clear();
+            for (int i = 0; i < seenCount; ++i) {
+                add(seenIds[i]);
+            }
+            return;
+        }
+        // Backwards, as remove moves the last stamped unit to the index of the removed one.
+        for (int i = stampedCount - 1; i >= 0; --i) {
+            if (seen[stamped[i]] != updates) {
+                remove(stamped[i]);
+            }
+        }
+        for (int i = 0; i < seenCount; ++i) {
+            final int id = seenIds[i];
+            if (!nextStamps[id].isSameAs(stamps[id])) {
+                if (stamps[id].player >= 0) {
+                    remove(id);
+                }
+                add(id);
+            }
+        }
+    }
+
+    // Returns false if the unit does not threaten.
+    private boolean computeStamp(final Unit unit, final Stamp stamp) {
+        final Player player = unit.getPlayer();
+        if (player == null || player.isNeutral() || !unit.isCompleted()) {
+            return false;
+        }
+        final UnitType type = unit.getType();
+        final int radius = Math.max(type.width(), type.height()) / 2;
+        stamp.groundDamage = 0;
+        stamp.groundMinRange = 0;
+        stamp.groundMaxRange = 0;
+        stamp.airDamage = 0;
+        stamp.airMaxRange = 0;
+        final WeaponType groundWeapon = type.groundWeapon();
+        if (groundWeapon != WeaponType.None && groundWeapon != WeaponType.Unknown) {
+            stamp.groundDamage = player.damage(groundWeapon) * FIXED_POINT
+                    / Math.max(player.weaponDamageCooldown(type), 1);
+            stamp.groundMinRange = groundWeapon.minRange();
+            stamp.groundMaxRange = player.weaponMaxRange(groundWeapon) + radius;
+        }
+        final WeaponType airWeapon = type.airWeapon();
+        if (airWeapon != WeaponType.None && airWeapon != WeaponType.Unknown) {
+            final int cooldown = airWeapon == groundWeapon ? player.weaponDamageCooldown(type)
+                    : airWeapon.damageCooldown();
+            stamp.airDamage = player.damage(airWeapon) * FIXED_POINT / Math.max(cooldown, 1);
+            stamp.airMaxRange = player.weaponMaxRange(airWeapon) + radius;
+        }
+        if (stamp.groundDamage == 0 && stamp.airDamage == 0) {
+            return false;
+        }
+        final Position position = unit.getPosition();
+        stamp.player = player.getID();
+        stamp.x = Math.min(Math.max(position.x / cellSize, 0), width - 1);
+        stamp.y = Math.min(Math.max(position.y / cellSize, 0), height - 1);
+        return true;
+    }
+
+    /**
+     * Removes all the units from the grids.
+     */
+    void clear() {
+        for (int i = 0; i < ground.length; ++i) {
+            if (ground[i] != null) {
+                Arrays.fill(ground[i], 0);
+            }
+            if (air[i] != null) {
+                Arrays.fill(air[i], 0);
+            }
+        }
+        for (int i = 0; i < stampedCount; ++i) {
+            stamps[stamped[i]].player = -1;
+        }
+        stampedCount = 0;
+    }
+
+    private void add(final int id) {
+        stamps[id].set(nextStamps[id]);
+        stamp(stamps[id], 1);
+        stampedIndex[id] = stampedCount;
+        stamped[stampedCount++] = id;
+    }
+
+    private void remove(final int id) {
+        stamp(stamps[id], -1);
+        stamps[id].player = -1;
+        final int index = stampedIndex[id];
+        final int last = stamped[--stampedCount];
+        stamped[index] = last;
+        stampedIndex[last] = index;
+    }
+
+    private void stamp(final Stamp stamp, final int sign) {
+        if (stamp.groundDamage > 0) {
+            if (ground[stamp.player] == null) {
+                ground[stamp.player] = new int[width * height];
+            }
+            stamp(ground[stamp.player], stamp.x, stamp.y, stamp.groundMinRange, stamp.groundMaxRange,
+                    sign * stamp.groundDamage);
+        }
+        if (stamp.airDamage > 0) {
+            if (air[stamp.player] == null) {
+                air[stamp.player] = new int[width * height];
+            }
+            stamp(air[stamp.player], stamp.x, stamp.y, 0, stamp.airMaxRange, sign * stamp.airDamage);
+        }
+    }
+
+    private void stamp(final int[] grid, final int x, final int y, final int minRange, final int maxRange,
+                       final int damage) {
+        final int[] offsets = getShape(minRange, maxRange);
+        for (int i = 0; i < offsets.length; i += 2) {
+            final int cellX = x + offsets[i];
+            final int cellY = y + offsets[i + 1];
+            if (cellX >= 0 && cellY >= 0 && cellX < width && cellY < height) {
+                grid[cellY * width + cellX] += damage;
+            }
+        }
+    }
+
+    private int[] getShape(final int minRange, final int maxRange) {
+        final long key = (long) minRange << 32 | maxRange;
+        int[] offsets = shapes.get(key);
+        if (offsets == null) {
+            final int reach = maxRange / cellSize;
+            final long min = (long) minRange * minRange;
+            final long max = (long) maxRange * maxRange;
+            int count = 0;
+            final int[] candidates = new int[2 * (2 * reach + 1) * (2 * reach + 1)];
+            for (int dy = -reach; dy <= reach; ++dy) {
+                for (int dx = -reach; dx <= reach; ++dx) {
+                    final long distance = ((long) dx * dx + (long) dy * dy) * cellSize * cellSize;
+                    if (distance >= min && distance <= max) {
+                        candidates[count++] = dx;
+                        candidates[count++] = dy;
+                    }
+                }
+            }
+            offsets = Arrays.copyOf(candidates, count);
+            shapes.put(key, offsets);
+        }
+        return offsets;
+    }
+
+    private void resize(final int capacity) {
+        final int previous = stamps.length;
+        stamps = Arrays.copyOf(stamps, capacity);
+        nextStamps = Arrays.copyOf(nextStamps, capacity);
+        for (int i = previous; i < capacity; ++i) {
+            stamps[i] = new Stamp();
+            nextStamps[i] = new Stamp();
+        }
+        seen = Arrays.copyOf(seen, capacity);
+        seenIds = Arrays.copyOf(seenIds, capacity);
+        stampedIndex = Arrays.copyOf(stampedIndex, capacity);
+        stamped = Arrays.copyOf(stamped, capacity);
+    }
+
+    private int cellX(final Position position) {
+        return position.x / cellSize;
+    }
+
+    private int cellY(final Position position) {
+        return position.y / cellSize;
+    }
+
+    private boolean isValidCell(final int x, final int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // The sum of the grids of the enemies of self at the cell, in 1/256.
+    private int enemyThreat(final int[][] grids, final int cell) {
+        int threat = 0;
+        for (final int enemy : enemies) {
+            final int[] grid = grids[enemy];
+            if (grid != null) {
+                threat += grid[cell];
+            }
+        }
+        return threat;
+    }
+
+    private double threat(final int[][] grids, final Player player, final Position position) {
+        final int x = cellX(position);
+        final int y = cellY(position);
+        if (!isValidCell(x, y)) {
+            return 0;
+        }
+        if (player == null) {
+            return enemyThreat(grids, y * width + x) / (double) FIXED_POINT;
+        }
+        final int[] grid = grids[player.getID()];
+        return grid == null ? 0 : grid[y * width + x] / (double) FIXED_POINT;
+    }
+
+    /**
+     * Retrieves the damage per frame the enemies of {@link Game#self()} can deal to a ground unit at
+     * the given position.
+     */
+    public double getGroundThreat(final Position position) {
+        return threat(ground, null, position);
+    }
+
+    /**
+     * Retrieves the damage per frame the enemies of {@link Game#self()} can deal to an air unit at
+     * the given position.
+     */
+    public double getAirThreat(final Position position) {
+        return threat(air, null, position);
+    }
+
+    /**
+     * Retrieves the damage per frame the units of the given player can deal to a ground unit at the
+     * given position.
+     */
+    public double getGroundThreat(final Player player, final Position position) {
+        return threat(ground, player, position);
+    }
+
+    /**
+     * Retrieves the damage per frame the units of the given player can deal to an air unit at the
+     * given position.
+     */
+    public double getAirThreat(final Player player, final Position position) {
+        return threat(air, player, position);
+    }
+
+    private double maxThreat(final int[][] grids, final Position from, final Position to) {
+        final int x0 = cellX(from);
+        final int y0 = cellY(from);
+        final int dx = cellX(to) - x0;
+        final int dy = cellY(to) - y0;
+        final int steps = Math.max(Math.abs(dx), Math.abs(dy));
+        int max = 0;
+        for (int step = 0; step <= steps; ++step) {
+            final int x = steps == 0 ? x0 : x0 + Math.round((float) dx * step / steps);
+            final int y = steps == 0 ? y0 : y0 + Math.round((float) dy * step / steps);
+            if (isValidCell(x, y)) {
+                max = Math.max(max, enemyThreat(grids, y * width + x));
+            }
+        }
+        return max / (double) FIXED_POINT;
+    }
+
+    /**
+     * Retrieves the highest ground threat (Cf. {@link #getGroundThreat(Position)}) on the cells of
+     * the segment between the given positions, e.g. to check a path.
+     */
+    public double getMaxGroundThreat(final Position from, final Position to) {
+        return maxThreat(ground, from, to);
+    }
+
+    /**
+     * Retrieves the highest air threat (Cf. {@link #getAirThreat(Position)}) on the cells of the
+     * segment between the given positions, e.g. to check a path.
+     */
+    public double getMaxAirThreat(final Position from, final Position to) {
+        return maxThreat(air, from, to);
+    }
+
+    private Position safestPosition(final int[][] grids, final boolean walkable, final Position position,
+                                    final int radius) {
+        final int x0 = cellX(position);
+        final int y0 = cellY(position);
+        final int reach = radius / cellSize;
+        final long maxDistance = (long) reach * reach;
+        int bestX = -1;
+        int bestY = -1;
+        int bestThreat = Integer.MAX_VALUE;
+        long bestDistance = Long.MAX_VALUE;
+        for (int y = Math.max(y0 - reach, 0); y <= Math.min(y0 + reach, height - 1); ++y) {
+            for (int x = Math.max(x0 - reach, 0); x <= Math.min(x0 + reach, width - 1); ++x) {
+                final long distance = (long) (x - x0) * (x - x0) + (long) (y - y0) * (y - y0);
+                if (distance > maxDistance) {
+                    continue;
+                }
+                final int threat = enemyThreat(grids, y * width + x);
+                if (threat > bestThreat || threat == bestThreat && distance >= bestDistance) {
+                    continue;
+                }
+                if (walkable && !game.isWalkable((x * cellSize + cellSize / 2) / WalkPosition.SIZE_IN_PIXELS,
+                        (y * cellSize + cellSize / 2) / WalkPosition.SIZE_IN_PIXELS)) {
+                    continue;
+                }
+                bestX = x;
+                bestY = y;
+                bestThreat = threat;
+                bestDistance = distance;
+            }
+        }
+        if (bestX < 0) {
+            return Position.Invalid;
+        }
+        return new Position(bestX * cellSize + cellSize / 2, bestY * cellSize + cellSize / 2);
+    }
+
+    /**
+     * Retrieves the center of the walkable cell of least ground threat within the given radius of
+     * the given position, the closest one among equals.
+     *
+     * @return {@link Position#Invalid} if there is no walkable cell in the radius.
+     */
+    public Position getSafestGroundPosition(final Position position, final int radius) {
+        return safestPosition(ground, true, position, radius);
+    }
+
+    /**
+     * Retrieves the center of the cell of least air threat within the given radius of the given
+     * position, the closest one among equals.
+     *
+     * @return {@link Position#Invalid} if there is no cell in the radius, i.e. the position is far
+     * outside of the map.
+     */
+    public Position getSafestAirPosition(final Position position, final int radius) {
+        return safestPosition(air, false, position, radius);
+    }
+}
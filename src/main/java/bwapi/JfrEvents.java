@@ -0,0 +1,194 @@
+package bwapi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of the frame loop and of the expensive queries, in the "JBWAPI"
+ * category, so that the samples of a recording can be matched to the game frames.<br>
+ * An event is only created while a recording enables its type, so a disabled event costs a check
+ * per call. On a JVM without JFR (JDK 8 before 8u262), the event classes are never loaded.
+ */
+final class JfrEvents {
+    static final boolean AVAILABLE = isAvailable();
+
+    private JfrEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Name("bwapi.Frame")
+    @Label("Frame")
+    @Category("JBWAPI")
+    @Description("The dispatch of the events of a frame, MatchFrame and its onFrame included")
+    @StackTrace(false)
+    static final class FrameEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(FrameEvent.class);
+
+        @Label("Frame")
+        int frame;
+
+        @Label("Events")
+        int events;
+    }
+
+    @Name("bwapi.ServerWait")
+    @Label("Server Wait")
+    @Category("JBWAPI")
+    @Description("The wait on the pipe for BWAPI to play the next frame")
+    @StackTrace(false)
+    static final class ServerWaitEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(ServerWaitEvent.class);
+
+        @Label("Frame")
+        @Description("The frame played while waiting")
+        int frame;
+    }
+
+    @Name("bwapi.ListenerCallback")
+    @Label("Listener Callback")
+    @Category("JBWAPI")
+    @Description("The handling of a BWAPI event and the call of its BWEventListener method")
+    @StackTrace(false)
+    static final class ListenerCallbackEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(ListenerCallbackEvent.class);
+
+        @Label("Event")
+        String event;
+
+        @Label("Frame")
+        int frame;
+    }
+
+    @Name("bwapi.BufferOverflow")
+    @Label("Buffer Overflow")
+    @Category("JBWAPI")
+    @Description("A string, shape, command or unit command that did not fit in the shared memory")
+    static final class BufferOverflowEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(BufferOverflowEvent.class);
+
+        @Label("Buffer")
+        String buffer;
+
+        @Label("Capacity")
+        int capacity;
+    }
+
+    @Name("bwapi.BuildLocationSearch")
+    @Label("Build Location Search")
+    @Category("JBWAPI")
+    @Description("A call of Game.getBuildLocation")
+    static final class BuildLocationSearchEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(BuildLocationSearchEvent.class);
+
+        @Label("Unit Type")
+        String unitType;
+
+        @Label("Desired X")
+        int desiredX;
+
+        @Label("Desired Y")
+        int desiredY;
+
+        @Label("Max Range")
+        int maxRange;
+
+        @Label("Found")
+        boolean found;
+    }
+
+    static FrameEvent beginFrame() {
+        if (!AVAILABLE || !FrameEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final FrameEvent event = new FrameEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitFrame(final FrameEvent event, final int frame, final int events) {
+        if (event != null) {
+            event.frame = frame;
+            event.events = events;
+            event.commit();
+        }
+    }
+
+    static ServerWaitEvent beginServerWait() {
+        if (!AVAILABLE || !ServerWaitEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final ServerWaitEvent event = new ServerWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitServerWait(final ServerWaitEvent event, final int frame) {
+        if (event != null) {
+            event.frame = frame;
+            event.commit();
+        }
+    }
+
+    static ListenerCallbackEvent beginListenerCallback() {
+        if (!AVAILABLE || !ListenerCallbackEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final ListenerCallbackEvent event = new ListenerCallbackEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitListenerCallback(final ListenerCallbackEvent event, final bwapi.EventType type,
+                                       final int frame) {
+        if (event != null) {
+            event.event = type.name();
+            event.frame = frame;
+            event.commit();
+        }
+    }
+
+    static void bufferOverflow(final String buffer, final int capacity) {
+        if (!AVAILABLE || !BufferOverflowEvent.TYPE.isEnabled()) {
+            return;
+        }
+        final BufferOverflowEvent event = new BufferOverflowEvent();
+        event.buffer = buffer;
+        event.capacity = capacity;
+        event.commit();
+    }
+
+    static BuildLocationSearchEvent beginBuildLocationSearch() {
+        if (!AVAILABLE || !BuildLocationSearchEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final BuildLocationSearchEvent event = new BuildLocationSearchEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitBuildLocationSearch(final BuildLocationSearchEvent event, final UnitType type,
+                                          final TilePosition desiredPosition, final int maxRange,
+                                          final TilePosition location) {
+        if (event != null) {
+            event.unitType = type.name();
+            event.desiredX = desiredPosition.getX();
+            event.desiredY = desiredPosition.getY();
+            event.maxRange = maxRange;
+            event.found = !location.equals(TilePosition.None) && !location.equals(TilePosition.Invalid);
+            event.commit();
+        }
+    }
+}
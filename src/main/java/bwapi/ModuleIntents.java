@@ -0,0 +1,40 @@
+package bwapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The commands a {@link BotModule} wants to send on a frame, sent by {@link BotModules} once
+ * all the modules are done.<br>
+ * Used by the thread of its module only.
+ */
+public final class ModuleIntents {
+    final List<UnitCommand> unitCommands = new ArrayList<>();
+    final List<Consumer<Game>> actions = new ArrayList<>();
+
+    ModuleIntents() {
+    }
+
+    /**
+     * Asks for a unit command, e.g. {@code UnitCommand.attack(marine, zergling)}. A unit takes
+     * the commands of one module per frame (Cf. {@link BotModules}).
+     */
+    public void issue(final UnitCommand command) {
+        Objects.requireNonNull(command.getUnit(), "The command has no unit");
+        unitCommands.add(command);
+    }
+
+    /**
+     * Asks for an action on the game once it is writable again, e.g. drawing or sending text.
+     */
+    public void defer(final Consumer<Game> action) {
+        actions.add(Objects.requireNonNull(action));
+    }
+
+    void clear() {
+        unitCommands.clear();
+        actions.clear();
+    }
+}
@@ -28,7 +28,7 @@ public class Player implements Comparable<Player> {
     private final Force force;
     private final TilePosition startLocation;
 
-    private PlayerSelf self = null;
+    private volatile PlayerSelf self = null;
     PlayerSelf self() {
         if (self == null) {
             self = new PlayerSelf();
@@ -36,6 +36,16 @@ public class Player implements Comparable<Player> {
         return self;
     }
 
+    private PlayerStats stats = null;
+    // Synchronized, since the BotModules read the game from several threads.
+    private synchronized PlayerStats stats() {
+        if (stats == null) {
+            stats = new PlayerStats();
+        }
+        stats.update(this, game.getFrameCount());
+        return stats;
+    }
+
     Player(final PlayerData playerData, final int id, final Game game) {
         this.playerData = playerData;
         this.game = game;
@@ -585,6 +595,10 @@ public class Player implements Comparable<Player> {
      * @return Maximum amount of energy that the given unit type can have.
      */
     public int maxEnergy(final UnitType unit) {
+        return stats().maxEnergy[unit.id];
+    }
+
+    int computeMaxEnergy(final UnitType unit) {
         int energy = unit.maxEnergy();
         if (unit == Protoss_Arbiter && getUpgradeLevel(Khaydarin_Core) > 0 ||
                 unit == Protoss_Corsair && getUpgradeLevel(Argus_Jewel) > 0 ||
@@ -610,6 +624,10 @@ public class Player implements Comparable<Player> {
      * @return Top speed of the provided unit type for this player.
      */
     public double topSpeed(final UnitType unit) {
+        return stats().topSpeed[unit.id];
+    }
+
+    double computeTopSpeed(final UnitType unit) {
         double speed = unit.topSpeed();
         if (unit == Terran_Vulture && getUpgradeLevel(Ion_Thrusters) > 0 ||
                 unit == Zerg_Overlord && getUpgradeLevel(Pneumatized_Carapace) > 0 ||
@@ -642,6 +660,10 @@ public class Player implements Comparable<Player> {
      * @return Maximum range of the given weapon type for units owned by this player.
      */
     public int weaponMaxRange(final WeaponType weapon) {
+        return stats().weaponMaxRange[weapon.id];
+    }
+
+    int computeWeaponMaxRange(final WeaponType weapon) {
         int range = weapon.maxRange();
         if (weapon == Gauss_Rifle && getUpgradeLevel(U_238_Shells) > 0 ||
                 weapon == Needle_Spines && getUpgradeLevel(Grooved_Spines) > 0) {
@@ -662,6 +684,10 @@ public class Player implements Comparable<Player> {
      * @return Sight range of the provided unit type for this player.
      */
     public int sightRange(final UnitType unit) {
+        return stats().sightRange[unit.id];
+    }
+
+    int computeSightRange(final UnitType unit) {
         int range = unit.sightRange();
         if (unit == Terran_Ghost && getUpgradeLevel(Ocular_Implants) > 0 ||
                 unit == Zerg_Overlord && getUpgradeLevel(Antennae) > 0 ||
@@ -680,6 +706,10 @@ public class Player implements Comparable<Player> {
      * @return Weapon cooldown of the provided unit type for this player.
      */
     public int weaponDamageCooldown(final UnitType unit) {
+        return stats().weaponDamageCooldown[unit.id];
+    }
+
+    int computeWeaponDamageCooldown(final UnitType unit) {
         int cooldown = unit.groundWeapon().damageCooldown();
         if (unit == Zerg_Zergling && getUpgradeLevel(Adrenal_Glands) > 0) {
             // Divide cooldown by 2
@@ -697,6 +727,10 @@ public class Player implements Comparable<Player> {
      * @return The amount of armor that the unit will have with the player's upgrades.
      */
     public int armor(final UnitType unit) {
+        return stats().armor[unit.id];
+    }
+
+    int computeArmor(final UnitType unit) {
         int armor = unit.armor();
         armor += getUpgradeLevel(unit.armorUpgrade());
         if ((unit == Zerg_Ultralisk && getUpgradeLevel(Chitinous_Plating) > 0) || unit == Hero_Torrasque) {
@@ -712,6 +746,10 @@ public class Player implements Comparable<Player> {
      * @return The amount of damage that the weapon deals with this player's upgrades.
      */
     public int damage(final WeaponType wpn) {
+        return stats().damage[wpn.id];
+    }
+
+    int computeDamage(final WeaponType wpn) {
         int dmg = wpn.damageAmount();
         dmg += getUpgradeLevel(wpn.upgradeType()) * wpn.damageBonus();
         dmg *= wpn.damageFactor();
@@ -0,0 +1,66 @@
+package bwapi;
+
+/**
+ * Upgrade-aware unit and weapon statistics of a single {@link Player}, stored in dense
+ * tables indexed by {@link UnitType} and {@link WeaponType} id.
+ * <p>
+ * The tables are validated at most once per frame and only rebuilt when one of the player's
+ * upgrade levels changed since the last rebuild.
+ */
+class PlayerStats {
+    private static final int WEAPON_TYPE_COUNT = WeaponType.Unknown.id + 1;
+    private static final int UNIT_TYPE_COUNT = UnitType.idToEnum.length;
+
+    private final int[] upgradeLevels = new int[UpgradeType.idToEnum.length];
+    private int frame = -1;
+    private boolean built = false;
+
+    final int[] damage = new int[WEAPON_TYPE_COUNT];
+    final int[] weaponMaxRange = new int[WEAPON_TYPE_COUNT];
+
+    final int[] armor = new int[UNIT_TYPE_COUNT];
+    final int[] sightRange = new int[UNIT_TYPE_COUNT];
+    final int[] maxEnergy = new int[UNIT_TYPE_COUNT];
+    final int[] weaponDamageCooldown = new int[UNIT_TYPE_COUNT];
+    final double[] topSpeed = new double[UNIT_TYPE_COUNT];
+
+    void update(final Player player, final int currentFrame) {
+        if (built && currentFrame == frame) {
+            return;
+        }
+        frame = currentFrame;
+
+        boolean changed = !built;
+        for (final UpgradeType upgrade : UpgradeType.idToEnum) {
+            if (upgrade == null) {
+                continue;
+            }
+            final int level = player.getUpgradeLevel(upgrade);
+            if (level != upgradeLevels[upgrade.id]) {
+                upgradeLevels[upgrade.id] = level;
+                changed = true;
+            }
+        }
+        if (changed) {
+            rebuild(player);
+        }
+    }
+
+    private void rebuild(final Player player) {
+        for (final WeaponType weapon : WeaponType.values()) {
+            damage[weapon.id] = player.computeDamage(weapon);
+            weaponMaxRange[weapon.id] = player.computeWeaponMaxRange(weapon);
+        }
+        for (final UnitType unit : UnitType.idToEnum) {
+            if (unit == null) {
+                continue;
+            }
+            armor[unit.id] = player.computeArmor(unit);
+            sightRange[unit.id] = player.computeSightRange(unit);
+            maxEnergy[unit.id] = player.computeMaxEnergy(unit);
+            weaponDamageCooldown[unit.id] = player.computeWeaponDamageCooldown(unit);
+            topSpeed[unit.id] = player.computeTopSpeed(unit);
+        }
+        built = true;
+    }
+}
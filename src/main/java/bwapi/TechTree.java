@@ -0,0 +1,118 @@
+package bwapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The static requirement graph between {@link UnitType}s, {@link TechType}s and {@link UpgradeType}s.
+ * <p>
+ * Every distinct unit requirement (a unit type and the amount needed) is a node shared by all the
+ * types that depend on it, so a player's requirements can be evaluated once per node instead of
+ * once per dependent type. All tables are indexed by type id.
+ */
+final class TechTree {
+    static final int NONE = -1;
+
+    // Requirement nodes: a unit type and how many of it are needed
+    static final int[] requirementType;
+    static final int[] requirementAmount;
+
+    // Per unit type
+    static final int[][] unitRequirements;
+    static final int[] unitRequiredTech;
+    static final int[] unitMineralPrice;
+    static final int[] unitGasPrice;
+    static final int[] unitSupplyRequired;
+    static final int[] unitSupplyRefund;
+    static final int[] unitRace;
+
+    // Per tech type
+    static final int[] techRequirement;
+
+    // Per upgrade type: the builder requirement, and the requirement for each next level (1..3)
+    static final int[] upgradeBuilderRequirement;
+    static final int[][] upgradeLevelRequirement;
+
+    static {
+        final List<UnitType> types = new ArrayList<>();
+        final List<Integer> amounts = new ArrayList<>();
+
+        unitRequirements = new int[UnitType.idToEnum.length][];
+        unitRequiredTech = new int[UnitType.idToEnum.length];
+        unitMineralPrice = new int[UnitType.idToEnum.length];
+        unitGasPrice = new int[UnitType.idToEnum.length];
+        unitSupplyRequired = new int[UnitType.idToEnum.length];
+        unitSupplyRefund = new int[UnitType.idToEnum.length];
+        unitRace = new int[UnitType.idToEnum.length];
+        for (final UnitType type : UnitType.idToEnum) {
+            if (type == null) {
+                continue;
+            }
+            final Map<UnitType, Integer> required = type.requiredUnits();
+            final int[] nodes = new int[required.size()];
+            int i = 0;
+            for (final Map.Entry<UnitType, Integer> entry : required.entrySet()) {
+                nodes[i++] = node(types, amounts, entry.getKey(), entry.getValue());
+            }
+            unitRequirements[type.id] = nodes;
+            unitRequiredTech[type.id] = type.requiredTech() == TechType.None ? NONE : type.requiredTech().id;
+            unitMineralPrice[type.id] = type.mineralPrice();
+            unitGasPrice[type.id] = type.gasPrice();
+            unitSupplyRequired[type.id] = type.supplyRequired() * (type.isTwoUnitsInOneEgg() ? 2 : 1);
+            final UnitType builder = type.whatBuilds().getKey();
+            unitSupplyRefund[type.id] = builder.getRace() == type.getRace() ? builder.supplyRequired() : 0;
+            unitRace[type.id] = type.getRace().id;
+        }
+
+        techRequirement = new int[TechType.idToEnum.length];
+        for (final TechType tech : TechType.idToEnum) {
+            if (tech != null) {
+                techRequirement[tech.id] = node(types, amounts, tech.requiredUnit(), 1);
+            }
+        }
+
+        upgradeBuilderRequirement = new int[UpgradeType.idToEnum.length];
+        upgradeLevelRequirement = new int[UpgradeType.idToEnum.length][];
+        for (final UpgradeType upgrade : UpgradeType.idToEnum) {
+            if (upgrade == null) {
+                continue;
+            }
+            upgradeBuilderRequirement[upgrade.id] = node(types, amounts, upgrade.whatUpgrades(), 1);
+            final int[] levels = new int[4];
+            levels[0] = NONE;
+            for (int level = 1; level <= 3; level++) {
+                levels[level] = node(types, amounts, upgrade.whatsRequired(level), 1);
+            }
+            upgradeLevelRequirement[upgrade.id] = levels;
+        }
+
+        requirementType = new int[types.size()];
+        requirementAmount = new int[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            requirementType[i] = types.get(i).id;
+            requirementAmount[i] = amounts.get(i);
+        }
+    }
+
+    private TechTree() {
+    }
+
+    private static int node(final List<UnitType> types, final List<Integer> amounts, final UnitType type, final int amount) {
+        if (type == UnitType.None) {
+            return NONE;
+        }
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i) == type && amounts.get(i) == amount) {
+                return i;
+            }
+        }
+        types.add(type);
+        amounts.add(amount);
+        return types.size() - 1;
+    }
+
+    static int requirementCount() {
+        return requirementType.length;
+    }
+}
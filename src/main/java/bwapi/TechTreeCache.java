@@ -0,0 +1,244 @@
+package bwapi;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Caches which unit types, techs and upgrades {@link Game#self} can currently make, research or
+ * upgrade, as evaluated by {@link Game#canMake}, {@link Game#canResearch} and {@link Game#canUpgrade}
+ * without a builder.
+ * <p>
+ * The answers are revalidated once per frame and after every unit command issued by the bot, since
+ * commands change resources and latency compensated state. Tech tree satisfaction is only recomputed
+ * when the player's requirement state (unit counts of the {@link TechTree} nodes, availability, tech
+ * and upgrade levels) changed, and the final sets only when that or the player's resources changed.
+ * The accessors are synchronized, since the {@link BotModules} read the game from several threads.
+ */
+class TechTreeCache {
+    private static final int PLAYABLE_RACES = 3;
+
+    private final Game game;
+
+    private int frame = -1;
+    private int unitCommandCount = -1;
+    private boolean latCom;
+
+    private final int techOffset;
+    private final int upgradeOffset;
+    private int[] state;
+    private int[] previousState;
+
+    private final boolean[] unitTreeOk = new boolean[UnitType.idToEnum.length];
+    private final boolean[] techTreeOk = new boolean[TechType.idToEnum.length];
+    private final boolean[] upgradeTreeOk = new boolean[UpgradeType.idToEnum.length];
+
+    private int minerals;
+    private int gas;
+    private final int[] supplyTotal = new int[PLAYABLE_RACES];
+    private final int[] supplyUsed = new int[PLAYABLE_RACES];
+
+    private final EnumSet<UnitType> makeable = EnumSet.noneOf(UnitType.class);
+    private final EnumSet<TechType> researchable = EnumSet.noneOf(TechType.class);
+    private final EnumSet<UpgradeType> upgradable = EnumSet.noneOf(UpgradeType.class);
+
+    TechTreeCache(final Game game) {
+        this.game = game;
+        techOffset = TechTree.requirementCount() + UnitType.idToEnum.length;
+        upgradeOffset = techOffset + TechType.idToEnum.length;
+        state = new int[upgradeOffset + UpgradeType.idToEnum.length];
+        previousState = new int[state.length];
+    }
+
+    synchronized boolean canMake(final UnitType type) {
+        update();
+        return makeable.contains(type);
+    }
+
+    synchronized boolean canResearch(final TechType type) {
+        update();
+        return researchable.contains(type);
+    }
+
+    synchronized boolean canUpgrade(final UpgradeType type) {
+        update();
+        return upgradable.contains(type);
+    }
+
+    synchronized EnumSet<UnitType> getMakeable() {
+        update();
+        return makeable.clone();
+    }
+
+    synchronized EnumSet<TechType> getResearchable() {
+        update();
+        return researchable.clone();
+    }
+
+    synchronized EnumSet<UpgradeType> getUpgradable() {
+        update();
+        return upgradable.clone();
+    }
+
+    private void update() {
+        final int currentFrame = game.getFrameCount();
+        final int currentCommandCount = game.getUnitCommandCount();
+        final boolean currentLatCom = game.isLatComEnabled();
+        if (currentFrame == frame && currentCommandCount == unitCommandCount && currentLatCom == latCom) {
+            return;
+        }
+        final boolean first = frame == -1;
+        frame = currentFrame;
+        unitCommandCount = currentCommandCount;
+        latCom = currentLatCom;
+
+        final Player self = game.self();
+        if (self == null) {
+            makeable.clear();
+            researchable.clear();
+            upgradable.clear();
+            return;
+        }
+
+        final boolean treeChanged = readTreeState(self) || first;
+        final boolean resourcesChanged = readResources(self) || first;
+        if (treeChanged) {
+            computeTree();
+        }
+        if (treeChanged || resourcesChanged) {
+            computeSets(self);
+        }
+    }
+
+    private boolean readTreeState(final Player self) {
+        final int[] swap = previousState;
+        previousState = state;
+        state = swap;
+
+        int i = 0;
+        for (int node = 0; node < TechTree.requirementCount(); node++) {
+            final UnitType type = UnitType.idToEnum[TechTree.requirementType[node]];
+            state[i++] = self.hasUnitTypeRequirement(type, TechTree.requirementAmount[node]) ? 1 : 0;
+        }
+        for (final UnitType type : UnitType.idToEnum) {
+            state[i++] = type != null && self.isUnitAvailable(type) ? 1 : 0;
+        }
+        for (final TechType tech : TechType.idToEnum) {
+            state[i++] = tech == null ? 0 :
+                    (self.isResearching(tech) ? 1 : 0) |
+                    (self.hasResearched(tech) ? 2 : 0) |
+                    (self.isResearchAvailable(tech) ? 4 : 0);
+        }
+        for (final UpgradeType upgrade : UpgradeType.idToEnum) {
+            state[i++] = upgrade == null ? 0 :
+                    self.getUpgradeLevel(upgrade) |
+                    self.getMaxUpgradeLevel(upgrade) << 8 |
+                    (self.isUpgrading(upgrade) ? 1 << 16 : 0);
+        }
+        return !Arrays.equals(state, previousState);
+    }
+
+    private boolean readResources(final Player self) {
+        boolean changed = false;
+        final int newMinerals = self.minerals();
+        final int newGas = self.gas();
+        if (newMinerals != minerals || newGas != gas) {
+            minerals = newMinerals;
+            gas = newGas;
+            changed = true;
+        }
+        for (int race = 0; race < PLAYABLE_RACES; race++) {
+            final int total = self.supplyTotal(Race.idToEnum[race]);
+            final int used = self.supplyUsed(Race.idToEnum[race]);
+            if (total != supplyTotal[race] || used != supplyUsed[race]) {
+                supplyTotal[race] = total;
+                supplyUsed[race] = used;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean isMet(final int node) {
+        return node == TechTree.NONE || state[node] != 0;
+    }
+
+    private void computeTree() {
+        final int availableOffset = TechTree.requirementCount();
+        for (final UnitType type : UnitType.idToEnum) {
+            if (type == null) {
+                continue;
+            }
+            boolean ok = state[availableOffset + type.id] != 0;
+            for (final int node : TechTree.unitRequirements[type.id]) {
+                ok &= isMet(node);
+            }
+            final int tech = TechTree.unitRequiredTech[type.id];
+            if (tech != TechTree.NONE) {
+                ok &= (state[techOffset + tech] & 2) != 0;
+            }
+            unitTreeOk[type.id] = ok;
+        }
+
+        for (final TechType tech : TechType.idToEnum) {
+            if (tech == null) {
+                continue;
+            }
+            final int techState = state[techOffset + tech.id];
+            techTreeOk[tech.id] = techState == 4 && isMet(TechTree.techRequirement[tech.id]);
+        }
+
+        for (final UpgradeType upgrade : UpgradeType.idToEnum) {
+            if (upgrade == null) {
+                continue;
+            }
+            final int upgradeState = state[upgradeOffset + upgrade.id];
+            final int level = upgradeState & 0xFF;
+            final int maxLevel = (upgradeState >> 8) & 0xFF;
+            final boolean upgrading = (upgradeState >> 16) != 0;
+            final int nextLevelNode = level + 1 <= 3 ? TechTree.upgradeLevelRequirement[upgrade.id][level + 1] : TechTree.NONE;
+            upgradeTreeOk[upgrade.id] = isMet(TechTree.upgradeBuilderRequirement[upgrade.id]) &&
+                    isMet(nextLevelNode) &&
+                    !upgrading &&
+                    level < maxLevel;
+        }
+    }
+
+    private void computeSets(final Player self) {
+        makeable.clear();
+        for (final UnitType type : UnitType.idToEnum) {
+            if (type == null || !unitTreeOk[type.id] ||
+                    minerals < TechTree.unitMineralPrice[type.id] ||
+                    gas < TechTree.unitGasPrice[type.id]) {
+                continue;
+            }
+            final int supplyRequired = TechTree.unitSupplyRequired[type.id];
+            if (supplyRequired > 0) {
+                final int race = TechTree.unitRace[type.id];
+                final int total = race < PLAYABLE_RACES ? supplyTotal[race] : self.supplyTotal(Race.idToEnum[race]);
+                final int used = race < PLAYABLE_RACES ? supplyUsed[race] : self.supplyUsed(Race.idToEnum[race]);
+                if (total < used + supplyRequired - TechTree.unitSupplyRefund[type.id]) {
+                    continue;
+                }
+            }
+            makeable.add(type);
+        }
+
+        researchable.clear();
+        for (final TechType tech : TechType.idToEnum) {
+            if (tech != null && techTreeOk[tech.id] && minerals >= tech.mineralPrice() && gas >= tech.gasPrice()) {
+                researchable.add(tech);
+            }
+        }
+
+        upgradable.clear();
+        for (final UpgradeType upgrade : UpgradeType.idToEnum) {
+            if (upgrade == null || !upgradeTreeOk[upgrade.id]) {
+                continue;
+            }
+            final int nextLevel = (state[upgradeOffset + upgrade.id] & 0xFF) + 1;
+            if (minerals >= upgrade.mineralPrice(nextLevel) && gas >= upgrade.gasPrice(nextLevel)) {
+                upgradable.add(upgrade);
+            }
+        }
+    }
+}
@@ -61,7 +61,7 @@ public class Unit implements Comparable<Unit> {
     private UnitCommand lastCommand;
 
     // Don't make non-latcom users pay for latcom in memory usage
-    private UnitSelf self = null;
+    private volatile UnitSelf self = null;
     UnitSelf self() {
         if (self == null) {
             self = new UnitSelf();
@@ -73,6 +73,7 @@ public class Unit implements Comparable<Unit> {
     Unit(final UnitData unitData, int id, final Game game) {
         this.unitData = unitData;
         this.game = game;
+        this.id = id;
 
         updatePosition(0);
 
@@ -82,10 +83,19 @@ public class Unit implements Comparable<Unit> {
         initialPosition = getPosition();
         initialTilePosition = getTilePosition();
 
-        this.id = id;
         replayID = unitData.getReplayID();
     }
 
+    UnitData unitData() {
+        return unitData;
+    }
+
+    // Returns the frame cache if it is enabled and holds this unit, null otherwise
+    private UnitFieldCache fieldCache() {
+        final UnitFieldCache cache = game.getUnitFieldCache();
+        return cache != null && cache.isCached(id) ? cache : null;
+    }
+
     private static boolean reallyGatheringGas(final Unit targ, final Player player) {
         return targ != null && targ.exists() && targ.isCompleted() && targ.getPlayer() == player &&
                 targ.getType() != Resource_Vespene_Geyser && (targ.getType().isRefinery() || targ.getType().isResourceDepot());
@@ -124,7 +134,8 @@ public class Unit implements Comparable<Unit> {
      * @see #isCompleted
      */
     public boolean exists() {
-        return unitData.getExists();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.EXISTS) : unitData.getExists();
     }
 
     /**
@@ -145,7 +156,8 @@ public class Unit implements Comparable<Unit> {
      * @return The owning Player object. Returns {@link Game#neutral()} If the unit is a neutral unit or inaccessible.
      */
     public Player getPlayer() {
-        return game.getPlayer(unitData.getPlayer());
+        final UnitFieldCache cache = fieldCache();
+        return game.getPlayer(cache != null ? cache.player[id] : unitData.getPlayer());
     }
 
     /**
@@ -158,7 +170,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().type.valid(game.getFrameCount())) {
             return self().type.get();
         }
-        return UnitType.idToEnum[unitData.getType()];
+        final UnitFieldCache cache = fieldCache();
+        return UnitType.idToEnum[cache != null ? cache.type[id] : unitData.getType()];
     }
 
     /**
@@ -311,7 +324,8 @@ public class Unit implements Comparable<Unit> {
      * @see #getInitialHitPoints
      */
     public int getHitPoints() {
-        int hitpoints = unitData.getHitPoints();
+        final UnitFieldCache cache = fieldCache();
+        int hitpoints = cache != null ? cache.hitPoints[id] : unitData.getHitPoints();
         if (game.isLatComEnabled() && self().hitPoints.valid(game.getFrameCount())) {
             return hitpoints + self().hitPoints.get();
         }
@@ -326,7 +340,8 @@ public class Unit implements Comparable<Unit> {
      * @see #getHitPoints
      */
     public int getShields() {
-        return unitData.getShields();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.shields[id] : unitData.getShields();
     }
 
     /**
@@ -338,7 +353,8 @@ public class Unit implements Comparable<Unit> {
      * @see UnitType#maxEnergy
      */
     public int getEnergy() {
-        int energy = unitData.getEnergy();
+        final UnitFieldCache cache = fieldCache();
+        int energy = cache != null ? cache.energy[id] : unitData.getEnergy();
         if (game.isLatComEnabled() && self().energy.valid(game.getFrameCount())) {
             return energy + self().energy.get();
         }
@@ -355,7 +371,8 @@ public class Unit implements Comparable<Unit> {
      * @see #getInitialResources
      */
     public int getResources() {
-        return unitData.getResources();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.resources[id] : unitData.getResources();
     }
 
     /**
@@ -650,7 +667,8 @@ public class Unit implements Comparable<Unit> {
      * @return Number of frames needed for the unit's ground weapon to become available again.
      */
     public int getGroundWeaponCooldown() {
-        return unitData.getGroundWeaponCooldown();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.groundWeaponCooldown[id] : unitData.getGroundWeaponCooldown();
     }
 
     /**
@@ -664,7 +682,8 @@ public class Unit implements Comparable<Unit> {
      * @return Number of frames needed for the unit's air weapon to become available again.
      */
     public int getAirWeaponCooldown() {
-        return unitData.getAirWeaponCooldown();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.airWeaponCooldown[id] : unitData.getAirWeaponCooldown();
     }
 
     /**
@@ -1016,7 +1035,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().order.valid(game.getFrameCount())) {
             return self().order.get();
         }
-        return Order.idToEnum[unitData.getOrder()];
+        final UnitFieldCache cache = fieldCache();
+        return Order.idToEnum[cache != null ? cache.order[id] : unitData.getOrder()];
     }
 
     /**
@@ -1346,7 +1366,8 @@ public class Unit implements Comparable<Unit> {
      * @return true if this unit is attacking another unit, and false if it is not.
      */
     public boolean isAttacking() {
-        return unitData.isAttacking();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.ATTACKING) : unitData.isAttacking();
     }
 
     /**
@@ -1436,7 +1457,8 @@ public class Unit implements Comparable<Unit> {
      * @see #unburrow
      */
     public boolean isBurrowed() {
-        return unitData.isBurrowed();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.BURROWED) : unitData.isBurrowed();
     }
 
     public boolean isCarrying() {
@@ -1477,7 +1499,8 @@ public class Unit implements Comparable<Unit> {
      * @see #decloak
      */
     public boolean isCloaked() {
-        return unitData.isCloaked();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.CLOAKED) : unitData.isCloaked();
     }
 
     /**
@@ -1490,7 +1513,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isCompleted.valid(game.getFrameCount())) {
             return self().isCompleted.get();
         }
-        return unitData.isCompleted();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.COMPLETED) : unitData.isCompleted();
     }
 
     /**
@@ -1507,7 +1531,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isConstructing.valid(game.getFrameCount())) {
             return self().isConstructing.get();
         }
-        return unitData.isConstructing();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.CONSTRUCTING) : unitData.isConstructing();
     }
 
     /**
@@ -1528,7 +1553,8 @@ public class Unit implements Comparable<Unit> {
      * order to see it.
      */
     public boolean isDetected() {
-        return unitData.isDetected();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.DETECTED) : unitData.isDetected();
     }
 
     /**
@@ -1685,7 +1711,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isIdle.valid(game.getFrameCount())) {
             return self().isIdle.get();
         }
-        return unitData.isIdle();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.IDLE) : unitData.isIdle();
     }
 
     /**
@@ -1761,7 +1788,8 @@ public class Unit implements Comparable<Unit> {
      * @see #isFlying
      */
     public boolean isLifted() {
-        return unitData.isLifted();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.LIFTED) : unitData.isLifted();
     }
 
     /**
@@ -1811,7 +1839,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isMorphing.valid(game.getFrameCount())) {
             return self().isMorphing.get();
         }
-        return unitData.isMorphing();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.MORPHING) : unitData.isMorphing();
     }
 
     /**
@@ -1824,7 +1853,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isMoving.valid(game.getFrameCount())) {
             return self().isMoving.get();
         }
-        return unitData.isMoving();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.MOVING) : unitData.isMoving();
     }
 
     /**
@@ -1970,7 +2000,8 @@ public class Unit implements Comparable<Unit> {
         if (game.isLatComEnabled() && self().isTraining.valid(game.getFrameCount())) {
             return self().isTraining.get();
         }
-        return unitData.isTraining();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.TRAINING) : unitData.isTraining();
     }
 
     /**
@@ -2021,7 +2052,8 @@ public class Unit implements Comparable<Unit> {
      * @since 4.0.1 Beta (previously isUnpowered)
      */
     public boolean isPowered() {
-        return unitData.isPowered();
+        final UnitFieldCache cache = fieldCache();
+        return cache != null ? cache.hasFlag(id, UnitFieldCache.POWERED) : unitData.isPowered();
     }
 
     /**
@@ -2097,6 +2129,7 @@ public class Unit implements Comparable<Unit> {
      * @see Unit#canIssueCommand
      */
     public boolean issueCommand(final UnitCommand command) {
+        game.getClient().checkWritable();
         if (!canIssueCommand(command)) {
             return false;
         }
@@ -0,0 +1,122 @@
+package bwapi;
+
+import bwapi.ClientData.UnitData;
+
+import java.util.List;
+
+/**
+ * Frame-scoped copies of the most frequently read {@link Unit} fields, stored in primitive arrays
+ * indexed by unit id.
+ * <p>
+ * When enabled through {@link Game#setUnitFieldCache}, {@link Game#onFrame} copies the hot fields
+ * of every accessible unit in one pass over the shared memory, and the corresponding {@link Unit}
+ * getters serve from these arrays until the next frame's events start. Latency compensation is
+ * still applied on top by the getters.
+ */
+final class UnitFieldCache {
+    static final int EXISTS = 1;
+    static final int COMPLETED = 1 << 1;
+    static final int IDLE = 1 << 2;
+    static final int MOVING = 1 << 3;
+    static final int ATTACKING = 1 << 4;
+    static final int BURROWED = 1 << 5;
+    static final int CLOAKED = 1 << 6;
+    static final int DETECTED = 1 << 7;
+    static final int LIFTED = 1 << 8;
+    static final int MORPHING = 1 << 9;
+    static final int CONSTRUCTING = 1 << 10;
+    static final int TRAINING = 1 << 11;
+    static final int POWERED = 1 << 12;
+
+    private int frame = -1;
+    private int cachedCount = 0;
+    private int[] cachedIds = new int[0];
+    private boolean[] cached = new boolean[0];
+
+    int[] player = new int[0];
+    int[] type = new int[0];
+    int[] hitPoints = new int[0];
+    int[] shields = new int[0];
+    int[] energy = new int[0];
+    int[] resources = new int[0];
+    int[] order = new int[0];
+    int[] groundWeaponCooldown = new int[0];
+    int[] airWeaponCooldown = new int[0];
+    int[] flags = new int[0];
+
+    boolean isCached(final int id) {
+        return id < cached.length && cached[id];
+    }
+
+    boolean hasFlag(final int id, final int flag) {
+        return (flags[id] & flag) != 0;
+    }
+
+    /**
+     * Drops the cached values if they were filled for an earlier frame.
+     */
+    void invalidate(final int currentFrame) {
+        if (frame != currentFrame) {
+            clear();
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < cachedCount; i++) {
+            cached[cachedIds[i]] = false;
+        }
+        cachedCount = 0;
+        frame = -1;
+    }
+
+    void fill(final List<Unit> units, final int capacity, final int currentFrame) {
+        clear();
+        if (cached.length < capacity) {
+            resize(capacity);
+        }
+        for (final Unit unit : units) {
+            final int id = unit.getID();
+            final UnitData data = unit.unitData();
+            player[id] = data.getPlayer();
+            type[id] = data.getType();
+            hitPoints[id] = data.getHitPoints();
+            shields[id] = data.getShields();
+            energy[id] = data.getEnergy();
+            resources[id] = data.getResources();
+            order[id] = data.getOrder();
+            groundWeaponCooldown[id] = data.getGroundWeaponCooldown();
+            airWeaponCooldown[id] = data.getAirWeaponCooldown();
+            flags[id] = (data.getExists() ? EXISTS : 0) |
+                    (data.isCompleted() ? COMPLETED : 0) |
+                    (data.isIdle() ? IDLE : 0) |
+                    (data.isMoving() ? MOVING : 0) |
+                    (data.isAttacking() ? ATTACKING : 0) |
+                    (data.isBurrowed() ? BURROWED : 0) |
+                    (data.isCloaked() ? CLOAKED : 0) |
+                    (data.isDetected() ? DETECTED : 0) |
+                    (data.isLifted() ? LIFTED : 0) |
+                    (data.isMorphing() ? MORPHING : 0) |
+                    (data.isConstructing() ? CONSTRUCTING : 0) |
+                    (data.isTraining() ? TRAINING : 0) |
+                    (data.isPowered() ? POWERED : 0);
+            cached[id] = true;
+            cachedIds[cachedCount++] = id;
+        }
+        frame = currentFrame;
+    }
+
+    private void resize(final int capacity) {
+        cachedIds = new int[capacity];
+        cached = new boolean[capacity];
+        player = new int[capacity];
+        type = new int[capacity];
+        hitPoints = new int[capacity];
+        shields = new int[capacity];
+        energy = new int[capacity];
+        resources = new int[capacity];
+        order = new int[capacity];
+        groundWeaponCooldown = new int[capacity];
+        airWeaponCooldown = new int[capacity];
+        flags = new int[capacity];
+    }
+}
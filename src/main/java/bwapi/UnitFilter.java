@@ -1,43 +1,71 @@
 package bwapi;
 
+import java.util.Objects;
 import java.util.function.Predicate;
 
+/**
+ * A predicate on {@link Unit}s. The filters that only depend on the {@link UnitType} are compiled
+ * to bitmask tests, and combining them with {@link #and}, {@link #or} and {@link #negate}
+ * keeps them compiled, which spatial queries such as {@link Game#getUnitsInRadius} use to reject
+ * units by type before testing anything else.
+ */
 public interface UnitFilter extends Predicate<Unit> {
-    UnitFilter IsTransPort = u -> u.getType().spaceProvided() > 0 && u.getType() != UnitType.Terran_Bunker;
-    UnitFilter CanProduce = u -> u.getType().canProduce();
-    UnitFilter CanAttack = u -> u.getType().canAttack();
-    UnitFilter CanMove = u -> u.getType().canMove();
-    UnitFilter IsFlyer = u -> u.getType().isFlyer();
+    UnitFilter IsTransPort = UnitTypeFilter.withTrait(UnitTypeFilter.TRANSPORT);
+    UnitFilter CanProduce = UnitTypeFilter.withTrait(UnitTypeFilter.CAN_PRODUCE);
+    UnitFilter CanAttack = UnitTypeFilter.withTrait(UnitTypeFilter.CAN_ATTACK);
+    UnitFilter CanMove = UnitTypeFilter.withTrait(UnitTypeFilter.CAN_MOVE);
+    UnitFilter IsFlyer = UnitTypeFilter.withTrait(UnitTypeFilter.FLYER);
     UnitFilter IsFlying = u -> u.isFlying();
-    UnitFilter RegeneratesHP = u -> u.getType().regeneratesHP();
-    UnitFilter IsSpellcaster = u -> u.getType().isSpellcaster();
-    UnitFilter HasPermanentCloak = u -> u.getType().hasPermanentCloak();
-    UnitFilter IsOrganic = u -> u.getType().isOrganic();
-    UnitFilter IsMechanical = u -> u.getType().isMechanical();
-    UnitFilter IsRobotic = u -> u.getType().isRobotic();
-    UnitFilter IsDetector = u -> u.getType().isDetector();
-    UnitFilter IsResourceContainer = u -> u.getType().isResourceContainer();
-    UnitFilter IsResourceDepot = u -> u.getType().isResourceDepot();
-    UnitFilter IsRefinery = u -> u.getType().isRefinery();
-    UnitFilter IsWorker = u -> u.getType().isWorker();
-    UnitFilter RequiresPsi = u -> u.getType().requiresPsi();
-    UnitFilter RequiresCreep = u -> u.getType().requiresCreep();
-    UnitFilter IsBurrowable = u -> u.getType().isBurrowable();
-    UnitFilter IsCloakable = u -> u.getType().isCloakable();
-    UnitFilter IsBuilding = u -> u.getType().isBuilding();
-    UnitFilter IsAddon = u -> u.getType().isAddon();
-    UnitFilter IsFlyingBuilding = u -> u.getType().isFlyingBuilding();
-    UnitFilter IsNeutral = u -> u.getType().isNeutral();
-    UnitFilter IsHero = u -> u.getType().isHero();
-    UnitFilter IsPowerup = u -> u.getType().isPowerup();
-    UnitFilter IsBeacon = u -> u.getType().isBeacon();
-    UnitFilter IsFlagBeacon = u -> u.getType().isFlagBeacon();
-    UnitFilter IsSpecialBuilding = u -> u.getType().isSpecialBuilding();
-    UnitFilter IsSpell = u -> u.getType().isSpell();
-    UnitFilter ProducesLarva = u -> u.getType().producesLarva();
-    UnitFilter IsMineralField = u -> u.getType().isMineralField();
-    UnitFilter IsCritter = u -> u.getType().isCritter();
-    UnitFilter CanBuildAddon = u -> u.getType().canBuildAddon();
+    UnitFilter RegeneratesHP = UnitTypeFilter.withTrait(UnitTypeFilter.REGENERATES_HP);
+    UnitFilter IsSpellcaster = UnitTypeFilter.withTrait(UnitTypeFilter.SPELLCASTER);
+    UnitFilter HasPermanentCloak = UnitTypeFilter.withTrait(UnitTypeFilter.PERMANENT_CLOAK);
+    UnitFilter IsOrganic = UnitTypeFilter.withTrait(UnitTypeFilter.ORGANIC);
+    UnitFilter IsMechanical = UnitTypeFilter.withTrait(UnitTypeFilter.MECHANICAL);
+    UnitFilter IsRobotic = UnitTypeFilter.withTrait(UnitTypeFilter.ROBOTIC);
+    UnitFilter IsDetector = UnitTypeFilter.withTrait(UnitTypeFilter.DETECTOR);
+    UnitFilter IsResourceContainer = UnitTypeFilter.withTrait(UnitTypeFilter.RESOURCE_CONTAINER);
+    UnitFilter IsResourceDepot = UnitTypeFilter.withTrait(UnitTypeFilter.RESOURCE_DEPOT);
+    UnitFilter IsRefinery = UnitTypeFilter.withTrait(UnitTypeFilter.REFINERY);
+    UnitFilter IsWorker = UnitTypeFilter.withTrait(UnitTypeFilter.WORKER);
+    UnitFilter RequiresPsi = UnitTypeFilter.withTrait(UnitTypeFilter.REQUIRES_PSI);
+    UnitFilter RequiresCreep = UnitTypeFilter.withTrait(UnitTypeFilter.REQUIRES_CREEP);
+    UnitFilter IsBurrowable = UnitTypeFilter.withTrait(UnitTypeFilter.BURROWABLE);
+    UnitFilter IsCloakable = UnitTypeFilter.withTrait(UnitTypeFilter.CLOAKABLE);
+    UnitFilter IsBuilding = UnitTypeFilter.withTrait(UnitTypeFilter.BUILDING);
+    UnitFilter IsAddon = UnitTypeFilter.withTrait(UnitTypeFilter.ADDON);
+    UnitFilter IsFlyingBuilding = UnitTypeFilter.withTrait(UnitTypeFilter.FLYING_BUILDING);
+    UnitFilter IsNeutral = UnitTypeFilter.withTrait(UnitTypeFilter.NEUTRAL);
+    UnitFilter IsHero = UnitTypeFilter.withTrait(UnitTypeFilter.HERO);
+    UnitFilter IsPowerup = UnitTypeFilter.withTrait(UnitTypeFilter.POWERUP);
+    UnitFilter IsBeacon = UnitTypeFilter.withTrait(UnitTypeFilter.BEACON);
+    UnitFilter IsFlagBeacon = UnitTypeFilter.withTrait(UnitTypeFilter.FLAG_BEACON);
+    UnitFilter IsSpecialBuilding = UnitTypeFilter.withTrait(UnitTypeFilter.SPECIAL_BUILDING);
+    UnitFilter IsSpell = UnitTypeFilter.withTrait(UnitTypeFilter.SPELL);
+    UnitFilter ProducesLarva = UnitTypeFilter.withTrait(UnitTypeFilter.PRODUCES_LARVA);
+    UnitFilter IsMineralField = UnitTypeFilter.withTrait(UnitTypeFilter.MINERAL_FIELD);
+    UnitFilter IsCritter = UnitTypeFilter.withTrait(UnitTypeFilter.CRITTER);
+    UnitFilter CanBuildAddon = UnitTypeFilter.withTrait(UnitTypeFilter.CAN_BUILD_ADDON);
+
+    @Override
+    default UnitFilter and(final Predicate<? super Unit> other) {
+        Objects.requireNonNull(other);
+        if (other instanceof UnitTypeFilter) {
+            // Evaluate the cheap type test first
+            return ((UnitTypeFilter) other).and(this);
+        }
+        return u -> test(u) && other.test(u);
+    }
+
+    @Override
+    default UnitFilter or(final Predicate<? super Unit> other) {
+        Objects.requireNonNull(other);
+        return u -> test(u) || other.test(u);
+    }
+
+    @Override
+    default UnitFilter negate() {
+        return u -> !test(u);
+    }
 
     // static UnitFilter example = HP(x -> x > 40);
     static UnitFilter HP(Predicate<Integer> c) {
@@ -0,0 +1,201 @@
+package bwapi;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A {@link UnitFilter} that is decided by the {@link UnitType} of a unit, optionally followed by a
+ * residual filter on the unit itself.
+ * <p>
+ * The static properties of every unit type are precomputed into a {@code long} mask of traits, and
+ * type filters are compiled into the set of matching type ids. Testing a unit is then a single bit
+ * test, and combining type filters with {@link #and}, {@link #or} and {@link #negate} combines
+ * the sets instead of chaining predicates.
+ */
+final class UnitTypeFilter implements UnitFilter {
+    static final long TRANSPORT = 1L;
+    static final long CAN_PRODUCE = 1L << 1;
+    static final long CAN_ATTACK = 1L << 2;
+    static final long CAN_MOVE = 1L << 3;
+    static final long FLYER = 1L << 4;
+    static final long REGENERATES_HP = 1L << 5;
+    static final long SPELLCASTER = 1L << 6;
+    static final long PERMANENT_CLOAK = 1L << 7;
+    static final long ORGANIC = 1L << 8;
+    static final long MECHANICAL = 1L << 9;
+    static final long ROBOTIC = 1L << 10;
+    static final long DETECTOR = 1L << 11;
+    static final long RESOURCE_CONTAINER = 1L << 12;
+    static final long RESOURCE_DEPOT = 1L << 13;
+    static final long REFINERY = 1L << 14;
+    static final long WORKER = 1L << 15;
+    static final long REQUIRES_PSI = 1L << 16;
+    static final long REQUIRES_CREEP = 1L << 17;
+    static final long BURROWABLE = 1L << 18;
+    static final long CLOAKABLE = 1L << 19;
+    static final long BUILDING = 1L << 20;
+    static final long ADDON = 1L << 21;
+    static final long FLYING_BUILDING = 1L << 22;
+    static final long NEUTRAL = 1L << 23;
+    static final long HERO = 1L << 24;
+    static final long POWERUP = 1L << 25;
+    static final long BEACON = 1L << 26;
+    static final long FLAG_BEACON = 1L << 27;
+    static final long SPECIAL_BUILDING = 1L << 28;
+    static final long SPELL = 1L << 29;
+    static final long PRODUCES_LARVA = 1L << 30;
+    static final long MINERAL_FIELD = 1L << 31;
+    static final long CRITTER = 1L << 32;
+    static final long CAN_BUILD_ADDON = 1L << 33;
+
+    private static final int TYPE_COUNT = UnitType.idToEnum.length;
+    private static final int WORDS = (TYPE_COUNT + 63) >>> 6;
+    private static final long[] traits = new long[TYPE_COUNT];
+
+    static {
+        for (final UnitType type : UnitType.idToEnum) {
+            if (type != null) {
+                traits[type.id] = computeTraits(type);
+            }
+        }
+    }
+
+    private final long[] types;
+    private final UnitFilter residual;
+
+    private UnitTypeFilter(final long[] types, final UnitFilter residual) {
+        this.types = types;
+        this.residual = residual;
+    }
+
+    /**
+     * @return A filter accepting every unit whose type has any of the given traits.
+     */
+    static UnitTypeFilter withTrait(final long trait) {
+        final long[] types = new long[WORDS];
+        for (int id = 0; id < TYPE_COUNT; id++) {
+            if ((traits[id] & trait) != 0) {
+                types[id >>> 6] |= 1L << id;
+            }
+        }
+        return new UnitTypeFilter(types, null);
+    }
+
+    private static long computeTraits(final UnitType type) {
+        long mask = 0;
+        if (type.spaceProvided() > 0 && type != UnitType.Terran_Bunker) mask |= TRANSPORT;
+        if (type.canProduce()) mask |= CAN_PRODUCE;
+        if (type.canAttack()) mask |= CAN_ATTACK;
+        if (type.canMove()) mask |= CAN_MOVE;
+        if (type.isFlyer()) mask |= FLYER;
+        if (type.regeneratesHP()) mask |= REGENERATES_HP;
+        if (type.isSpellcaster()) mask |= SPELLCASTER;
+        if (type.hasPermanentCloak()) mask |= PERMANENT_CLOAK;
+        if (type.isOrganic()) mask |= ORGANIC;
+        if (type.isMechanical()) mask |= MECHANICAL;
+        if (type.isRobotic()) mask |= ROBOTIC;
+        if (type.isDetector()) mask |= DETECTOR;
+        if (type.isResourceContainer()) mask |= RESOURCE_CONTAINER;
+        if (type.isResourceDepot()) mask |= RESOURCE_DEPOT;
+        if (type.isRefinery()) mask |= REFINERY;
+        if (type.isWorker()) mask |= WORKER;
+        if (type.requiresPsi()) mask |= REQUIRES_PSI;
+        if (type.requiresCreep()) mask |= REQUIRES_CREEP;
+        if (type.isBurrowable()) mask |= BURROWABLE;
+        if (type.isCloakable()) mask |= CLOAKABLE;
+        if (type.isBuilding()) mask |= BUILDING;
+        if (type.isAddon()) mask |= ADDON;
+        if (type.isFlyingBuilding()) mask |= FLYING_BUILDING;
+        if (type.isNeutral()) mask |= NEUTRAL;
+        if (type.isHero()) mask |= HERO;
+        if (type.isPowerup()) mask |= POWERUP;
+        if (type.isBeacon()) mask |= BEACON;
+        if (type.isFlagBeacon()) mask |= FLAG_BEACON;
+        if (type.isSpecialBuilding()) mask |= SPECIAL_BUILDING;
+        if (type.isSpell()) mask |= SPELL;
+        if (type.producesLarva()) mask |= PRODUCES_LARVA;
+        if (type.isMineralField()) mask |= MINERAL_FIELD;
+        if (type.isCritter()) mask |= CRITTER;
+        if (type.canBuildAddon()) mask |= CAN_BUILD_ADDON;
+        return mask;
+    }
+
+    boolean acceptsType(final UnitType type) {
+        final int id = type.id;
+        return (types[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * @return true if no unit type can pass this filter, so queries can skip scanning units entirely.
+     */
+    boolean acceptsNoType() {
+        for (final long word : types) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The part of this filter that still has to be evaluated on the unit once its type
+     * was accepted, or null if the type alone decides.
+     */
+    UnitFilter getResidual() {
+        return residual;
+    }
+
+    @Override
+    public boolean test(final Unit unit) {
+        return acceptsType(unit.getType()) && (residual == null || residual.test(unit));
+    }
+
+    @Override
+    public UnitFilter and(final Predicate<? super Unit> other) {
+        Objects.requireNonNull(other);
+        if (other instanceof UnitTypeFilter) {
+            final UnitTypeFilter filter = (UnitTypeFilter) other;
+            final long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = types[i] & filter.types[i];
+            }
+            final UnitFilter combined;
+            if (residual == null) {
+                combined = filter.residual;
+            } else {
+                combined = filter.residual == null ? residual : residual.and(filter.residual);
+            }
+            return new UnitTypeFilter(result, combined);
+        }
+        final UnitFilter filter = other instanceof UnitFilter ? (UnitFilter) other : other::test;
+        return new UnitTypeFilter(types, residual == null ? filter : residual.and(filter));
+    }
+
+    @Override
+    public UnitFilter or(final Predicate<? super Unit> other) {
+        Objects.requireNonNull(other);
+        if (residual == null && other instanceof UnitTypeFilter && ((UnitTypeFilter) other).residual == null) {
+            final UnitTypeFilter filter = (UnitTypeFilter) other;
+            final long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = types[i] | filter.types[i];
+            }
+            return new UnitTypeFilter(result, null);
+        }
+        return UnitFilter.super.or(other);
+    }
+
+    @Override
+    public UnitFilter negate() {
+        if (residual == null) {
+            final long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = ~types[i];
+            }
+            // Clear the bits past the last type id
+            result[WORDS - 1] &= -1L >>> (WORDS * 64 - TYPE_COUNT);
+            return new UnitTypeFilter(result, null);
+        }
+        return UnitFilter.super.negate();
+    }
+}
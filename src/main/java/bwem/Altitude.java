@@ -23,8 +23,10 @@ import java.util.Comparator;
  * <p>Type of the altitudes in pixels.
  */
 public final class Altitude implements Comparable<Altitude> {
-    public static final Altitude UNINITIALIZED = new Altitude(-1);
-    public static final Altitude ZERO = new Altitude(0);
+    // The shared instances of the int16 altitudes, created on first use (Cf. {@link #valueOf}).
+    private static final Altitude[] VALUES = new Altitude[1 << 16];
+    public static final Altitude UNINITIALIZED = valueOf(-1);
+    public static final Altitude ZERO = valueOf(0);
     public static final Comparator<Pair<?, Altitude>> BY_ALTITUDE_ORDER = Comparator.comparing(p -> p.getRight().intValue());
     private final int val;
 
@@ -32,6 +34,23 @@ public final class Altitude implements Comparable<Altitude> {
         this.val = val;
     }
 
+    /**
+     * Returns the Altitude of val, shared by all the values in the int16 range, so that the getters of
+     * the Tiles and MiniTiles do not allocate.
+     */
+    static Altitude valueOf(final int val) {
+        if (val != (short) val) {
+            return new Altitude(val);
+        }
+        // Instances are immutable, so a race at most creates a duplicate.
+        Altitude value = VALUES[val & 0xFFFF];
+        if (value == null) {
+            value = new Altitude(val);
+            VALUES[val & 0xFFFF] = value;
+        }
+        return value;
+    }
+
     public int intValue() {
         return this.val;
     }
@@ -0,0 +1,558 @@
+package bwem;
+
+import bwapi.Pair;
+import bwapi.TilePosition;
+import bwapi.WalkPosition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file holding the result of the analysis of a map, so that it can be restored without
+ * running the analysis again.<br>
+ * Only the computed state is stored: the neutrals are still created from the game, and must match the
+ * ones recorded in the file for it to be used.<br>
+ * Layout (big-endian): magic, format version, map hash, map size, neutrals with their blocked areas,
+ * miniTile and tile arrays, nearest areas of the tiles and miniTiles, raw frontier, areas, ChokePoints, distances and paths between the
+ * ChokePoints, distances between the ChokePoints inside each area, bases, and a CRC32 of everything before it.
+ */
+final class AnalysisCache {
+    static final String FILE_EXTENSION = ".bwem";
+    private static final int MAGIC = 0x4257454D; // "BWEM"
+    // To be incremented whenever the layout or the analysis results change.
+    static final int FORMAT_VERSION = 3;
+
+    private AnalysisCache() {
+    }
+
+    static Path getFile(final Path directory, final String mapHash) {
+        return directory.resolve(mapHash + FILE_EXTENSION);
+    }
+
+    ////////////////////////////////////////////////////////////////////////
+    // Writing
+    ////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Writes the analysis of map to file, through a temporary file moved over it, so that a reader
+     * never sees a partially written file.
+     */
+    static void write(final BWMap map, final Path file) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeContents(map, out);
+        out.flush();
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream fileOut = Files.newOutputStream(temporary)) {
+                bytes.writeTo(fileOut);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeContents(final BWMap map, final DataOutputStream out) throws IOException {
+        final TileData tileData = map.getData().getTileData();
+        final Graph graph = map.getGraph();
+        final List<Neutral> neutrals = getNeutrals(map.getNeutralData());
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        final byte[] mapHash = map.game.mapHash().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(mapHash.length);
+        out.write(mapHash);
+        out.writeInt(map.getData().getMapData().getTileSize().getX());
+        out.writeInt(map.getData().getMapData().getTileSize().getY());
+
+        // Neutrals
+        out.writeInt(map.getNeutralData().getMinerals().size());
+        out.writeInt(map.getNeutralData().getGeysers().size());
+        out.writeInt(map.getNeutralData().getStaticBuildings().size());
+        for (final Neutral neutral : neutrals) {
+            out.writeInt(neutral.getType().ordinal());
+            out.writeInt(neutral.getTopLeft().getX());
+            out.writeInt(neutral.getTopLeft().getY());
+            writePositions(out, neutral.getBlockedAreaPositions());
+        }
+
+        // Terrain
+        out.writeInt(map.getHighestAltitude().intValue());
+        writeShorts(out, tileData.miniTileAltitude);
+        writeShorts(out, tileData.miniTileAreaId);
+        writeBits(out, tileData.miniTileWalkable);
+        writeBits(out, tileData.miniTileBlocked);
+        writeShorts(out, tileData.tileLowestAltitude);
+        writeShorts(out, tileData.tileAreaId);
+        out.writeInt(tileData.tileGroundHeight.length);
+        out.write(tileData.tileGroundHeight);
+        writeBits(out, tileData.tileBuildable);
+        writeBits(out, tileData.tileDoodad);
+        writeBits(out, tileData.tileBlocked);
+        for (final NearestAreaGrid grid : new NearestAreaGrid[]{
+                graph.getNearestTileAreas(), graph.getNearestMiniTileAreas()}) {
+            writeShorts(out, grid.getNearestAreaIds());
+            writeShorts(out, grid.getDistances());
+        }
+
+        out.writeInt(map.getRawFrontier().size());
+        for (final Pair<Pair<AreaId, AreaId>, WalkPosition> frontier : map.getRawFrontier()) {
+            out.writeInt(frontier.getLeft().getLeft().intValue());
+            out.writeInt(frontier.getLeft().getRight().intValue());
+            writePosition(out, frontier.getRight());
+        }
+
+        // Graph
+        out.writeInt(graph.getAreas().size());
+        for (final Area area : graph.getAreas()) {
+            writePosition(out, area.getTop());
+            out.writeInt(area.getSize());
+        }
+
+        final List<ChokePoint> chokePoints = graph.getChokePoints();
+        out.writeInt(chokePoints.size());
+        for (final ChokePoint cp : chokePoints) {
+            final Area areaA = cp.getAreas().getLeft();
+            final Area areaB = cp.getAreas().getRight();
+            out.writeInt(cp.getIndex());
+            out.writeInt(areaA.getId().intValue());
+            out.writeInt(areaB.getId().intValue());
+            out.writeInt(cp.getBlockingNeutral() == null ? -1 : neutrals.indexOf(cp.getBlockingNeutral()));
+            writePositions(out, cp.getGeometry());
+            for (final ChokePoint.Node node : ChokePoint.Node.values()) {
+                if (node != ChokePoint.Node.NODE_COUNT) {
+                    writePosition(out, cp.getNodePosition(node));
+                    writePosition(out, cp.getNodePositionInArea(node, areaA));
+                    writePosition(out, cp.getNodePositionInArea(node, areaB));
+                }
+            }
+        }
+
+        final ChokePoint[] byIndex = new ChokePoint[chokePoints.size()];
+        for (final ChokePoint cp : chokePoints) {
+            byIndex[cp.getIndex()] = cp;
+        }
+        for (final ChokePoint cpA : byIndex) {
+            for (final ChokePoint cpB : byIndex) {
+                out.writeInt(graph.distance(cpA, cpB));
+            }
+        }
+        for (final ChokePoint cpA : byIndex) {
+            for (final ChokePoint cpB : byIndex) {
+                final CPPath path = graph.getPath(cpA, cpB);
+                out.writeInt(path.size());
+                for (final ChokePoint cp : path) {
+                    out.writeInt(cp.getIndex());
+                }
+            }
+        }
+        for (final List<int[]> distancesInArea : graph.getChokePointDistancesInAreas()) {
+            out.writeInt(distancesInArea.size());
+            for (final int[] distancesFromStart : distancesInArea) {
+                out.writeInt(distancesFromStart.length);
+                for (final int distance : distancesFromStart) {
+                    out.writeInt(distance);
+                }
+            }
+        }
+
+        out.writeInt(graph.getBases().size());
+        for (final Base base : graph.getBases()) {
+            out.writeInt(base.getArea().getId().intValue());
+            out.writeInt(base.getLocation().getX());
+            out.writeInt(base.getLocation().getY());
+            writeIndexes(out, base.getMinerals(), neutrals);
+            writeIndexes(out, base.getGeysers(), neutrals);
+            writeIndexes(out, base.getBlockingMinerals(), neutrals);
+        }
+    }
+
+    private static void writePosition(final DataOutputStream out, final WalkPosition w) throws IOException {
+        out.writeInt(w.getX());
+        out.writeInt(w.getY());
+    }
+
+    private static void writePositions(final DataOutputStream out, final List<WalkPosition> positions)
+            throws IOException {
+        out.writeInt(positions.size());
+        for (final WalkPosition w : positions) {
+            writePosition(out, w);
+        }
+    }
+
+    private static void writeIndexes(final DataOutputStream out, final List<? extends Neutral> items,
+            final List<Neutral> neutrals) throws IOException {
+        out.writeInt(items.size());
+        for (final Neutral item : items) {
+            out.writeInt(neutrals.indexOf(item));
+        }
+    }
+
+    private static void writeShorts(final DataOutputStream out, final short[] values) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * 2);
+        buffer.asShortBuffer().put(values);
+        out.writeInt(values.length);
+        out.write(buffer.array());
+    }
+
+    private static void writeBits(final DataOutputStream out, final BitSet bits) throws IOException {
+        final long[] words = bits.toLongArray();
+        final ByteBuffer buffer = ByteBuffer.allocate(words.length * 8);
+        buffer.asLongBuffer().put(words);
+        out.writeInt(words.length);
+        out.write(buffer.array());
+    }
+
+    ////////////////////////////////////////////////////////////////////////
+    // Reading
+    ////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Restores the analysis stored in file into map, whose terrain and neutral data have just been
+     * initialized from the game.<br>
+     * Returns false, leaving map untouched, if the file is missing, corrupt, of another format version
+     * or for another map.
+     */
+    static boolean read(final BWMapInitializer map, final Path file) throws IOException {
+        final ByteBuffer buffer;
+        // Not mapped: a mapping is only released by the GC, and until then Windows does not let write
+        // replace the file.
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        if (buffer.limit() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return false;
+        }
+        final ByteBuffer contents = buffer.duplicate();
+        contents.position(0).limit(buffer.limit() - 4);
+        final CRC32 crc = new CRC32();
+        crc.update(contents);
+        if (buffer.getInt(buffer.limit() - 4) != (int) crc.getValue()) {
+            return false;
+        }
+
+        final Contents parsed;
+        try {
+            parsed = parse(map, buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            return false;
+        }
+        if (parsed == null) {
+            return false;
+        }
+        parsed.restore(map);
+        return true;
+    }
+
+    // Everything read from the file, before any change is made to the map.
+    private static final class Contents {
+        List<Neutral> neutrals;
+        List<List<WalkPosition>> blockedAreaPositions;
+        int highestAltitude;
+        short[] miniTileAltitude;
+        short[] miniTileAreaId;
+        long[] miniTileWalkable;
+        long[] miniTileBlocked;
+        short[] tileLowestAltitude;
+        short[] tileAreaId;
+        byte[] tileGroundHeight;
+        long[] tileBuildable;
+        long[] tileDoodad;
+        long[] tileBlocked;
+        short[] nearestTileAreaIds;
+        short[] nearestTileAreaDistances;
+        short[] nearestMiniTileAreaIds;
+        short[] nearestMiniTileAreaDistances;
+        List<Pair<Pair<AreaId, AreaId>, WalkPosition>> rawFrontier;
+        List<Pair<WalkPosition, Integer>> areas;
+        int[][] chokePoints; // index, areaA, areaB, blocking neutral
+        List<List<WalkPosition>> geometries;
+        WalkPosition[][] nodes; // per ChokePoint and node: position, position in areaA, in areaB
+        int[][] distances;
+        int[][][] paths;
+        List<List<int[]>> distancesInAreas; // by area, ChokePoint of the area and previous ChokePoint
+        int[][] bases; // area, x, y
+        int[][][] baseResources; // minerals, geysers, blocking minerals
+
+        void restore(final BWMapInitializer map) {
+            final TileData tileData = map.getData().getTileData();
+            System.arraycopy(miniTileAltitude, 0, tileData.miniTileAltitude, 0, miniTileAltitude.length);
+            System.arraycopy(miniTileAreaId, 0, tileData.miniTileAreaId, 0, miniTileAreaId.length);
+            setBits(tileData.miniTileWalkable, miniTileWalkable);
+            setBits(tileData.miniTileBlocked, miniTileBlocked);
+            System.arraycopy(tileLowestAltitude, 0, tileData.tileLowestAltitude, 0, tileLowestAltitude.length);
+            System.arraycopy(tileAreaId, 0, tileData.tileAreaId, 0, tileAreaId.length);
+            System.arraycopy(tileGroundHeight, 0, tileData.tileGroundHeight, 0, tileGroundHeight.length);
+            setBits(tileData.tileBuildable, tileBuildable);
+            setBits(tileData.tileDoodad, tileDoodad);
+            setBits(tileData.tileBlocked, tileBlocked);
+            map.highestAltitude = new Altitude(highestAltitude);
+
+            for (int i = 0; i < neutrals.size(); ++i) {
+                if (!blockedAreaPositions.get(i).isEmpty()) {
+                    neutrals.get(i).setBlocking(blockedAreaPositions.get(i));
+                }
+            }
+            map.rawFrontier.addAll(rawFrontier);
+
+            final Graph graph = map.getGraph();
+            graph.createAreas(areas);
+            final MapData mapData = map.getData().getMapData();
+            graph.restoreNearestAreas(
+                    NearestAreaGrid.restore(mapData.getTileSize().getX(), mapData.getTileSize().getY(),
+                            tileData.tileAreaId, nearestTileAreaIds, nearestTileAreaDistances),
+                    NearestAreaGrid.restore(mapData.getWalkSize().getX(), mapData.getWalkSize().getY(),
+                            tileData.miniTileAreaId, nearestMiniTileAreaIds, nearestMiniTileAreaDistances));
+
+            final List<ChokePoint> restoredChokePoints = new ArrayList<>(chokePoints.length);
+            for (int i = 0; i < chokePoints.length; ++i) {
+                final int[] cp = chokePoints[i];
+                final WalkPosition[] cpNodes = new WalkPosition[ChokePoint.Node.NODE_COUNT.ordinal()];
+                final List<Pair<WalkPosition, WalkPosition>> nodesInArea = new ArrayList<>(cpNodes.length);
+                for (int n = 0; n < cpNodes.length; ++n) {
+                    cpNodes[n] = nodes[i][3 * n];
+                    nodesInArea.add(new Pair<>(nodes[i][3 * n + 1], nodes[i][3 * n + 2]));
+                }
+                restoredChokePoints.add(new ChokePoint(graph, cp[0],
+                        graph.getArea(new AreaId(cp[1])), graph.getArea(new AreaId(cp[2])),
+                        geometries.get(i), cp[3] < 0 ? null : neutrals.get(cp[3]), cpNodes, nodesInArea));
+            }
+            graph.restoreChokePoints(restoredChokePoints);
+            graph.restoreChokePointDistanceMatrix(distances, paths, distancesInAreas);
+
+            graph.collectInformation();
+
+            for (int i = 0; i < bases.length; ++i) {
+                final Area area = graph.getArea(new AreaId(bases[i][0]));
+                final List<Resource> assignedResources = new ArrayList<>();
+                for (final int mineral : baseResources[i][0]) {
+                    assignedResources.add((Resource) neutrals.get(mineral));
+                }
+                for (final int geyser : baseResources[i][1]) {
+                    assignedResources.add((Resource) neutrals.get(geyser));
+                }
+                final List<Mineral> blockingMinerals = new ArrayList<>();
+                for (final int mineral : baseResources[i][2]) {
+                    blockingMinerals.add((Mineral) neutrals.get(mineral));
+                }
+                area.bases.add(new Base(area, new TilePosition(bases[i][1], bases[i][2]),
+                        assignedResources, blockingMinerals, map.asserter));
+            }
+            graph.restoreBases();
+        }
+    }
+
+    // Returns null if the file does not match the map.
+    private static Contents parse(final BWMap map, final ByteBuffer in) {
+        final Contents contents = new Contents();
+
+        final byte[] mapHash = new byte[in.getInt()];
+        in.get(mapHash);
+        if (!new String(mapHash, StandardCharsets.UTF_8).equals(map.game.mapHash())
+                || in.getInt() != map.getData().getMapData().getTileSize().getX()
+                || in.getInt() != map.getData().getMapData().getTileSize().getY()) {
+            return null;
+        }
+
+        if (in.getInt() != map.getNeutralData().getMinerals().size()
+                || in.getInt() != map.getNeutralData().getGeysers().size()
+                || in.getInt() != map.getNeutralData().getStaticBuildings().size()) {
+            return null;
+        }
+        contents.neutrals = getNeutrals(map.getNeutralData());
+        contents.blockedAreaPositions = new ArrayList<>(contents.neutrals.size());
+        for (final Neutral neutral : contents.neutrals) {
+            if (in.getInt() != neutral.getType().ordinal()
+                    || in.getInt() != neutral.getTopLeft().getX()
+                    || in.getInt() != neutral.getTopLeft().getY()) {
+                return null;
+            }
+            contents.blockedAreaPositions.add(readPositions(in));
+        }
+
+        final TileData tileData = map.getData().getTileData();
+        contents.highestAltitude = in.getInt();
+        contents.miniTileAltitude = readShorts(in, tileData.miniTileAltitude.length);
+        contents.miniTileAreaId = readShorts(in, tileData.miniTileAreaId.length);
+        contents.miniTileWalkable = readLongs(in);
+        contents.miniTileBlocked = readLongs(in);
+        contents.tileLowestAltitude = readShorts(in, tileData.tileLowestAltitude.length);
+        contents.tileAreaId = readShorts(in, tileData.tileAreaId.length);
+        contents.tileGroundHeight = new byte[checkLength(in.getInt(), tileData.tileGroundHeight.length)];
+        in.get(contents.tileGroundHeight);
+        contents.tileBuildable = readLongs(in);
+        contents.tileDoodad = readLongs(in);
+        contents.tileBlocked = readLongs(in);
+        contents.nearestTileAreaIds = readShorts(in, tileData.tileAreaId.length);
+        contents.nearestTileAreaDistances = readShorts(in, tileData.tileAreaId.length);
+        contents.nearestMiniTileAreaIds = readShorts(in, tileData.miniTileAreaId.length);
+        contents.nearestMiniTileAreaDistances = readShorts(in, tileData.miniTileAreaId.length);
+
+        final int frontierCount = in.getInt();
+        contents.rawFrontier = new ArrayList<>(frontierCount);
+        for (int i = 0; i < frontierCount; ++i) {
+            final AreaId a = new AreaId(in.getInt());
+            final AreaId b = new AreaId(in.getInt());
+            contents.rawFrontier.add(new Pair<>(new Pair<>(a, b), readPosition(in)));
+        }
+
+        final int areaCount = in.getInt();
+        contents.areas = new ArrayList<>(areaCount);
+        for (int i = 0; i < areaCount; ++i) {
+            final WalkPosition top = readPosition(in);
+            contents.areas.add(new Pair<>(top, in.getInt()));
+        }
+
+        final int cpCount = in.getInt();
+        final int nodeCount = ChokePoint.Node.NODE_COUNT.ordinal();
+        contents.chokePoints = new int[cpCount][];
+        contents.geometries = new ArrayList<>(cpCount);
+        contents.nodes = new WalkPosition[cpCount][3 * nodeCount];
+        for (int i = 0; i < cpCount; ++i) {
+            contents.chokePoints[i] = new int[]{in.getInt(), in.getInt(), in.getInt(), in.getInt()};
+            checkLength(contents.chokePoints[i][0], cpCount - 1, true);
+            checkLength(contents.chokePoints[i][3], contents.neutrals.size() - 1, true);
+            contents.geometries.add(readPositions(in));
+            for (int n = 0; n < 3 * nodeCount; ++n) {
+                contents.nodes[i][n] = readPosition(in);
+            }
+        }
+
+        contents.distances = new int[cpCount][cpCount];
+        for (int a = 0; a < cpCount; ++a) {
+            for (int b = 0; b < cpCount; ++b) {
+                contents.distances[a][b] = in.getInt();
+            }
+        }
+        contents.paths = new int[cpCount][cpCount][];
+        for (int a = 0; a < cpCount; ++a) {
+            for (int b = 0; b < cpCount; ++b) {
+                contents.paths[a][b] = readIndexes(in, cpCount);
+            }
+        }
+        contents.distancesInAreas = new ArrayList<>(areaCount);
+        for (int i = 0; i < areaCount; ++i) {
+            final int startCount = in.getInt();
+            checkLength(startCount, cpCount, false);
+            final List<int[]> distancesInArea = new ArrayList<>(startCount);
+            for (int start = 0; start < startCount; ++start) {
+                final int[] distancesFromStart = new int[in.getInt()];
+                checkLength(distancesFromStart.length, start, false);
+                for (int j = 0; j < distancesFromStart.length; ++j) {
+                    distancesFromStart[j] = in.getInt();
+                }
+                distancesInArea.add(distancesFromStart);
+            }
+            contents.distancesInAreas.add(distancesInArea);
+        }
+
+        final int baseCount = in.getInt();
+        contents.bases = new int[baseCount][];
+        contents.baseResources = new int[baseCount][][];
+        for (int i = 0; i < baseCount; ++i) {
+            contents.bases[i] = new int[]{in.getInt(), in.getInt(), in.getInt()};
+            contents.baseResources[i] = new int[][]{
+                    readIndexes(in, contents.neutrals.size()),
+                    readIndexes(in, contents.neutrals.size()),
+                    readIndexes(in, contents.neutrals.size())};
+        }
+
+        return contents;
+    }
+
+    private static int checkLength(final int length, final int expected) {
+        if (length != expected) {
+            throw new IndexOutOfBoundsException("Unexpected length " + length + ", expected " + expected);
+        }
+        return length;
+    }
+
+    private static void checkLength(final int index, final int max, final boolean allowNegative) {
+        if (index > max || (index < 0 && !(allowNegative && index == -1))) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of [-1, " + max + "]");
+        }
+    }
+
+    private static WalkPosition readPosition(final ByteBuffer in) {
+        final int x = in.getInt();
+        return new WalkPosition(x, in.getInt());
+    }
+
+    private static List<WalkPosition> readPositions(final ByteBuffer in) {
+        final int count = in.getInt();
+        final List<WalkPosition> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            positions.add(readPosition(in));
+        }
+        return positions;
+    }
+
+    private static int[] readIndexes(final ByteBuffer in, final int size) {
+        final int[] indexes = new int[in.getInt()];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = in.getInt();
+            checkLength(indexes[i], size - 1, false);
+        }
+        return indexes;
+    }
+
+    private static short[] readShorts(final ByteBuffer in, final int expectedLength) {
+        final short[] values = new short[checkLength(in.getInt(), expectedLength)];
+        in.asShortBuffer().get(values);
+        in.position(in.position() + values.length * 2);
+        return values;
+    }
+
+    private static long[] readLongs(final ByteBuffer in) {
+        final long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * 8);
+        return values;
+    }
+
+    private static void setBits(final BitSet target, final long[] words) {
+        target.clear();
+        target.or(BitSet.valueOf(words));
+    }
+
+    // All the neutrals, in the order their indexes are stored.
+    private static List<Neutral> getNeutrals(final NeutralData neutralData) {
+        final List<Neutral> neutrals = new ArrayList<>(
+                neutralData.getMinerals().size() + neutralData.getGeysers().size()
+                        + neutralData.getStaticBuildings().size());
+        neutrals.addAll(neutralData.getMinerals());
+        neutrals.addAll(neutralData.getGeysers());
+        neutrals.addAll(neutralData.getStaticBuildings());
+        return neutrals;
+    }
+}
@@ -17,14 +17,33 @@ package bwem;
  * area.h:54:typedef int16_t id;
  */
 public final class AreaId implements Comparable<AreaId> {
-    public static final AreaId UNINITIALIZED = new AreaId(-1);
-    public static final AreaId ZERO = new AreaId(0);
+    // The shared instances of the int16 ids, created on first use (Cf. {@link #valueOf}).
+    private static final AreaId[] VALUES = new AreaId[1 << 16];
+    public static final AreaId UNINITIALIZED = valueOf(-1);
+    public static final AreaId ZERO = valueOf(0);
     private final int val;
 
     AreaId(final int val) {
         this.val = val;
     }
 
+    /**
+     * Returns the AreaId of val, shared by all the values in the int16 range, so that the getters of
+     * the Tiles and MiniTiles do not allocate.
+     */
+    static AreaId valueOf(final int val) {
+        if (val != (short) val) {
+            return new AreaId(val);
+        }
+        // Instances are immutable, so a race at most creates a duplicate.
+        AreaId value = VALUES[val & 0xFFFF];
+        if (value == null) {
+            value = new AreaId(val);
+            VALUES[val & 0xFFFF] = value;
+        }
+        return value;
+    }
+
     public int intValue() {
         return this.val;
     }
@@ -18,8 +18,6 @@ import bwapi.UnitType;
 import bwapi.WalkPosition;
 import bwem.util.BwemExt;
 import bwem.util.CheckMode;
-import bwem.util.Markable;
-import bwem.util.StaticMarkable;
 
 import java.util.*;
 
@@ -27,15 +25,10 @@ import static bwem.AreaId.UNINITIALIZED;
 
 final class AreaInitializer extends Area {
 
-    private static final StaticMarkable staticMarkable = new StaticMarkable();
-    private final Markable markable;
-
     AreaInitializer(
             final BWMap map, final AreaId areaId, final WalkPosition top, final int miniTileCount) {
         super(areaId, top, miniTileCount, map);
 
-        this.markable = new Markable(staticMarkable);
-
         if (!(areaId.intValue() > 0)) {
             map.asserter.throwIllegalStateException("");
         }
@@ -52,14 +45,6 @@ final class AreaInitializer extends Area {
         super.highestAltitude = topMiniTile.getAltitude();
     }
 
-    static StaticMarkable getStaticMarkable() {
-        return staticMarkable;
-    }
-
-    Markable getMarkable() {
-        return this.markable;
-    }
-
     void addChokePoints(final Area area, final List<ChokePoint> chokePoints) {
         if (!(super.chokePointsByArea.get(area) == null && chokePoints != null)) {
             map.asserter.throwIllegalStateException("");
@@ -116,6 +101,15 @@ final class AreaInitializer extends Area {
     }
 
     int[] computeDistances(final ChokePoint startCP, final List<ChokePoint> targetCPs) {
+        return computeDistances(startCP, targetCPs, new TileScratch(this.map.getData().getMapData()));
+    }
+
+    /**
+     * Same as {@link #computeDistances(ChokePoint, List)}, using the given scratch instead of the
+     * Tiles' internal data so that the areas can be processed concurrently.
+     */
+    int[] computeDistances(
+        final ChokePoint startCP, final List<ChokePoint> targetCPs, final TileScratch scratch) {
         if (targetCPs.contains(startCP)) {
             map.asserter.throwIllegalStateException("");
         }
@@ -142,13 +136,14 @@ final class AreaInitializer extends Area {
             targets.add(t);
         }
 
-        return computeDistances(start, targets);
+        return computeDistances(start, targets, scratch);
     }
 
-    private int[] computeDistances(final TilePosition start, final List<TilePosition> targets) {
+    private int[] computeDistances(
+        final TilePosition start, final List<TilePosition> targets, final TileScratch scratch) {
         final int[] distances = new int[targets.size()];
 
-        Tile.getStaticMarkable().unmarkAll();
+        scratch.unmarkAll();
 
         final Queue<Pair<Integer, TilePosition>> toVisit =
             new PriorityQueue<>(
@@ -162,17 +157,15 @@ final class AreaInitializer extends Area {
             final Pair<Integer, TilePosition> distanceAndTilePosition = toVisit.poll();
             final int currentDist = distanceAndTilePosition.getLeft();
             final TilePosition current = distanceAndTilePosition.getRight();
-            final Tile currentTile = this.map.getData().getTile(current, CheckMode.NO_CHECK);
-            if (!(currentTile.getInternalData() == currentDist)) {
+            if (!(scratch.getData(current) == currentDist)) {
                 map.asserter.throwIllegalStateException(
                     "currentTile.InternalData().intValue()="
-                        + currentTile.getInternalData()
+                        + scratch.getData(current)
                         + ", currentDist="
                         + currentDist);
             }
-            currentTile
-                .setInternalData(0); // resets Tile::m_internalData for future usage
-            currentTile.getMarkable().setMarked();
+            scratch.setData(current, 0); // resets the scratch for future usage
+            scratch.setMarked(current);
 
             for (int i = 0; i < targets.size(); ++i) {
                 if (current.equals(targets.get(i))) {
@@ -201,25 +194,24 @@ final class AreaInitializer extends Area {
                 final TilePosition next = current.add(delta);
                 if (this.map.getData().getMapData().isValid(next)) {
                     final Tile nextTile = this.map.getData().getTile(next, CheckMode.NO_CHECK);
-                    if (nextTile.getMarkable().isUnmarked()) {
-                        if (nextTile.getInternalData()
+                    if (!scratch.isMarked(next)) {
+                        if (scratch.getData(next)
                             != 0) { // next already in toVisit
                             if (newNextDist
-                                < nextTile
-                                .getInternalData()) { // nextNewDist < nextOldDist
+                                < scratch.getData(next)) { // nextNewDist < nextOldDist
                                 // To update next's distance, we need to remove-insert it from toVisit:
                                 final boolean removed =
                                     toVisit.remove(
-                                        new Pair<>(nextTile.getInternalData(), next));
+                                        new Pair<>(scratch.getData(next), next));
                                 if (!removed) {
                                     map.asserter.throwIllegalStateException("");
                                 }
-                                nextTile.setInternalData(newNextDist);
+                                scratch.setData(next, newNextDist);
                                 toVisit.offer(new Pair<>(newNextDist, next));
                             }
                         } else if ((nextTile.getAreaId().equals(getId()))
                             || (nextTile.getAreaId().equals(UNINITIALIZED))) {
-                            nextTile.setInternalData(newNextDist);
+                            scratch.setData(next, newNextDist);
                             toVisit.offer(new Pair<>(newNextDist, next));
                         }
                     }
@@ -232,10 +224,7 @@ final class AreaInitializer extends Area {
         }
 
         for (final Pair<Integer, TilePosition> distanceAndTilePosition : toVisit) {
-            final Tile tileToUpdate =
-                    this.map.getData()
-                        .getTile(distanceAndTilePosition.getRight(), CheckMode.NO_CHECK);
-            tileToUpdate.setInternalData(0);
+            scratch.setData(distanceAndTilePosition.getRight(), 0);
         }
 
         return distances;
@@ -254,6 +243,14 @@ final class AreaInitializer extends Area {
     }
 
     void createBases(final TerrainData terrainData) {
+        createBases(terrainData, new TileScratch(terrainData.getMapData()));
+    }
+
+    /**
+     * Same as {@link #createBases(TerrainData)}, using the given scratch for the potential fields
+     * instead of the Tiles' internal data so that the areas can be processed concurrently.
+     */
+    void createBases(final TerrainData terrainData, final TileScratch scratch) {
         final TilePosition resourceDepotDimensions = UnitType.Terran_Command_Center.tileSize();
 
         final List<Resource> remainingResources = new ArrayList<>();
@@ -351,9 +348,9 @@ final class AreaInitializer extends Area {
                                 score *= 3;
                             }
                             if (tile.getAreaId().equals(getId())) {
-                                // note the additive effect (assume tile.InternalData() is 0 at the beginning)
-                                tile
-                                    .setInternalData(tile.getInternalData() + score);
+                                // note the additive effect (assume the scratch is 0 at the beginning)
+                                scratch.setData(deltaTilePosition,
+                                    scratch.getData(deltaTilePosition) + score);
                             }
                         }
                     }
@@ -367,9 +364,7 @@ final class AreaInitializer extends Area {
                         final TilePosition deltaTilePosition = r.getTopLeft()
                             .add(new TilePosition(dx, dy));
                         if (terrainData.getMapData().isValid(deltaTilePosition)) {
-                            final Tile tileToUpdate = terrainData
-                                .getTile(deltaTilePosition, CheckMode.NO_CHECK);
-                            tileToUpdate.setInternalData(-1);
+                            scratch.setData(deltaTilePosition, -1);
                         }
                     }
                 }
@@ -385,7 +380,7 @@ final class AreaInitializer extends Area {
                 for (int x = topLeftSearchBoundingBox.getX();
                     x <= bottomRightSearchBoundingBox.getX();
                     ++x) {
-                    final int score = computeBaseLocationScore(terrainData, new TilePosition(x, y));
+                    final int score = computeBaseLocationScore(terrainData, scratch, new TilePosition(x, y));
                     if (score > bestScore && validateBaseLocation(terrainData,
                         new TilePosition(x, y),
                         blockingMinerals)) {
@@ -395,7 +390,7 @@ final class AreaInitializer extends Area {
                 }
             }
 
-            // 5) Clear Tile::m_internalData (required due to our use of Potential Fields: see comments in
+            // 5) Clear the scratch (required due to our use of Potential Fields: see comments in
             // 2))
             for (Resource r : remainingResources) {
                 for (int dy =
@@ -417,9 +412,7 @@ final class AreaInitializer extends Area {
                         final TilePosition deltaTilePosition = r.getTopLeft()
                             .add(new TilePosition(dx, dy));
                         if (terrainData.getMapData().isValid(deltaTilePosition)) {
-                            final Tile tileToUpdate = terrainData
-                                .getTile(deltaTilePosition, CheckMode.NO_CHECK);
-                            tileToUpdate.setInternalData(0);
+                            scratch.setData(deltaTilePosition, 0);
                         }
                     }
                 }
@@ -452,20 +445,20 @@ final class AreaInitializer extends Area {
         }
     }
 
-    private int computeBaseLocationScore(final TerrainData terrainData,
+    private int computeBaseLocationScore(final TerrainData terrainData, final TileScratch scratch,
         final TilePosition location) {
         final TilePosition dimCC = UnitType.Terran_Command_Center.tileSize();
 
         int sumScore = 0;
         for (int dy = 0; dy < dimCC.getY(); ++dy) {
             for (int dx = 0; dx < dimCC.getX(); ++dx) {
-                final Tile tile =
-                    terrainData.getTile(location.add(new TilePosition(dx, dy)), CheckMode.NO_CHECK);
+                final TilePosition tilePosition = location.add(new TilePosition(dx, dy));
+                final Tile tile = terrainData.getTile(tilePosition, CheckMode.NO_CHECK);
                 if (!tile.isBuildable()) {
                     return -1;
                 }
-                if (tile.getInternalData() == -1) {
-                    // The special value InternalData() == -1 means there is some resource at maximum 3 tiles,
+                if (scratch.getData(tilePosition) == -1) {
+                    // The special value -1 means there is some resource at maximum 3 tiles,
                     // which Starcraft rules forbid.
                     // Unfortunately, this is guaranteed only for the resources in this Area, which is the
                     // very reason of validateBaseLocation
@@ -478,7 +471,7 @@ final class AreaInitializer extends Area {
                     return -1;
                 }
 
-                sumScore += tile.getInternalData();
+                sumScore += scratch.getData(tilePosition);
             }
         }
 
@@ -33,6 +33,17 @@ class Asserter {
         }
     }
 
+    // Reports a problem that does not affect the results, e.g. an analysis cache that cannot be saved.
+    void warn(String message) {
+        if (outStream != null) {
+            try {
+                outStream.write((message + "\n").getBytes());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
     void setFailOnError(boolean failOnError) {
         this.failOnError = failOnError;
     }
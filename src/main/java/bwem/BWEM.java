@@ -14,7 +14,14 @@ package bwem;
 
 import bwapi.Game;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * BWEM Broodwar Map analysis library by Igor Dimitrijevic.
@@ -25,14 +32,35 @@ import java.io.OutputStream;
  * {@link #setFailOnError} to `false`.
  * These errors will then be outputted to {@link System.err}, but this can also be changed
  * with {@link #setFailOutputStream} (if you set it to `null` the errors will be completely ignored).
+ *
+ * The independent parts of the analysis (per area ChokePoint distances and base locations, door
+ * search of each neutral) run on the common fork-join pool, unless another one is given with
+ * {@link #setForkJoinPool}. The results are the same as with a sequential run.
+ *
+ * The analysis only depends on the map, so it can be saved to a directory set with
+ * {@link #setAnalysisCacheDirectory}, in a file named after {@link Game#mapHash()}, and loaded from
+ * there the next time the same map is played.
+ *
+ * {@link #initializeAsync()} runs the analysis in the background instead, so that the bot can play
+ * its first frames meanwhile, and use each {@link InitializationStage} of the analysis as soon as
+ * it is ready.
  */
 public final class BWEM {
     private final BWMap map;
     private final Asserter asserter;
+    private Path analysisCacheDirectory;
+    private boolean loadedFromAnalysisCache;
+    private final Map<InitializationStage, CompletableFuture<BWMap>> stages =
+            new EnumMap<>(InitializationStage.class);
 
     public BWEM(final Game game) {
         this.asserter = new Asserter();
-        this.map = new BWMapInitializer(game, asserter);
+        final BWMapInitializer initializer = new BWMapInitializer(game, asserter);
+        this.map = initializer;
+        for (final InitializationStage stage : InitializationStage.values()) {
+            stages.put(stage, new CompletableFuture<>());
+        }
+        initializer.setPhaseListener(this::onPhaseDone);
     }
 
     /**
@@ -47,11 +75,181 @@ public final class BWEM {
      * Initializes and pre-computes all of the internal data.
      */
     public void initialize() {
+        final BWMapInitializer initializer = getInitializer();
+        try {
+            initializer.initializeNeutrals();
+        } catch (RuntimeException | Error e) {
+            failStages(e);
+            throw e;
+        }
+        analyze(initializer);
+    }
+
+    /**
+     * Initializes the internal data like {@link #initialize()}, but only reads the neutral units of
+     * the game on the calling thread, which must be the one of the frame loop (e.g. in onStart).
+     * The rest of the analysis runs in the background, from the static map data copied when the game
+     * started, on the fork-join pool used by the analysis (Cf. {@link #setForkJoinPool}), or on the
+     * calling thread if there is none.<br>
+     * The map must not be read until the stage of the data it reads is ready (Cf.
+     * {@link #whenReady}), nor updated (e.g. by {@link BWMap#onUnitDestroyed}) until the whole analysis
+     * is done. Call it once per BWEM.
+     *
+     * @return A future completed with the map once the whole analysis is done, i.e. at the
+     * {@link InitializationStage#BASES} stage, or completed exceptionally if the analysis fails.
+     */
+    public CompletableFuture<BWMap> initializeAsync() {
+        final BWMapInitializer initializer = getInitializer();
+        try {
+            initializer.initializeNeutrals();
+        } catch (RuntimeException e) {
+            failStages(e);
+            return whenReady(InitializationStage.BASES);
+        }
+        final ForkJoinPool forkJoinPool = initializer.getForkJoinPool();
+        if (forkJoinPool == null) {
+            try {
+                analyze(initializer);
+            } catch (RuntimeException e) {
+                // The stages carry it.
+            }
+        } else {
+            forkJoinPool.execute(() -> analyze(initializer));
+        }
+        return whenReady(InitializationStage.BASES);
+    }
+
+    /**
+     * Returns a future completed with the map once the given stage of the analysis is ready, or
+     * completed exceptionally if the analysis fails before.
+     */
+    public CompletableFuture<BWMap> whenReady(final InitializationStage stage) {
+        return stages.get(stage).thenApply(Function.identity());
+    }
+
+    /**
+     * Tells whether the given stage of the analysis is ready, e.g. to check it on each frame.
+     */
+    public boolean isReady(final InitializationStage stage) {
+        final CompletableFuture<BWMap> future = stages.get(stage);
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private BWMapInitializer getInitializer() {
         if (!(this.map instanceof BWMapInitializer)) {
             throw new IllegalStateException("BWEM was not instantiated properly.");
         }
-        ((BWMapInitializer) this.map).initialize();
-        this.map.assignStartingLocationsToSuitableBases();
+        return (BWMapInitializer) this.map;
+    }
+
+    // Everything but the neutrals, reading the game only for its static map data.
+    private void analyze(final BWMapInitializer initializer) {
+        try {
+            final Path cacheFile = getAnalysisCacheFile();
+            loadedFromAnalysisCache = cacheFile != null && loadAnalysis(initializer, cacheFile);
+            if (loadedFromAnalysisCache) {
+                for (final InitializationStage stage : InitializationStage.values()) {
+                    if (stage != InitializationStage.BASES) {
+                        stages.get(stage).complete(this.map);
+                    }
+                }
+            } else {
+                initializer.initialize();
+                if (cacheFile != null) {
+                    initializer.runPhase(InitializationPhase.SAVE_ANALYSIS_CACHE, () -> saveAnalysis(cacheFile));
+                }
+            }
+            initializer.runPhase(InitializationPhase.STARTING_LOCATIONS,
+                    this.map::assignStartingLocationsToSuitableBases);
+        } catch (RuntimeException | Error e) {
+            failStages(e);
+            throw e;
+        }
+    }
+
+    private void onPhaseDone(final InitializationPhase phase) {
+        for (final InitializationStage stage : InitializationStage.values()) {
+            if (stage.lastPhase == phase) {
+                stages.get(stage).complete(this.map);
+            }
+        }
+    }
+
+    private void failStages(final Throwable failure) {
+        for (final CompletableFuture<BWMap> stage : stages.values()) {
+            stage.completeExceptionally(failure);
+        }
+    }
+
+    private Path getAnalysisCacheFile() {
+        final String mapHash = this.map.game.mapHash();
+        if (analysisCacheDirectory == null || mapHash == null || mapHash.isEmpty()) {
+            return null;
+        }
+        return AnalysisCache.getFile(analysisCacheDirectory, mapHash);
+    }
+
+    private boolean loadAnalysis(final BWMapInitializer initializer, final Path cacheFile) {
+        try {
+            return initializer.initializeFromAnalysisCache(cacheFile);
+        } catch (IOException e) {
+            asserter.warn("Could not load the BWEM analysis cache " + cacheFile + ": " + e);
+            return false;
+        }
+    }
+
+    private void saveAnalysis(final Path cacheFile) {
+        try {
+            AnalysisCache.write(this.map, cacheFile);
+        } catch (IOException e) {
+            asserter.warn("Could not save the BWEM analysis cache " + cacheFile + ": " + e);
+        }
+    }
+
+    /**
+     * Sets the directory where {@link #initialize()} looks for the analysis of the map, and saves it
+     * when it is not there yet. `null` (the default) disables the analysis cache.
+     */
+    public void setAnalysisCacheDirectory(final Path directory) {
+        this.analysisCacheDirectory = directory;
+    }
+
+    /**
+     * Tells whether the last {@link #initialize()} or {@link #initializeAsync()} restored the analysis
+     * from the analysis cache.
+     */
+    public boolean isLoadedFromAnalysisCache() {
+        return loadedFromAnalysisCache;
+    }
+
+    /**
+     * Returns the time spent in the given phase by the last {@link #initialize()}, or
+     * {@link #initializeAsync()} once done, in nanoseconds.
+     */
+    public long getInitializationTime(final InitializationPhase phase) {
+        return ((BWMapInitializer) this.map).getPhaseTime(phase);
+    }
+
+    /**
+     * Returns the total time spent by the last {@link #initialize()}, or {@link #initializeAsync()}
+     * once done, in nanoseconds.
+     */
+    public long getInitializationTime() {
+        long total = 0;
+        for (final InitializationPhase phase : InitializationPhase.values()) {
+            total += getInitializationTime(phase);
+        }
+        return total;
+    }
+
+    /**
+     * Sets the pool running the independent parts of the analysis, and the background part of
+     * {@link #initializeAsync()} (the common pool by default).
+     * If `null`, everything runs on the thread calling {@link #initialize()} or
+     * {@link #initializeAsync()}.
+     */
+    public void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+        this.map.setForkJoinPool(forkJoinPool);
     }
 
     public void setFailOnError(boolean failOnError) {
@@ -15,9 +15,14 @@ package bwem;
 import bwapi.*;
 import bwem.util.BwemExt;
 import bwem.util.CheckMode;
+import bwem.util.CoordinatePred;
 import bwem.util.Pred;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 import static bwem.AreaId.UNINITIALIZED;
 
@@ -30,8 +35,13 @@ public abstract class BWMap {
     final List<Unit> vespeneGeysers;
     final List<Unit> units;
     private boolean automaticPathUpdate = false;
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
     private final Graph graph;
     private final NeighboringAreaChooser neighboringAreaChooser;
+    private final GroundDistanceFieldCache groundDistanceFields = new GroundDistanceFieldCache(this);
+    // The breadth-first searches not in use, one per thread that searched concurrently.
+    private final Deque<BreadthFirstSearch> tileSearches = new ArrayDeque<>();
+    private final Deque<BreadthFirstSearch> miniTileSearches = new ArrayDeque<>();
     TerrainData terrainData = null;
     NeutralData neutralData = null;
     Altitude highestAltitude;
@@ -60,6 +70,38 @@ public abstract class BWMap {
         return graph;
     }
 
+    void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * Applies function to each item and returns the results in the order of items.<br>
+     * The items are processed concurrently on the fork-join pool if there is one, so function must
+     * only modify data owned by its item.
+     */
+    <T, R> List<R> computeAll(final List<T> items, final Function<T, R> function) {
+        final List<R> results = new ArrayList<>(items.size());
+        if (forkJoinPool == null || items.size() < 2) {
+            for (final T item : items) {
+                results.add(function.apply(item));
+            }
+            return results;
+        }
+
+        final List<ForkJoinTask<R>> tasks = new ArrayList<>(items.size());
+        for (final T item : items) {
+            tasks.add(forkJoinPool.submit(() -> function.apply(item)));
+        }
+        for (final ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
     public List<Pair<Pair<AreaId, AreaId>, WalkPosition>> getRawFrontier() {
         return rawFrontier;
     }
@@ -133,6 +175,10 @@ public abstract class BWMap {
         } else {
             onStaticBuildingDestroyed(u);
         }
+        groundDistanceFields.clear();
+        if (forkJoinPool != null) {
+            pinGroundDistanceFields(groundDistanceFields.getPinnedTargets());
+        }
     }
 
     private void onMineralDestroyed(Unit u) {
@@ -217,128 +263,205 @@ public abstract class BWMap {
         return graph.getPathingResult(a, b).map(PathingResult::getLength).orElse(-1);
     }
 
-    // TODO: This might be a bad method: What is the difference between no path and "same area"?
-    public CPPath getPath(Position a, Position b) {
-        return graph.getPath(a, b).orElse(CPPath.EMPTY_PATH);
+    /**
+     * Returns the ground distances from every tile to target (Cf. {@link GroundDistanceField}).<br>
+     * The field is computed on the first call, then kept in a cache of the least recently used
+     * fields (Cf. {@link #setGroundDistanceFieldCacheSize}) until a Neutral is destroyed.
+     */
+    public GroundDistanceField getGroundDistanceField(TilePosition target) {
+        return groundDistanceFields.get(target);
     }
 
-    public TilePosition breadthFirstSearch(
-        TilePosition start, Pred<Tile, TilePosition> findCond, Pred<Tile, TilePosition> visitCond, boolean connect8) {
-        if (findCond.test(getData().getTile(start), start)) {
-            return start;
+    /**
+     * Same as {@link #getGroundDistanceField(TilePosition)}, to the location of base.
+     */
+    public GroundDistanceField getGroundDistanceField(Base base) {
+        return getGroundDistanceField(base.getLocation());
+    }
+
+    /**
+     * Returns the ground distance in pixels from tile a to tile b, or -1 if there is no ground path.
+     * <br>
+     * - Note: this uses the field of b, so it is cheap when b is a frequent destination.
+     */
+    public int getGroundDistance(TilePosition a, TilePosition b) {
+        return getGroundDistanceField(b).getDistance(a);
+    }
+
+    /**
+     * Sets how many ground distance fields are cached, besides the ones of the bases computed by
+     * {@link #precomputeBaseGroundDistanceFields()} (32 by default).
+     */
+    public void setGroundDistanceFieldCacheSize(int maximumSize) {
+        groundDistanceFields.setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Computes the ground distance field of each base in the background, on the fork-join pool used
+     * by the analysis (Cf. {@link BWEM#setForkJoinPool}), or on the calling thread if there is none.
+     * <br>
+     * These fields are not evicted from the cache. When a Neutral is destroyed, they are computed
+     * again in the background, or on their next use if there is no fork-join pool.
+     */
+    public CompletableFuture<Void> precomputeBaseGroundDistanceFields() {
+        final List<TilePosition> locations = new ArrayList<>();
+        for (final Base base : getBases()) {
+            locations.add(base.getLocation());
         }
+        return pinGroundDistanceFields(locations);
+    }
 
-        final Set<TilePosition> visited =
-                new TreeSet<>(
-                        Comparator.comparing((TilePosition tilePosition) -> tilePosition.x)
-                            .thenComparing((TilePosition tilePosition) -> tilePosition.y));
-        Queue<TilePosition> toVisit = new ArrayDeque<>();
-
-        toVisit.add(start);
-        visited.add(start);
-
-        TilePosition[] dir8 = {
-                new TilePosition(-1, -1),
-                new TilePosition(0, -1),
-                new TilePosition(1, -1),
-                new TilePosition(-1, 0),
-                new TilePosition(1, 0),
-                new TilePosition(-1, 1),
-                new TilePosition(0, 1),
-                new TilePosition(1, 1)
-        };
-        TilePosition[] dir4 = {
-                new TilePosition(0, -1),
-                new TilePosition(-1, 0),
-                new TilePosition(+1, 0),
-                new TilePosition(0, +1)
-        };
-        TilePosition[] directions = connect8 ? dir8 : dir4;
-
-        while (!toVisit.isEmpty()) {
-            TilePosition current = toVisit.remove();
-            for (TilePosition delta : directions) {
-                TilePosition next = current.add(delta);
-                if (getData().getMapData().isValid(next)) {
-                    Tile nextTile = getData().getTile(next, CheckMode.NO_CHECK);
-                    if (findCond.test(nextTile, next)) {
-                        return next;
-                    }
-                    if (visitCond.test(nextTile, next) && !visited.contains(next)) {
-                        toVisit.add(next);
-                        visited.add(next);
-                    }
-                }
+    private CompletableFuture<Void> pinGroundDistanceFields(final List<TilePosition> targets) {
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[targets.size()];
+        for (int i = 0; i < tasks.length; ++i) {
+            final TilePosition target = targets.get(i);
+            if (forkJoinPool == null) {
+                groundDistanceFields.pin(target);
+                tasks[i] = CompletableFuture.completedFuture(null);
+            } else {
+                tasks[i] = CompletableFuture.runAsync(() -> groundDistanceFields.pin(target), forkJoinPool);
             }
         }
+        return CompletableFuture.allOf(tasks);
+    }
+
+    // TODO: This might be a bad method: What is the difference between no path and "same area"?
+    public CPPath getPath(Position a, Position b) {
+        return graph.getPath(a, b).orElse(CPPath.EMPTY_PATH);
+    }
+
+    /**
+     * Sets how many results of {@link #getPath} and {@link #getPathLength} are cached, by pair of
+     * positions (1024 by default, 0 disables the cache).<br>
+     * The cache is emptied whenever a blocking Neutral is destroyed.
+     */
+    public void setPathCacheSize(int maximumSize) {
+        graph.getPathingResults().setMaximumSize(maximumSize);
+    }
 
-        // TODO: Are we supposed to return start or not?
-        asserter.throwIllegalStateException("");
-        return start;
+    /**
+     * Returns how many path queries were answered from the cache (Cf. {@link #setPathCacheSize}).
+     */
+    public long getPathCacheHits() {
+        return graph.getPathingResults().getHits();
+    }
+
+    /**
+     * Returns how many path queries had to be computed (Cf. {@link #setPathCacheSize}).
+     */
+    public long getPathCacheMisses() {
+        return graph.getPathingResults().getMisses();
+    }
+
+    /**
+     * Returns the first tile satisfying findCond, searching breadth first from start, which must be
+     * valid, through the tiles satisfying visitCond (start itself is tested first).<br>
+     * If start is invalid or no tile is found, an IllegalStateException is thrown; if the asserter
+     * does not fail on errors, the error is reported and start is returned instead.
+     */
+    public TilePosition breadthFirstSearch(
+        TilePosition start, Pred<Tile, TilePosition> findCond, Pred<Tile, TilePosition> visitCond, boolean connect8) {
+        final TileData tileData = getData().getTileData();
+        final int width = getData().getMapData().getTileSize().getX();
+        return breadthFirstSearchTile(
+                start.getX(),
+                start.getY(),
+                (x, y) -> findCond.test(tileData.getTile(y * width + x), new TilePosition(x, y)),
+                (x, y) -> visitCond.test(tileData.getTile(y * width + x), new TilePosition(x, y)),
+                connect8);
     }
 
     public TilePosition breadthFirstSearch(TilePosition start, Pred<Tile, TilePosition> findCond, Pred<Tile, TilePosition> visitCond) {
         return breadthFirstSearch(start, findCond, visitCond, true);
     }
 
+    /**
+     * Same as {@link #breadthFirstSearch(TilePosition, Pred, Pred, boolean)}, with conditions on the
+     * tile coordinates, so that the search does not allocate anything but its result.
+     */
+    public TilePosition breadthFirstSearchTile(
+            final int startX, final int startY, final CoordinatePred findCond, final CoordinatePred visitCond,
+            final boolean connect8) {
+        final TilePosition size = getData().getMapData().getTileSize();
+        if (!MapData.isValid(startX, startY, size.getX(), size.getY())) {
+            asserter.throwIllegalStateException("");
+            return new TilePosition(startX, startY);
+        }
+        final BreadthFirstSearch search = acquireSearch(tileSearches, size);
+        final int found;
+        try {
+            found = search.search(startX, startY, findCond, visitCond, connect8);
+        } finally {
+            releaseSearch(tileSearches, search);
+        }
+        if (found < 0) {
+            asserter.throwIllegalStateException("");
+            return new TilePosition(startX, startY);
+        }
+        return new TilePosition(found % search.getWidth(), found / search.getWidth());
+    }
+
+    /**
+     * Same as {@link #breadthFirstSearch(TilePosition, Pred, Pred, boolean)}, over the miniTiles.
+     */
     public WalkPosition breadthFirstSearch(
         WalkPosition start, Pred<MiniTile, WalkPosition> findCond, Pred<MiniTile, WalkPosition> visitCond, boolean connect8) {
-        if (findCond.test(getData().getMiniTile(start), start)) {
-            return start;
-        }
+        final TileData tileData = getData().getTileData();
+        final int width = getData().getMapData().getWalkSize().getX();
+        return breadthFirstSearchMiniTile(
+                start.getX(),
+                start.getY(),
+                (x, y) -> findCond.test(tileData.getMiniTile(y * width + x), new WalkPosition(x, y)),
+                (x, y) -> visitCond.test(tileData.getMiniTile(y * width + x), new WalkPosition(x, y)),
+                connect8);
+    }
 
-        final Set<WalkPosition> visited =
-                new TreeSet<>(
-                    Comparator.comparing((WalkPosition pos) -> pos.x)
-                        .thenComparing((WalkPosition pos) -> pos.y));
-        final Queue<WalkPosition> toVisit = new ArrayDeque<>();
+    public WalkPosition breadthFirstSearch(
+            final WalkPosition start, Pred<MiniTile, WalkPosition> findCond, Pred<MiniTile, WalkPosition> visitCond) {
+        return breadthFirstSearch(start, findCond, visitCond, true);
+    }
 
-        toVisit.add(start);
-        visited.add(start);
+    /**
+     * Same as {@link #breadthFirstSearch(WalkPosition, Pred, Pred, boolean)}, with conditions on the
+     * miniTile coordinates, so that the search does not allocate anything but its result.
+     */
+    public WalkPosition breadthFirstSearchMiniTile(
+            final int startX, final int startY, final CoordinatePred findCond, final CoordinatePred visitCond,
+            final boolean connect8) {
+        final WalkPosition size = getData().getMapData().getWalkSize();
+        if (!MapData.isValid(startX, startY, size.getX(), size.getY())) {
+            asserter.throwIllegalStateException("");
+            return new WalkPosition(startX, startY);
+        }
+        final BreadthFirstSearch search = acquireSearch(miniTileSearches, size);
+        final int found;
+        try {
+            found = search.search(startX, startY, findCond, visitCond, connect8);
+        } finally {
+            releaseSearch(miniTileSearches, search);
+        }
+        if (found < 0) {
+            asserter.throwIllegalStateException("");
+            return new WalkPosition(startX, startY);
+        }
+        return new WalkPosition(found % search.getWidth(), found / search.getWidth());
+    }
 
-        final WalkPosition[] dir8 = {
-                new WalkPosition(-1, -1),
-                new WalkPosition(0, -1),
-                new WalkPosition(1, -1),
-                new WalkPosition(-1, 0),
-                new WalkPosition(1, 0),
-                new WalkPosition(-1, 1),
-                new WalkPosition(0, 1),
-                new WalkPosition(1, 1)
-        };
-        final WalkPosition[] dir4 = {
-                new WalkPosition(0, -1),
-                new WalkPosition(-1, 0),
-                new WalkPosition(1, 0),
-                new WalkPosition(0, 1)
-        };
-        final WalkPosition[] directions = connect8 ? dir8 : dir4;
-
-        while (!toVisit.isEmpty()) {
-            final WalkPosition current = toVisit.remove();
-            for (final WalkPosition delta : directions) {
-                final WalkPosition next = current.add(delta);
-                if (getData().getMapData().isValid(next)) {
-                    final MiniTile miniTile = getData().getMiniTile(next, CheckMode.NO_CHECK);
-                    if (findCond.test(miniTile, next)) {
-                        return next;
-                    }
-                    if (visitCond.test(miniTile, next) && !visited.contains(next)) {
-                        toVisit.add(next);
-                        visited.add(next);
-                    }
-                }
+    // Takes a search sized to the grid out of the pool, or creates one if the other threads use them all.
+    private static BreadthFirstSearch acquireSearch(final Deque<BreadthFirstSearch> pool, final Point<?> size) {
+        synchronized (pool) {
+            final BreadthFirstSearch search = pool.poll();
+            if (search != null && search.getWidth() == size.getX() && search.getHeight() == size.getY()) {
+                return search;
             }
         }
-
-        // TODO: Are we supposed to return start or not?
-        asserter.throwIllegalStateException("");
-        return start;
+        return new BreadthFirstSearch(size.getX(), size.getY());
     }
 
-    public WalkPosition breadthFirstSearch(
-            final WalkPosition start, Pred<MiniTile, WalkPosition> findCond, Pred<MiniTile, WalkPosition> visitCond) {
-        return breadthFirstSearch(start, findCond, visitCond, true);
+    private static void releaseSearch(final Deque<BreadthFirstSearch> pool, final BreadthFirstSearch search) {
+        synchronized (pool) {
+            pool.push(search);
+        }
     }
 
     private List<Unit> filterPlayerUnits(final Collection<Unit> units,
@@ -15,65 +15,118 @@ package bwem;
 import bwapi.*;
 import bwem.util.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 class BWMapInitializer extends BWMap {
     BWMapInitializer(final Game game, final Asserter asserter) {
         super(game, asserter);
     }
 
-    void initialize() {
-        initializeTerrainData(
-                game.mapWidth(), game.mapHeight(), game.getStartLocations());
-
-
-        // Computes walkability, buildability and groundHeight and doodad information, using BWAPI
-        // corresponding functions
-        TerrainData initializer = getData();
-        initializer.markUnwalkableMiniTiles(game);
-        initializer.markBuildableTilesAndGroundHeight(game);
-
-        //
-        initializer.decideSeasOrLakes();
-
-
-        initializeNeutralData(
-                super.mineralPatches,
-                super.vespeneGeysers,
-                filterNeutralPlayerUnits(super.units, super.players));
-
+    private final long[] phaseTimes = new long[InitializationPhase.values().length];
+    private Consumer<InitializationPhase> phaseListener = phase -> {
+    };
 
-        computeAltitude(getData());
-
-
-        processBlockingNeutrals(
-                getCandidates(getNeutralData().getStaticBuildings(), getNeutralData().getMinerals()));
-
-
-        computeAreas(
-                computeTempAreas(getSortedMiniTilesByDescendingAltitude()));
+    /**
+     * Initializes empty terrain data and the neutrals. This is the only part of the analysis reading
+     * the units of the game, so it runs on the thread of the frame loop, before {@link #initialize()}
+     * or {@link #initializeFromAnalysisCache}. These only read the static map data copied by
+     * Game.init.
+     */
+    void initializeNeutrals() {
+        Arrays.fill(phaseTimes, 0);
 
+        runPhase(InitializationPhase.NEUTRALS, () -> {
+            initializeEmptyTerrainData();
+            initializeNeutralData();
+        });
+    }
 
-        getGraph()
-                .createChokePoints(
-                        getNeutralData().getStaticBuildings(),
-                        getNeutralData().getMinerals(),
-                        getRawFrontier());
-        //
+    void initialize() {
+        runPhase(InitializationPhase.TERRAIN, () -> {
+            // Computes walkability, buildability and groundHeight and doodad information, using BWAPI
+            // corresponding functions
+            TerrainData initializer = getData();
+            initializer.markUnwalkableMiniTiles(game);
+            initializer.markBuildableTilesAndGroundHeight(game);
+
+            //
+            initializer.decideSeasOrLakes();
+        });
+
+        runPhase(InitializationPhase.ALTITUDE, () ->
+                computeAltitude(getData()));
+
+        runPhase(InitializationPhase.BLOCKING_NEUTRALS, () ->
+                processBlockingNeutrals(
+                        getCandidates(getNeutralData().getStaticBuildings(), getNeutralData().getMinerals())));
+
+        runPhase(InitializationPhase.AREAS, () ->
+                computeAreas(
+                        computeTempAreas(getSortedMiniTilesByDescendingAltitude())));
+
+        runPhase(InitializationPhase.NEAREST_AREAS, () ->
+                getGraph().computeNearestAreas());
+
+        runPhase(InitializationPhase.CHOKE_POINTS, () ->
+                getGraph()
+                        .createChokePoints(
+                                getNeutralData().getStaticBuildings(),
+                                getNeutralData().getMinerals(),
+                                getRawFrontier()));
+
+        runPhase(InitializationPhase.CHOKE_POINT_DISTANCES, () ->
+                getGraph().computeChokePointDistanceMatrix());
+
+        runPhase(InitializationPhase.AREA_INFORMATION, () ->
+                getGraph().collectInformation());
+
+        runPhase(InitializationPhase.BASES, () ->
+                getGraph().createBases(getData()));
+    }
 
+    /**
+     * Restores the analysis from an analysis cache file instead of computing it.<br>
+     * Returns false, leaving the map as {@link #initializeNeutrals()} left it, if the file cannot be
+     * used for this map; {@link #initialize()} must then be called.
+     */
+    boolean initializeFromAnalysisCache(final Path file) throws IOException {
+        final JfrEvents.InitializationPhaseEvent event = JfrEvents.beginInitializationPhase();
+        final long start = System.nanoTime();
+        final boolean loaded = AnalysisCache.read(this, file);
+        phaseTimes[InitializationPhase.LOAD_ANALYSIS_CACHE.ordinal()] = System.nanoTime() - start;
+        JfrEvents.commitInitializationPhase(event, InitializationPhase.LOAD_ANALYSIS_CACHE);
+        return loaded;
+    }
 
-        getGraph().computeChokePointDistanceMatrix();
+    void runPhase(final InitializationPhase phase, final Runnable step) {
+        final JfrEvents.InitializationPhaseEvent event = JfrEvents.beginInitializationPhase();
+        final long start = System.nanoTime();
+        step.run();
+        phaseTimes[phase.ordinal()] = System.nanoTime() - start;
+        JfrEvents.commitInitializationPhase(event, phase);
+        phaseListener.accept(phase);
+    }
 
-        getGraph().collectInformation();
+    /**
+     * Sets the listener called at the end of each phase run by {@link #runPhase}, on the thread
+     * running it.
+     */
+    void setPhaseListener(final Consumer<InitializationPhase> phaseListener) {
+        this.phaseListener = phaseListener;
+    }
 
-        getGraph().createBases(getData());
+    long getPhaseTime(final InitializationPhase phase) {
+        return phaseTimes[phase.ordinal()];
     }
 
-    private void initializeTerrainData(
-        final int mapTileWidth, final int mapTileHeight, final List<TilePosition> startingLocations) {
-        final MapData mapData = new MapData(mapTileWidth, mapTileHeight, startingLocations);
+    private void initializeEmptyTerrainData() {
+        final MapData mapData = new MapData(game.mapWidth(), game.mapHeight(), game.getStartLocations());
         final TileData tileData =
                 new TileData(
                         mapData.getTileSize().getX() * mapData.getTileSize().getY(),
@@ -86,11 +139,9 @@ class BWMapInitializer extends BWMap {
     // BWMap::InitializeNeutrals
     ////////////////////////////////////////////////////////////////////////
 
-    private void initializeNeutralData(
-        final List<Unit> mineralPatches,
-        final List<Unit> vespeneGeysers,
-        final List<Unit> neutralUnits) {
-        super.neutralData = new NeutralData(this, mineralPatches, vespeneGeysers, neutralUnits);
+    private void initializeNeutralData() {
+        super.neutralData = new NeutralData(this, super.mineralPatches, super.vespeneGeysers,
+                filterNeutralPlayerUnits(super.units, super.players));
     }
 
     ////////////////////////////////////////////////////////////////////////
@@ -237,18 +288,28 @@ class BWMapInitializer extends BWMap {
     ////////////////////////////////////////////////////////////////////////
 
     private void processBlockingNeutrals(final List<Neutral> candidates) {
+        final List<Neutral> topCandidates = new ArrayList<>();
         for (final Neutral pCandidate : candidates) {
             if (pCandidate.getNextStacked()
                     == null) { // in the case where several neutrals are stacked, we only consider the top one
-                final List<WalkPosition> border =
-                        trimOuterMiniTileBorder(getOuterMiniTileBorderOfNeutral(pCandidate));
+                topCandidates.add(pCandidate);
+            }
+        }
 
-                final List<WalkPosition> doors = getDoors(border);
+        // Steps 1) to 3) only read the map (marking a miniTile as blocked keeps it walkable), so the
+        // doors of the candidates are searched concurrently. Step 4) is then applied in order.
+        final List<List<WalkPosition>> trueDoorsByCandidate =
+                computeAll(topCandidates, pCandidate -> {
+                    final List<WalkPosition> border =
+                            trimOuterMiniTileBorder(getOuterMiniTileBorderOfNeutral(pCandidate));
 
-                final List<WalkPosition> trueDoors = getTrueDoors(doors, pCandidate);
+                    final List<WalkPosition> doors = getDoors(border);
 
-                markBlockingStackedNeutrals(pCandidate, trueDoors);
-            }
+                    return getTrueDoors(doors, pCandidate);
+                });
+
+        for (int i = 0; i < topCandidates.size(); ++i) {
+            markBlockingStackedNeutrals(topCandidates.get(i), trueDoorsByCandidate.get(i));
         }
     }
 
@@ -628,6 +689,9 @@ class BWMapInitializer extends BWMap {
         if (!pBlocking.isBlocking()) {
             asserter.throwIllegalStateException("");
         }
+        // The paths only depend on the areas and the ChokePoints, which only change here: the cache
+        // is kept when other Neutrals, like the minerals mined out, are destroyed.
+        getGraph().getPathingResults().clear();
 
         for (Area pArea : pBlocking.getBlockedAreas()) {
             for (ChokePoint cp : pArea.getChokePoints()) {
@@ -662,8 +726,10 @@ class BWMapInitializer extends BWMap {
             }
         }
 
+        getGraph().updateNearestAreas(pBlocking.getTopLeft(), pBlocking.getSize());
+
         if (automaticPathUpdate()) {
-            getGraph().computeChokePointDistanceMatrix();
+            getGraph().onBlockingNeutralDestroyed(pBlocking.getBlockedAreas());
         }
     }
 }
@@ -0,0 +1,86 @@
+package bwem;
+
+import bwem.util.CoordinatePred;
+
+import java.util.Arrays;
+
+/**
+ * The breadth-first search of BWMap::breadthFirstSearch on a width x height grid of cells, with a
+ * queue and a visited array that are reused from one search to the next.<br>
+ * Not thread safe: each thread searching concurrently needs its own instance.
+ */
+final class BreadthFirstSearch {
+    // The directions in the order they are tried, first the 8 ones, then the 4 ones.
+    private static final int[] DX8 = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY8 = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DX4 = {0, -1, 1, 0};
+    private static final int[] DY4 = {-1, 0, 0, 1};
+
+    private final int width;
+    private final int height;
+    private final int[] queue;
+    // A cell has been met by the current search iff visited[cell] == generation.
+    private final int[] visited;
+    private int generation;
+
+    BreadthFirstSearch(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.queue = new int[width * height];
+        this.visited = new int[width * height];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the index (y * width + x) of the first cell met from (startX, startY) that satisfies
+     * findCond, or -1 if there is none.<br>
+     * The search goes on from the cells that satisfy visitCond. As findCond and visitCond are
+     * expected to depend on the cell only, each cell is tested at most once.
+     */
+    int search(final int startX, final int startY, final CoordinatePred findCond, final CoordinatePred visitCond,
+            final boolean connect8) {
+        if (findCond.test(startX, startY)) {
+            return startY * width + startX;
+        }
+        if (++generation == 0) {
+            Arrays.fill(visited, 0);
+            generation = 1;
+        }
+        final int[] dx = connect8 ? DX8 : DX4;
+        final int[] dy = connect8 ? DY8 : DY4;
+
+        int size = 0;
+        queue[size++] = startY * width + startX;
+        visited[startY * width + startX] = generation;
+        for (int head = 0; head < size; ++head) {
+            final int x = queue[head] % width;
+            final int y = queue[head] / width;
+            for (int d = 0; d < dx.length; ++d) {
+                final int nx = x + dx[d];
+                final int ny = y + dy[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (visited[next] == generation) {
+                    continue;
+                }
+                visited[next] = generation;
+                if (findCond.test(nx, ny)) {
+                    return next;
+                }
+                if (visitCond.test(nx, ny)) {
+                    queue[size++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -13,6 +13,7 @@
 package bwem;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -55,8 +56,9 @@ public final class CPPath implements Iterable<ChokePoint> {
         return this.chokepoints.isEmpty();
     }
 
+    // Paths are shared by the cache of BWMap::getPath, so they cannot be modified through it.
     @Override
     public Iterator<ChokePoint> iterator() {
-        return chokepoints.iterator();
+        return Collections.unmodifiableList(chokepoints).iterator();
     }
 }
@@ -150,6 +150,29 @@ public final class ChokePoint {
         this(graph, index, area1, area2, geometry, null);
     }
 
+    /**
+     * Restores a ChokePoint from an analysis cache, with its nodes already computed.
+     */
+    ChokePoint(
+        final Graph graph,
+        final int index,
+        final Area area1,
+        final Area area2,
+        final List<WalkPosition> geometry,
+        final Neutral blockingNeutral,
+        final WalkPosition[] nodes,
+        final List<Pair<WalkPosition, WalkPosition>> nodesInArea) {
+        this.graph = graph;
+        this.index = index;
+        this.areas = new Pair<>(area1, area2);
+        this.geometry = geometry;
+        this.blockingNeutral = blockingNeutral;
+        this.isBlocked = blockingNeutral != null;
+        this.isPseudo = this.isBlocked;
+        this.nodes = nodes;
+        this.nodesInArea = nodesInArea;
+    }
+
     private BWMap getMap() {
         return this.graph.getMap();
     }
@@ -17,7 +17,6 @@ import bwapi.Position;
 import bwapi.TilePosition;
 import bwapi.WalkPosition;
 import bwem.util.BwemExt;
-import bwem.util.CheckMode;
 import bwem.util.Pred;
 import bwem.util.Utils;
 
@@ -33,7 +32,14 @@ public final class Graph {
             new ArrayList<>(); // index == ChokePoint::index x ChokePoint::index
     private final List<List<CPPath>> pathsBetweenChokePoints =
             new ArrayList<>(); // index == ChokePoint::index x ChokePoint::index
+    // The distances computed inside each Area by computeChokePointDistanceMatrix, index == Area::id - 1,
+    // kept so that only the Areas whose Tiles change have to be visited again.
+    private List<List<int[]>> chokePointDistancesInAreas;
     private final List<Base> bases = new ArrayList<>();
+    private final PathingResultCache pathingResults = new PathingResultCache(this);
+    // The nearest Area of each Tile and MiniTile, null until the Areas are computed.
+    private NearestAreaGrid nearestTileAreas;
+    private NearestAreaGrid nearestMiniTileAreas;
 
     Graph(BWMap map) {
         this.map = map;
@@ -58,14 +64,31 @@ public final class Graph {
         return areas.get(id.intValue() - 1);
     }
 
+    // Reads the area ids in TileData rather than through a MiniTile or a Tile, so as not to allocate.
     public Area getArea(final WalkPosition walkPosition) {
-        final AreaId areaId = getMap().getData().getMiniTile(walkPosition).getAreaId();
-        return (areaId.intValue() > 0) ? getArea(areaId) : null;
+        final MapData mapData = getMap().getData().getMapData();
+        if (!mapData.isValid(walkPosition)) {
+            map.asserter.throwIllegalStateException("");
+            return null;
+        }
+        final TileData tileData = getMap().getData().getTileData();
+        final int index = walkPosition.getY() * mapData.getWalkSize().getX() + walkPosition.getX();
+        return tileData.miniTileBlocked.get(index) ? null : getAreaOrNull(tileData.miniTileAreaId[index]);
     }
 
     public Area getArea(final TilePosition tilePosition) {
-        final AreaId areaId = getMap().getData().getTile(tilePosition).getAreaId();
-        return (areaId.intValue() > 0) ? getArea(areaId) : null;
+        final MapData mapData = getMap().getData().getMapData();
+        if (!mapData.isValid(tilePosition)) {
+            map.asserter.throwIllegalStateException("");
+            return null;
+        }
+        final TileData tileData = getMap().getData().getTileData();
+        final int index = tilePosition.getY() * mapData.getTileSize().getX() + tilePosition.getX();
+        return tileData.tileBlocked.get(index) ? null : getAreaOrNull(tileData.tileAreaId[index]);
+    }
+
+    private Area getAreaOrNull(final int areaId) {
+        return areaId > 0 ? areas.get(areaId - 1) : null;
     }
 
     public Area getNearestArea(final WalkPosition walkPosition) {
@@ -73,6 +96,12 @@ public final class Graph {
         if (area != null) {
             return area;
         }
+        if (nearestMiniTileAreas != null) {
+            final int id = nearestMiniTileAreas.getNearestAreaId(walkPosition.getX(), walkPosition.getY());
+            if (id > 0) {
+                return areas.get(id - 1);
+            }
+        }
 
         final WalkPosition w =
                 getMap()
@@ -91,6 +120,12 @@ public final class Graph {
         if (area != null) {
             return area;
         }
+        if (nearestTileAreas != null) {
+            final int id = nearestTileAreas.getNearestAreaId(tilePosition.getX(), tilePosition.getY());
+            if (id > 0) {
+                return areas.get(id - 1);
+            }
+        }
 
         final TilePosition t =
             getMap()
@@ -104,6 +139,46 @@ public final class Graph {
         return getArea(t);
     }
 
+    // The Tile and MiniTile grids are independent, so they are computed concurrently.
+    void computeNearestAreas() {
+        final MapData mapData = getMap().getData().getMapData();
+        final TileData tileData = getMap().getData().getTileData();
+        final List<NearestAreaGrid> grids = map.computeAll(Arrays.asList(false, true), miniTiles -> miniTiles
+                ? NearestAreaGrid.compute(
+                        mapData.getWalkSize().getX(), mapData.getWalkSize().getY(), tileData.miniTileAreaId)
+                : NearestAreaGrid.compute(
+                        mapData.getTileSize().getX(), mapData.getTileSize().getY(), tileData.tileAreaId));
+        nearestTileAreas = grids.get(0);
+        nearestMiniTileAreas = grids.get(1);
+    }
+
+    void restoreNearestAreas(final NearestAreaGrid tiles, final NearestAreaGrid miniTiles) {
+        nearestTileAreas = tiles;
+        nearestMiniTileAreas = miniTiles;
+    }
+
+    NearestAreaGrid getNearestTileAreas() {
+        return nearestTileAreas;
+    }
+
+    NearestAreaGrid getNearestMiniTileAreas() {
+        return nearestMiniTileAreas;
+    }
+
+    // Updates the nearest Areas after the area ids of the Tiles [topLeft, topLeft + size) and of their
+    // MiniTiles changed.
+    void updateNearestAreas(final TilePosition topLeft, final TilePosition size) {
+        if (nearestTileAreas == null) {
+            return;
+        }
+        final TilePosition bottomRight = topLeft.add(size).subtract(new TilePosition(1, 1));
+        nearestTileAreas.update(topLeft.getX(), topLeft.getY(), bottomRight.getX(), bottomRight.getY());
+        final WalkPosition walkTopLeft = topLeft.toWalkPosition();
+        final WalkPosition walkBottomRight = topLeft.add(size).toWalkPosition().subtract(new WalkPosition(1, 1));
+        nearestMiniTileAreas.update(
+                walkTopLeft.getX(), walkTopLeft.getY(), walkBottomRight.getX(), walkBottomRight.getY());
+    }
+
     // Returns the list of all the getChokePoints in the BWMap.
     public List<ChokePoint> getChokePoints() {
         return chokePoints;
@@ -146,12 +221,29 @@ public final class Graph {
                 .get(cpB.getIndex());
     }
 
+    /**
+     * Returns the path from a to b and its approximate length, or nothing if b cannot be reached from
+     * a by ground.<br>
+     * The results are cached by pair of positions (Cf. {@link BWMap#setPathCacheSize}), and shared
+     * between the callers.
+     */
     public Optional<PathingResult> getPathingResult(Position a, Position b) {
-        return new Pathing(a, b).getPathWithLength();
+        return pathingResults.get(a, b);
     }
 
     public Optional<CPPath> getPath(final Position a, final Position b) {
-        return new Pathing(a, b).getPath();
+        return getPathingResult(a, b).map(PathingResult::getCPPath);
+    }
+
+    Optional<PathingResult> computePathingResult(final Position a, final Position b) {
+        final JfrEvents.PathQueryEvent event = JfrEvents.beginPathQuery();
+        final Optional<PathingResult> result = new Pathing(a, b).getPathWithLength();
+        JfrEvents.commitPathQuery(event, a, b, result);
+        return result;
+    }
+
+    PathingResultCache getPathingResults() {
+        return pathingResults;
     }
 
     public List<Base> getBases() {
@@ -351,6 +443,10 @@ public final class Graph {
         }
 
         // 5) Set the references to the freshly created Chokepoints:
+        setChokePointReferences();
+    }
+
+    private void setChokePointReferences() {
         for (int loopA = 1; loopA <= getAreaCount(); ++loopA)
             for (int loopB = 1; loopB < loopA; ++loopB) {
                 final AreaId a = new AreaId(loopA);
@@ -364,6 +460,15 @@ public final class Graph {
             }
     }
 
+    // Restores the ChokePoints of an analysis cache, given in the order of getChokePoints().
+    void restoreChokePoints(final List<ChokePoint> restoredChokePoints) {
+        initializeChokePointsMatrix();
+        for (final ChokePoint cp : restoredChokePoints) {
+            getChokePoints(cp.getAreas().getLeft(), cp.getAreas().getRight()).add(cp);
+        }
+        setChokePointReferences();
+    }
+
     // ----------------------------------------------------------------------
 
     // Computes the ground distances between any pair of ChokePoints in pContext
@@ -373,6 +478,30 @@ public final class Graph {
     // If Context == Area, Dijkstra's algorithm works on the Tiles inside one Area.
     // If Context == Graph, Dijkstra's algorithm works on the GetChokePoints between the AreaS.
     public void computeChokePointDistanceMatrix() {
+        // The distances inside each Area are independent, so they are computed concurrently, but they
+        // are stored in the original order so that the matrix doesn't depend on the scheduling.
+        chokePointDistancesInAreas = new ArrayList<>(map.computeAll(getAreas(), this::computeChokePointDistances));
+        updateChokePointDistanceMatrix();
+    }
+
+    // Updates the matrices after the destruction of a blocking Neutral: its Tiles now belong to one
+    // of the blockedAreas and some of their ChokePoints may no longer be blocked.
+    // Only the Tiles of the blockedAreas are visited again; the distances inside the other Areas are
+    // unchanged, and the distances through connected Areas only visit the ChokePoints.
+    void onBlockingNeutralDestroyed(final List<Area> blockedAreas) {
+        if (chokePointDistancesInAreas == null) {
+            computeChokePointDistanceMatrix();
+            return;
+        }
+        for (final Area area : blockedAreas) {
+            chokePointDistancesInAreas.set(area.getId().intValue() - 1, computeChokePointDistances(area));
+        }
+        updateChokePointDistanceMatrix();
+    }
+
+    private void updateChokePointDistanceMatrix() {
+        pathingResults.clear();
+
         // 1) size the matrix
         chokePointDistanceMatrix.clear();
         for (int i = 0; i < chokePoints.size(); ++i) {
@@ -394,9 +523,9 @@ public final class Graph {
             }
         }
 
-        // 2) Compute distances inside each Area
-        for (final Area area : getAreas()) {
-            computeChokePointDistances(area);
+        // 2) Set the distances inside each Area
+        for (int i = 0; i < getAreas().size(); ++i) {
+            setPathsForComputeChokePointDistances(getAreas().get(i), chokePointDistancesInAreas.get(i));
         }
 
         // 3) Compute distances through connected areas
@@ -409,6 +538,46 @@ public final class Graph {
             setPath(cp, cp, cppath);
         }
 
+        updateAreaAccessibility();
+    }
+
+    List<List<int[]>> getChokePointDistancesInAreas() {
+        return chokePointDistancesInAreas;
+    }
+
+    // Restores the matrices computed by computeChokePointDistanceMatrix from an analysis cache:
+    // distances[a][b] and the indexes of the ChokePoints of paths[a][b], by ChokePoint::index, and the
+    // distances inside each Area, as returned by getChokePointDistancesInAreas.
+    void restoreChokePointDistanceMatrix(
+            final int[][] distances, final int[][][] paths, final List<List<int[]>> distancesInAreas) {
+        chokePointDistancesInAreas = new ArrayList<>(distancesInAreas);
+        pathingResults.clear();
+        final ChokePoint[] byIndex = new ChokePoint[chokePoints.size()];
+        for (final ChokePoint cp : chokePoints) {
+            byIndex[cp.getIndex()] = cp;
+        }
+
+        chokePointDistanceMatrix.clear();
+        pathsBetweenChokePoints.clear();
+        for (int a = 0; a < byIndex.length; ++a) {
+            final List<Integer> distancesFromA = new ArrayList<>(byIndex.length);
+            final List<CPPath> pathsFromA = new ArrayList<>(byIndex.length);
+            for (int b = 0; b < byIndex.length; ++b) {
+                distancesFromA.add(distances[a][b]);
+                final CPPath path = new CPPath();
+                for (final int cp : paths[a][b]) {
+                    path.add(byIndex[cp]);
+                }
+                pathsFromA.add(path);
+            }
+            chokePointDistanceMatrix.add(distancesFromA);
+            pathsBetweenChokePoints.add(pathsFromA);
+        }
+
+        updateAreaAccessibility();
+    }
+
+    private void updateAreaAccessibility() {
         // 4) Update Area::m_AccessibleNeighbors for each Area
         for (final Area area : getAreas()) ((AreaInitializer) area).updateAccessibleNeighbors();
 
@@ -444,9 +613,21 @@ public final class Graph {
     }
 
     public void createBases(final TerrainData terrainData) {
+        this.bases.clear();
+        final List<List<Base>> basesByArea =
+                map.computeAll(this.areas, area -> {
+                    ((AreaInitializer) area).createBases(terrainData, new TileScratch(terrainData.getMapData()));
+                    return area.getBases();
+                });
+        for (final List<Base> areaBases : basesByArea) {
+            this.bases.addAll(areaBases);
+        }
+    }
+
+    // Collects the Bases restored in each Area from an analysis cache.
+    void restoreBases() {
         this.bases.clear();
         for (final Area area : this.areas) {
-            ((AreaInitializer) area).createBases(terrainData);
             this.bases.addAll(area.getBases());
         }
     }
@@ -462,24 +643,41 @@ public final class Graph {
     // If Context == Area, Dijkstra's algorithm works on the Tiles inside one Area.
     // If Context == Graph, Dijkstra's algorithm works on the getChokePoints between the AreaS.
 
-    private void computeChokePointDistances(final Area pContext) {
+    // For Context == Area, the distances are only computed here (this may run concurrently for
+    // several areas), and stored afterwards by setPathsForComputeChokePointDistances.
+    private List<int[]> computeChokePointDistances(final Area pContext) {
+        final TileScratch scratch = new TileScratch(getMap().getData().getMapData());
+        final List<int[]> distancesByStart = new ArrayList<>();
         for (final ChokePoint pStart : pContext.getChokePoints()) {
-            final List<ChokePoint> targets = new ArrayList<>();
-            for (final ChokePoint cp : pContext.getChokePoints()) {
-                if (cp.equals(pStart)) {
-                    break; // breaks symmetry
-                }
-                targets.add(cp);
-            }
+            distancesByStart.add(
+                    ((AreaInitializer) pContext)
+                            .computeDistances(pStart, getTargets(pContext, pStart), scratch));
+        }
+        return distancesByStart;
+    }
 
-            final int[] distanceToTargets =
-                    ((AreaInitializer) pContext).computeDistances(pStart, targets);
+    private void setPathsForComputeChokePointDistances(
+            final Area pContext, final List<int[]> distancesByStart) {
+        for (int i = 0; i < pContext.getChokePoints().size(); ++i) {
+            final ChokePoint pStart = pContext.getChokePoints().get(i);
+            setPathForComputeChokePointDistances(
+                    distancesByStart.get(i), pStart, getTargets(pContext, pStart), false);
+        }
+    }
 
-            setPathForComputeChokePointDistances(distanceToTargets, pStart, targets, false);
+    private List<ChokePoint> getTargets(final Area pContext, final ChokePoint pStart) {
+        final List<ChokePoint> targets = new ArrayList<>();
+        for (final ChokePoint cp : pContext.getChokePoints()) {
+            if (cp.equals(pStart)) {
+                break; // breaks symmetry
+            }
+            targets.add(cp);
         }
+        return targets;
     }
 
     private void computeChokePointDistances(final Graph pContext) {
+        final TileScratch scratch = new TileScratch(getMap().getData().getMapData());
         for (final ChokePoint pStart : pContext.getChokePoints()) {
             final List<ChokePoint> targets = new ArrayList<>();
             for (final ChokePoint cp : pContext.getChokePoints()) {
@@ -489,7 +687,7 @@ public final class Graph {
                 targets.add(cp);
             }
 
-            final int[] distanceToTargets = pContext.computeDistances(pStart, targets);
+            final int[] distanceToTargets = pContext.computeDistances(pStart, targets, scratch);
 
             setPathForComputeChokePointDistances(distanceToTargets, pStart, targets, true);
         }
@@ -543,10 +741,12 @@ public final class Graph {
     // the backward trace set in cp->getPathBackTrace() for each intermediate ChokePoint cp from the
     // target.
     // Note: same algo than Area::computeDistances (derived from Dijkstra)
-    private int[] computeDistances(final ChokePoint start, final List<ChokePoint> targets) {
+    // The Tiles at the center of the ChokePoints hold the distances in scratch.
+    private int[] computeDistances(
+            final ChokePoint start, final List<ChokePoint> targets, final TileScratch scratch) {
         final int[] distances = new int[targets.size()];
 
-        Tile.getStaticMarkable().unmarkAll();
+        scratch.unmarkAll();
 
         final Queue<Pair<Integer, ChokePoint>> toVisit =
                 new PriorityQueue<>(Comparator.comparingInt(Pair::getLeft));
@@ -557,13 +757,12 @@ public final class Graph {
             final Pair<Integer, ChokePoint> distanceAndChokePoint = toVisit.poll();
             final int currentDist = distanceAndChokePoint.getLeft();
             final ChokePoint current = distanceAndChokePoint.getRight();
-            final Tile currentTile =
-                    getMap().getData().getTile(current.getCenter().toTilePosition(), CheckMode.NO_CHECK);
-            if (!(currentTile.getInternalData() == currentDist)) {
+            final TilePosition currentTile = current.getCenter().toTilePosition();
+            if (!(scratch.getData(currentTile) == currentDist)) {
                 map.asserter.throwIllegalStateException("");
             }
-            currentTile.setInternalData(0); // resets Tile::m_internalData for future usage
-            currentTile.getMarkable().setMarked();
+            scratch.setData(currentTile, 0); // resets the scratch for future usage
+            scratch.setMarked(currentTile);
 
             for (int i = 0; i < targets.size(); ++i) {
                 if (current == targets.get(i)) {
@@ -584,24 +783,23 @@ public final class Graph {
                 for (final ChokePoint next : pArea.getChokePoints()) {
                     if (!next.equals(current)) {
                         final int newNextDist = currentDist + distance(current, next);
-                        final Tile nextTile =
-                                getMap().getData().getTile(next.getCenter().toTilePosition(), CheckMode.NO_CHECK);
-                        if (nextTile.getMarkable().isUnmarked()) {
-                            if (nextTile.getInternalData() != 0) { // next already in toVisit
+                        final TilePosition nextTile = next.getCenter().toTilePosition();
+                        if (!scratch.isMarked(nextTile)) {
+                            if (scratch.getData(nextTile) != 0) { // next already in toVisit
                                 if (newNextDist
-                                        < nextTile.getInternalData()) { // nextNewDist < nextOldDist
+                                        < scratch.getData(nextTile)) { // nextNewDist < nextOldDist
                                     // To update next's distance, we need to remove-insert it from toVisit:
                                     final boolean removed =
-                                            toVisit.remove(new Pair<>(nextTile.getInternalData(), next));
+                                            toVisit.remove(new Pair<>(scratch.getData(nextTile), next));
                                     if (!removed) {
                                         map.asserter.throwIllegalStateException("");
                                     }
-                                    nextTile.setInternalData(newNextDist);
+                                    scratch.setData(nextTile, newNextDist);
                                     next.setPathBackTrace(current);
                                     toVisit.offer(new Pair<>(newNextDist, next));
                                 }
                             } else {
-                                nextTile.setInternalData(newNextDist);
+                                scratch.setData(nextTile, newNextDist);
                                 next.setPathBackTrace(current);
                                 toVisit.offer(new Pair<>(newNextDist, next));
                             }
@@ -616,26 +814,24 @@ public final class Graph {
         //            throw new IllegalStateException();
         //        }
 
-        // reset Tile::m_internalData for future usage
+        // reset the scratch for future usage
         for (Pair<Integer, ChokePoint> distanceToChokePoint : toVisit) {
-            getMap()
-                    .getData()
-                    .getTile(
-                            distanceToChokePoint.getRight().getCenter().toTilePosition(),
-                            CheckMode.NO_CHECK)
-                    .setInternalData(0);
+            scratch.setData(distanceToChokePoint.getRight().getCenter().toTilePosition(), 0);
         }
 
         return distances;
     }
 
+    // The marks are local to the call, like the TileScratch of the tile algorithms, instead of the
+    // original Area markables.
     private void updateGroupIds() {
         int nextGroupId = 1;
 
-        AreaInitializer.getStaticMarkable().unmarkAll();
+        final boolean[] marked = new boolean[getAreaCount() + 1];
 
         for (final Area start : getAreas()) {
-            if (((AreaInitializer) start).getMarkable().isUnmarked()) {
+            if (!marked[start.getId().intValue()]) {
+                marked[start.getId().intValue()] = true;
                 final List<Area> toVisit = new ArrayList<>();
                 toVisit.add(start);
                 while (!toVisit.isEmpty()) {
@@ -643,8 +839,8 @@ public final class Graph {
                     ((AreaInitializer) current).setGroupId(nextGroupId);
 
                     for (final Area next : current.getAccessibleNeighbors()) {
-                        if (((AreaInitializer) next).getMarkable().isUnmarked()) {
-                            ((AreaInitializer) next).getMarkable().setMarked();
+                        if (!marked[next.getId().intValue()]) {
+                            marked[next.getId().intValue()] = true;
                             toVisit.add(next);
                         }
                     }
@@ -771,9 +967,5 @@ public final class Graph {
             }
             return Optional.of(new PathingResult(path, minDistAB));
         }
-
-        Optional<CPPath> getPath() {
-            return Optional.ofNullable(path);
-        }
     }
 }
@@ -0,0 +1,143 @@
+package bwem;
+
+import bwapi.Position;
+import bwapi.TilePosition;
+
+import java.util.Arrays;
+
+/**
+ * Ground distances from every tile of the map to a target tile, as computed by a Dijkstra over the
+ * walkable tiles not covered by a Neutral.<br>
+ * Unlike {@link BWMap#getPathLength}, which goes through the centers of the ChokePoints, this is the
+ * length of the shortest tile path, with the same costs as the distances between ChokePoints
+ * (1 tile straight, sqrt(2) tiles diagonally; diagonal moves cannot cut a corner).<br>
+ * Distances are in pixels and stored as unsigned 16 bit values, one per tile.<br>
+ * Fields are obtained through {@link BWMap#getGroundDistanceField}, which caches them.
+ */
+public final class GroundDistanceField {
+    private static final int UNREACHABLE = 0xFFFF;
+    private static final int MAX_DISTANCE = UNREACHABLE - 1;
+    static final int STRAIGHT_COST = 10000;
+    static final int DIAGONAL_COST = 14142;
+
+    private final TilePosition target;
+    private final int width;
+    private final int height;
+    private final short[] distances;
+
+    private GroundDistanceField(final TilePosition target, final int width, final int height, final short[] distances) {
+        this.target = target;
+        this.width = width;
+        this.height = height;
+        this.distances = distances;
+    }
+
+    /**
+     * Returns the tile the distances are measured to.
+     */
+    public TilePosition getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the ground distance in pixels from tile (x, y) to the target, or -1 if the target cannot
+     * be reached from there by ground.
+     */
+    public int getDistance(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        final int distance = distances[y * width + x] & 0xFFFF;
+        return distance == UNREACHABLE ? -1 : distance;
+    }
+
+    /**
+     * Returns the ground distance in pixels from tilePosition to the target, or -1 if the target cannot
+     * be reached from there by ground.
+     */
+    public int getDistance(final TilePosition tilePosition) {
+        return getDistance(tilePosition.getX(), tilePosition.getY());
+    }
+
+    /**
+     * Same as {@link #getDistance(TilePosition)}, for the tile containing position.
+     */
+    public int getDistance(final Position position) {
+        return getDistance(position.getX() / TilePosition.SIZE_IN_PIXELS, position.getY() / TilePosition.SIZE_IN_PIXELS);
+    }
+
+    /**
+     * Tells whether the target can be reached by ground from tilePosition.
+     */
+    public boolean isReachable(final TilePosition tilePosition) {
+        return getDistance(tilePosition) >= 0;
+    }
+
+    /**
+     * Computes the field of target on map. Only reads the terrain data, so it can run on any thread
+     * as long as no Neutral is destroyed meanwhile.
+     */
+    static GroundDistanceField compute(final BWMap map, final TilePosition target) {
+        final TileData tileData = map.getData().getTileData();
+        final int width = map.getData().getMapData().getTileSize().getX();
+        final int height = map.getData().getMapData().getTileSize().getY();
+        final int tileCount = width * height;
+
+        final boolean[] passable = new boolean[tileCount];
+        for (int i = 0; i < tileCount; ++i) {
+            passable[i] = tileData.isGroundPassable(i);
+        }
+
+        // Dijkstra. Outdated heap entries are skipped instead of being removed.
+        final int[] best = new int[tileCount];
+        Arrays.fill(best, Integer.MAX_VALUE);
+        final LongMinHeap toVisit = new LongMinHeap(tileCount / 4);
+
+        final int start = target.getY() * width + target.getX();
+        best[start] = 0;
+        toVisit.push(LongMinHeap.entry(0, start));
+
+        while (!toVisit.isEmpty()) {
+            final long top = toVisit.pop();
+            final int current = LongMinHeap.value(top);
+            final int currentDist = LongMinHeap.priority(top);
+            if (currentDist != best[current]) {
+                continue;
+            }
+
+            final int x = current % width;
+            final int y = current / width;
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    final int nx = x + dx;
+                    final int ny = y + dy;
+                    if ((dx == 0 && dy == 0) || nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                        continue;
+                    }
+                    final int next = ny * width + nx;
+                    if (!passable[next]) {
+                        continue;
+                    }
+                    final boolean diagonalMove = dx != 0 && dy != 0;
+                    if (diagonalMove && (!passable[y * width + nx] || !passable[ny * width + x])) {
+                        continue;
+                    }
+                    final int newDist = currentDist + (diagonalMove ? DIAGONAL_COST : STRAIGHT_COST);
+                    if (newDist < best[next]) {
+                        best[next] = newDist;
+                        toVisit.push(LongMinHeap.entry(newDist, next));
+                    }
+                }
+            }
+        }
+
+        final short[] distances = new short[tileCount];
+        for (int i = 0; i < tileCount; ++i) {
+            final int distance = best[i] == Integer.MAX_VALUE
+                    ? UNREACHABLE
+                    : Math.min(MAX_DISTANCE, (int) Math.round(best[i] * 32.0 / STRAIGHT_COST));
+            distances[i] = (short) distance;
+        }
+        return new GroundDistanceField(target, width, height, distances);
+    }
+}
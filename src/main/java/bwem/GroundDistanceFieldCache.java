@@ -0,0 +1,104 @@
+package bwem;
+
+import bwapi.TilePosition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link GroundDistanceField}s of a map: the least recently used ones are evicted when there are
+ * more than the maximum size, except the pinned ones (the ones of the bases, once precomputed), which
+ * stay. The pinned targets remain pinned when the fields are cleared.<br>
+ * Safe to use from several threads; a field requested concurrently may be computed twice.
+ */
+final class GroundDistanceFieldCache {
+    static final int DEFAULT_MAXIMUM_SIZE = 32;
+
+    private final BWMap map;
+    private final Set<TilePosition> pinnedTargets = ConcurrentHashMap.newKeySet();
+    private final Map<TilePosition, GroundDistanceField> pinned = new ConcurrentHashMap<>();
+    private final LinkedHashMap<TilePosition, GroundDistanceField> recentlyUsed =
+            new LinkedHashMap<TilePosition, GroundDistanceField>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<TilePosition, GroundDistanceField> eldest) {
+                    return size() > maximumSize;
+                }
+            };
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    // Incremented by clear(), so that fields computed before it are not kept.
+    private volatile int generation;
+
+    GroundDistanceFieldCache(final BWMap map) {
+        this.map = map;
+    }
+
+    GroundDistanceField get(final TilePosition target) {
+        final GroundDistanceField pinnedField = pinned.get(target);
+        if (pinnedField != null) {
+            return pinnedField;
+        }
+        synchronized (recentlyUsed) {
+            final GroundDistanceField field = recentlyUsed.get(target);
+            if (field != null) {
+                return field;
+            }
+        }
+        final int fieldGeneration = generation;
+        final GroundDistanceField field = GroundDistanceField.compute(map, target);
+        synchronized (recentlyUsed) {
+            if (fieldGeneration == generation) {
+                if (pinnedTargets.contains(target)) {
+                    final GroundDistanceField previous = pinned.putIfAbsent(target, field);
+                    return previous != null ? previous : field;
+                }
+                recentlyUsed.put(target, field);
+            }
+        }
+        return field;
+    }
+
+    void pin(final TilePosition target) {
+        pinnedTargets.add(target);
+        if (pinned.containsKey(target)) {
+            return;
+        }
+        final int fieldGeneration = generation;
+        final GroundDistanceField field = GroundDistanceField.compute(map, target);
+        synchronized (recentlyUsed) {
+            if (fieldGeneration == generation) {
+                pinned.putIfAbsent(target, field);
+                recentlyUsed.remove(target);
+            }
+        }
+    }
+
+    void setMaximumSize(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must be >= 0: " + maximumSize);
+        }
+        synchronized (recentlyUsed) {
+            this.maximumSize = maximumSize;
+            while (recentlyUsed.size() > maximumSize) {
+                recentlyUsed.remove(recentlyUsed.keySet().iterator().next());
+            }
+        }
+    }
+
+    List<TilePosition> getPinnedTargets() {
+        return new ArrayList<>(pinnedTargets);
+    }
+
+    // The fields depend on the Neutrals, so they are dropped when one of them is destroyed; the
+    // targets stay pinned, and their fields are pinned again once computed.
+    void clear() {
+        synchronized (recentlyUsed) {
+            ++generation;
+            pinned.clear();
+            recentlyUsed.clear();
+        }
+    }
+}
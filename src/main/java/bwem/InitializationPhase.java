@@ -0,0 +1,62 @@
+package bwem;
+
+/**
+ * The successive phases of {@link BWEM#initialize()}, in execution order.<br>
+ * The time spent in each of them is available through {@link BWEM#getInitializationTime}.
+ */
+public enum InitializationPhase {
+    /**
+     * Empty terrain data, then the minerals, geysers and static buildings. The only phase reading the
+     * units of the game, hence run on the calling thread by {@link BWEM#initializeAsync()}.
+     */
+    NEUTRALS,
+    /**
+     * Walkability, buildability, ground height and seas/lakes of the tiles and miniTiles.
+     */
+    TERRAIN,
+    /**
+     * Dijkstra from the seaside miniTiles to compute the altitude of each miniTile.
+     */
+    ALTITUDE,
+    /**
+     * Detection of the neutrals blocking a path, by searching their doors.
+     */
+    BLOCKING_NEUTRALS,
+    /**
+     * Flood fill of the miniTiles by descending altitude into areas.
+     */
+    AREAS,
+    /**
+     * Multi-source breadth-first search from the areas, to find the nearest area of each tile and
+     * miniTile.
+     */
+    NEAREST_AREAS,
+    /**
+     * Clustering of the frontier between areas into ChokePoints.
+     */
+    CHOKE_POINTS,
+    /**
+     * Ground distances and paths between all the ChokePoints.
+     */
+    CHOKE_POINT_DISTANCES,
+    /**
+     * Assignment of the resources and tiles to their areas.
+     */
+    AREA_INFORMATION,
+    /**
+     * Base location scoring in each area.
+     */
+    BASES,
+    /**
+     * Restoring the analysis (TERRAIN to BASES) from the analysis cache.
+     */
+    LOAD_ANALYSIS_CACHE,
+    /**
+     * Writing the analysis to the analysis cache, when it could not be loaded from it.
+     */
+    SAVE_ANALYSIS_CACHE,
+    /**
+     * Assignment of the starting locations to bases.
+     */
+    STARTING_LOCATIONS
+}
@@ -0,0 +1,34 @@
+package bwem;
+
+/**
+ * The parts of the analysis a bot can use while the rest of it is still running, in the order they
+ * become ready (Cf. {@link BWEM#whenReady}).<br>
+ * What a stage makes available does not change afterwards, but what it does not list may still be
+ * under construction: e.g. the resources and bases of the areas are only there at {@link #BASES}.
+ */
+public enum InitializationStage {
+    /**
+     * The areas, and the area or nearest area of each tile and miniTile
+     * ({@link BWMap#getArea}, {@link BWMap#getNearestArea}).
+     */
+    AREAS(InitializationPhase.NEAREST_AREAS),
+    /**
+     * The ChokePoints, between the areas.
+     */
+    CHOKE_POINTS(InitializationPhase.CHOKE_POINTS),
+    /**
+     * The ground distances and paths between the ChokePoints ({@link BWMap#getPath},
+     * {@link BWMap#getPathLength}).
+     */
+    DISTANCES(InitializationPhase.CHOKE_POINT_DISTANCES),
+    /**
+     * The whole analysis: the resources of the areas, the bases and the starting locations.
+     */
+    BASES(InitializationPhase.STARTING_LOCATIONS);
+
+    final InitializationPhase lastPhase;
+
+    InitializationStage(final InitializationPhase lastPhase) {
+        this.lastPhase = lastPhase;
+    }
+}
@@ -0,0 +1,107 @@
+package bwem;
+
+import bwapi.Position;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Optional;
+
+/**
+ * The Java Flight Recorder events of the analysis and of the path queries, in the "JBWAPI"
+ * category (Cf. the events of the bwapi package).<br>
+ * An event is only created while a recording enables its type. On a JVM without JFR (JDK 8 before
+ * 8u262), the event classes are never loaded.
+ */
+final class JfrEvents {
+    static final boolean AVAILABLE = isAvailable();
+
+    private JfrEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Name("bwem.InitializationPhase")
+    @Label("BWEM Initialization Phase")
+    @Category("JBWAPI")
+    @Description("A phase of BWEM.initialize")
+    @StackTrace(false)
+    static final class InitializationPhaseEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(InitializationPhaseEvent.class);
+
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("bwem.PathQuery")
+    @Label("BWEM Path Query")
+    @Category("JBWAPI")
+    @Description("A path of BWMap.getPath or getPathLength that was not in the path cache")
+    static final class PathQueryEvent extends Event {
+        static final EventType TYPE = EventType.getEventType(PathQueryEvent.class);
+
+        @Label("From X")
+        int fromX;
+
+        @Label("From Y")
+        int fromY;
+
+        @Label("To X")
+        int toX;
+
+        @Label("To Y")
+        int toY;
+
+        @Label("Length")
+        @Description("The length of the path in pixels, -1 if there is none")
+        int length;
+    }
+
+    static InitializationPhaseEvent beginInitializationPhase() {
+        if (!AVAILABLE || !InitializationPhaseEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final InitializationPhaseEvent event = new InitializationPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitInitializationPhase(final InitializationPhaseEvent event, final InitializationPhase phase) {
+        if (event != null) {
+            event.phase = phase.name();
+            event.commit();
+        }
+    }
+
+    static PathQueryEvent beginPathQuery() {
+        if (!AVAILABLE || !PathQueryEvent.TYPE.isEnabled()) {
+            return null;
+        }
+        final PathQueryEvent event = new PathQueryEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitPathQuery(final PathQueryEvent event, final Position a, final Position b,
+                                final Optional<PathingResult> result) {
+        if (event != null) {
+            event.fromX = a.getX();
+            event.fromY = a.getY();
+            event.toX = b.getX();
+            event.toY = b.getY();
+            event.length = result.map(PathingResult::getLength).orElse(-1);
+            event.commit();
+        }
+    }
+}
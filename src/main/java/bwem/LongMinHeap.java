@@ -0,0 +1,75 @@
+package bwem;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of longs, used as the priority queue of the tile searches with
+ * (priority << 32 | tile index) entries, so that no object is allocated per visited tile.<br>
+ * The backing array grows as needed and is kept by {@link #clear()}, so that searches can reuse it.
+ */
+final class LongMinHeap {
+    private long[] heap;
+    private int size;
+
+    LongMinHeap(final int initialCapacity) {
+        this.heap = new long[Math.max(16, initialCapacity)];
+    }
+
+    static long entry(final int priority, final int value) {
+        return ((long) priority << 32) | value;
+    }
+
+    static int priority(final long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int value(final long entry) {
+        return (int) entry;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(final long entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    long pop() {
+        final long top = heap[0];
+        final long entry = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+        return top;
+    }
+}
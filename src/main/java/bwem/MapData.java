@@ -72,7 +72,7 @@ public final class MapData {
         return isValid(position.getX(), position.getY(), getPixelSize().getX(), getPixelSize().getY());
     }
 
-    private boolean isValid(final int x, final int y, final int maxX, final int maxY) {
+    static boolean isValid(final int x, final int y, final int maxX, final int maxY) {
         return (x >= 0 && x < maxX && y >= 0 && y < maxY);
     }
 }
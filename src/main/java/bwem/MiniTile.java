@@ -32,22 +32,20 @@ import static bwem.AreaId.UNINITIALIZED;
  * from which are derived successively: altitudes, Areas, ChokePoints.
  */
 public final class MiniTile {
-    private static final AreaId blockingCP = new AreaId(Integer.MIN_VALUE);
-    public static final Comparator<Pair<?, MiniTile>> BY_ALTITUDE_ORDER = Comparator.comparing(p -> p.getRight().getAltitude().intValue());
+    static final AreaId blockingCP = new AreaId(Integer.MIN_VALUE);
+    public static final Comparator<Pair<?, MiniTile>> BY_ALTITUDE_ORDER = Comparator.comparingInt(p -> p.getRight().getAltitudeValue());
 
-    private Altitude
-            altitude; // 0 for seas  ;  != 0 for terrain and lakes (-1 = not computed yet)  ;  1 =
+    // The state lives in TileData:
+    // altitude: 0 for seas  ;  != 0 for terrain and lakes (-1 = not computed yet)  ;  1 =
     // SeaOrLake intermediate value
-    private AreaId
-            areaId; // 0 -> unwalkable  ;  > 0 -> index of some Area  ;  < 0 -> some walkable terrain, but
+    // areaId: 0 -> unwalkable  ;  > 0 -> index of some Area  ;  < 0 -> some walkable terrain, but
     // too small to be part of an Area
+    private final TileData data;
+    private final int index;
 
-    private final Asserter asserter;
-
-    MiniTile(final Asserter asserter) {
-        this.altitude = Altitude.UNINITIALIZED;
-        this.areaId = UNINITIALIZED;
-        this.asserter = asserter;
+    MiniTile(final TileData data, final int index) {
+        this.data = data;
+        this.index = index;
     }
 
     /**
@@ -62,12 +60,14 @@ public final class MiniTile {
      * and the other ones Lake-miniTiles.
      */
     public boolean isWalkable() {
-        return (this.areaId.intValue() != 0);
+        return data.miniTileWalkable.get(index);
     }
 
     void setWalkable(boolean walkable) {
-        this.areaId = new AreaId(walkable ? -1 : 0);
-        this.altitude = new Altitude(walkable ? -1 : 1);
+        data.miniTileAreaId[index] = (short) (walkable ? -1 : 0);
+        data.miniTileAltitude[index] = (short) (walkable ? -1 : 1);
+        data.miniTileWalkable.set(index, walkable);
+        data.miniTileBlocked.clear(index);
     }
 
     /**
@@ -78,22 +78,26 @@ public final class MiniTile {
      * or Lake-miniTiles.
      */
     public Altitude getAltitude() {
-        return this.altitude;
+        return Altitude.valueOf(getAltitudeValue());
+    }
+
+    int getAltitudeValue() {
+        return data.miniTileAltitude[index];
     }
 
     void setAltitude(final Altitude altitude) {
         //        { bwem_assert_debug_only(AltitudeMissing() && (a > 0)); this.altitude = a; }
         if (!(isAltitudeMissing() && altitude.intValue() > 0)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.altitude = altitude;
+        data.miniTileAltitude[index] = data.toShort(altitude.intValue());
     }
 
     /**
      * Sea-miniTiles are unwalkable miniTiles that have their altitude equal to 0.
      */
     public boolean isSea() {
-        return (this.altitude.intValue() == 0);
+        return (getAltitudeValue() == 0);
     }
 
     /**
@@ -103,7 +107,7 @@ public final class MiniTile {
      * - The intent is to preserve the continuity of altitudes inside areas.
      */
     public boolean isLake() {
-        return (this.altitude.intValue() != 0 && !isWalkable());
+        return (getAltitudeValue() != 0 && !isWalkable());
     }
 
     /**
@@ -125,43 +129,43 @@ public final class MiniTile {
      * - Note: because of the lakes, BWMap::getNearestArea should be prefered over BWMap::getArea.
      */
     public AreaId getAreaId() {
-        return this.areaId;
+        return isBlocked() ? MiniTile.blockingCP : AreaId.valueOf(data.miniTileAreaId[index]);
     }
 
     void setAreaId(final AreaId areaId) {
         //        { bwem_assert(AreaIdMissing() && (id >= 1)); this.areaId = id; }
         if (!(isAreaIdMissing() && areaId.intValue() >= 1)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.areaId = areaId;
+        data.miniTileAreaId[index] = data.toShort(areaId.intValue());
     }
 
     boolean isSeaOrLake() {
-        return (this.altitude.intValue() == 1);
+        return (getAltitudeValue() == 1);
     }
 
     void setSea() {
         //        { bwem_assert(!Walkable() && SeaOrLake()); this.altitude = 0; }
         if (!(!isWalkable() && isSeaOrLake())) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.altitude = Altitude.ZERO;
+        data.miniTileAltitude[index] = 0;
     }
 
     void setLake() {
         //        { bwem_assert(!Walkable() && Sea()); this.altitude = -1; }
         if (!(!isWalkable() && isSea())) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.altitude = Altitude.UNINITIALIZED;
+        data.miniTileAltitude[index] = -1;
     }
 
     boolean isAltitudeMissing() {
-        return (altitude.intValue() == -1);
+        return (getAltitudeValue() == -1);
     }
 
     boolean isAreaIdMissing() {
-        return this.areaId.equals(UNINITIALIZED);
+        return !isBlocked() && data.miniTileAreaId[index] == UNINITIALIZED.intValue();
     }
 
     void replaceAreaId(final AreaId areaId) {
@@ -169,40 +173,59 @@ public final class MiniTile {
         // this.areaId = id; }
         //        if (!( (areaId.intValue() > 0) && ((id.intValue() >= 1) || (id.intValue() <= -2)) &&
         // (!id.equals(areaId)))) {
-        if (!(this.areaId.intValue() > 0)) {
-            asserter.throwIllegalStateException(
-                    "Failed assert: this.areaId.intValue() > 0: " + this.areaId.intValue());
+        final AreaId currentAreaId = getAreaId();
+        if (!(currentAreaId.intValue() > 0)) {
+            data.asserter.throwIllegalStateException(
+                    "Failed assert: this.areaId.intValue() > 0: " + currentAreaId.intValue());
         } else if (!((areaId.intValue() >= 1) || (areaId.intValue() <= -2))) {
-            asserter.throwIllegalStateException(
+            data.asserter.throwIllegalStateException(
                     "Failed assert: (id.intValue() >= 1) || (id.intValue() <= -2): " + areaId.intValue());
-        } else if (areaId.equals(this.areaId)) {
-            asserter.throwIllegalStateException(
+        } else if (areaId.equals(currentAreaId)) {
+            data.asserter.throwIllegalStateException(
                     "Failed assert: !id.equals (areaId): not expected: "
-                            + this.areaId.intValue()
+                            + currentAreaId.intValue()
                             + ", actual: "
                             + areaId.intValue());
         } else {
-            this.areaId = areaId;
+            data.miniTileAreaId[index] = data.toShort(areaId.intValue());
         }
     }
 
     void setBlocked() {
         //        { bwem_assert(AreaIdMissing()); this.areaId = blockingCP; }
         if (!isAreaIdMissing()) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.areaId = MiniTile.blockingCP;
+        data.miniTileBlocked.set(index);
     }
 
     boolean isBlocked() {
-        return this.areaId.equals(MiniTile.blockingCP);
+        return data.miniTileBlocked.get(index);
     }
 
     void replaceBlockedAreaId(final AreaId areaId) {
         //        { bwem_assert( (areaId == blockingCP) && (id >= 1)); this.areaId = id; }
-        if (!(this.areaId.equals(MiniTile.blockingCP) && areaId.intValue() >= 1)) {
-            asserter.throwIllegalStateException("");
+        if (!(isBlocked() && areaId.intValue() >= 1)) {
+            data.asserter.throwIllegalStateException("");
         }
-        this.areaId = areaId;
+        data.miniTileAreaId[index] = data.toShort(areaId.intValue());
+        data.miniTileBlocked.clear(index);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof MiniTile)) {
+            return false;
+        } else {
+            final MiniTile that = (MiniTile) object;
+            return this.data == that.data && this.index == that.index;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.index;
     }
 }
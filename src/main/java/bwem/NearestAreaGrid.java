@@ -0,0 +1,233 @@
+package bwem;
+
+import bwem.util.CoordinatePred;
+
+import java.util.Arrays;
+
+/**
+ * The nearest Area of each cell of the Tile map or of the MiniTile map, so that getNearestArea is an
+ * array lookup.<br>
+ * The nearest Area is the one found by the breadth-first search getNearestArea used to run for
+ * each query: among the cells with a positive area id at the smallest Chebyshev distance, the first
+ * one met by an 8-connected search trying the directions in the order of {@link #DIRECTIONS}.<br>
+ * The distances come from a breadth-first search from all the cells of the Areas at once; then only
+ * the ring of cells at that distance is scanned, in the order of the single-source search. That order
+ * does not depend on the cell, except on the first row of the map, where the single-source search is
+ * run instead.
+ */
+final class NearestAreaGrid {
+    // The order of the directions in BWMap::breadthFirstSearch.
+    private static final int[][] DIRECTIONS = {
+            {-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}
+    };
+
+    private final int width;
+    private final int height;
+    private final short[] areaIds; // of the cells themselves, shared with TileData
+    private final short[] nearestAreaIds;
+    private final short[] distances;
+
+    // Offsets (dy << 16 | dx & 0xFFFF) in the order the single-source search meets them, the ones at
+    // distance k being in [ringStarts[k], ringStarts[k + 1]).
+    private int[] ringOffsets = new int[0];
+    private int[] ringStarts = {0};
+
+    // The single-source search from the first row.
+    private BreadthFirstSearch search;
+
+    private NearestAreaGrid(final int width, final int height, final short[] areaIds,
+            final short[] nearestAreaIds, final short[] distances) {
+        this.width = width;
+        this.height = height;
+        this.areaIds = areaIds;
+        this.nearestAreaIds = nearestAreaIds;
+        this.distances = distances;
+    }
+
+    /**
+     * Computes the nearest Area of each cell of a width x height map whose cells have the given
+     * areaIds, which are kept to {@link #update} the grid.
+     */
+    static NearestAreaGrid compute(final int width, final int height, final short[] areaIds) {
+        final NearestAreaGrid grid = new NearestAreaGrid(
+                width, height, areaIds, new short[areaIds.length], new short[areaIds.length]);
+        grid.computeDistances();
+        for (int i = 0; i < areaIds.length; ++i) {
+            grid.nearestAreaIds[i] = (short) grid.findNearestAreaId(i % width, i / width, grid.getDistance(i));
+        }
+        return grid;
+    }
+
+    static NearestAreaGrid restore(final int width, final int height, final short[] areaIds,
+            final short[] nearestAreaIds, final short[] distances) {
+        return new NearestAreaGrid(width, height, areaIds, nearestAreaIds, distances);
+    }
+
+    short[] getNearestAreaIds() {
+        return nearestAreaIds;
+    }
+
+    short[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns the id of the nearest Area of cell (x, y), or 0 if the map has no Area.
+     */
+    int getNearestAreaId(final int x, final int y) {
+        return nearestAreaIds[y * width + x];
+    }
+
+    /**
+     * Updates the grid after the area ids of the cells in [left, right] x [top, bottom] changed.
+     */
+    void update(final int left, final int top, final int right, final int bottom) {
+        int maxDistance = 0;
+        for (int i = 0; i < distances.length; ++i) {
+            maxDistance = Math.max(maxDistance, getDistance(i));
+        }
+        for (int y = Math.max(0, top - maxDistance); y <= Math.min(height - 1, bottom + maxDistance); ++y) {
+            for (int x = Math.max(0, left - maxDistance); x <= Math.min(width - 1, right + maxDistance); ++x) {
+                final int i = y * width + x;
+                final int distanceToChanges = Math.max(
+                        Math.max(left - x, x - right),
+                        Math.max(Math.max(top - y, y - bottom), 0));
+                if (distanceToChanges > getDistance(i)) {
+                    continue; // the cells that changed are farther than its nearest Area
+                }
+                // No cell closer than that can be in an Area: the ones outside the changes didn't change.
+                int distance = Math.min(getDistance(i), distanceToChanges);
+                while (!hasAreaAt(x, y, distance)) {
+                    ++distance;
+                }
+                distances[i] = (short) distance;
+                nearestAreaIds[i] = (short) findNearestAreaId(x, y, distance);
+            }
+        }
+    }
+
+    private int getDistance(final int i) {
+        return distances[i] & 0xFFFF;
+    }
+
+    // Multi-source breadth-first search from the cells with a positive area id. The cells of a map
+    // without any Area get a distance of 0 and no nearest Area.
+    private void computeDistances() {
+        final int[] cells = new int[areaIds.length];
+        final boolean[] reached = new boolean[areaIds.length];
+        int size = 0;
+        for (int i = 0; i < areaIds.length; ++i) {
+            if (areaIds[i] > 0) {
+                reached[i] = true;
+                cells[size++] = i;
+            }
+        }
+        for (int head = 0; head < size; ++head) {
+            final int current = cells[head];
+            final int x = current % width;
+            final int y = current / width;
+            for (final int[] direction : DIRECTIONS) {
+                final int nx = x + direction[0];
+                final int ny = y + direction[1];
+                if (nx >= 0 && ny >= 0 && nx < width && ny < height && !reached[ny * width + nx]) {
+                    reached[ny * width + nx] = true;
+                    distances[ny * width + nx] = (short) (getDistance(current) + 1);
+                    cells[size++] = ny * width + nx;
+                }
+            }
+        }
+    }
+
+    private boolean hasAreaAt(final int x, final int y, final int distance) {
+        if (distance == 0) {
+            return areaIds[y * width + x] > 0;
+        }
+        if (distance > Math.max(width, height)) {
+            return true; // no Area at all
+        }
+        for (int d = -distance; d <= distance; ++d) {
+            if (isArea(x + d, y - distance) || isArea(x + d, y + distance)
+                    || isArea(x - distance, y + d) || isArea(x + distance, y + d)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isArea(final int x, final int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && areaIds[y * width + x] > 0;
+    }
+
+    // Returns the area id of the first cell at the given distance of (x, y) met by the single-source
+    // search, or 0 if there is none.
+    private int findNearestAreaId(final int x, final int y, final int distance) {
+        if (areaIds[y * width + x] > 0) {
+            return areaIds[y * width + x];
+        }
+        if (distance == 0) {
+            return 0;
+        }
+        if (y == 0) {
+            // The borders of the map only change the order in which the search meets the cells of a
+            // ring when it starts on the first row.
+            return searchNearestAreaId(x, y);
+        }
+        ensureRings(distance);
+        for (int k = ringStarts[distance]; k < ringStarts[distance + 1]; ++k) {
+            final int nx = x + (short) ringOffsets[k];
+            final int ny = y + (ringOffsets[k] >> 16);
+            if (isArea(nx, ny)) {
+                return areaIds[ny * width + nx];
+            }
+        }
+        return 0;
+    }
+
+    // Records the order in which the single-source search meets the cells up to maxDistance, by
+    // running it from the center of a square where no ring closer than maxDistance is clipped.
+    private void ensureRings(final int maxDistance) {
+        if (ringStarts.length > maxDistance + 1) {
+            return;
+        }
+        final int side = 2 * maxDistance + 1;
+        final boolean[] met = new boolean[side * side];
+        final int[] offsets = new int[side * side];
+        final int[] starts = new int[maxDistance + 2];
+        met[maxDistance * side + maxDistance] = true;
+        int size = 1;
+        int distance = 0;
+        for (int head = 0; head < size; ++head) {
+            final int dx = (short) offsets[head];
+            final int dy = offsets[head] >> 16;
+            final int headDistance = Math.max(Math.abs(dx), Math.abs(dy));
+            if (headDistance == maxDistance) {
+                break;
+            }
+            for (final int[] direction : DIRECTIONS) {
+                final int nx = dx + direction[0];
+                final int ny = dy + direction[1];
+                final int cell = (ny + maxDistance) * side + nx + maxDistance;
+                if (!met[cell]) {
+                    met[cell] = true;
+                    final int nextDistance = Math.max(Math.abs(nx), Math.abs(ny));
+                    while (distance < nextDistance) {
+                        starts[++distance] = size;
+                    }
+                    offsets[size++] = (ny << 16) | (nx & 0xFFFF);
+                }
+            }
+        }
+        starts[maxDistance + 1] = size;
+        ringOffsets = Arrays.copyOf(offsets, size);
+        ringStarts = starts;
+    }
+
+    // Same search as BWMap::breadthFirstSearch(start, areaId > 0, accept all).
+    private int searchNearestAreaId(final int x, final int y) {
+        if (search == null) {
+            search = new BreadthFirstSearch(width, height);
+        }
+        final int found = search.search(x, y, this::isArea, CoordinatePred.accept(), true);
+        return found < 0 ? 0 : areaIds[found];
+    }
+}
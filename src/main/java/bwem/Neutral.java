@@ -15,6 +15,7 @@ package bwem;
 import bwapi.Position;
 import bwapi.TilePosition;
 import bwapi.Unit;
+import bwapi.UnitType;
 import bwapi.WalkPosition;
 
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ import java.util.List;
  */
 public abstract class Neutral {
     private final Unit bwapiUnit;
+    private final UnitType type;
     private final Position pos;
     protected TilePosition topLeft;
     private final TilePosition tileSize;
@@ -37,9 +39,10 @@ public abstract class Neutral {
     Neutral(final Unit unit, final BWMap map) {
         this.bwapiUnit = unit;
         this.map = map;
+        this.type = unit.getType();
         this.pos = unit.getInitialPosition();
         this.topLeft = unit.getInitialTilePosition();
-        this.tileSize = unit.getType().tileSize();
+        this.tileSize = type.tileSize();
 
         putOnTiles();
     }
@@ -60,6 +63,14 @@ public abstract class Neutral {
         return this.bwapiUnit;
     }
 
+    /**
+     * Returns the type of the unit when this Neutral was created, which the analysis reads instead
+     * of the unit so that it can run outside of the frame loop.
+     */
+    UnitType getType() {
+        return this.type;
+    }
+
     /**
      * Returns the center of this Neutral, in pixels (same as unit()->getInitialPosition()).
      */
@@ -108,6 +119,11 @@ public abstract class Neutral {
         this.blockedAreas = blockedAreas;
     }
 
+    // The positions given to setBlocking, one in each of the blocked areas.
+    List<WalkPosition> getBlockedAreaPositions() {
+        return this.blockedAreas;
+    }
+
     /**
      * If blocking() == true, returns the set of areas blocked by this Neutral.
      */
@@ -143,7 +159,7 @@ public abstract class Neutral {
     }
 
     private boolean isSameUnitTypeAs(Neutral neutral) {
-        return this.getUnit().getType() == neutral.getUnit().getType();
+        return this.getType() == neutral.getType();
     }
 
     private void putOnTiles() {
@@ -0,0 +1,319 @@
+package bwem;
+
+import bwapi.Position;
+import bwapi.TilePosition;
+import bwapi.UnitType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tile-level ground pathfinder, on top of the ChokePoint-level paths of the Graph.<br>
+ * A search is first restricted to the Areas crossed by {@link BWMap#getPath}, then to the whole map
+ * if that fails (e.g. the ChokePoints are too narrow for the unit). Inside these bounds, it is an A*
+ * with jump point search, with the same costs as {@link GroundDistanceField} (diagonal moves cannot
+ * cut a corner), so the paths found are the shortest ones within the searched tiles.<br>
+ * The restriction makes most searches much cheaper, but the ChokePoint path does not always follow
+ * the shortest tile path: {@link #setHierarchical} can disable it to always get a shortest path.<br>
+ * Units larger than a tile can be given a clearance: a tile is then only used if the altitude of
+ * the MiniTile at its center is at least the clearance.<br>
+ * The search state is kept between searches and reset by incrementing a generation number, so a
+ * Pathfinder allocates nothing per visited tile, but it must only be used by one thread at a time.
+ */
+public final class Pathfinder {
+    private static final int STRAIGHT_COST = GroundDistanceField.STRAIGHT_COST;
+    private static final int DIAGONAL_COST = GroundDistanceField.DIAGONAL_COST;
+
+    private final BWMap map;
+    private final TileData tileData;
+    private final int width;
+    private final int height;
+    private final int walkWidth;
+
+    // Search state of each tile, valid when its stamp is the current generation.
+    private final int[] stamp;
+    private final int[] cost;
+    private final int[] parent;
+    private final int[] closed;
+    private int generation;
+    private final LongMinHeap open;
+
+    // Constraints of the current search.
+    private boolean hierarchical = true;
+    private int clearance;
+    private boolean[] corridor; // by AreaId, null when searching the whole map
+    private int goal;
+    private int goalX;
+    private int goalY;
+
+    public Pathfinder(final BWMap map) {
+        this.map = map;
+        this.tileData = map.getData().getTileData();
+        this.width = map.getData().getMapData().getTileSize().getX();
+        this.height = map.getData().getMapData().getTileSize().getY();
+        this.walkWidth = map.getData().getMapData().getWalkSize().getX();
+        final int tileCount = width * height;
+        this.stamp = new int[tileCount];
+        this.cost = new int[tileCount];
+        this.parent = new int[tileCount];
+        this.closed = new int[tileCount];
+        this.open = new LongMinHeap(256);
+    }
+
+    /**
+     * Sets whether searches are first restricted to the Areas of the ChokePoint path (true by default).
+     */
+    public void setHierarchical(final boolean hierarchical) {
+        this.hierarchical = hierarchical;
+    }
+
+    /**
+     * Returns a shortest ground path from start to goal for units needing no clearance.
+     */
+    public TilePath findPath(final TilePosition start, final TilePosition goal) {
+        return findPath(start, goal, 0);
+    }
+
+    /**
+     * Returns a shortest ground path from the tile of start to the tile of goal for unitType,
+     * which needs a clearance of half its largest dimension.
+     */
+    public TilePath findPath(final Position start, final Position goal, final UnitType unitType) {
+        return findPath(start.toTilePosition(), goal.toTilePosition(), getClearance(unitType));
+    }
+
+    /**
+     * Returns a shortest ground path from start to goal using only the tiles whose center MiniTile has
+     * an altitude of at least clearance (in pixels), or a path that is not found.
+     */
+    public TilePath findPath(final TilePosition start, final TilePosition goal, final int clearance) {
+        this.clearance = clearance;
+        this.corridor = null;
+        if (!isPassable(start.getX(), start.getY()) || !isPassable(goal.getX(), goal.getY())) {
+            return TilePath.NOT_FOUND;
+        }
+
+        final Area startArea = hierarchical ? map.getNearestArea(start) : null;
+        final Area goalArea = hierarchical ? map.getNearestArea(goal) : null;
+        if (startArea != null && goalArea != null) {
+            this.corridor = new boolean[map.getAreas().size() + 1];
+            corridor[startArea.getId().intValue()] = true;
+            corridor[goalArea.getId().intValue()] = true;
+            for (final ChokePoint cp : map.getPath(start.toPosition(), goal.toPosition())) {
+                corridor[cp.getAreas().getLeft().getId().intValue()] = true;
+                corridor[cp.getAreas().getRight().getId().intValue()] = true;
+            }
+            final TilePath path = search(start, goal);
+            if (path.isFound()) {
+                return path;
+            }
+            this.corridor = null;
+        }
+        return search(start, goal);
+    }
+
+    static int getClearance(final UnitType unitType) {
+        return Math.max(unitType.width(), unitType.height()) / 2;
+    }
+
+    private boolean isPassable(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        final int i = y * width + x;
+        if (!tileData.isGroundPassable(i)) {
+            return false;
+        }
+        if (clearance > 0
+                && tileData.miniTileAltitude[(y * 4 + 2) * walkWidth + x * 4 + 2] < clearance) {
+            return false;
+        }
+        if (corridor != null) {
+            final int areaId = tileData.tileAreaId[i];
+            return areaId <= 0 || corridor[areaId];
+        }
+        return true;
+    }
+
+    private TilePath search(final TilePosition startTile, final TilePosition goalTile) {
+        if (++generation == 0) { // wrapped around: the stamps must be cleared
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        open.clear();
+
+        final int start = startTile.getY() * width + startTile.getX();
+        goal = goalTile.getY() * width + goalTile.getX();
+        goalX = goalTile.getX();
+        goalY = goalTile.getY();
+
+        stamp[start] = generation;
+        cost[start] = 0;
+        parent[start] = -1;
+        open.push(LongMinHeap.entry(heuristic(startTile.getX(), startTile.getY()), start));
+
+        while (!open.isEmpty()) {
+            final int current = LongMinHeap.value(open.pop());
+            if (closed[current] == generation) {
+                continue;
+            }
+            closed[current] = generation;
+            if (current == goal) {
+                return buildPath(start);
+            }
+
+            final int x = current % width;
+            final int y = current / width;
+            if (parent[current] < 0) {
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        if (dx != 0 || dy != 0) {
+                            jumpFrom(current, x, y, dx, dy);
+                        }
+                    }
+                }
+            } else {
+                final int dx = Integer.signum(x - parent[current] % width);
+                final int dy = Integer.signum(y - parent[current] / width);
+                final boolean nextPassable = isPassable(x + dx, y + dy);
+                if (dx != 0 && dy != 0) {
+                    final boolean xPassable = isPassable(x + dx, y);
+                    final boolean yPassable = isPassable(x, y + dy);
+                    if (xPassable) {
+                        jumpFrom(current, x, y, dx, 0);
+                    }
+                    if (yPassable) {
+                        jumpFrom(current, x, y, 0, dy);
+                    }
+                    if (xPassable && yPassable && nextPassable) {
+                        jumpFrom(current, x, y, dx, dy);
+                    }
+                } else if (dx != 0) {
+                    final boolean upPassable = isPassable(x, y - 1);
+                    final boolean downPassable = isPassable(x, y + 1);
+                    if (nextPassable) {
+                        jumpFrom(current, x, y, dx, 0);
+                        if (upPassable) {
+                            jumpFrom(current, x, y, dx, -1);
+                        }
+                        if (downPassable) {
+                            jumpFrom(current, x, y, dx, 1);
+                        }
+                    }
+                    if (upPassable) {
+                        jumpFrom(current, x, y, 0, -1);
+                    }
+                    if (downPassable) {
+                        jumpFrom(current, x, y, 0, 1);
+                    }
+                } else {
+                    final boolean leftPassable = isPassable(x - 1, y);
+                    final boolean rightPassable = isPassable(x + 1, y);
+                    if (nextPassable) {
+                        jumpFrom(current, x, y, 0, dy);
+                        if (leftPassable) {
+                            jumpFrom(current, x, y, -1, dy);
+                        }
+                        if (rightPassable) {
+                            jumpFrom(current, x, y, 1, dy);
+                        }
+                    }
+                    if (leftPassable) {
+                        jumpFrom(current, x, y, -1, 0);
+                    }
+                    if (rightPassable) {
+                        jumpFrom(current, x, y, 1, 0);
+                    }
+                }
+            }
+        }
+        return TilePath.NOT_FOUND;
+    }
+
+    // Jumps from (x, y) in direction (dx, dy) and adds the jump point found, if any, to the open list.
+    private void jumpFrom(final int current, final int x, final int y, final int dx, final int dy) {
+        final int jumpPoint = jump(x, y, dx, dy);
+        if (jumpPoint < 0 || closed[jumpPoint] == generation) {
+            return;
+        }
+        final int jx = jumpPoint % width;
+        final int jy = jumpPoint / width;
+        final int newCost = cost[current] + octileDistance(jx - x, jy - y);
+        if (stamp[jumpPoint] != generation || newCost < cost[jumpPoint]) {
+            stamp[jumpPoint] = generation;
+            cost[jumpPoint] = newCost;
+            parent[jumpPoint] = current;
+            open.push(LongMinHeap.entry(newCost + heuristic(jx, jy), jumpPoint));
+        }
+    }
+
+    // Moves from (x, y) in direction (dx, dy) until reaching the goal or a tile where the path may
+    // have to turn. Returns that tile's index, or -1 if an obstacle is met first.
+    private int jump(int x, int y, final int dx, final int dy) {
+        final boolean diagonal = dx != 0 && dy != 0;
+        while (true) {
+            if (!isPassable(x + dx, y + dy)
+                    || (diagonal && (!isPassable(x + dx, y) || !isPassable(x, y + dy)))) {
+                return -1;
+            }
+            x += dx;
+            y += dy;
+            final int i = y * width + x;
+            if (i == goal) {
+                return i;
+            }
+            if (diagonal) {
+                if (jump(x, y, dx, 0) >= 0 || jump(x, y, 0, dy) >= 0) {
+                    return i;
+                }
+            } else if (dx != 0) {
+                if ((isPassable(x, y - 1) && !isPassable(x - dx, y - 1))
+                        || (isPassable(x, y + 1) && !isPassable(x - dx, y + 1))) {
+                    return i;
+                }
+            } else {
+                if ((isPassable(x - 1, y) && !isPassable(x - 1, y - dy))
+                        || (isPassable(x + 1, y) && !isPassable(x + 1, y - dy))) {
+                    return i;
+                }
+            }
+        }
+    }
+
+    private int heuristic(final int x, final int y) {
+        return octileDistance(goalX - x, goalY - y);
+    }
+
+    private static int octileDistance(final int dx, final int dy) {
+        final int ax = Math.abs(dx);
+        final int ay = Math.abs(dy);
+        return Math.min(ax, ay) * DIAGONAL_COST + Math.abs(ax - ay) * STRAIGHT_COST;
+    }
+
+    private TilePath buildPath(final int start) {
+        final List<Integer> jumpPoints = new ArrayList<>();
+        for (int i = goal; i != start; i = parent[i]) {
+            jumpPoints.add(i);
+        }
+        jumpPoints.add(start);
+
+        final List<TilePosition> tiles = new ArrayList<>();
+        int x = start % width;
+        int y = start / width;
+        tiles.add(new TilePosition(x, y));
+        for (int j = jumpPoints.size() - 2; j >= 0; --j) {
+            final int tx = jumpPoints.get(j) % width;
+            final int ty = jumpPoints.get(j) / width;
+            final int dx = Integer.signum(tx - x);
+            final int dy = Integer.signum(ty - y);
+            while (x != tx || y != ty) {
+                x += dx;
+                y += dy;
+                tiles.add(new TilePosition(x, y));
+            }
+        }
+        return new TilePath(tiles, (int) Math.round(cost[goal] * 32.0 / STRAIGHT_COST));
+    }
+}
@@ -0,0 +1,102 @@
+package bwem;
+
+import bwapi.Position;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The results of {@link Graph#getPathingResult} by pair of positions: the least recently used ones
+ * are evicted when there are more than the maximum size.<br>
+ * The results depend on the Areas and on the paths between the ChokePoints, so they are dropped
+ * whenever these may change.<br>
+ * Safe to use from several threads; a result requested concurrently may be computed twice.
+ */
+final class PathingResultCache {
+    static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final Graph graph;
+    private final LinkedHashMap<Long, Optional<PathingResult>> recentlyUsed =
+            new LinkedHashMap<Long, Optional<PathingResult>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, Optional<PathingResult>> eldest) {
+                    return size() > maximumSize;
+                }
+            };
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private long hits;
+    private long misses;
+    // Incremented by clear(), so that results computed before it are not kept.
+    private volatile int generation;
+
+    PathingResultCache(final Graph graph) {
+        this.graph = graph;
+    }
+
+    Optional<PathingResult> get(final Position a, final Position b) {
+        if (!isCacheable(a) || !isCacheable(b)) {
+            return graph.computePathingResult(a, b);
+        }
+        final Long key = getKey(a, b);
+        synchronized (recentlyUsed) {
+            final Optional<PathingResult> result = recentlyUsed.get(key);
+            if (result != null) {
+                ++hits;
+                return result;
+            }
+            ++misses;
+        }
+        final int resultGeneration = generation;
+        final Optional<PathingResult> result = graph.computePathingResult(a, b);
+        synchronized (recentlyUsed) {
+            if (resultGeneration == generation) {
+                recentlyUsed.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    // Positions inside a map are at most 8192 pixels, so the 4 coordinates fit in 16 bits each.
+    private static boolean isCacheable(final Position p) {
+        return (p.getX() & ~0xFFFF) == 0 && (p.getY() & ~0xFFFF) == 0;
+    }
+
+    private static Long getKey(final Position a, final Position b) {
+        return ((long) (a.getX() & 0xFFFF) << 48)
+                | ((long) (a.getY() & 0xFFFF) << 32)
+                | ((long) (b.getX() & 0xFFFF) << 16)
+                | (long) (b.getY() & 0xFFFF);
+    }
+
+    void setMaximumSize(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must be >= 0: " + maximumSize);
+        }
+        synchronized (recentlyUsed) {
+            this.maximumSize = maximumSize;
+            while (recentlyUsed.size() > maximumSize) {
+                recentlyUsed.remove(recentlyUsed.keySet().iterator().next());
+            }
+        }
+    }
+
+    long getHits() {
+        synchronized (recentlyUsed) {
+            return hits;
+        }
+    }
+
+    long getMisses() {
+        synchronized (recentlyUsed) {
+            return misses;
+        }
+    }
+
+    void clear() {
+        synchronized (recentlyUsed) {
+            ++generation;
+            recentlyUsed.clear();
+        }
+    }
+}
@@ -49,6 +49,16 @@ public final class TerrainData {
         return getTile(tilePosition, CheckMode.CHECK);
     }
 
+    /**
+     * Returns the Tile at tile coordinates (x, y), which must be valid, without a TilePosition.
+     */
+    public Tile getTile(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= getMapData().getTileSize().getX() || y >= getMapData().getTileSize().getY()) {
+            tileData.asserter.throwIllegalStateException("");
+        }
+        return getTileData().getTile(getMapData().getTileSize().getX() * y + x);
+    }
+
     public MiniTile getMiniTile(final WalkPosition walkPosition, final CheckMode checkMode) {
         if (!((checkMode == CheckMode.NO_CHECK) || getMapData().isValid(walkPosition))) {
             tileData.asserter.throwIllegalStateException("");
@@ -61,6 +71,16 @@ public final class TerrainData {
         return getMiniTile(walkPosition, CheckMode.CHECK);
     }
 
+    /**
+     * Returns the MiniTile at walk coordinates (x, y), which must be valid, without a WalkPosition.
+     */
+    public MiniTile getMiniTile(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= getMapData().getWalkSize().getX() || y >= getMapData().getWalkSize().getY()) {
+            tileData.asserter.throwIllegalStateException("");
+        }
+        return getTileData().getMiniTile(getMapData().getWalkSize().getX() * y + x);
+    }
+
     boolean isSeaWithNonSeaNeighbors(final WalkPosition walkPosition) {
         if (!getMiniTile(walkPosition).isSea()) {
             return false;
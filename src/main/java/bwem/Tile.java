@@ -13,8 +13,6 @@
 package bwem;
 
 import bwapi.TilePosition;
-import bwem.util.Markable;
-import bwem.util.StaticMarkable;
 
 /**
  * Corresponds to BWAPI/Starcraft's concept of tile (32x32 pixels).<br>
@@ -30,44 +28,22 @@ import bwem.util.StaticMarkable;
  * which somewhat aggregate the MiniTile's corresponding information
  */
 public final class Tile {
-    private static final StaticMarkable staticMarkable = new StaticMarkable();
-    private final Markable markable;
+    private static final GroundHeight[] GROUND_HEIGHTS = GroundHeight.values();
 
-    private Neutral neutral;
-    private Altitude lowestAltitude;
-    private AreaId areaId;
-    private int internalData;
-    private Tile.GroundHeight groundHeight;
-    private boolean isBuildable;
-    private boolean isDoodad;
+    // The state lives in TileData
+    private final TileData data;
+    private final int index;
 
-    private final Asserter asserter;
-
-    Tile(final Asserter asserter) {
-        this.markable = new Markable(Tile.staticMarkable);
-        this.neutral = null;
-        this.lowestAltitude = Altitude.ZERO;
-        this.areaId = AreaId.ZERO;
-        this.internalData = 0;
-        this.groundHeight = GroundHeight.LOW_GROUND;
-        this.isBuildable = false;
-        this.isDoodad = false;
-        this.asserter = asserter;
-    }
-
-    static StaticMarkable getStaticMarkable() {
-        return Tile.staticMarkable;
-    }
-
-    Markable getMarkable() {
-        return this.markable;
+    Tile(final TileData data, final int index) {
+        this.data = data;
+        this.index = index;
     }
 
     /**
      * BWEM enforces the relation buildable ==> walkable (Cf. {@link MiniTile#isWalkable()})<br>
      */
     public boolean isBuildable() {
-        return this.isBuildable;
+        return data.tileBuildable.get(index);
     }
 
     /**
@@ -80,14 +56,19 @@ public final class Tile {
      * - If size(S) > 1 returns -1 (note that -1 is never returned by MiniTile::AreaId()).
      */
     public AreaId getAreaId() {
-        return this.areaId;
+        return data.tileBlocked.get(index) ? MiniTile.blockingCP : AreaId.valueOf(data.tileAreaId[index]);
     }
 
     void setAreaId(final AreaId areaId) {
         if (!(areaId.intValue() == -1 || getAreaId().intValue() == 0 && areaId.intValue() != 0)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
+        }
+        if (areaId.equals(MiniTile.blockingCP)) {
+            data.tileBlocked.set(index);
+        } else {
+            data.tileAreaId[index] = data.toShort(areaId.intValue());
+            data.tileBlocked.clear(index);
         }
-        this.areaId = areaId;
     }
 
     /**
@@ -96,21 +77,21 @@ public final class Tile {
      * - Returns the minimum value.
      */
     public Altitude getLowestAltitude() {
-        return this.lowestAltitude;
+        return Altitude.valueOf(data.tileLowestAltitude[index]);
     }
 
     void setLowestAltitude(final Altitude lowestAltitude) {
         if (!(lowestAltitude.intValue() >= 0)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.lowestAltitude = lowestAltitude;
+        data.tileLowestAltitude[index] = data.toShort(lowestAltitude.intValue());
     }
 
     /**
      * Tells if at least one of the sub-miniTiles is Walkable.
      */
     public boolean isWalkable() {
-        return (getAreaId().intValue() != 0);
+        return (data.tileAreaId[index] != 0 || data.tileBlocked.get(index));
     }
 
     /**
@@ -124,7 +105,7 @@ public final class Tile {
      * Corresponds to BWAPI::getGroundHeight / 2
      */
     public GroundHeight getGroundHeight() {
-        return this.groundHeight;
+        return GROUND_HEIGHTS[data.tileGroundHeight[index]];
     }
 
     void setGroundHeight(final int groundHeight) {
@@ -132,14 +113,14 @@ public final class Tile {
         //        if (!((0 <= h) && (h <= 2))) {
         //            throw new IllegalArgumentException();
         //        }
-        this.groundHeight = GroundHeight.parseGroundHeight(groundHeight);
+        data.tileGroundHeight[index] = (byte) GroundHeight.parseGroundHeight(groundHeight).ordinal();
     }
 
     /**
      * Tells if this Tile is part of a doodad. Corresponds to BWAPI::getGroundHeight % 2
      */
     public boolean isDoodad() {
-        return this.isDoodad;
+        return data.tileDoodad.get(index);
     }
 
     /**
@@ -159,7 +140,7 @@ public final class Tile {
      * returned by Tile::GetNeutral(). In case of stacked Neutrals, the next one is then returned.
      */
     public Neutral getNeutral() {
-        return this.neutral;
+        return data.tileNeutral[index];
     }
 
     /**
@@ -176,37 +157,30 @@ public final class Tile {
     }
 
     void setBuildable() {
-        this.isBuildable = true;
+        data.tileBuildable.set(index);
     }
 
     void setDoodad() {
-        this.isDoodad = true;
+        data.tileDoodad.set(index);
     }
 
     void addNeutral(final Neutral neutral) {
         if (!(getNeutral() == null && neutral != null)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.neutral = neutral;
+        data.tileNeutral[index] = neutral;
     }
 
     void resetAreaId() {
-        this.areaId = AreaId.ZERO;
+        data.tileAreaId[index] = 0;
+        data.tileBlocked.clear(index);
     }
 
     void removeNeutral(final Neutral neutral) {
         if (!getNeutral().equals(neutral)) {
-            asserter.throwIllegalStateException("");
+            data.asserter.throwIllegalStateException("");
         }
-        this.neutral = null;
-    }
-
-    int getInternalData() {
-        return this.internalData;
-    }
-
-    void setInternalData(int internalData) {
-        this.internalData = internalData;
+        data.tileNeutral[index] = null;
     }
 
     /**
@@ -221,4 +195,21 @@ public final class Tile {
             return values()[height];
         }
     }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof Tile)) {
+            return false;
+        } else {
+            final Tile that = (Tile) object;
+            return this.data == that.data && this.index == that.index;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.index;
+    }
 }
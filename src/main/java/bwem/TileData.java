@@ -12,31 +12,74 @@
 
 package bwem;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Storage of the Tile map and of the MiniTile map as primitive arrays indexed like the maps.<br>
+ * {@link Tile} and {@link MiniTile} instances are lightweight views on these arrays.
+ */
 final class TileData {
+    // Tile map
+    final Neutral[] tileNeutral;
+    final short[] tileLowestAltitude;
+    final short[] tileAreaId;
+    final byte[] tileGroundHeight;
+    final BitSet tileBuildable;
+    final BitSet tileDoodad;
+    final BitSet tileBlocked;
 
-    private final Tile[] tiles;
-    private final MiniTile[] miniTiles;
+    // MiniTile map
+    final short[] miniTileAltitude;
+    final short[] miniTileAreaId;
+    final BitSet miniTileWalkable;
+    final BitSet miniTileBlocked;
 
     final Asserter asserter;
 
     TileData(final int tileCount, final int miniTileCount, final Asserter asserter) {
-        tiles = new Tile[tileCount];
         this.asserter = asserter;
-        for (int i = 0; i < tileCount; ++i) {
-            tiles[i] = new Tile(asserter);
-        }
 
-        miniTiles = new MiniTile[miniTileCount];
-        for (int i = 0; i < miniTileCount; ++i) {
-            miniTiles[i] = new MiniTile(asserter);
-        }
+        tileNeutral = new Neutral[tileCount];
+        tileLowestAltitude = new short[tileCount];
+        tileAreaId = new short[tileCount];
+        tileGroundHeight = new byte[tileCount];
+        tileBuildable = new BitSet(tileCount);
+        tileDoodad = new BitSet(tileCount);
+        tileBlocked = new BitSet(tileCount);
+
+        // MiniTiles are walkable, with their altitude and area id missing, by default.
+        miniTileAltitude = new short[miniTileCount];
+        miniTileAreaId = new short[miniTileCount];
+        Arrays.fill(miniTileAltitude, (short) Altitude.UNINITIALIZED.intValue());
+        Arrays.fill(miniTileAreaId, (short) AreaId.UNINITIALIZED.intValue());
+        miniTileWalkable = new BitSet(miniTileCount);
+        miniTileWalkable.set(0, miniTileCount);
+        miniTileBlocked = new BitSet(miniTileCount);
     }
 
     Tile getTile(int index) {
-        return tiles[index];
+        return new Tile(this, index);
     }
 
     MiniTile getMiniTile(int index) {
-        return miniTiles[index];
+        return new MiniTile(this, index);
+    }
+
+    /**
+     * Tells whether ground units can move on the tile: it is walkable and not covered by a Neutral.
+     */
+    boolean isGroundPassable(final int tileIndex) {
+        return (tileAreaId[tileIndex] != 0 || tileBlocked.get(tileIndex)) && tileNeutral[tileIndex] == null;
+    }
+
+    /**
+     * Narrows an altitude or area id to its stored size (int16_t in the original BWEM).
+     */
+    short toShort(final int value) {
+        if (value != (short) value) {
+            asserter.throwIllegalStateException("Value out of the int16 range: " + value);
+        }
+        return (short) value;
     }
 }
@@ -0,0 +1,43 @@
+package bwem;
+
+import bwapi.TilePosition;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ground path at the tile level, as found by {@link Pathfinder}.
+ */
+public final class TilePath {
+    static final TilePath NOT_FOUND = new TilePath(Collections.emptyList(), -1);
+
+    private final List<TilePosition> tiles;
+    private final int length;
+
+    TilePath(final List<TilePosition> tiles, final int length) {
+        this.tiles = Collections.unmodifiableList(tiles);
+        this.length = length;
+    }
+
+    /**
+     * Tells whether a path was found.
+     */
+    public boolean isFound() {
+        return length >= 0;
+    }
+
+    /**
+     * Returns the tiles of the path, from the start to the goal included, each one adjacent (possibly
+     * diagonally) to the previous one. Empty if no path was found.
+     */
+    public List<TilePosition> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the length of the path in pixels, or -1 if no path was found.
+     */
+    public int getLength() {
+        return length;
+    }
+}
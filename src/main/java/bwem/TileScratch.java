@@ -0,0 +1,55 @@
+// Original work Copyright (c) 2015, 2017, Igor Dimitrijevic
+// Modified work Copyright (c) 2017-2018 OpenBW Team
+
+//////////////////////////////////////////////////////////////////////////
+//
+// This file is part of the BWEM Library.
+// BWEM is free software, licensed under the MIT/X11 License.
+// A copy of the license is provided with the library in the LICENSE file.
+// Copyright (c) 2015, 2017, Igor Dimitrijevic
+//
+//////////////////////////////////////////////////////////////////////////
+
+package bwem;
+
+import bwapi.TilePosition;
+
+/**
+ * Working memory for the tile algorithms (distances between ChokePoints, base location scoring),
+ * indexed like the Tile map.<br>
+ * It plays the role of the original Tile::m_internalData and Tile markables, but is owned by a
+ * single task, so that several areas can be processed concurrently.<br>
+ * - Users must leave the data back to 0 when they are done with it, like with Tile::m_internalData.
+ */
+final class TileScratch {
+    private final int width;
+    private final int[] data;
+    private final int[] marks;
+    private int currentMark = 1;
+
+    TileScratch(final MapData mapData) {
+        this.width = mapData.getTileSize().getX();
+        this.data = new int[width * mapData.getTileSize().getY()];
+        this.marks = new int[data.length];
+    }
+
+    int getData(final TilePosition t) {
+        return data[t.y * width + t.x];
+    }
+
+    void setData(final TilePosition t, final int value) {
+        data[t.y * width + t.x] = value;
+    }
+
+    boolean isMarked(final TilePosition t) {
+        return marks[t.y * width + t.x] == currentMark;
+    }
+
+    void setMarked(final TilePosition t) {
+        marks[t.y * width + t.x] = currentMark;
+    }
+
+    void unmarkAll() {
+        ++currentMark;
+    }
+}
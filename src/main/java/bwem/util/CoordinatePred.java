@@ -0,0 +1,14 @@
+package bwem.util;
+
+/**
+ * A condition on the cell at (x, y) of the Tile map or of the MiniTile map, for the searches that
+ * do not need a position object for each cell they meet.
+ */
+@FunctionalInterface
+public interface CoordinatePred {
+    boolean test(int x, int y);
+
+    static CoordinatePred accept() {
+        return (x, y) -> true;
+    }
+}
@@ -0,0 +1,169 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.BWMap;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails when the library allocates more than a budget on a code path of the frame loop.<br>
+ * Each test builds a battle of 200 units on Destination with {@link GameDataBuilder} (217 units
+ * visible to self with the neutral ones), runs a code path {@link #WARMUP} times, then compares the
+ * median of the bytes it allocated over {@link #RUNS} runs, as counted by
+ * ThreadMXBean.getThreadAllocatedBytes, to its budget.<br>
+ * The budgets are in bytes per visible unit and per event, plus a fixed part, so that they scale
+ * with the battle. They are the largest allocations measured when they were set, on JDK 8, 11 and
+ * 17 with and without compressed oops and with escape analysis disabled (as in the interpreter, or
+ * before C2 compiles the path), plus {@link #TOLERANCE}: the JIT removes some of these
+ * allocations, but the budgets do not rely on it. The paths of 0 bytes allocate nothing even in the
+ * interpreter.
+ * A change that allocates less should lower the budget of its path:
+ * <pre>
+ * code path                                          measured (bytes):    budget (bytes),
+ *                                                    JDK 8 / worst case   before tolerance
+ * onFrame                                              8,536 / 13,464       63 per unit
+ * frame: MatchFrame written, dispatched, onFrame       8,640 / 13,568       63 per unit
+ * frame with 50 UnitHide + 50 UnitShow events         17,472 / 28,768       63 per unit + 152 per event
+ * self().getUnits()                                    1,656 /  3,128       15 per unit
+ * getUnitsInRadius(position, 100)                      1,688 /  3,168       15 per unit
+ * getClosestUnit(position)                             3,528 / 20,456       95 per unit
+ * type, hit points, position, player, order of all        32 /     72       72
+ * getBullets()                                           264 /    448      448
+ * getMinerals()                                          320 /    552      552
+ * getRegionAt, isWalkable, self().minerals()               0 /      0        0
+ * BWEM getArea, getNearestArea (walk and tile)             0 /      0        0
+ * </pre>
+ * The frames include the events written by the builder, like BWAPI would write them.
+ */
+public class AllocationBudgetTest {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int WARMUP = 20_000;
+    private static final int RUNS = 101;
+    private static final double TOLERANCE = 1.25;
+    private static final int EVENTS = 100;
+
+    private GameDataBuilder builder;
+    private Game game;
+    private final List<GameDataBuilder.UnitBuilder> units = new ArrayList<>();
+    private final Position position = new Position(1600, 1600);
+    private final WalkPosition walkPosition = position.toWalkPosition();
+    private int frame;
+    private int visibleUnits;
+
+    @Before
+    public void setup() throws IOException {
+        Assume.assumeTrue(THREADS instanceof com.sun.management.ThreadMXBean
+                && threads().isThreadAllocatedMemorySupported());
+        threads().setThreadAllocatedMemoryEnabled(true);
+
+        builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        for (int i = 0; i < 200; ++i) {
+            boolean self = i % 2 == 0;
+            units.add(builder.addUnit(self ? UnitType.Terran_Marine : UnitType.Zerg_Zergling,
+                    self ? builder.getSelf() : builder.getEnemy(),
+                    new Position(1500 + (i % 20) * 20, 1500 + (i / 20) * 20)));
+        }
+        game = builder.start(new DefaultBWListener());
+        builder.nextFrame();
+        frame = game.getFrameCount();
+        visibleUnits = game.getAllUnits().size();
+    }
+
+    // The bean that counts the allocations, on the JVMs that have it.
+    private static com.sun.management.ThreadMXBean threads() {
+        return (com.sun.management.ThreadMXBean) THREADS;
+    }
+
+    // Returns the median of the bytes allocated by run, once compiled.
+    private static long allocatedBytes(Runnable run) {
+        for (int i = 0; i < WARMUP; ++i) {
+            run.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long[] allocated = new long[RUNS];
+        for (int i = 0; i < RUNS; ++i) {
+            long before = threads().getThreadAllocatedBytes(threadId);
+            run.run();
+            allocated[i] = threads().getThreadAllocatedBytes(threadId) - before;
+        }
+        Arrays.sort(allocated);
+        return allocated[RUNS / 2];
+    }
+
+    private void assertBudget(String codePath, long fixedBytes, long bytesPerUnit, Runnable run) {
+        long budget = (long) ((fixedBytes + bytesPerUnit * visibleUnits) * TOLERANCE);
+        long allocated = allocatedBytes(run);
+        assertThat(allocated)
+                .as("%s allocated %d bytes, over its budget of %d bytes", codePath, allocated, budget)
+                .isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    public void onFrame() {
+        assertBudget("onFrame", 0, 63, () -> game.onFrame(++frame));
+    }
+
+    @Test
+    public void frame() {
+        assertBudget("frame", 0, 63, builder::nextFrame);
+    }
+
+    @Test
+    public void eventDispatch() {
+        assertBudget("frame with " + EVENTS + " events", 152 * EVENTS, 63, () -> {
+            for (int i = 0; i < EVENTS / 2; ++i) {
+                builder.raiseEvent(EventType.UnitHide, units.get(i).getId(), 0);
+                builder.raiseEvent(EventType.UnitShow, units.get(i).getId(), 0);
+            }
+            builder.nextFrame();
+        });
+    }
+
+    @Test
+    public void unitQueries() {
+        assertBudget("self().getUnits()", 0, 15, () -> game.self().getUnits());
+        assertBudget("getUnitsInRadius", 0, 15, () -> game.getUnitsInRadius(position, 100));
+        assertBudget("getClosestUnit", 0, 95, () -> game.getClosestUnit(position));
+        assertBudget("unit fields", 72, 0, () -> {
+            for (Unit unit : game.getAllUnits()) {
+                unit.getType();
+                unit.getHitPoints();
+                unit.getPosition();
+                unit.getPlayer();
+                unit.getOrder();
+            }
+        });
+    }
+
+    @Test
+    public void gameQueries() {
+        assertBudget("getBullets", 448, 0, () -> game.getBullets());
+        assertBudget("getMinerals", 552, 0, () -> game.getMinerals());
+        assertBudget("getRegionAt", 0, 0, () -> game.getRegionAt(position));
+        assertBudget("isWalkable", 0, 0, () -> game.isWalkable(walkPosition));
+        assertBudget("self().minerals()", 0, 0, () -> game.self().minerals());
+    }
+
+    @Test
+    public void bwemQueries() throws IOException {
+        // The analysis runs on the map without the battle, whose units are not Neutrals.
+        BWEM bwem = new BWEM(BWEMTest.initGame("(2)Destination.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        TilePosition tilePosition = position.toTilePosition();
+        assertBudget("BWEM getArea(WalkPosition)", 0, 0, () -> map.getArea(walkPosition));
+        assertBudget("BWEM getArea(TilePosition)", 0, 0, () -> map.getArea(tilePosition));
+        assertBudget("BWEM getNearestArea(WalkPosition)", 0, 0, () -> map.getNearestArea(walkPosition));
+        assertBudget("BWEM getNearestArea(TilePosition)", 0, 0, () -> map.getNearestArea(tilePosition));
+    }
+}
@@ -0,0 +1,53 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.InitializationPhase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Precomputes the BWEM analysis cache of every map dump (as written by {@link GameStateDumper}) of a
+ * directory, in parallel.
+ * Usage: AnalysisCachePrecomputer [dumpDirectory (src/test/resources)] [cacheDirectory (bwem-cache)]
+ */
+public class AnalysisCachePrecomputer {
+    private static final String DUMP_SUFFIX = "_frame0_buffer.bin";
+
+    public static void main(String[] args) throws IOException {
+        Path dumpDirectory = Paths.get(args.length > 0 ? args[0] : "src/test/resources");
+        Path cacheDirectory = Paths.get(args.length > 1 ? args[1] : "bwem-cache");
+
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            dumps = files.filter(p -> p.getFileName().toString().endsWith(DUMP_SUFFIX)).collect(Collectors.toList());
+        }
+
+        dumps.parallelStream().forEach(dump -> {
+            try {
+                Game game = BWEMTest.initGame(BWEMTest.initClient(dump));
+                BWEM bwem = new BWEM(game);
+                bwem.setAnalysisCacheDirectory(cacheDirectory);
+                bwem.initialize();
+
+                BWEM loaded = new BWEM(BWEMTest.initGame(BWEMTest.initClient(dump)));
+                loaded.setAnalysisCacheDirectory(cacheDirectory);
+                loaded.initialize();
+
+                System.out.printf("%-28s %s analysis %5d ms, save %4d ms, load %4d ms%n",
+                        game.mapFileName(), game.mapHash(),
+                        bwem.getInitializationTime() / 1_000_000,
+                        bwem.getInitializationTime(InitializationPhase.SAVE_ANALYSIS_CACHE) / 1_000_000,
+                        loaded.isLoadedFromAnalysisCache() ? loaded.getInitializationTime() / 1_000_000 : -1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
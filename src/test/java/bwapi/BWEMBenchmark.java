@@ -0,0 +1,130 @@
+package bwapi;
+
+import bwem.Area;
+import bwem.BWEM;
+import bwem.BWMap;
+import bwem.CPPath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BWEMBenchmark {
+    static final String[] MAPS = {
+            "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx",
+            "(3)Tau Cross.scx", "(4)Andromeda.scx", "(4)Circuit Breaker.scx", "(4)Electric Circuit.scx",
+            "(4)Empire of the Sun.scm", "(4)Fighting Spirit.scx", "(4)Icarus.scm", "(4)Jade.scx",
+            "(4)La Mancha1.1.scx", "(4)Python.scx", "(4)Roadrunner.scx"
+    };
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({
+                "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx",
+                "(3)Tau Cross.scx", "(4)Andromeda.scx", "(4)Circuit Breaker.scx", "(4)Electric Circuit.scx",
+                "(4)Empire of the Sun.scm", "(4)Fighting Spirit.scx", "(4)Icarus.scm", "(4)Jade.scx",
+                "(4)La Mancha1.1.scx", "(4)Python.scx", "(4)Roadrunner.scx"
+        })
+        String map;
+
+        Game game;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            game = BWEMTest.initGame(map);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class InitializedMapState {
+        @Param({
+                "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx",
+                "(3)Tau Cross.scx", "(4)Andromeda.scx", "(4)Circuit Breaker.scx", "(4)Electric Circuit.scx",
+                "(4)Empire of the Sun.scm", "(4)Fighting Spirit.scx", "(4)Icarus.scm", "(4)Jade.scx",
+                "(4)La Mancha1.1.scx", "(4)Python.scx", "(4)Roadrunner.scx"
+        })
+        String map;
+
+        BWMap bwMap;
+        final List<Position> positions = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            BWEM bwem = new BWEM(BWEMTest.initGame(map));
+            bwem.initialize();
+            bwMap = bwem.getMap();
+            // Without the path cache, which a benchmark cycling through a few positions would measure.
+            bwMap.setPathCacheSize(0);
+            Position size = bwMap.getData().getMapData().getPixelSize();
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < 1024; ++i) {
+                positions.add(new Position(random.nextInt(size.getX()), random.nextInt(size.getY())));
+            }
+        }
+
+        Position nextPosition() {
+            next = (next + 1) % positions.size();
+            return positions.get(next);
+        }
+    }
+
+    @Benchmark
+    public BWEM initialize(MapState s) {
+        BWEM bwem = new BWEM(s.game);
+        bwem.initialize();
+        return bwem;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CPPath getPath(InitializedMapState s) {
+        return s.bwMap.getPath(s.nextPosition(), s.nextPosition());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Area getNearestArea(InitializedMapState s) {
+        return s.bwMap.getNearestArea(s.nextPosition().toWalkPosition());
+    }
+
+    /**
+     * Prints the heap retained by an initialized BWEM instance on each map.<br>
+     * To compare with the Tiles and MiniTiles stored as objects, run it on a worktree of the parent of
+     * the commit that added TileData ({@code git log --diff-filter=A -- src/main/java/bwem/TileData.java}),
+     * with this class copied there without the benchmarks and states, which use later APIs.
+     */
+    public static void main(String[] args) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long total = 0;
+        for (String map : MAPS) {
+            Game game = BWEMTest.initGame(map);
+            long before = usedHeap(memory);
+            BWEM bwem = new BWEM(game);
+            bwem.initialize();
+            long retained = usedHeap(memory) - before;
+            total += retained;
+            System.out.printf("%-28s %8d KB (%d x %d tiles)%n", map, retained / 1024,
+                    bwem.getMap().getData().getMapData().getTileSize().getX(),
+                    bwem.getMap().getData().getMapData().getTileSize().getY());
+        }
+        System.out.printf("%-28s %8d KB%n", "total", total / 1024);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
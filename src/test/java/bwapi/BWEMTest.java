@@ -1,19 +1,46 @@
 package bwapi;
 
-import bwem.BWEM;
-import bwem.BWMap;
+import bwem.*;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.util.zip.InflaterOutputStream;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class BWEMTest {
     static class BWEMMap{
@@ -37,6 +64,9 @@ public class BWEMTest {
         }
     }
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     static Map<String, BWEMMap> mapData = new HashMap<>();
     static {
         mapData.put("(2)Benzene.scx", new BWEMMap(20, 12, 29));
@@ -57,11 +87,13 @@ public class BWEMTest {
     }
 
 
-    Game initGame(String mapName) throws IOException {
-        String location = "src/test/resources/" + mapName + "_frame0_buffer.bin";
+    static Client initClient(String mapName) throws IOException {
+        return initClient(Paths.get("src/test/resources/" + mapName + "_frame0_buffer.bin"));
+    }
 
+    static Client initClient(Path location) throws IOException {
         // load bytebuffer
-        byte[] compressedBytes = Files.readAllBytes(Paths.get(location));
+        byte[] compressedBytes = Files.readAllBytes(location);
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         InflaterOutputStream zin = new InflaterOutputStream(out);
         zin.write(compressedBytes);
@@ -71,7 +103,14 @@ public class BWEMTest {
         ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
         buffer.put(bytes);
 
-        Client client = new Client(buffer);
+        return new Client(buffer);
+    }
+
+    static Game initGame(String mapName) throws IOException {
+        return initGame(initClient(mapName));
+    }
+
+    static Game initGame(Client client) {
         Game game = new Game(client);
         game.init();
         return game;
@@ -86,4 +125,644 @@ public class BWEMTest {
             assertEquals(new BWEMMap(bwem.getMap()), mapData.get(mapName));
         }
     }
+
+    @Test
+    public void parallelAnalysisMatchesSequentialAnalysis() throws IOException {
+        for (String mapName : mapData.keySet()) {
+            BWEM sequential = new BWEM(initGame(mapName));
+            sequential.setForkJoinPool(null);
+            sequential.initialize();
+
+            BWEM parallel = new BWEM(initGame(mapName));
+            parallel.initialize();
+
+            assertEquals(mapName, describe(sequential.getMap()), describe(parallel.getMap()));
+            assertTrue(parallel.getInitializationTime(InitializationPhase.CHOKE_POINT_DISTANCES) > 0);
+            assertTrue(parallel.getInitializationTime() >= parallel.getInitializationTime(InitializationPhase.BASES));
+        }
+    }
+
+    @Test
+    public void concurrentAnalysesMatchSequentialAnalyses() throws Exception {
+        Map<String, String> expected = new HashMap<>();
+        for (String mapName : mapData.keySet()) {
+            BWEM bwem = new BWEM(initGame(mapName));
+            bwem.initialize();
+            expected.put(mapName, describe(bwem.getMap()) + describeTerrain(bwem.getMap()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Map<String, Future<String>> analyses = new HashMap<>();
+            for (String mapName : mapData.keySet()) {
+                analyses.put(mapName, executor.submit(() -> {
+                    BWEM bwem = new BWEM(initGame(mapName));
+                    bwem.initialize();
+                    return describe(bwem.getMap()) + describeTerrain(bwem.getMap());
+                }));
+            }
+            for (String mapName : mapData.keySet()) {
+                assertEquals(mapName, expected.get(mapName), analyses.get(mapName).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asyncInitializationMatchesInitialization() throws Exception {
+        String mapName = "(4)Fighting Spirit.scx";
+        BWEM expected = new BWEM(initGame(mapName));
+        expected.initialize();
+        Path cacheDirectory = temporaryFolder.newFolder().toPath();
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (int i = 0; i < 2; ++i) {
+                BWEM bwem = new BWEM(initGame(mapName));
+                bwem.setForkJoinPool(pool);
+                bwem.setAnalysisCacheDirectory(cacheDirectory);
+                List<InitializationStage> stages = Collections.synchronizedList(new ArrayList<>());
+                List<CompletableFuture<Void>> callbacks = new ArrayList<>();
+                for (InitializationStage stage : InitializationStage.values()) {
+                    callbacks.add(bwem.whenReady(stage).thenRun(() -> stages.add(stage)));
+                }
+
+                BWMap map = bwem.initializeAsync().get(1, TimeUnit.MINUTES);
+                CompletableFuture.allOf(callbacks.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+                assertSame(bwem.getMap(), map);
+                assertEquals(i == 1, bwem.isLoadedFromAnalysisCache());
+                assertEquals(Arrays.asList(InitializationStage.values()), stages);
+                assertTrue(bwem.isReady(InitializationStage.BASES));
+                assertEquals(describe(expected.getMap()), describe(map));
+                assertEquals(describeTerrain(expected.getMap()), describeTerrain(map));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        BWEM inline = new BWEM(initGame(mapName));
+        inline.setForkJoinPool(null);
+        assertTrue(inline.initializeAsync().isDone());
+        assertEquals(describe(expected.getMap()), describe(inline.getMap()));
+    }
+
+    @Test
+    public void concurrentQueriesMatchSequentialQueries() throws Exception {
+        BWEM bwem = new BWEM(initGame("(4)Fighting Spirit.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        map.setPathCacheSize(16); // small enough for the threads to evict each other's paths
+        String expected = describeQueries(map);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> queries = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                queries.add(executor.submit(() -> describeQueries(map)));
+            }
+            for (Future<String> result : queries) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Results of the read-only queries between the bases of a map.
+    private static String describeQueries(BWMap map) {
+        StringBuilder sb = new StringBuilder();
+        for (Base a : map.getBases()) {
+            WalkPosition unwalkable = map.breadthFirstSearch(a.getCenter().toWalkPosition(),
+                    (miniTile, w) -> !miniTile.isWalkable(), (miniTile, w) -> true);
+            sb.append(a.getLocation()).append(' ').append(unwalkable).append('\n');
+            for (Base b : map.getBases()) {
+                sb.append(map.getPathLength(a.getCenter(), b.getCenter())).append(' ')
+                        .append(map.getPath(a.getCenter(), b.getCenter()).size()).append(' ')
+                        .append(map.getNearestArea(a.getCenter().add(b.getCenter()).divide(2).toTilePosition()).getId().intValue())
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void analysisCacheRestoresTheAnalysis() throws IOException {
+        for (String mapName : mapData.keySet()) {
+            Path cacheDirectory = temporaryFolder.newFolder().toPath();
+
+            BWEM analyzed = new BWEM(initGame(mapName));
+            analyzed.setAnalysisCacheDirectory(cacheDirectory);
+            analyzed.initialize();
+            assertFalse(mapName, analyzed.isLoadedFromAnalysisCache());
+
+            BWEM loaded = new BWEM(initGame(mapName));
+            loaded.setAnalysisCacheDirectory(cacheDirectory);
+            loaded.initialize();
+            assertTrue(mapName, loaded.isLoadedFromAnalysisCache());
+            assertEquals(0, loaded.getInitializationTime(InitializationPhase.ALTITUDE));
+
+            assertEquals(mapName, describe(analyzed.getMap()), describe(loaded.getMap()));
+            assertEquals(mapName, describeTerrain(analyzed.getMap()), describeTerrain(loaded.getMap()));
+        }
+    }
+
+    @Test
+    public void corruptAnalysisCacheIsIgnored() throws IOException {
+        String mapName = "(2)Destination.scx";
+        Path cacheDirectory = temporaryFolder.newFolder().toPath();
+        BWEM analyzed = new BWEM(initGame(mapName));
+        analyzed.setAnalysisCacheDirectory(cacheDirectory);
+        analyzed.initialize();
+
+        Path cacheFile;
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            cacheFile = files.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        byte[] bytes = Files.readAllBytes(cacheFile);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(cacheFile, bytes);
+
+        BWEM reanalyzed = new BWEM(initGame(mapName));
+        reanalyzed.setAnalysisCacheDirectory(cacheDirectory);
+        reanalyzed.initialize();
+        assertFalse(reanalyzed.isLoadedFromAnalysisCache());
+        assertEquals(describe(analyzed.getMap()), describe(reanalyzed.getMap()));
+
+        // The rejected file was replaced.
+        BWEM restored = new BWEM(initGame(mapName));
+        restored.setAnalysisCacheDirectory(cacheDirectory);
+        restored.initialize();
+        assertTrue(restored.isLoadedFromAnalysisCache());
+    }
+
+    @Test
+    public void groundDistanceFieldsAreSymmetricBetweenBases() throws Exception {
+        BWEM bwem = new BWEM(initGame("(4)Fighting Spirit.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        map.precomputeBaseGroundDistanceFields().get();
+
+        for (Base a : map.getBases()) {
+            GroundDistanceField field = map.getGroundDistanceField(a);
+            assertSame(field, map.getGroundDistanceField(a.getLocation()));
+            assertEquals(0, field.getDistance(a.getLocation()));
+            for (Base b : map.getBases()) {
+                int distance = field.getDistance(b.getLocation());
+                assertEquals(map.getGroundDistance(a.getLocation(), b.getLocation()), distance);
+                if (a.getArea().isAccessibleFrom(b.getArea())) {
+                    assertTrue(distance >= a.getLocation().toPosition().getApproxDistance(b.getLocation().toPosition()) * 9 / 10);
+                } else {
+                    assertEquals(-1, distance);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void baseGroundDistanceFieldsStayPinnedWhenAMineralIsDestroyed() throws Exception {
+        BWEM bwem = new BWEM(initGame("(2)Destination.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        // Without room in the cache, only the pinned fields are served again.
+        map.setGroundDistanceFieldCacheSize(0);
+        map.precomputeBaseGroundDistanceFields().get();
+        Base base = map.getBases().get(0);
+        GroundDistanceField previous = map.getGroundDistanceField(base);
+
+        Mineral mineral = map.getNeutralData().getMinerals().stream()
+                .filter(m -> !m.isBlocking())
+                .findFirst().get();
+        map.onUnitDestroyed(mineral.getUnit());
+
+        assertNotSame(previous, map.getGroundDistanceField(base));
+        for (Base b : map.getBases()) {
+            GroundDistanceField field = map.getGroundDistanceField(b);
+            assertSame(field, map.getGroundDistanceField(b));
+            assertEquals(0, field.getDistance(b.getLocation()));
+        }
+        TilePosition other = map.getBases().get(0).getCenter().toTilePosition();
+        assertNotSame(map.getGroundDistanceField(other), map.getGroundDistanceField(other));
+    }
+
+    @Test
+    public void destroyingBlockingNeutralsUpdatesChokePointPaths() throws IOException {
+        Path cacheDirectory = temporaryFolder.newFolder().toPath();
+        BWEM analyzed = new BWEM(initGame("(2)Destination.scx"));
+        analyzed.setAnalysisCacheDirectory(cacheDirectory);
+        analyzed.initialize();
+        BWEM restored = new BWEM(initGame("(2)Destination.scx"));
+        restored.setAnalysisCacheDirectory(cacheDirectory);
+        restored.initialize();
+        assertTrue(restored.isLoadedFromAnalysisCache());
+
+        BWEM recomputed = new BWEM(initGame("(2)Destination.scx"));
+        recomputed.initialize();
+
+        BWMap map = analyzed.getMap();
+        map.enableAutomaticPathAnalysis();
+        restored.getMap().enableAutomaticPathAnalysis();
+        recomputed.getMap().enableAutomaticPathAnalysis();
+        List<Neutral> blocking = new ArrayList<>();
+        for (Neutral neutral : map.getNeutralData().getMinerals()) {
+            if (neutral.isBlocking()) {
+                blocking.add(neutral);
+            }
+        }
+        assertFalse(blocking.isEmpty());
+
+        List<ChokePoint> chokePoints = map.getChokePoints();
+        int[][] previousDistances = chokePointDistances(map);
+        for (Neutral neutral : blocking) {
+            map.onUnitDestroyed(neutral.getUnit());
+            restored.getMap().onUnitDestroyed(neutral.getUnit());
+
+            int[][] distances = chokePointDistances(map);
+            assertArrayEquals(distances, chokePointDistances(restored.getMap()));
+            // The incremental update matches a computation from scratch.
+            recomputed.getMap().onUnitDestroyed(neutral.getUnit());
+            GraphTestAccess.computeChokePointDistanceMatrix(recomputed.getMap());
+            assertArrayEquals(distances, chokePointDistances(recomputed.getMap()));
+            for (int a = 0; a < chokePoints.size(); ++a) {
+                for (int b = 0; b < chokePoints.size(); ++b) {
+                    if (previousDistances[a][b] != -1) {
+                        assertTrue(distances[a][b] != -1 && distances[a][b] <= previousDistances[a][b]);
+                    }
+                    if (distances[a][b] > 0) {
+                        CPPath path = chokePoints.get(a).getPathTo(chokePoints.get(b));
+                        assertSame(chokePoints.get(a), path.get(0));
+                        assertSame(chokePoints.get(b), path.get(path.size() - 1));
+                        int length = 0;
+                        for (int i = 1; i < path.size(); ++i) {
+                            if (i < path.size() - 1) {
+                                assertFalse(path.get(i).isBlocked());
+                            }
+                            length += path.get(i - 1).distanceFrom(path.get(i));
+                        }
+                        assertEquals(distances[a][b], length);
+                    }
+                }
+            }
+            previousDistances = distances;
+        }
+        for (ChokePoint cp : chokePoints) {
+            assertFalse(cp.isBlocked());
+        }
+    }
+
+    @Test
+    public void nearestAreaIsTheOneFoundByBreadthFirstSearch() throws IOException {
+        for (String mapName : new String[]{"(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx"}) {
+            BWEM bwem = new BWEM(initGame(mapName));
+            bwem.initialize();
+            BWMap map = bwem.getMap();
+            assertNearestAreasFoundByBreadthFirstSearch(mapName, map);
+
+            map.enableAutomaticPathAnalysis();
+            List<Neutral> neutrals = new ArrayList<>(map.getNeutralData().getMinerals());
+            neutrals.addAll(map.getNeutralData().getStaticBuildings());
+            for (Neutral neutral : neutrals) {
+                if (neutral.isBlocking()) {
+                    map.onUnitDestroyed(neutral.getUnit());
+                }
+            }
+            assertNearestAreasFoundByBreadthFirstSearch(mapName, map);
+        }
+    }
+
+    // Every Tile, and the MiniTiles of the first rows and a random sample of the others.
+    private static void assertNearestAreasFoundByBreadthFirstSearch(String mapName, BWMap map) {
+        TilePosition tileSize = map.getData().getMapData().getTileSize();
+        for (int y = 0; y < tileSize.getY(); ++y) {
+            for (int x = 0; x < tileSize.getX(); ++x) {
+                TilePosition t = new TilePosition(x, y);
+                TilePosition found = map.breadthFirstSearch(
+                        t, (tile, unused) -> tile.getAreaId().intValue() > 0, (tile, unused) -> true);
+                assertSame(mapName + " " + t, map.getArea(found), map.getNearestArea(t));
+            }
+        }
+        WalkPosition walkSize = map.getData().getMapData().getWalkSize();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; ++i) {
+            WalkPosition w = i < 2 * walkSize.getX()
+                    ? new WalkPosition(i % walkSize.getX(), i / walkSize.getX())
+                    : new WalkPosition(random.nextInt(walkSize.getX()), random.nextInt(walkSize.getY()));
+            WalkPosition found = map.breadthFirstSearch(
+                    w, (miniTile, unused) -> miniTile.getAreaId().intValue() > 0, (miniTile, unused) -> true);
+            assertSame(mapName + " " + w, map.getArea(found), map.getNearestArea(w));
+        }
+    }
+
+    @Test
+    public void breadthFirstSearchMeetsTheCellsInOrder() throws IOException {
+        BWEM bwem = new BWEM(initGame("(4)Fighting Spirit.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        TerrainData data = map.getData();
+        WalkPosition walkSize = data.getMapData().getWalkSize();
+        Random random = new Random(42);
+        for (int i = 0; i < 200; ++i) {
+            WalkPosition start = new WalkPosition(random.nextInt(walkSize.getX()), random.nextInt(walkSize.getY()));
+            int altitude = 50 + random.nextInt(200);
+            boolean connect8 = random.nextBoolean();
+            WalkPosition expected = referenceBreadthFirstSearch(map, start,
+                    w -> data.getMiniTile(w).getAltitude().intValue() > altitude,
+                    w -> data.getMiniTile(w).isWalkable(), connect8);
+            if (expected == null) {
+                continue;
+            }
+
+            assertEquals(expected, map.breadthFirstSearch(start,
+                    (miniTile, w) -> miniTile.getAltitude().intValue() > altitude,
+                    (miniTile, w) -> miniTile.isWalkable(), connect8));
+            assertEquals(expected, map.breadthFirstSearchMiniTile(start.getX(), start.getY(),
+                    (x, y) -> data.getMiniTile(x, y).getAltitude().intValue() > altitude,
+                    (x, y) -> data.getMiniTile(x, y).isWalkable(), connect8));
+        }
+    }
+
+    @Test
+    public void breadthFirstSearchRejectsInvalidStartsAndFailsWhenNothingIsFound() throws IOException {
+        BWEM bwem = new BWEM(initGame("(2)Destination.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        TilePosition tileSize = map.getData().getMapData().getTileSize();
+        WalkPosition walkSize = map.getData().getMapData().getWalkSize();
+
+        assertThatThrownBy(() -> map.breadthFirstSearchTile(tileSize.getX(), 0, (x, y) -> true, (x, y) -> true, true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> map.breadthFirstSearchTile(-1, 0, (x, y) -> true, (x, y) -> true, true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> map.breadthFirstSearchMiniTile(0, walkSize.getY(), (x, y) -> true, (x, y) -> true, false))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> map.breadthFirstSearch(new TilePosition(0, 0), (tile, t) -> false, (tile, t) -> true))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // The search with a set of visited positions, or null if it finds nothing.
+    private static WalkPosition referenceBreadthFirstSearch(BWMap map, WalkPosition start,
+            Predicate<WalkPosition> findCond, Predicate<WalkPosition> visitCond, boolean connect8) {
+        if (findCond.test(start)) {
+            return start;
+        }
+        WalkPosition[] directions = connect8
+                ? new WalkPosition[]{new WalkPosition(-1, -1), new WalkPosition(0, -1), new WalkPosition(1, -1),
+                        new WalkPosition(-1, 0), new WalkPosition(1, 0),
+                        new WalkPosition(-1, 1), new WalkPosition(0, 1), new WalkPosition(1, 1)}
+                : new WalkPosition[]{new WalkPosition(0, -1), new WalkPosition(-1, 0), new WalkPosition(1, 0),
+                        new WalkPosition(0, 1)};
+        Set<WalkPosition> visited = new HashSet<>();
+        Queue<WalkPosition> toVisit = new ArrayDeque<>();
+        toVisit.add(start);
+        visited.add(start);
+        while (!toVisit.isEmpty()) {
+            WalkPosition current = toVisit.remove();
+            for (WalkPosition delta : directions) {
+                WalkPosition next = current.add(delta);
+                if (map.getData().getMapData().isValid(next)) {
+                    if (findCond.test(next)) {
+                        return next;
+                    }
+                    if (visitCond.test(next) && visited.add(next)) {
+                        toVisit.add(next);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void pathCacheSharesResultsUntilABlockingNeutralIsDestroyed() throws IOException {
+        BWEM cached = new BWEM(initGame("(2)Destination.scx"));
+        cached.initialize();
+        BWMap map = cached.getMap();
+        BWEM uncached = new BWEM(initGame("(2)Destination.scx"));
+        uncached.initialize();
+        uncached.getMap().setPathCacheSize(0);
+
+        List<Base> bases = map.getBases();
+        for (int pass = 0; pass < 2; ++pass) {
+            for (Base a : bases) {
+                for (Base b : bases) {
+                    Position from = a.getCenter();
+                    Position to = b.getCenter();
+                    assertEquals(uncached.getMap().getPathLength(from, to), map.getPathLength(from, to));
+                    assertEquals(uncached.getMap().getPath(from, to).size(), map.getPath(from, to).size());
+                }
+            }
+        }
+        int pairs = bases.size() * bases.size();
+        assertEquals(pairs, map.getPathCacheMisses());
+        assertEquals(3 * pairs, map.getPathCacheHits());
+        assertEquals(0, uncached.getMap().getPathCacheHits());
+
+        Position from = bases.get(0).getCenter();
+        Position to = bases.get(1).getCenter();
+        CPPath path = map.getPath(from, to);
+        assertSame(path, map.getPath(from, to));
+        CPPath shared = bases.stream()
+                .flatMap(a -> bases.stream().map(b -> map.getPath(a.getCenter(), b.getCenter())))
+                .filter(p -> !p.isEmpty())
+                .findFirst().orElseThrow(IllegalStateException::new);
+        Iterator<ChokePoint> chokePoints = shared.iterator();
+        chokePoints.next();
+        assertThatThrownBy(chokePoints::remove).isInstanceOf(UnsupportedOperationException.class);
+
+        // A mined out mineral does not change the paths.
+        Mineral mined = map.getNeutralData().getMinerals().stream()
+                .filter(m -> !m.isBlocking())
+                .findFirst().orElseThrow(IllegalStateException::new);
+        map.onUnitDestroyed(mined.getUnit());
+        long hits = map.getPathCacheHits();
+        assertSame(path, map.getPath(from, to));
+        assertEquals(hits + 1, map.getPathCacheHits());
+
+        Mineral blocking = map.getNeutralData().getMinerals().stream()
+                .filter(Neutral::isBlocking)
+                .findFirst().orElseThrow(IllegalStateException::new);
+        map.onUnitDestroyed(blocking.getUnit());
+        long misses = map.getPathCacheMisses();
+        map.getPath(from, to);
+        assertEquals(misses + 1, map.getPathCacheMisses());
+    }
+
+    private static int[][] chokePointDistances(BWMap map) {
+        List<ChokePoint> chokePoints = map.getChokePoints();
+        int[][] distances = new int[chokePoints.size()][chokePoints.size()];
+        for (int a = 0; a < chokePoints.size(); ++a) {
+            for (int b = 0; b < chokePoints.size(); ++b) {
+                distances[a][b] = chokePoints.get(a).distanceFrom(chokePoints.get(b));
+            }
+        }
+        return distances;
+    }
+
+    @Test
+    public void groundDistanceFieldCacheEvictsLeastRecentlyUsedFields() throws IOException {
+        BWEM bwem = new BWEM(initGame("(2)Destination.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        map.setGroundDistanceFieldCacheSize(2);
+
+        TilePosition a = map.getBases().get(0).getLocation();
+        TilePosition b = map.getBases().get(1).getLocation();
+        TilePosition c = map.getBases().get(2).getLocation();
+        GroundDistanceField fieldA = map.getGroundDistanceField(a);
+        GroundDistanceField fieldB = map.getGroundDistanceField(b);
+        assertSame(fieldA, map.getGroundDistanceField(a));
+        map.getGroundDistanceField(c);
+
+        assertSame(fieldA, map.getGroundDistanceField(a));
+        assertNotSame(fieldB, map.getGroundDistanceField(b));
+        assertEquals(-1, fieldA.getDistance(-1, 0));
+    }
+
+    @Test
+    public void pathfinderFindsShortestValidPaths() throws IOException {
+        BWEM bwem = new BWEM(initGame("(4)Fighting Spirit.scx"));
+        bwem.initialize();
+        BWMap map = bwem.getMap();
+        Pathfinder exact = new Pathfinder(map);
+        exact.setHierarchical(false);
+        Pathfinder hierarchical = new Pathfinder(map);
+        int clearance = UnitType.Zerg_Ultralisk.width() / 2;
+
+        Random random = new Random(42);
+        int width = map.getData().getMapData().getTileSize().getX();
+        int height = map.getData().getMapData().getTileSize().getY();
+        for (int i = 0; i < 200; ++i) {
+            TilePosition start = new TilePosition(random.nextInt(width), random.nextInt(height));
+            TilePosition goal = new TilePosition(random.nextInt(width), random.nextInt(height));
+            int distance = map.getGroundDistanceField(goal).getDistance(start);
+            if (!isGroundPassable(map, start) || !isGroundPassable(map, goal)) {
+                assertFalse(exact.findPath(start, goal).isFound());
+                continue;
+            }
+
+            TilePath path = exact.findPath(start, goal);
+            assertEquals(distance, path.getLength());
+            if (path.isFound()) {
+                assertValidPath(map, path, start, goal, 0);
+            }
+
+            TilePath hierarchicalPath = hierarchical.findPath(start, goal);
+            assertEquals(path.isFound(), hierarchicalPath.isFound());
+            if (hierarchicalPath.isFound()) {
+                assertTrue(hierarchicalPath.getLength() >= distance);
+                assertValidPath(map, hierarchicalPath, start, goal, 0);
+            }
+
+            TilePath largeUnitPath = hierarchical.findPath(start, goal, clearance);
+            if (largeUnitPath.isFound()) {
+                assertTrue(largeUnitPath.getLength() >= distance);
+                assertValidPath(map, largeUnitPath, start, goal, clearance);
+            }
+        }
+    }
+
+    private static boolean isGroundPassable(BWMap map, TilePosition t) {
+        Tile tile = map.getData().getTile(t);
+        return tile.isWalkable() && tile.getNeutral() == null;
+    }
+
+    private static void assertValidPath(BWMap map, TilePath path, TilePosition start, TilePosition goal, int clearance) {
+        List<TilePosition> tiles = path.getTiles();
+        assertEquals(start, tiles.get(0));
+        assertEquals(goal, tiles.get(tiles.size() - 1));
+        int cost = 0;
+        for (int i = 0; i < tiles.size(); ++i) {
+            TilePosition t = tiles.get(i);
+            assertTrue(isGroundPassable(map, t));
+            assertTrue(map.getData().getMiniTile(t.toWalkPosition().add(new WalkPosition(2, 2))).getAltitude().intValue() >= clearance);
+            if (i > 0) {
+                TilePosition previous = tiles.get(i - 1);
+                int dx = t.getX() - previous.getX();
+                int dy = t.getY() - previous.getY();
+                assertTrue(Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0));
+                if (dx != 0 && dy != 0) {
+                    assertTrue(isGroundPassable(map, new TilePosition(t.getX(), previous.getY())));
+                    assertTrue(isGroundPassable(map, new TilePosition(previous.getX(), t.getY())));
+                }
+                cost += dx != 0 && dy != 0 ? 14142 : 10000;
+            }
+        }
+        assertEquals(Math.round(cost * 32.0 / 10000), path.getLength());
+    }
+
+    private static String describe(BWMap map) {
+        StringBuilder sb = new StringBuilder();
+        for (Area area : map.getAreas()) {
+            sb.append("area ").append(area.getId().intValue()).append(' ').append(area.getTop())
+                    .append(' ').append(area.getGroupId()).append(' ').append(area.getSize())
+                    .append(' ').append(area.getTopLeft()).append(' ').append(area.getBottomRight())
+                    .append(' ').append(area.getHighGroundPercentage())
+                    .append(' ').append(area.getMinerals().size()).append(' ').append(area.getGeysers().size());
+            for (Area neighbor : area.getAccessibleNeighbors()) {
+                sb.append(' ').append(neighbor.getId().intValue());
+            }
+            sb.append('\n');
+        }
+        for (ChokePoint cp : map.getChokePoints()) {
+            sb.append("cp ").append(cp.getCenter()).append(' ').append(cp.isBlocked())
+                    .append(' ').append(cp.getGeometry().size());
+            for (ChokePoint.Node node : new ChokePoint.Node[]{ChokePoint.Node.END1, ChokePoint.Node.END2}) {
+                sb.append(' ').append(cp.getNodePosition(node))
+                        .append(cp.getNodePositionInArea(node, cp.getAreas().getLeft()))
+                        .append(cp.getNodePositionInArea(node, cp.getAreas().getRight()));
+            }
+            sb.append(':');
+            for (ChokePoint other : map.getChokePoints()) {
+                sb.append(' ').append(cp.distanceFrom(other));
+                for (ChokePoint step : cp.getPathTo(other)) {
+                    sb.append('>').append(step.getCenter());
+                }
+            }
+            sb.append('\n');
+        }
+        for (Base base : map.getBases()) {
+            sb.append("base ").append(base.getLocation()).append(' ').append(base.isStartingLocation());
+            for (Mineral mineral : base.getMinerals()) {
+                sb.append(' ').append(mineral.getTopLeft());
+            }
+            for (Geyser geyser : base.getGeysers()) {
+                sb.append(' ').append(geyser.getTopLeft());
+            }
+            for (Mineral mineral : base.getBlockingMinerals()) {
+                sb.append(" b").append(mineral.getTopLeft());
+            }
+            sb.append('\n');
+        }
+        for (Mineral mineral : map.getNeutralData().getMinerals()) {
+            sb.append("mineral ").append(mineral.getTopLeft()).append(' ').append(mineral.isBlocking()).append('\n');
+        }
+        for (StaticBuilding building : map.getNeutralData().getStaticBuildings()) {
+            sb.append("building ").append(building.getTopLeft()).append(' ').append(building.isBlocking()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Hashes of the MiniTile and Tile maps, with their nearest Areas.
+    private static String describeTerrain(BWMap map) {
+        TerrainData data = map.getData();
+        int miniTiles = 0;
+        for (int y = 0; y < data.getMapData().getWalkSize().getY(); ++y) {
+            for (int x = 0; x < data.getMapData().getWalkSize().getX(); ++x) {
+                MiniTile miniTile = data.getMiniTile(new WalkPosition(x, y));
+                miniTiles = 31 * miniTiles + Objects.hash(miniTile.isWalkable(), miniTile.getAltitude().intValue(),
+                        miniTile.getAreaId().intValue(), map.getNearestArea(new WalkPosition(x, y)).getId().intValue());
+            }
+        }
+        int tiles = 0;
+        for (int y = 0; y < data.getMapData().getTileSize().getY(); ++y) {
+            for (int x = 0; x < data.getMapData().getTileSize().getX(); ++x) {
+                Tile tile = data.getTile(new TilePosition(x, y));
+                tiles = 31 * tiles + Objects.hash(tile.isBuildable(), tile.isDoodad(), tile.getGroundHeight(),
+                        tile.getAreaId().intValue(), tile.getLowestAltitude().intValue(),
+                        tile.getNeutral() == null ? null : tile.getNeutral().getTopLeft(),
+                        tile.getStackedNeutralCount(), map.getNearestArea(new TilePosition(x, y)).getId().intValue());
+            }
+        }
+        return map.getHighestAltitude().intValue() + " " + miniTiles + " " + tiles;
+    }
 }
@@ -0,0 +1,83 @@
+package bwapi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A battle of {@link #UNITS} units between the start locations of Destination, built with
+ * {@link GameDataBuilder}: the time to play a frame where every unit moves, and of the unit queries
+ * around each unit.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BattleBenchmark {
+    static final int UNITS = 1000;
+
+    @State(Scope.Thread)
+    public static class BattleState {
+        GameDataBuilder builder;
+        Game game;
+        final List<GameDataBuilder.UnitBuilder> units = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            builder = GameDataBuilder.fromMap("(2)Destination.scx");
+            Position a = new Position(1500, 1500);
+            Position b = new Position(1500, 2500);
+            for (int i = 0; i < UNITS; ++i) {
+                boolean self = i % 2 == 0;
+                Position center = self ? a : b;
+                GameDataBuilder.UnitBuilder unit = builder.addUnit(
+                        self ? UnitType.Terran_Marine : UnitType.Zerg_Zergling,
+                        self ? builder.getSelf() : builder.getEnemy(),
+                        center.add(new Position((i / 2) % 25 * 20 - 250, (i / 2) / 25 * 20 - 200)));
+                units.add(unit);
+            }
+            for (int i = 0; i < UNITS; ++i) {
+                units.get(i).attack(units.get(i ^ 1).getId());
+            }
+            game = builder.start(new DefaultBWListener());
+            builder.nextFrame();
+        }
+
+        Unit nextUnit() {
+            next = (next + 1) % UNITS;
+            return game.getUnit(units.get(next).getId());
+        }
+    }
+
+    @Benchmark
+    public Game nextFrame(BattleState s) {
+        int step = s.game.getFrameCount() % 2 == 0 ? 1 : -1;
+        for (GameDataBuilder.UnitBuilder unit : s.units) {
+            Position position = s.game.getUnit(unit.getId()).getPosition();
+            unit.setPosition(new Position(position.getX(), position.getY() + step));
+        }
+        s.builder.nextFrame();
+        return s.game;
+    }
+
+    @Benchmark
+    public List<Unit> getUnitsInRadius(BattleState s) {
+        return s.game.getUnitsInRadius(s.nextUnit().getPosition(), 160);
+    }
+
+    @Benchmark
+    public List<Unit> getEnemiesInRadius(BattleState s) {
+        Unit unit = s.nextUnit();
+        return s.game.getUnitsInRadius(unit.getPosition(), 160, u -> u.getPlayer().isEnemy(unit.getPlayer()));
+    }
+
+    @Benchmark
+    public List<Unit> getUnitsInWeaponRange(BattleState s) {
+        return s.nextUnit().getUnitsInWeaponRange(WeaponType.Gauss_Rifle);
+    }
+}
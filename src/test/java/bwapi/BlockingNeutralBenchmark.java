@@ -0,0 +1,86 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.BWMap;
+import bwem.Neutral;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to update a map with automatic path analysis after the destruction of one of its blocking
+ * Neutrals, cycling through all of them, each time on a freshly initialized map.<br>
+ * The Neutrals stacked with the destroyed one are destroyed beforehand, so that the measured
+ * destruction always frees its Tiles.
+ */
+@Warmup(iterations = 20)
+@Measurement(iterations = 60)
+@Fork(1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingNeutralBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({
+                "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(4)Andromeda.scx",
+                "(4)Electric Circuit.scx"
+        })
+        String map;
+
+        Path analysisCacheDirectory;
+        BWMap bwMap;
+        Unit blockingNeutral;
+        int next;
+
+        @Setup(Level.Trial)
+        public void createAnalysisCache() throws IOException {
+            analysisCacheDirectory = Files.createTempDirectory("bwem");
+        }
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            BWEM bwem = new BWEM(BWEMTest.initGame(map));
+            bwem.setAnalysisCacheDirectory(analysisCacheDirectory);
+            bwem.initialize();
+            bwMap = bwem.getMap();
+            bwMap.enableAutomaticPathAnalysis();
+
+            final List<Neutral> neutrals = new ArrayList<>(bwMap.getNeutralData().getMinerals());
+            neutrals.addAll(bwMap.getNeutralData().getStaticBuildings());
+            final List<Neutral> blockingNeutrals = new ArrayList<>();
+            for (Neutral neutral : neutrals) {
+                if (neutral.isBlocking() && neutral.getNextStacked() == null) {
+                    blockingNeutrals.add(neutral);
+                }
+            }
+            final Neutral destroyed = blockingNeutrals.get(next++ % blockingNeutrals.size());
+            for (Neutral neutral : neutrals) {
+                if (neutral != destroyed && neutral.getTopLeft().equals(destroyed.getTopLeft())) {
+                    bwMap.onUnitDestroyed(neutral.getUnit());
+                }
+            }
+            blockingNeutral = destroyed.getUnit();
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteAnalysisCache() throws IOException {
+            try (Stream<Path> files = Files.walk(analysisCacheDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public BWMap destroyBlockingNeutral(MapState s) {
+        s.bwMap.onUnitDestroyed(s.blockingNeutral);
+        return s.bwMap;
+    }
+}
@@ -0,0 +1,117 @@
+package bwapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BotModulesTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private GameDataBuilder builder;
+    private Game game;
+    private final List<Unit> marines = new ArrayList<>();
+    private Unit zergling;
+
+    @Before
+    public void setup() throws IOException {
+        builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        List<GameDataBuilder.UnitBuilder> units = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            units.add(builder.addUnit(UnitType.Terran_Marine, builder.getSelf(), new Position(1000 + i * 20, 1000)));
+        }
+        GameDataBuilder.UnitBuilder enemy = builder.addUnit(UnitType.Zerg_Zergling, builder.getEnemy(),
+                new Position(1000, 1040));
+        game = builder.start(new DefaultBWListener());
+        builder.nextFrame();
+        units.forEach(u -> marines.add(game.getUnit(u.getId())));
+        zergling = game.getUnit(enemy.getId());
+        game.getBotModules().setForkJoinPool(pool);
+    }
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // The unit commands sent by the frame, as "type unit target".
+    private List<String> playFrame() {
+        ClientData.GameData data = builder.getClient().gameData();
+        data.setUnitCommandCount(0);
+        builder.nextFrame();
+        List<String> commands = new ArrayList<>();
+        for (int i = 0; i < data.getUnitCommandCount(); ++i) {
+            ClientData.UnitCommand command = data.getUnitCommands(i);
+            commands.add(UnitCommandType.values()[command.getTid()] + " " + command.getUnitIndex() + " "
+                    + command.getTargetIndex());
+        }
+        return commands;
+    }
+
+    @Test
+    public void intentsAreSentInModuleOrder() {
+        List<String> texts = new ArrayList<>();
+        BotModules modules = game.getBotModules();
+        modules.add("macro", 0, (game, intents) -> {
+            intents.issue(UnitCommand.stop(marines.get(1)));
+            intents.issue(UnitCommand.holdPosition(marines.get(2)));
+            intents.defer(g -> texts.add("macro"));
+        });
+        modules.add("micro", 1, (game, intents) -> {
+            // Reads from another thread.
+            Unit closest = game.getClosestUnit(marines.get(0).getPosition(),
+                    u -> u.getPlayer().isEnemy(game.self()));
+            intents.issue(UnitCommand.attack(marines.get(0), closest));
+            intents.issue(UnitCommand.holdPosition(marines.get(1)));
+            intents.defer(g -> texts.add("micro"));
+        });
+        assertThat(modules.getNames()).containsExactly("micro", "macro");
+
+        List<String> expected = new ArrayList<>();
+        expected.add(UnitCommandType.Attack_Unit + " " + marines.get(0).getID() + " " + zergling.getID());
+        expected.add(UnitCommandType.Hold_Position + " " + marines.get(1).getID() + " -1");
+        expected.add(UnitCommandType.Hold_Position + " " + marines.get(2).getID() + " -1");
+        for (int frame = 1; frame <= 20; ++frame) {
+            assertThat(playFrame()).containsExactlyElementsOf(expected);
+            assertThat(modules.getDroppedCommands()).isEqualTo(frame);
+        }
+        assertThat(texts).hasSize(40).containsSequence("micro", "macro", "micro", "macro");
+    }
+
+    @Test
+    public void modulesRunConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        for (int i = 0; i < 3; ++i) {
+            game.getBotModules().add("module " + i, 0, (game, intents) -> {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        playFrame();
+        assertThat(barrier.isBroken()).isFalse();
+    }
+
+    @Test
+    public void gameIsReadOnlyWhileTheModulesRun() {
+        game.getBotModules().add("scout", 0, (game, intents) -> marines.get(0).move(new Position(0, 0)));
+        game.getBotModules().add("macro", 1, (game, intents) -> intents.issue(UnitCommand.stop(marines.get(1))));
+        assertThatThrownBy(this::playFrame)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("read-only");
+
+        game.getBotModules().remove("scout");
+        assertThat(playFrame()).containsExactly(UnitCommandType.Stop + " " + marines.get(1).getID() + " -1");
+        assertThat(marines.get(0).move(new Position(0, 0))).isTrue();
+    }
+}
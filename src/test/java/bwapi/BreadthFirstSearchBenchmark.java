@@ -0,0 +1,67 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.BWMap;
+import bwem.Base;
+import bwem.MiniTile;
+import bwem.TerrainData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link BWMap#breadthFirstSearch} from the center of each base to the nearest unwalkable
+ * miniTile, through the Pred and the coordinate conditions.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BreadthFirstSearchBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({"(2)Destination.scx", "(4)Fighting Spirit.scx"})
+        String map;
+
+        BWMap bwMap;
+        List<Base> bases;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            BWEM bwem = new BWEM(BWEMTest.initGame(map));
+            bwem.initialize();
+            bwMap = bwem.getMap();
+            bases = bwMap.getBases();
+        }
+
+        Base nextBase() {
+            next = (next + 1) % bases.size();
+            return bases.get(next);
+        }
+    }
+
+    @Benchmark
+    public WalkPosition pred(MapState s) {
+        return s.bwMap.breadthFirstSearch(
+                s.nextBase().getCenter().toWalkPosition(),
+                (MiniTile miniTile, WalkPosition w) -> !miniTile.isWalkable(),
+                (MiniTile miniTile, WalkPosition w) -> true);
+    }
+
+    @Benchmark
+    public WalkPosition coordinates(MapState s) {
+        WalkPosition start = s.nextBase().getCenter().toWalkPosition();
+        TerrainData data = s.bwMap.getData();
+        return s.bwMap.breadthFirstSearchMiniTile(
+                start.getX(),
+                start.getY(),
+                (x, y) -> !data.getMiniTile(x, y).isWalkable(),
+                (x, y) -> true,
+                true);
+    }
+}
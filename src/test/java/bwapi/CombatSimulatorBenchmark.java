@@ -0,0 +1,42 @@
+package bwapi;
+
+import bwapi.CombatSimulator.Side;
+import org.openjdk.jmh.annotations.*;
+
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+public class CombatSimulatorBenchmark {
+    @State(Scope.Thread)
+    public static class Fight {
+        @Param({"4", "12", "50"})
+        int unitsPerSide;
+
+        CombatSimulator simulator;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            simulator = new CombatSimulator(unitsPerSide);
+            for (int i = 0; i < unitsPerSide; i++) {
+                simulator.addUnit(Side.A, i % 3 == 0 ? UnitType.Terran_Medic : UnitType.Terran_Marine, null,
+                        200 + (i % 8) * 16, 200 + (i / 8) * 16);
+                simulator.addUnit(Side.B, i % 2 == 0 ? UnitType.Zerg_Zergling : UnitType.Zerg_Hydralisk, null,
+                        600 + (i % 8) * 16, 220 + (i / 8) * 16);
+            }
+        }
+    }
+
+    @Benchmark
+    public int simulate96Frames(Fight s) {
+        s.simulator.reset();
+        s.simulator.simulate(96);
+        return s.simulator.getTotalHealth(Side.A) - s.simulator.getTotalHealth(Side.B);
+    }
+
+    @Benchmark
+    public int simulateToCompletion(Fight s) {
+        s.simulator.reset();
+        s.simulator.simulate(24 * 60);
+        return s.simulator.getTotalHealth(Side.A) - s.simulator.getTotalHealth(Side.B);
+    }
+}
@@ -0,0 +1,95 @@
+package bwapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bwapi.CombatSimulator.Side;
+import org.junit.Test;
+
+public class CombatSimulatorTest {
+
+    @Test
+    public void shouldProduceIdenticalResultsAfterReset() {
+        // GIVEN
+        CombatSimulator sut = new CombatSimulator(16);
+        for (int i = 0; i < 6; i++) {
+            sut.addUnit(Side.A, UnitType.Terran_Marine, null, 100 + i * 10, 100);
+            sut.addUnit(Side.B, UnitType.Zerg_Zergling, null, 300 + i * 10, 120);
+        }
+
+        // WHEN
+        int firstFrames = sut.simulate(1000);
+        int firstHealthA = sut.getTotalHealth(Side.A);
+        int firstHealthB = sut.getTotalHealth(Side.B);
+        sut.reset();
+        int secondFrames = sut.simulate(1000);
+
+        // THEN
+        assertThat(secondFrames).isEqualTo(firstFrames);
+        assertThat(sut.getTotalHealth(Side.A)).isEqualTo(firstHealthA);
+        assertThat(sut.getTotalHealth(Side.B)).isEqualTo(firstHealthB);
+    }
+
+    @Test
+    public void shouldApplyArmorAndSizeModifiers() {
+        // GIVEN
+        // A Dragoon deals 20 explosive damage, which is halved against small units with 0 armor
+        CombatSimulator sut = new CombatSimulator(1);
+        sut.addUnit(Side.A, UnitType.Protoss_Dragoon, null, 100, 100);
+        sut.addUnit(Side.B, UnitType.Zerg_Zergling, null, 100, 150);
+
+        // WHEN
+        sut.simulate(1);
+
+        // THEN
+        assertThat(sut.getHitPoints(Side.B, 0)).isEqualTo(UnitType.Zerg_Zergling.maxHitPoints() - 10);
+    }
+
+    @Test
+    public void shouldDamageShieldsBeforeHitPoints() {
+        // GIVEN
+        CombatSimulator sut = new CombatSimulator(1);
+        sut.addUnit(Side.A, UnitType.Terran_Marine, null, 100, 100);
+        sut.addUnit(Side.B, UnitType.Protoss_Probe, null, 100, 120);
+
+        // WHEN
+        sut.simulate(1);
+
+        // THEN
+        assertThat(sut.getShields(Side.B, 0)).isEqualTo(UnitType.Protoss_Probe.maxShields() - 6);
+        assertThat(sut.getHitPoints(Side.B, 0)).isEqualTo(UnitType.Protoss_Probe.maxHitPoints());
+    }
+
+    @Test
+    public void shouldMoveTowardsTargetsOutOfRange() {
+        // GIVEN
+        CombatSimulator sut = new CombatSimulator(1);
+        sut.addUnit(Side.A, UnitType.Zerg_Zergling, null, 100, 100);
+        sut.addUnit(Side.B, UnitType.Terran_SCV, null, 1000, 100);
+
+        // WHEN
+        sut.simulate(10);
+
+        // THEN
+        assertThat(sut.getX(Side.A, 0)).isGreaterThan(100);
+        assertThat(sut.getY(Side.A, 0)).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldStopWhenOneSideIsEliminated() {
+        // GIVEN
+        CombatSimulator sut = new CombatSimulator(4);
+        for (int i = 0; i < 4; i++) {
+            sut.addUnit(Side.A, UnitType.Protoss_Zealot, null, 100 + i * 20, 100);
+        }
+        sut.addUnit(Side.B, UnitType.Zerg_Zergling, null, 100, 140);
+
+        // WHEN
+        int frames = sut.simulate(10000);
+
+        // THEN
+        assertThat(frames).isLessThan(10000);
+        assertThat(sut.getAliveCount(Side.A)).isEqualTo(4);
+        assertThat(sut.getAliveCount(Side.B)).isZero();
+        assertThat(sut.getValue(Side.B)).isZero();
+    }
+}
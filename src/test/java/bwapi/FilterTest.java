@@ -39,4 +39,34 @@ public class FilterTest {
         assertTrue(units.stream().noneMatch(IsMineralField.and(IsRefinery)));
         assertTrue(units.stream().noneMatch(IsMineralField.negate()));
     }
+
+    @Test
+    public void testCompiledTypeFiltersMatchUnitTypeProperties() {
+        for (UnitType type : UnitType.values()) {
+            Unit u = mock(Unit.class);
+            when(u.getType()).thenReturn(type);
+
+            assertEquals(type.isBuilding(), IsBuilding.test(u));
+            assertEquals(type.isFlyer(), IsFlyer.test(u));
+            assertEquals(type.canAttack(), CanAttack.test(u));
+            assertEquals(type.isWorker(), IsWorker.test(u));
+            assertEquals(type.spaceProvided() > 0 && type != UnitType.Terran_Bunker, IsTransPort.test(u));
+            assertEquals(type.isBuilding() && type.isFlyer(), IsBuilding.and(IsFlyer).test(u));
+            assertEquals(type.isMineralField() || type.isRefinery(), IsMineralField.or(IsRefinery).test(u));
+            assertEquals(!type.isWorker(), IsWorker.negate().test(u));
+        }
+    }
+
+    @Test
+    public void testCompiledTypeFiltersCollapse() {
+        assertTrue(IsBuilding.and(IsFlyer) instanceof UnitTypeFilter);
+        assertTrue(IsBuilding.or(IsFlyer).negate() instanceof UnitTypeFilter);
+        assertTrue(((UnitTypeFilter) IsMineralField.and(IsRefinery)).acceptsNoType());
+
+        UnitFilter mixed = HP(x -> x > 10).and(IsMineralField);
+        assertTrue(mixed instanceof UnitTypeFilter);
+        assertTrue(units.stream().anyMatch(mixed));
+        assertTrue(units.stream().noneMatch(HP(x -> x > 30).and(IsMineralField)));
+        assertTrue(units.stream().noneMatch(IsRefinery.and(HP(x -> x > 10))));
+    }
 }
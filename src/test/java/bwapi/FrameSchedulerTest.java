@@ -0,0 +1,144 @@
+package bwapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FrameSchedulerTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long now;
+    private final FrameWatchdog watchdog = new FrameWatchdog(() -> now);
+    private final FrameScheduler scheduler = new FrameScheduler(watchdog);
+
+    // A task of the given number of steps, taking 1 ms each.
+    private FrameTask steps(final int count) {
+        final int[] done = new int[1];
+        return () -> {
+            now += MILLI;
+            return ++done[0] == count;
+        };
+    }
+
+    private void playFrame() {
+        watchdog.startFrame();
+        scheduler.runFrame();
+        watchdog.endFrame();
+    }
+
+    @Test
+    public void tasksRunByPriorityUntilTheFrameBudgetIsSpent() {
+        watchdog.setFrameBudget(10 * MILLI);
+        FrameScheduler.ScheduledTask low = scheduler.schedule(steps(3));
+        FrameScheduler.ScheduledTask high = scheduler.schedule(steps(15), 1, Long.MAX_VALUE);
+
+        playFrame();
+        assertThat(high.getSteps()).isEqualTo(10);
+        assertThat(low.getSteps()).isZero();
+        assertThat(scheduler.getTasks()).containsExactlyInAnyOrder(low, high);
+
+        playFrame();
+        assertThat(high.isDone()).isTrue();
+        assertThat(high.getSteps()).isEqualTo(15);
+        assertThat(high.getFramesRun()).isEqualTo(2);
+        assertThat(high.getTime()).isEqualTo(15 * MILLI);
+        assertThat(high.getMaxFrameTime()).isEqualTo(10 * MILLI);
+        assertThat(low.isDone()).isTrue();
+        assertThat(low.getCompletion()).isCompleted();
+        assertThat(low.getFramesPending()).isEqualTo(2);
+        assertThat(low.getFramesRun()).isEqualTo(1);
+        assertThat(low.getFramesStarved()).isEqualTo(1);
+        assertThat(scheduler.getTasks()).isEmpty();
+    }
+
+    @Test
+    public void tasksOfTheSamePriorityTakeTurns() {
+        watchdog.setFrameBudget(2 * MILLI);
+        FrameScheduler.ScheduledTask first = scheduler.schedule(steps(100), 0, 2 * MILLI);
+        FrameScheduler.ScheduledTask second = scheduler.schedule(steps(100), 0, 2 * MILLI);
+
+        for (int i = 0; i < 4; ++i) {
+            playFrame();
+        }
+        assertThat(first.getSteps()).isEqualTo(4);
+        assertThat(second.getSteps()).isEqualTo(4);
+        assertThat(first.getFramesStarved()).isEqualTo(2);
+        assertThat(second.getMaxFramesStarvedInARow()).isEqualTo(1);
+
+        second.cancel();
+        playFrame();
+        playFrame();
+        assertThat(first.getSteps()).isEqualTo(8);
+        assertThat(second.getSteps()).isEqualTo(4);
+        assertThat(second.getCompletion()).isCancelled();
+        assertThat(scheduler.getTasks()).containsExactly(first);
+    }
+
+    @Test
+    public void taskBudgetStopsATaskForTheFrame() {
+        FrameScheduler.ScheduledTask task = scheduler.schedule(steps(10), 0, 3 * MILLI);
+        playFrame();
+        assertThat(task.getSteps()).isEqualTo(3);
+        assertThat(watchdog.getLastFrameTime()).isEqualTo(3 * MILLI);
+    }
+
+    @Test
+    public void defaultTaskKeepsTheFramesUnderTheTournamentLimit() {
+        FrameScheduler.ScheduledTask task = scheduler.schedule(() -> {
+            now += 5 * MILLI;
+            return false;
+        });
+        for (int i = 0; i < FrameWatchdog.Limit.MILLIS_55.getFramesToLose(); ++i) {
+            watchdog.startFrame();
+            // onFrame
+            now += 10 * MILLI;
+            scheduler.runFrame();
+            // The events after the tasks.
+            now += 2 * MILLI;
+            watchdog.endFrame();
+        }
+        assertThat(task.getFramesStarved()).isZero();
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_55)).isZero();
+        assertThat(watchdog.getMaxFrameTime()).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(55));
+    }
+
+    @Test
+    public void failingTaskCompletesExceptionally() {
+        IllegalStateException failure = new IllegalStateException("failure");
+        FrameScheduler.ScheduledTask task = scheduler.schedule(() -> {
+            throw failure;
+        });
+        assertThatThrownBy(this::playFrame).isSameAs(failure);
+        assertThat(task.getCompletion()).isCompletedExceptionally();
+        assertThat(scheduler.getTasks()).isEmpty();
+    }
+
+    @Test
+    public void tasksRunAfterOnFrame() throws IOException {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        List<String> calls = new ArrayList<>();
+        Game game = builder.start(new DefaultBWListener() {
+            @Override
+            public void onStart() {
+                builder.getGame().getFrameScheduler().schedule(() -> {
+                    calls.add("step");
+                    return calls.size() == 4;
+                });
+            }
+
+            @Override
+            public void onFrame() {
+                calls.add("onFrame");
+            }
+        });
+        builder.nextFrame();
+        assertThat(calls).containsExactly("onFrame", "step", "step", "step", "onFrame");
+        assertThat(game.getFrameScheduler().getTasks()).isEmpty();
+    }
+}
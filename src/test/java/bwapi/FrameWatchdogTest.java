@@ -0,0 +1,132 @@
+package bwapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FrameWatchdogTest {
+    private long now;
+    private final FrameWatchdog watchdog = new FrameWatchdog(() -> now);
+
+    private void playFrame(final long millis) {
+        watchdog.startFrame();
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+        watchdog.endFrame();
+        now += TimeUnit.MILLISECONDS.toNanos(42);
+    }
+
+    @Test
+    public void countsTheFramesOverEachLimit() {
+        ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+        watchdog.setWarningOutputStream(warnings);
+
+        playFrame(10);
+        playFrame(55);
+        playFrame(56);
+        playFrame(1500);
+        playFrame(12000);
+
+        assertThat(watchdog.getFrameCount()).isEqualTo(5);
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_55)).isEqualTo(3);
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_1000)).isEqualTo(2);
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_10000)).isEqualTo(1);
+        assertThat(watchdog.getLastFrameTime()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(12000));
+        assertThat(watchdog.getMaxFrameTime()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(12000));
+        assertThat(warnings.toString()).isEqualTo("Warning: 1 frames took more than 10000 ms, a bot loses at 1 of them\n");
+
+        for (int i = 3; i < 240; ++i) {
+            playFrame(60);
+        }
+        assertThat(warnings.toString()).endsWith("Warning: 240 frames took more than 55 ms, a bot loses at 320 of them\n");
+
+        watchdog.reset();
+        assertThat(watchdog.getFrameCount()).isZero();
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_55)).isZero();
+    }
+
+    @Test
+    public void warnsOfASingleFrameCloseToTheLongLimits() {
+        ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+        watchdog.setWarningOutputStream(warnings);
+
+        playFrame(700);
+        assertThat(warnings.toString()).isEmpty();
+        playFrame(800);
+        assertThat(warnings.toString()).isEqualTo("Warning: a frame took 800 ms, close to 1000 ms: a bot loses at 10 frames over it\n");
+
+        warnings.reset();
+        playFrame(8000);
+        assertThat(warnings.toString()).isEqualTo("Warning: a frame took 8000 ms, close to 10000 ms: a bot loses at 1 frames over it\n");
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_10000)).isZero();
+    }
+
+    @Test
+    public void remainingFrameTimeIsTheRestOfTheBudget() {
+        watchdog.setFrameBudget(TimeUnit.MILLISECONDS.toNanos(40));
+        assertThat(watchdog.getElapsedFrameTime()).isZero();
+
+        watchdog.startFrame();
+        now += TimeUnit.MILLISECONDS.toNanos(30);
+        assertThat(watchdog.getRemainingFrameTime()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(watchdog.isOverFrameBudget()).isFalse();
+
+        now += TimeUnit.MILLISECONDS.toNanos(20);
+        assertThat(watchdog.getRemainingFrameTime()).isZero();
+        assertThat(watchdog.isOverFrameBudget()).isTrue();
+        // Still under the 55 ms of the tournaments.
+        watchdog.endFrame();
+        assertThat(watchdog.getFramesOver(FrameWatchdog.Limit.MILLIS_55)).isZero();
+    }
+
+    @Test
+    public void skipsTheLowPriorityEventsOfAFrameOverBudget() throws IOException {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        GameDataBuilder.UnitBuilder marine = builder.addUnit(UnitType.Terran_Marine, builder.getSelf(),
+                new Position(1000, 1000));
+        int[] nukes = new int[1];
+        int[] frames = new int[1];
+        Game game = builder.start(new DefaultBWListener() {
+            @Override
+            public void onNukeDetect(Position target) {
+                ++nukes[0];
+            }
+
+            @Override
+            public void onFrame() {
+                ++frames[0];
+            }
+        });
+        builder.nextFrame();
+        FrameWatchdog watchdog = game.getFrameWatchdog();
+        assertThatThrownBy(() -> watchdog.setLowPriorityEvents(EventType.MatchFrame))
+                .isInstanceOf(IllegalArgumentException.class);
+        watchdog.setLowPriorityEvents(EventType.NukeDetect, EventType.UnitHide);
+
+        watchdog.setFrameBudget(0);
+        watchdog.startFrame();
+        long start = System.nanoTime();
+        while (System.nanoTime() == start) {
+            Thread.yield();
+        }
+        builder.raiseEvent(EventType.NukeDetect, 100, 100);
+        builder.raiseEvent(EventType.UnitHide, marine.getId(), 0);
+        builder.nextFrame();
+        assertThat(nukes[0]).isZero();
+        assertThat(frames[0]).isEqualTo(3);
+        assertThat(watchdog.getSkippedEvents()).isEqualTo(2);
+        // The game is still updated.
+        assertThat(game.getAllUnits()).doesNotContain(game.getUnit(marine.getId()));
+
+        watchdog.setFrameBudget(Long.MAX_VALUE);
+        builder.raiseEvent(EventType.NukeDetect, 100, 100);
+        builder.nextFrame();
+        watchdog.endFrame();
+        assertThat(nukes[0]).isEqualTo(1);
+        assertThat(watchdog.getSkippedEvents()).isEqualTo(2);
+    }
+}
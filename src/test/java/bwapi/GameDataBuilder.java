@@ -0,0 +1,410 @@
+package bwapi;
+
+import bwapi.ClientData.BulletData;
+import bwapi.ClientData.GameData;
+import bwapi.ClientData.PlayerData;
+import bwapi.ClientData.RegionData;
+import bwapi.ClientData.UnitData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a game without Brood War, by writing players, units, bullets and map layers into a
+ * {@link GameData} buffer with the layout of the shared memory, and raises the events BWAPI would
+ * send for them, through the same {@link EventHandler} as a {@link BWClient}.<br>
+ * The game is started by {@link #start}, which plays frame 0, and goes on with {@link #nextFrame}.
+ * Like with BWAPI, the units created during a frame are listed by {@link Game#getAllUnits} from the
+ * next one.<br>
+ * All the units are complete, detected and visible to every player, unless told otherwise.
+ */
+final class GameDataBuilder {
+    static final int MAX_UNITS = 10000;
+    static final int MAX_BULLETS = 100;
+    static final int MAX_EVENTS = 10000;
+
+    private final Client client;
+    private final GameData data;
+    // The events of the current frame, as {type, v1, v2}.
+    private final List<int[]> events = new ArrayList<>();
+    private int nextUnitId;
+    private EventHandler handler;
+
+    private GameDataBuilder(final Client client) {
+        this.client = client;
+        this.data = client.gameData();
+        this.nextUnitId = data.getInitialUnitCount();
+    }
+
+    /**
+     * Starts from the frame 0 dump of a map in src/test/resources: its terrain, regions, players and
+     * neutral units, with the events of its frame 0.
+     */
+    static GameDataBuilder fromMap(final String mapName) throws IOException {
+        final GameDataBuilder builder = new GameDataBuilder(BWEMTest.initClient(mapName));
+        for (int i = 0; i < builder.data.getEventCount(); ++i) {
+            final ClientData.Event event = builder.data.getEvents(i);
+            if (event.getType() != EventType.MatchFrame) {
+                builder.events.add(new int[]{event.getType().id, event.getV1(), event.getV2()});
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Starts from a flat map of tileWidth x tileHeight tiles, walkable and buildable everywhere, made
+     * of a single region, with a Terran self, a Zerg enemy and the neutral player.
+     */
+    static GameDataBuilder empty(final int tileWidth, final int tileHeight) {
+        final GameDataBuilder builder = new GameDataBuilder(new Client(ByteBuffer.allocateDirect(GameData.SIZE)));
+        final GameData data = builder.data;
+        data.setIsInGame(true);
+        data.setMapWidth(tileWidth);
+        data.setMapHeight(tileHeight);
+        data.setMapName("Synthetic");
+        data.setMapFileName("Synthetic.scx");
+        data.setMapPathName("maps/Synthetic.scx");
+        data.setMapHash("");
+        for (int x = 0; x < tileWidth; ++x) {
+            for (int y = 0; y < tileHeight; ++y) {
+                builder.setBuildable(x, y, true);
+                data.setIsVisible(x, y, true);
+                data.setIsExplored(x, y, true);
+            }
+        }
+        for (int x = 0; x < 4 * tileWidth; ++x) {
+            for (int y = 0; y < 4 * tileHeight; ++y) {
+                builder.setWalkable(x, y, true);
+            }
+        }
+
+        data.setRegionCount(1);
+        final RegionData region = data.getRegions(0);
+        region.setIslandID(1);
+        region.setCenter_x(tileWidth * TilePosition.SIZE_IN_PIXELS / 2);
+        region.setCenter_y(tileHeight * TilePosition.SIZE_IN_PIXELS / 2);
+        region.setRightMost(tileWidth * TilePosition.SIZE_IN_PIXELS - 1);
+        region.setBottomMost(tileHeight * TilePosition.SIZE_IN_PIXELS - 1);
+        region.setIsAccessible(true);
+
+        data.setForceCount(2);
+        data.getForces(0).setName("Players");
+        data.setPlayerCount(3);
+        builder.initPlayer(0, "Self", Race.Terran, PlayerType.Player, 0);
+        builder.initPlayer(1, "Enemy", Race.Zerg, PlayerType.Computer, 0);
+        builder.initPlayer(2, "Neutral", Race.None, PlayerType.None, 1);
+        data.getPlayers(2).setIsNeutral(true);
+        data.getPlayers(0).setIsEnemy(1, true);
+        data.getPlayers(1).setIsEnemy(0, true);
+        data.setSelf(0);
+        data.setEnemy(1);
+        data.setNeutral(2);
+
+        builder.events.add(new int[]{EventType.MatchStart.id, 0, 0});
+        return builder;
+    }
+
+    private void initPlayer(final int id, final String name, final Race race, final PlayerType type, final int force) {
+        final PlayerData player = data.getPlayers(id);
+        player.setName(name);
+        player.setRace(race.id);
+        player.setType(type.id);
+        player.setForce(force);
+        player.setIsAlly(id, true);
+        player.setIsParticipating(type != PlayerType.None);
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the game, which is null until {@link #start}.
+     */
+    Game getGame() {
+        return handler == null ? null : handler.getGame();
+    }
+
+    int getSelf() {
+        return data.getSelf();
+    }
+
+    int getEnemy() {
+        return data.getEnemy();
+    }
+
+    int getNeutral() {
+        return data.getNeutral();
+    }
+
+    /**
+     * Map layers, read by {@link Game} when it starts.
+     */
+    GameDataBuilder setWalkable(final int walkX, final int walkY, final boolean walkable) {
+        data.setIsWalkable(walkX, walkY, walkable);
+        return this;
+    }
+
+    GameDataBuilder setBuildable(final int tileX, final int tileY, final boolean buildable) {
+        data.setIsBuildable(tileX, tileY, buildable);
+        return this;
+    }
+
+    GameDataBuilder setGroundHeight(final int tileX, final int tileY, final int groundHeight) {
+        data.setGetGroundHeight(tileX, tileY, groundHeight);
+        return this;
+    }
+
+    GameDataBuilder setMinerals(final int player, final int minerals) {
+        data.getPlayers(player).setMinerals(minerals);
+        return this;
+    }
+
+    GameDataBuilder setGas(final int player, final int gas) {
+        data.getPlayers(player).setGas(gas);
+        return this;
+    }
+
+    /**
+     * Creates a unit with the hit points and shields of its type, and raises its creation events
+     * (create, complete, discover, show) at the next {@link #start} or {@link #nextFrame}.
+     */
+    UnitBuilder addUnit(final UnitType type, final int player, final Position position) {
+        if (nextUnitId >= MAX_UNITS) {
+            throw new IllegalStateException("Too many units!");
+        }
+        final int id = nextUnitId++;
+        final UnitData unit = data.getUnits(id);
+        unit.setId(id);
+        unit.setReplayID(id);
+        unit.setPlayer(player);
+        unit.setType(type.id);
+        unit.setPositionX(position.getX());
+        unit.setPositionY(position.getY());
+        unit.setHitPoints(type.maxHitPoints());
+        unit.setLastHitPoints(type.maxHitPoints());
+        unit.setShields(type.maxShields());
+        unit.setResources(type.isMineralField() ? 1500 : type == UnitType.Resource_Vespene_Geyser ? 5000 : 0);
+        unit.setExists(true);
+        unit.setIsCompleted(true);
+        unit.setIsDetected(true);
+        unit.setIsPowered(true);
+        unit.setIsInterruptible(true);
+        unit.setTarget(-1);
+        unit.setOrderTarget(-1);
+        unit.setBuildUnit(-1);
+        unit.setTransport(-1);
+        unit.setCarrier(-1);
+        unit.setHatchery(-1);
+        unit.setAddon(-1);
+        unit.setNydusExit(-1);
+        unit.setPowerUp(-1);
+        unit.setRallyUnit(-1);
+        unit.setLastAttackerPlayer(-1);
+        for (int p = 0; p < data.getPlayerCount(); ++p) {
+            unit.setIsVisible(p, true);
+        }
+
+        final UnitBuilder builder = new UnitBuilder(id, unit);
+        builder.setOrder(type.isBuilding() || type.isNeutral() ? Order.Nothing : Order.PlayerGuard);
+        addEvent(EventType.UnitCreate, id);
+        addEvent(EventType.UnitComplete, id);
+        addEvent(EventType.UnitDiscover, id);
+        addEvent(EventType.UnitShow, id);
+        return builder;
+    }
+
+    UnitBuilder getUnit(final int id) {
+        return new UnitBuilder(id, data.getUnits(id));
+    }
+
+    /**
+     * Creates a bullet in a free slot. Bullets have no events.
+     */
+    BulletBuilder addBullet(final BulletType type, final int player, final Position position) {
+        for (int id = 0; id < MAX_BULLETS; ++id) {
+            final BulletData bullet = data.getBullets(id);
+            if (!bullet.getExists()) {
+                bullet.setId(id);
+                bullet.setType(type.id);
+                bullet.setPlayer(player);
+                bullet.setPositionX(position.getX());
+                bullet.setPositionY(position.getY());
+                bullet.setSource(-1);
+                bullet.setTarget(-1);
+                bullet.setExists(true);
+                for (int p = 0; p < data.getPlayerCount(); ++p) {
+                    bullet.setIsVisible(p, true);
+                }
+                return new BulletBuilder(bullet);
+            }
+        }
+        throw new IllegalStateException("Too many bullets!");
+    }
+
+    /**
+     * Raises an event at the next frame, for the events the builder does not raise by itself (e.g.
+     * UnitHide, UnitMorph, NukeDetect).
+     */
+    GameDataBuilder raiseEvent(final EventType type, final int v1, final int v2) {
+        events.add(new int[]{type.id, v1, v2});
+        return this;
+    }
+
+    /**
+     * Raises MatchStart, the creation events of the units and the first MatchFrame to listener.
+     */
+    Game start(final BWEventListener listener) {
+        if (handler != null) {
+            throw new IllegalStateException("Already started");
+        }
+        handler = new EventHandler(listener, client);
+        data.setFrameCount(0);
+        dispatchFrame();
+        return handler.getGame();
+    }
+
+    /**
+     * Raises the events of the units created or destroyed since the previous frame, then the next
+     * MatchFrame.
+     */
+    void nextFrame() {
+        if (handler == null) {
+            throw new IllegalStateException("Not started");
+        }
+        data.setFrameCount(data.getFrameCount() + 1);
+        dispatchFrame();
+    }
+
+    // Same as Client::update, once the server has written the events of the frame.
+    private void dispatchFrame() {
+        addEvent(EventType.MatchFrame, 0);
+        if (events.size() > MAX_EVENTS) {
+            throw new IllegalStateException("Too many events!");
+        }
+        data.setEventCount(events.size());
+        for (int i = 0; i < events.size(); ++i) {
+            final ClientData.Event event = data.getEvents(i);
+            event.setType(EventType.idToEnum[events.get(i)[0]]);
+            event.setV1(events.get(i)[1]);
+            event.setV2(events.get(i)[2]);
+        }
+        events.clear();
+        client.dispatchEvents(handler);
+    }
+
+    private void addEvent(final EventType type, final int v1) {
+        events.add(new int[]{type.id, v1, 0});
+    }
+
+    final class UnitBuilder {
+        private final int id;
+        private final UnitData unit;
+
+        private UnitBuilder(final int id, final UnitData unit) {
+            this.id = id;
+            this.unit = unit;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        UnitBuilder setPosition(final Position position) {
+            unit.setPositionX(position.getX());
+            unit.setPositionY(position.getY());
+            return this;
+        }
+
+        UnitBuilder setHitPoints(final int hitPoints) {
+            unit.setLastHitPoints(unit.getHitPoints());
+            unit.setHitPoints(hitPoints);
+            return this;
+        }
+
+        UnitBuilder setShields(final int shields) {
+            unit.setShields(shields);
+            return this;
+        }
+
+        UnitBuilder setEnergy(final int energy) {
+            unit.setEnergy(energy);
+            return this;
+        }
+
+        UnitBuilder setCompleted(final boolean completed) {
+            unit.setIsCompleted(completed);
+            return this;
+        }
+
+        UnitBuilder setVisible(final int player, final boolean visible) {
+            unit.setIsVisible(player, visible);
+            return this;
+        }
+
+        /**
+         * Sets the order of the unit, which is idle if the order is PlayerGuard or Nothing.
+         */
+        UnitBuilder setOrder(final Order order) {
+            unit.setOrder(order.id);
+            unit.setIsIdle(order == Order.PlayerGuard || order == Order.Nothing);
+            return this;
+        }
+
+        /**
+         * Orders the unit to attack target, which it is already doing.
+         */
+        UnitBuilder attack(final int target) {
+            setOrder(Order.AttackUnit);
+            unit.setTarget(target);
+            unit.setOrderTarget(target);
+            unit.setIsAttacking(true);
+            unit.setGroundWeaponCooldown(UnitType.idToEnum[unit.getType()].groundWeapon().damageCooldown());
+            return this;
+        }
+
+        /**
+         * Removes the unit, and raises UnitDestroy at the next frame.
+         */
+        void destroy() {
+            unit.setExists(false);
+            unit.setHitPoints(0);
+            for (int p = 0; p < data.getPlayerCount(); ++p) {
+                unit.setIsVisible(p, false);
+            }
+            addEvent(EventType.UnitDestroy, id);
+        }
+    }
+
+    static final class BulletBuilder {
+        private final BulletData bullet;
+
+        private BulletBuilder(final BulletData bullet) {
+            this.bullet = bullet;
+        }
+
+        BulletBuilder setSource(final int unit) {
+            bullet.setSource(unit);
+            return this;
+        }
+
+        BulletBuilder setTarget(final int unit, final Position targetPosition) {
+            bullet.setTarget(unit);
+            bullet.setTargetPositionX(targetPosition.getX());
+            bullet.setTargetPositionY(targetPosition.getY());
+            return this;
+        }
+
+        BulletBuilder setPosition(final Position position) {
+            bullet.setPositionX(position.getX());
+            bullet.setPositionY(position.getY());
+            return this;
+        }
+
+        void remove() {
+            bullet.setExists(false);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package bwapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameDataBuilderTest {
+
+    private static class RecordingListener extends DefaultBWListener {
+        int starts;
+        int frames;
+        final List<Unit> created = new ArrayList<>();
+        final List<Unit> shown = new ArrayList<>();
+        final List<Unit> destroyed = new ArrayList<>();
+
+        @Override
+        public void onStart() {
+            ++starts;
+        }
+
+        @Override
+        public void onFrame() {
+            ++frames;
+        }
+
+        @Override
+        public void onUnitCreate(Unit unit) {
+            created.add(unit);
+        }
+
+        @Override
+        public void onUnitShow(Unit unit) {
+            shown.add(unit);
+        }
+
+        @Override
+        public void onUnitDestroy(Unit unit) {
+            destroyed.add(unit);
+        }
+    }
+
+    @Test
+    public void emptyGameRaisesTheEventsOfItsUnits() {
+        GameDataBuilder builder = GameDataBuilder.empty(64, 64);
+        for (int i = 0; i < 1000; ++i) {
+            int player = i % 2 == 0 ? builder.getSelf() : builder.getEnemy();
+            UnitType type = i % 2 == 0 ? UnitType.Terran_Marine : UnitType.Zerg_Zergling;
+            builder.addUnit(type, player, new Position(32 + (i % 40) * 48, 32 + (i / 40) * 48));
+        }
+        RecordingListener listener = new RecordingListener();
+
+        Game game = builder.start(listener);
+        builder.nextFrame();
+
+        assertThat(listener.starts).isEqualTo(1);
+        assertThat(listener.frames).isEqualTo(2);
+        assertThat(listener.created).hasSize(1000);
+        assertThat(listener.shown).hasSize(1000);
+        assertThat(game.getAllUnits()).hasSize(1000);
+        assertThat(game.self().getUnits()).hasSize(500).allMatch(u -> u.getType() == UnitType.Terran_Marine);
+        assertThat(game.enemy().getUnits()).hasSize(500).allMatch(u -> u.getHitPoints() == 35);
+        assertThat(game.isWalkable(new WalkPosition(100, 100))).isTrue();
+        assertThat(game.getRegionAt(new Position(500, 500)).getRegionGroupID()).isEqualTo(1);
+
+        Position center = new Position(1000, 600);
+        assertThat(game.getUnitsInRadius(center, 200)).containsExactlyInAnyOrderElementsOf(game.getAllUnits().stream()
+                .filter(u -> center.getApproxDistance(u.getPosition()) <= 200)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void unitsChangeBetweenFramesOfAMapDump() throws IOException {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        RecordingListener listener = new RecordingListener();
+        Game game = builder.start(listener);
+        builder.nextFrame();
+        // From frame 1 on, only the units shown to self are listed.
+        int neutralUnits = game.getAllUnits().size();
+        assertThat(neutralUnits).isGreaterThan(0);
+
+        Position start = game.self().getStartLocation().toPosition();
+        GameDataBuilder.UnitBuilder marine = builder.addUnit(UnitType.Terran_Marine, builder.getSelf(), start);
+        GameDataBuilder.UnitBuilder zergling = builder.addUnit(UnitType.Zerg_Zergling, builder.getEnemy(),
+                start.add(new Position(64, 0)));
+        marine.attack(zergling.getId());
+        builder.addBullet(BulletType.Gauss_Rifle_Hit, builder.getSelf(), start).setSource(marine.getId());
+        builder.nextFrame();
+
+        assertThat(game.getAllUnits()).hasSize(neutralUnits + 2);
+        Unit unit = game.getUnit(marine.getId());
+        assertThat(unit.getOrder()).isEqualTo(Order.AttackUnit);
+        assertThat(unit.getTarget()).isEqualTo(game.getUnit(zergling.getId()));
+        assertThat(game.getBullets()).hasSize(1);
+        assertThat(game.getBullets().get(0).getSource()).isEqualTo(unit);
+
+        zergling.setPosition(start.add(new Position(32, 0))).setHitPoints(5);
+        builder.nextFrame();
+        assertThat(game.getUnit(zergling.getId()).getPosition()).isEqualTo(start.add(new Position(32, 0)));
+        assertThat(game.getUnit(zergling.getId()).getHitPoints()).isEqualTo(5);
+
+        zergling.destroy();
+        builder.nextFrame();
+        assertThat(listener.destroyed).containsExactly(game.getUnit(zergling.getId()));
+        builder.nextFrame();
+        assertThat(game.getAllUnits()).hasSize(neutralUnits + 1);
+    }
+}
@@ -0,0 +1,88 @@
+package bwapi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of the Game map queries on the frame 0 dump of each map, cycling through random positions
+ * and through the start locations.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameQueryBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({
+                "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx",
+                "(3)Tau Cross.scx", "(4)Andromeda.scx", "(4)Circuit Breaker.scx", "(4)Electric Circuit.scx",
+                "(4)Empire of the Sun.scm", "(4)Fighting Spirit.scx", "(4)Icarus.scm", "(4)Jade.scx",
+                "(4)La Mancha1.1.scx", "(4)Python.scx", "(4)Roadrunner.scx"
+        })
+        String map;
+
+        Game game;
+        final List<Position> positions = new ArrayList<>();
+        final List<TilePosition> startLocations = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            game = BWEMTest.initGame(map);
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < POSITIONS; ++i) {
+                positions.add(new Position(random.nextInt(game.mapPixelWidth()), random.nextInt(game.mapPixelHeight())));
+            }
+            startLocations.addAll(game.getStartLocations());
+        }
+
+        Position nextPosition() {
+            next = (next + 1) % POSITIONS;
+            return positions.get(next);
+        }
+
+        TilePosition nextStartLocation() {
+            next = (next + 1) % POSITIONS;
+            return startLocations.get(next % startLocations.size());
+        }
+    }
+
+    @Benchmark
+    public Region getRegionAt(MapState s) {
+        return s.game.getRegionAt(s.nextPosition());
+    }
+
+    @Benchmark
+    public boolean isWalkable(MapState s) {
+        return s.game.isWalkable(s.nextPosition().toWalkPosition());
+    }
+
+    @Benchmark
+    public boolean canBuildHere(MapState s) {
+        return s.game.canBuildHere(s.nextPosition().toTilePosition(), UnitType.Terran_Barracks);
+    }
+
+    @Benchmark
+    public TilePosition getBuildLocation(MapState s) {
+        return s.game.getBuildLocation(UnitType.Terran_Barracks, s.nextStartLocation());
+    }
+
+    @Benchmark
+    public boolean hasPath(MapState s) {
+        return s.game.hasPath(s.nextPosition(), s.nextPosition());
+    }
+
+    @Benchmark
+    public List<Unit> getUnitsInRadius(MapState s) {
+        return s.game.getUnitsInRadius(s.nextStartLocation().toPosition(), 320);
+    }
+}
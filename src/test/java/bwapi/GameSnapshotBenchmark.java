@@ -0,0 +1,48 @@
+package bwapi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time to take a {@link GameSnapshot} of a frame of Destination with {@link #units} units,
+ * built with {@link GameDataBuilder}.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class GameSnapshotBenchmark {
+    @Param({"200", "1000"})
+    int units;
+
+    Game game;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        for (int i = 0; i < units; ++i) {
+            boolean self = i % 2 == 0;
+            builder.addUnit(self ? UnitType.Terran_Marine : UnitType.Zerg_Zergling,
+                    self ? builder.getSelf() : builder.getEnemy(),
+                    new Position(1000 + (i / 2) % 25 * 20, (self ? 1000 : 2000) + (i / 2) / 25 * 20));
+        }
+        ClientData.GameData data = builder.getClient().gameData();
+        game = builder.start(new DefaultBWListener());
+        for (int x = 0; x < game.mapWidth(); ++x) {
+            for (int y = 0; y < game.mapHeight(); ++y) {
+                data.setIsExplored(x, y, true);
+                data.setIsVisible(x, y, y < game.mapHeight() / 2);
+            }
+        }
+        builder.nextFrame();
+    }
+
+    @Benchmark
+    public GameSnapshot snapshot() {
+        return game.snapshot();
+    }
+}
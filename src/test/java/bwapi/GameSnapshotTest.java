@@ -0,0 +1,96 @@
+package bwapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameSnapshotTest {
+    @Test
+    public void snapshotKeepsTheStateOfItsFrame() throws IOException {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        GameDataBuilder.UnitBuilder marine = builder.addUnit(UnitType.Terran_Marine, builder.getSelf(),
+                new Position(1000, 1000));
+        GameDataBuilder.UnitBuilder zergling = builder.addUnit(UnitType.Zerg_Zergling, builder.getEnemy(),
+                new Position(1000, 1040));
+        marine.attack(zergling.getId());
+        builder.addBullet(BulletType.Gauss_Rifle_Hit, builder.getSelf(), new Position(1000, 1020))
+                .setSource(marine.getId());
+        builder.setMinerals(builder.getSelf(), 150);
+        Game game = builder.start(new DefaultBWListener());
+        ClientData.GameData data = builder.getClient().gameData();
+        data.setIsVisible(31, 31, true);
+        data.setIsExplored(31, 31, true);
+        data.setHasCreep(31, 32, true);
+        builder.nextFrame();
+
+        GameSnapshot snapshot = game.snapshot();
+        int unitCount = game.getAllUnits().size();
+        marine.setPosition(new Position(1100, 1000));
+        zergling.setHitPoints(10);
+        builder.setMinerals(builder.getSelf(), 0);
+        data.setIsVisible(31, 31, false);
+        builder.nextFrame();
+        zergling.destroy();
+        builder.nextFrame();
+
+        assertThat(snapshot.getFrameCount()).isEqualTo(1);
+        assertThat(snapshot.getSelfId()).isEqualTo(builder.getSelf());
+        assertThat(snapshot.getUnitCount()).isEqualTo(unitCount);
+        int m = snapshot.indexOfUnit(marine.getId());
+        int z = snapshot.indexOfUnit(zergling.getId());
+        assertThat(snapshot.getUnitType(m)).isEqualTo(UnitType.Terran_Marine);
+        assertThat(snapshot.getUnitPosition(m)).isEqualTo(new Position(1000, 1000));
+        assertThat(snapshot.getUnitOrder(m)).isEqualTo(Order.AttackUnit);
+        assertThat(snapshot.getUnitTargetId(m)).isEqualTo(zergling.getId());
+        assertThat(snapshot.isUnitAttacking(m)).isTrue();
+        assertThat(snapshot.isUnitVisible(m)).isTrue();
+        assertThat(snapshot.getUnitPlayerId(z)).isEqualTo(builder.getEnemy());
+        assertThat(snapshot.getUnitHitPoints(z)).isEqualTo(UnitType.Zerg_Zergling.maxHitPoints());
+        assertThat(snapshot.unitExists(z)).isTrue();
+        assertThat(snapshot.indexOfUnit(1000)).isEqualTo(-1);
+
+        assertThat(snapshot.getPlayerMinerals(builder.getSelf())).isEqualTo(150);
+        assertThat(snapshot.isPlayerEnemy(builder.getEnemy())).isTrue();
+        assertThat(snapshot.isPlayerNeutral(builder.getNeutral())).isTrue();
+        assertThat(snapshot.getPlayerRace(builder.getEnemy())).isEqualTo(game.enemy().getRace());
+
+        assertThat(snapshot.getBulletCount()).isEqualTo(1);
+        assertThat(snapshot.getBulletType(0)).isEqualTo(BulletType.Gauss_Rifle_Hit);
+        assertThat(snapshot.getBulletSourceId(0)).isEqualTo(marine.getId());
+        assertThat(snapshot.getBulletTargetId(0)).isEqualTo(-1);
+
+        assertThat(snapshot.isVisible(31, 31)).isTrue();
+        assertThat(snapshot.isExplored(31, 31)).isTrue();
+        assertThat(snapshot.hasCreep(31, 32)).isTrue();
+        assertThat(snapshot.hasCreep(31, 31)).isFalse();
+        assertThat(snapshot.isVisible(-1, 0)).isFalse();
+        assertThat(snapshot.isVisible(snapshot.mapWidth(), 0)).isFalse();
+    }
+
+    @Test
+    public void snapshotIsReadFromAnotherThread() throws Exception {
+        GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+        for (int i = 0; i < 50; ++i) {
+            builder.addUnit(UnitType.Terran_Marine, builder.getSelf(), new Position(1000 + i * 10, 1000));
+        }
+        Game game = builder.start(new DefaultBWListener());
+        builder.nextFrame();
+
+        GameSnapshot snapshot = game.snapshot();
+        int expected = game.self().getUnits().stream().mapToInt(Unit::getHitPoints).sum();
+        CompletableFuture<Integer> hitPoints = CompletableFuture.supplyAsync(() -> {
+            int sum = 0;
+            for (int i = 0; i < snapshot.getUnitCount(); ++i) {
+                if (snapshot.getUnitPlayerId(i) == snapshot.getSelfId()) {
+                    sum += snapshot.getUnitHitPoints(i);
+                }
+            }
+            return sum;
+        });
+        builder.nextFrame();
+        assertThat(hitPoints.get()).isEqualTo(expected);
+    }
+}
@@ -4,9 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.FromDataPoints;
 import org.junit.experimental.theories.Theories;
@@ -82,4 +84,39 @@ public class GameTest {
         // THEN
         assertThat(unitsInRectangle).doesNotContain(dummy);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void cachedTechTreeAnswersMatchUncachedChecks() throws IOException {
+        Client client = BWEMTest.initClient("(4)Fighting Spirit.scx");
+        Game game = new Game(client);
+        game.init();
+        ClientData.PlayerData self = client.gameData().getPlayers(game.self().getID());
+
+        assertTechTreeConsistent(game);
+        assertThat(game.getMakeableUnitTypes()).isNotEmpty();
+
+        // Same frame: resources change, but the answers only refresh after a command or a new frame
+        self.setMinerals(10000);
+        self.setGas(10000);
+        game.addUnitCommand(0, 0, 0, 0, 0, 0);
+        assertTechTreeConsistent(game);
+
+        UnitType depot = game.self().getRace().getResourceDepot();
+        self.setCompletedUnitCount(depot.id, 0);
+        client.gameData().setFrameCount(game.getFrameCount() + 1);
+        assertTechTreeConsistent(game);
+    }
+
+    private static void assertTechTreeConsistent(Game game) {
+        for (UnitType type : UnitType.values()) {
+            assertThat(game.canMake(type)).as(type.toString()).isEqualTo(game.canMakeUncached(type, null));
+            assertThat(game.getMakeableUnitTypes().contains(type)).isEqualTo(game.canMake(type));
+        }
+        for (TechType type : TechType.values()) {
+            assertThat(game.canResearch(type)).as(type.toString()).isEqualTo(game.canResearchUncached(type, null, true));
+        }
+        for (UpgradeType type : UpgradeType.values()) {
+            assertThat(game.canUpgrade(type)).as(type.toString()).isEqualTo(game.canUpgradeUncached(type, null, true));
+        }
+    }
+}
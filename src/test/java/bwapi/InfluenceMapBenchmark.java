@@ -0,0 +1,105 @@
+package bwapi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link InfluenceMap} of {@link #ENEMIES} enemy units around the center of Destination, built
+ * with {@link GameDataBuilder}: the time to update it when nothing changed, when every unit moved
+ * to another cell, and to rebuild it from scratch, and the time of its queries.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InfluenceMapBenchmark {
+    static final int ENEMIES = 200;
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({"8", "32"})
+        int cellSize;
+
+        GameDataBuilder builder;
+        Game game;
+        InfluenceMap map;
+        final List<GameDataBuilder.UnitBuilder> units = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            builder = GameDataBuilder.fromMap("(2)Destination.scx");
+            UnitType[] types = {UnitType.Zerg_Hydralisk, UnitType.Zerg_Zergling, UnitType.Zerg_Mutalisk,
+                    UnitType.Zerg_Lurker, UnitType.Zerg_Sunken_Colony, UnitType.Zerg_Spore_Colony};
+            for (int i = 0; i < ENEMIES; ++i) {
+                units.add(builder.addUnit(types[i % types.length], builder.getEnemy(),
+                        new Position(1000 + i % 20 * 48, 1500 + i / 20 * 48)));
+            }
+            game = builder.start(new DefaultBWListener());
+            builder.nextFrame();
+            map = new InfluenceMap(game, cellSize);
+            map.update();
+        }
+
+        Position nextPosition() {
+            next = (next + 1) % ENEMIES;
+            return game.getUnit(units.get(next).getId()).getPosition();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MovedState extends MapState {
+        int step = 1;
+
+        // Moves every unit to the next cell, back and forth.
+        @Setup(Level.Invocation)
+        public void moveUnits() {
+            step = -step;
+            for (GameDataBuilder.UnitBuilder unit : units) {
+                Position position = game.getUnit(unit.getId()).getPosition();
+                unit.setPosition(new Position(position.getX() + step * cellSize, position.getY()));
+            }
+            builder.nextFrame();
+        }
+    }
+
+    @Benchmark
+    public InfluenceMap updateUnchanged(MapState s) {
+        s.map.update();
+        return s.map;
+    }
+
+    @Benchmark
+    public InfluenceMap updateAllMoved(MovedState s) {
+        s.map.update();
+        return s.map;
+    }
+
+    @Benchmark
+    public InfluenceMap rebuild(MapState s) {
+        s.map.clear();
+        s.map.update();
+        return s.map;
+    }
+
+    @Benchmark
+    public double getGroundThreat(MapState s) {
+        return s.map.getGroundThreat(s.nextPosition());
+    }
+
+    @Benchmark
+    public double getMaxGroundThreat(MapState s) {
+        Position position = s.nextPosition();
+        return s.map.getMaxGroundThreat(position, position.add(new Position(640, 320)));
+    }
+
+    @Benchmark
+    public Position getSafestGroundPosition(MapState s) {
+        return s.map.getSafestGroundPosition(s.nextPosition(), 256);
+    }
+}
@@ -0,0 +1,92 @@
+package bwapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class InfluenceMapTest {
+    private static final double HYDRALISK_DAMAGE_PER_FRAME = 10.0 / 15;
+
+    @Test
+    public void unitsThreatenTheCellsWithinReach() {
+        GameDataBuilder builder = GameDataBuilder.empty(64, 64);
+        builder.addUnit(UnitType.Zerg_Hydralisk, builder.getEnemy(), new Position(1008, 1008));
+        builder.addUnit(UnitType.Zerg_Zergling, builder.getEnemy(), new Position(1500, 1500));
+        builder.addUnit(UnitType.Terran_Marine, builder.getSelf(), new Position(500, 500));
+        Game game = builder.start(new DefaultBWListener());
+        builder.nextFrame();
+        InfluenceMap map = new InfluenceMap(game, 32);
+        map.update();
+
+        assertThat(map.getGroundThreat(new Position(1008, 1008))).isCloseTo(HYDRALISK_DAMAGE_PER_FRAME, within(0.01));
+        assertThat(map.getAirThreat(new Position(1008 + 128, 1008))).isCloseTo(HYDRALISK_DAMAGE_PER_FRAME, within(0.01));
+        assertThat(map.getGroundThreat(new Position(1008 + 200, 1008))).isZero();
+        assertThat(map.getAirThreat(new Position(1500, 1500))).isZero();
+        assertThat(map.getGroundThreat(new Position(1500, 1500))).isGreaterThan(0);
+        assertThat(map.getGroundThreat(new Position(500, 500))).isZero();
+        assertThat(map.getGroundThreat(game.self(), new Position(500, 500))).isGreaterThan(0);
+        assertThat(map.getGroundThreat(new Position(-100, 5000))).isZero();
+
+        assertThat(map.getMaxGroundThreat(new Position(800, 1008), new Position(1200, 1008)))
+                .isCloseTo(HYDRALISK_DAMAGE_PER_FRAME, within(0.01));
+        assertThat(map.getMaxAirThreat(new Position(800, 1300), new Position(1200, 1300))).isZero();
+
+        Position safest = map.getSafestGroundPosition(new Position(1008, 1008), 320);
+        assertThat(map.getGroundThreat(safest)).isZero();
+        assertThat(safest.getApproxDistance(new Position(1008, 1008))).isLessThanOrEqualTo(320);
+        assertThat(map.getSafestAirPosition(new Position(100_000, 0), 64)).isEqualTo(Position.Invalid);
+    }
+
+    @Test
+    public void incrementalUpdatesMatchARebuild() {
+        GameDataBuilder builder = GameDataBuilder.empty(64, 64);
+        List<GameDataBuilder.UnitBuilder> units = new ArrayList<>();
+        UnitType[] types = {UnitType.Zerg_Hydralisk, UnitType.Zerg_Zergling, UnitType.Zerg_Mutalisk,
+                UnitType.Terran_Siege_Tank_Siege_Mode, UnitType.Terran_Goliath};
+        for (int i = 0; i < 20; ++i) {
+            units.add(builder.addUnit(types[i % types.length], builder.getEnemy(),
+                    new Position(200 + i * 83 % 1500, 300 + i * 131 % 1400)));
+        }
+        Game game = builder.start(new DefaultBWListener());
+        builder.nextFrame();
+        InfluenceMap walkMap = new InfluenceMap(game, 8);
+        InfluenceMap tileMap = new InfluenceMap(game, 32);
+
+        for (int frame = 0; frame < 8; ++frame) {
+            for (int i = frame % 3; i < units.size(); i += 3) {
+                Unit unit = game.getUnit(units.get(i).getId());
+                if (unit.exists()) {
+                    units.get(i).setPosition(unit.getPosition().add(new Position(17 * frame, -9 * frame)));
+                }
+            }
+            if (frame == 3) {
+                units.get(5).destroy();
+            }
+            if (frame == 5) {
+                builder.getClient().gameData().getPlayers(builder.getEnemy())
+                        .setUpgradeLevel(UpgradeType.Grooved_Spines.id, 1);
+            }
+            builder.nextFrame();
+            walkMap.update();
+            tileMap.update();
+            assertSameThreats(game, walkMap, 8);
+            assertSameThreats(game, tileMap, 32);
+        }
+    }
+
+    private static void assertSameThreats(Game game, InfluenceMap map, int cellSize) {
+        InfluenceMap rebuilt = new InfluenceMap(game, cellSize);
+        rebuilt.update();
+        for (int y = cellSize / 2; y < game.mapHeight() * 32; y += cellSize) {
+            for (int x = cellSize / 2; x < game.mapWidth() * 32; x += cellSize) {
+                Position position = new Position(x, y);
+                assertThat(map.getGroundThreat(position)).isEqualTo(rebuilt.getGroundThreat(position));
+                assertThat(map.getAirThreat(position)).isEqualTo(rebuilt.getAirThreat(position));
+            }
+        }
+    }
+}
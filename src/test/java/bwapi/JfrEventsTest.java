@@ -0,0 +1,76 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.Base;
+import bwem.InitializationPhase;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JfrEventsTest {
+    private static final List<String> EVENTS = Arrays.asList("bwapi.Frame", "bwapi.ListenerCallback",
+            "bwapi.BufferOverflow", "bwapi.BuildLocationSearch", "bwem.InitializationPhase", "bwem.PathQuery");
+
+    @Test
+    public void recordingShowsTheFramesAndTheExpensiveCalls() throws IOException {
+        Assume.assumeTrue(JfrEvents.AVAILABLE && FlightRecorder.isAvailable());
+        final List<RecordedEvent> events;
+        final Path file = Files.createTempFile("jbwapi", ".jfr");
+        try (Recording recording = new Recording()) {
+            EVENTS.forEach(name -> recording.enable(name).withoutThreshold());
+            recording.start();
+
+            GameDataBuilder builder = GameDataBuilder.fromMap("(2)Destination.scx");
+            Game game = builder.start(new DefaultBWListener());
+            BWEM bwem = new BWEM(game);
+            bwem.initialize();
+            builder.nextFrame();
+            builder.nextFrame();
+            List<Base> starts = bwem.getMap().getBases().stream().filter(Base::isStartingLocation)
+                    .collect(Collectors.toList());
+            bwem.getMap().getPathLength(starts.get(0).getCenter(), starts.get(1).getCenter());
+            game.getBuildLocation(UnitType.Terran_Supply_Depot, starts.get(0).getLocation());
+            builder.getClient().gameData().setCommandCount(Client.MAX_COUNT);
+            assertThatThrownBy(() -> builder.getClient().addCommand()).isInstanceOf(IllegalStateException.class);
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        assertThat(named(events, "bwapi.Frame").stream().map(e -> e.getInt("frame")))
+                .containsExactly(0, 1, 2);
+        assertThat(named(events, "bwapi.ListenerCallback").stream().map(e -> e.getString("event")))
+                .contains("MatchStart", "MatchFrame", "UnitCreate");
+        assertThat(named(events, "bwapi.BuildLocationSearch")).hasOnlyOneElementSatisfying(e -> {
+            assertThat(e.getString("unitType")).isEqualTo("Terran_Supply_Depot");
+            assertThat(e.getBoolean("found")).isTrue();
+        });
+        assertThat(named(events, "bwapi.BufferOverflow")).hasOnlyOneElementSatisfying(e ->
+                assertThat(e.getString("buffer")).isEqualTo("commands"));
+        assertThat(named(events, "bwem.InitializationPhase").stream().map(e -> e.getString("phase")))
+                .contains(InitializationPhase.TERRAIN.name(), InitializationPhase.BASES.name(),
+                        InitializationPhase.STARTING_LOCATIONS.name());
+        assertThat(named(events, "bwem.PathQuery")).hasOnlyOneElementSatisfying(e ->
+                assertThat(e.getInt("length")).isPositive());
+    }
+
+    private static List<RecordedEvent> named(final List<RecordedEvent> events, final String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
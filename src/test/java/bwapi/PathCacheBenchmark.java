@@ -0,0 +1,60 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.BWMap;
+import bwem.Base;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries per second of {@link BWMap#getPathLength} between every pair of bases of a map, with and
+ * without the path cache.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PathCacheBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({"(2)Destination.scx", "(4)Electric Circuit.scx", "(4)Fighting Spirit.scx"})
+        String map;
+
+        @Param({"0", "1024"})
+        int cacheSize;
+
+        BWMap bwMap;
+        final List<Position[]> queries = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            BWEM bwem = new BWEM(BWEMTest.initGame(map));
+            bwem.initialize();
+            bwMap = bwem.getMap();
+            bwMap.setPathCacheSize(cacheSize);
+            for (Base a : bwMap.getBases()) {
+                for (Base b : bwMap.getBases()) {
+                    queries.add(new Position[]{a.getCenter(), b.getCenter()});
+                }
+            }
+        }
+
+        Position[] nextQuery() {
+            next = (next + 1) % queries.size();
+            return queries.get(next);
+        }
+    }
+
+    @Benchmark
+    public int getPathLength(MapState s) {
+        Position[] query = s.nextQuery();
+        return s.bwMap.getPathLength(query[0], query[1]);
+    }
+}
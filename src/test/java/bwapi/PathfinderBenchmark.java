@@ -0,0 +1,78 @@
+package bwapi;
+
+import bwem.BWEM;
+import bwem.Base;
+import bwem.Pathfinder;
+import bwem.TilePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paths per second of {@link Pathfinder} between every pair of bases of each map.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PathfinderBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({
+                "(2)Benzene.scx", "(2)Destination.scx", "(2)Heartbreak Ridge.scx", "(3)Neo Moon Glaive.scx",
+                "(3)Tau Cross.scx", "(4)Andromeda.scx", "(4)Circuit Breaker.scx", "(4)Electric Circuit.scx",
+                "(4)Empire of the Sun.scm", "(4)Fighting Spirit.scx", "(4)Icarus.scm", "(4)Jade.scx",
+                "(4)La Mancha1.1.scx", "(4)Python.scx", "(4)Roadrunner.scx"
+        })
+        String map;
+
+        Pathfinder hierarchical;
+        Pathfinder exact;
+        final List<TilePosition[]> queries = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            BWEM bwem = new BWEM(BWEMTest.initGame(map));
+            bwem.initialize();
+            hierarchical = new Pathfinder(bwem.getMap());
+            exact = new Pathfinder(bwem.getMap());
+            exact.setHierarchical(false);
+            for (Base a : bwem.getMap().getBases()) {
+                for (Base b : bwem.getMap().getBases()) {
+                    if (a != b) {
+                        queries.add(new TilePosition[]{a.getLocation(), b.getLocation()});
+                    }
+                }
+            }
+        }
+
+        TilePosition[] nextQuery() {
+            next = (next + 1) % queries.size();
+            return queries.get(next);
+        }
+    }
+
+    @Benchmark
+    public TilePath hierarchical(MapState s) {
+        TilePosition[] query = s.nextQuery();
+        return s.hierarchical.findPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public TilePath exact(MapState s) {
+        TilePosition[] query = s.nextQuery();
+        return s.exact.findPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public TilePath hierarchicalUltralisk(MapState s) {
+        TilePosition[] query = s.nextQuery();
+        return s.hierarchical.findPath(query[0].toPosition(), query[1].toPosition(), UnitType.Zerg_Ultralisk);
+    }
+}
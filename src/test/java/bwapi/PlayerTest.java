@@ -2,6 +2,9 @@ package bwapi;
 
 import org.junit.Test;
 
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -18,4 +21,40 @@ public class PlayerTest {
 
         assertFalse(self.isEnemy(neutral));
     }
+
+    @Test
+    public void statTablesFollowUpgradeLevelChanges() throws IOException {
+        Client client = BWEMTest.initClient("(2)Benzene.scx");
+        Game game = new Game(client);
+        game.init();
+        Player self = game.self();
+        ClientData.PlayerData playerData = client.gameData().getPlayers(self.getID());
+
+        assertEquals(6, self.damage(WeaponType.Gauss_Rifle));
+        assertEquals(128, self.weaponMaxRange(WeaponType.Gauss_Rifle));
+        assertEquals(1, self.armor(UnitType.Zerg_Ultralisk));
+
+        playerData.setUpgradeLevel(UpgradeType.Terran_Infantry_Weapons.id, 2);
+        playerData.setUpgradeLevel(UpgradeType.U_238_Shells.id, 1);
+        playerData.setUpgradeLevel(UpgradeType.Chitinous_Plating.id, 1);
+        // Tables are only revalidated once per frame
+        assertEquals(6, self.damage(WeaponType.Gauss_Rifle));
+
+        client.gameData().setFrameCount(game.getFrameCount() + 1);
+        assertEquals(8, self.damage(WeaponType.Gauss_Rifle));
+        assertEquals(160, self.weaponMaxRange(WeaponType.Gauss_Rifle));
+        assertEquals(3, self.armor(UnitType.Zerg_Ultralisk));
+
+        for (WeaponType weapon : WeaponType.values()) {
+            assertEquals(self.computeDamage(weapon), self.damage(weapon));
+            assertEquals(self.computeWeaponMaxRange(weapon), self.weaponMaxRange(weapon));
+        }
+        for (UnitType unit : UnitType.values()) {
+            assertEquals(self.computeArmor(unit), self.armor(unit));
+            assertEquals(self.computeSightRange(unit), self.sightRange(unit));
+            assertEquals(self.computeMaxEnergy(unit), self.maxEnergy(unit));
+            assertEquals(self.computeWeaponDamageCooldown(unit), self.weaponDamageCooldown(unit));
+            assertEquals(self.computeTopSpeed(unit), self.topSpeed(unit), 0);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package bwapi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(3)
+public class UnitFieldCacheBenchmark {
+    @State(Scope.Thread)
+    public static class GameState {
+        @Param({"false", "true"})
+        boolean cached;
+
+        Game game;
+        List<Unit> units;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            game = BWEMTest.initGame("(4)Fighting Spirit.scx");
+            game.setUnitFieldCache(cached);
+            units = game.getAllUnits();
+        }
+    }
+
+    @Benchmark
+    public int readHotFields(GameState s) {
+        int sum = 0;
+        for (Unit u : s.units) {
+            sum += u.getHitPoints() + u.getShields() + u.getEnergy() + u.getResources();
+            sum += u.getType().id + u.getOrder().id;
+            if (u.exists() && u.isCompleted() && !u.isMoving() && !u.isAttacking()) {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int pairwiseScoring(GameState s) {
+        int sum = 0;
+        for (Unit a : s.units) {
+            for (Unit b : s.units) {
+                if (a.getPlayer() != b.getPlayer() && b.exists()) {
+                    sum += b.getHitPoints() + b.getShields() - a.getGroundWeaponCooldown();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void fillCache(GameState s) {
+        s.game.onFrame(0);
+    }
+}
@@ -1,12 +1,15 @@
 package bwapi;
 
 import org.junit.Test;
+
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -64,6 +67,43 @@ public class UnitTest {
         }
     }
 
+    @Test
+    public void unitFieldCacheServesSameValuesUntilNextFrame() throws IOException {
+        Client client = BWEMTest.initClient("(2)Destination.scx");
+        Game game = new Game(client);
+        game.init();
+        game.setLatCom(false);
+        List<Unit> units = game.getAllUnits();
+        List<String> direct = units.stream().map(UnitTest::describe).collect(Collectors.toList());
+
+        game.setUnitFieldCache(true);
+        assertEquals(direct, units.stream().map(UnitTest::describe).collect(Collectors.toList()));
+
+        // Shared memory changes are only picked up once the next frame is processed
+        Unit mineral = game.getStaticMinerals().get(0);
+        int hitPoints = mineral.getHitPoints();
+        client.gameData().getUnits(mineral.getID()).setHitPoints(hitPoints + 1);
+        assertEquals(hitPoints, mineral.getHitPoints());
+
+        client.gameData().setFrameCount(game.getFrameCount() + 1);
+        game.invalidateUnitFieldCache(game.getFrameCount());
+        assertEquals(hitPoints + 1, mineral.getHitPoints());
+        game.onFrame(game.getFrameCount());
+        assertEquals(hitPoints + 1, mineral.getHitPoints());
+
+        game.setUnitFieldCache(false);
+        assertFalse(game.isUnitFieldCacheEnabled());
+        assertEquals(hitPoints + 1, mineral.getHitPoints());
+    }
+
+    private static String describe(Unit u) {
+        return u.exists() + " " + u.getPlayer() + " " + u.getType() + " " + u.getHitPoints() + " " + u.getShields() + " " +
+                u.getEnergy() + " " + u.getResources() + " " + u.getOrder() + " " + u.getGroundWeaponCooldown() + " " +
+                u.getAirWeaponCooldown() + " " + u.isCompleted() + " " + u.isIdle() + " " + u.isMoving() + " " +
+                u.isAttacking() + " " + u.isBurrowed() + " " + u.isCloaked() + " " + u.isDetected() + " " +
+                u.isLifted() + " " + u.isMorphing() + " " + u.isConstructing() + " " + u.isTraining() + " " + u.isPowered();
+    }
+
     private Unit createUnit(UnitType type, Position position) {
         Unit u = mock(Unit.class);
         when(u.getType()).thenReturn(type);
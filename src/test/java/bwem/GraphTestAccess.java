@@ -0,0 +1,16 @@
+package bwem;
+
+/**
+ * Gives the tests of the other packages access to the {@link Graph} of a {@link BWMap}.
+ */
+public final class GraphTestAccess {
+    private GraphTestAccess() {
+    }
+
+    /**
+     * Computes the distances between the ChokePoints of map from scratch, as the analysis does.
+     */
+    public static void computeChokePointDistanceMatrix(final BWMap map) {
+        map.getGraph().computeChokePointDistanceMatrix();
+    }
+}